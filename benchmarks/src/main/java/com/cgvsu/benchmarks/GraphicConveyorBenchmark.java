@@ -0,0 +1,40 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.render_engine.GraphicConveyor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Построение матриц вида и проекции, которое выполняется каждый кадр
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphicConveyorBenchmark {
+
+    private final Vector3f eye = new Vector3f(0, 0, 100);
+    private final Vector3f target = new Vector3f(0, 0, 0);
+    private float aspectRatio = 16.0F / 9.0F;
+
+    @Benchmark
+    public Matrix4f lookAt() {
+        return GraphicConveyor.lookAt(eye, target);
+    }
+
+    @Benchmark
+    public Matrix4f perspective() {
+        return GraphicConveyor.perspective(1.0F, aspectRatio, 0.01F, 100);
+    }
+}
@@ -0,0 +1,100 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.MeshBuilder;
+
+import java.util.Random;
+
+// Синтетические модели для бенчмарков: примерно faces полигонов заданной формы
+public final class MeshGenerators {
+
+    private MeshGenerators() {
+    }
+
+    public static Mesh generate(String shape, int faces) {
+        return switch (shape) {
+            case "grid" -> grid(faces);
+            case "sphere" -> sphere(faces);
+            case "soup" -> soup(faces, 42);
+            default -> throw new IllegalArgumentException("Unknown shape: " + shape);
+        };
+    }
+
+    // Плоская сетка из четырёхугольников со стороной около sqrt(faces)
+    public static Mesh grid(int faces) {
+        final int side = Math.max(1, (int) Math.ceil(Math.sqrt(faces)));
+        final MeshBuilder builder = new MeshBuilder();
+        for (int row = 0; row <= side; ++row) {
+            for (int column = 0; column <= side; ++column) {
+                builder.addVertex(column, 0, row);
+            }
+        }
+        for (int row = 0; row < side; ++row) {
+            for (int column = 0; column < side; ++column) {
+                final int corner = row * (side + 1) + column;
+                builder.addPolygonVertex(corner, Mesh.NO_INDEX, Mesh.NO_INDEX);
+                builder.addPolygonVertex(corner + 1, Mesh.NO_INDEX, Mesh.NO_INDEX);
+                builder.addPolygonVertex(corner + side + 2, Mesh.NO_INDEX, Mesh.NO_INDEX);
+                builder.addPolygonVertex(corner + side + 1, Mesh.NO_INDEX, Mesh.NO_INDEX);
+                builder.endPolygon();
+            }
+        }
+        return builder.build();
+    }
+
+    // UV-сфера из треугольников с нормалями: замкнутая поверхность, каждая вершина общая для шести граней
+    public static Mesh sphere(int faces) {
+        final int slices = Math.max(3, (int) Math.ceil(Math.sqrt(faces)));
+        final int stacks = Math.max(2, (faces + 2 * slices - 1) / (2 * slices));
+        final MeshBuilder builder = new MeshBuilder();
+        for (int stack = 0; stack <= stacks; ++stack) {
+            final double theta = Math.PI * stack / stacks;
+            for (int slice = 0; slice < slices; ++slice) {
+                final double phi = 2 * Math.PI * slice / slices;
+                final float x = (float) (Math.sin(theta) * Math.cos(phi));
+                final float y = (float) Math.cos(theta);
+                final float z = (float) (Math.sin(theta) * Math.sin(phi));
+                builder.addVertex(x, y, z);
+                builder.addNormal(x, y, z);
+            }
+        }
+        for (int stack = 0; stack < stacks; ++stack) {
+            for (int slice = 0; slice < slices; ++slice) {
+                final int a = stack * slices + slice;
+                final int b = stack * slices + (slice + 1) % slices;
+                final int c = a + slices;
+                final int d = b + slices;
+                addTriangle(builder, a, c, b);
+                addTriangle(builder, b, c, d);
+            }
+        }
+        return builder.build();
+    }
+
+    // Случайный набор многоугольников от 3 до 8 вершин без общих рёбер и без порядка в памяти
+    public static Mesh soup(int faces, long seed) {
+        final Random random = new Random(seed);
+        final int vertexCount = Math.max(8, 2 * faces);
+        final MeshBuilder builder = new MeshBuilder();
+        for (int i = 0; i < vertexCount; ++i) {
+            builder.addVertex(random.nextFloat() * 100 - 50, random.nextFloat() * 100 - 50, random.nextFloat() * 100 - 50);
+        }
+        for (int face = 0; face < faces; ++face) {
+            final int size = 3 + random.nextInt(6);
+            final int first = random.nextInt(vertexCount - size);
+            // Вершины берутся подряд от случайной, поэтому в многоугольнике нет повторов
+            for (int i = 0; i < size; ++i) {
+                builder.addPolygonVertex(first + i, Mesh.NO_INDEX, Mesh.NO_INDEX);
+            }
+            builder.endPolygon();
+        }
+        return builder.build();
+    }
+
+    private static void addTriangle(MeshBuilder builder, int a, int b, int c) {
+        builder.addPolygonVertex(a, Mesh.NO_INDEX, a);
+        builder.addPolygonVertex(b, Mesh.NO_INDEX, b);
+        builder.addPolygonVertex(c, Mesh.NO_INDEX, c);
+        builder.endPolygon();
+    }
+}
@@ -0,0 +1,202 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.LodChain;
+import com.cgvsu.model.MeshEdges;
+import com.cgvsu.model.MeshTriangulation;
+import com.cgvsu.model.Model;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.FrameBuffer;
+import com.cgvsu.render_engine.GraphicConveyor;
+import com.cgvsu.render_engine.ParallelRenderer;
+import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderMode;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Кадр отрисовки без окна: Canvas не показывается на экране, поэтому команды рисования только
+// записываются в его буфер, а clearRect на весь холст этот буфер сбрасывает
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RenderBenchmark {
+
+    private static final int WIDTH = 1600;
+    private static final int HEIGHT = 870;
+
+    @Param({"grid", "sphere", "soup"})
+    public String shape;
+
+    @Param({"1000", "100000", "1000000"})
+    public int faces;
+
+    private Model model;
+    private Camera camera;
+    private Camera zoomedCamera;
+    private Camera distantCamera;
+    private Model lodModel;
+    private GraphicsContext graphicsContext;
+    private FrameBuffer frameBuffer;
+    private float[] screenVertices;
+    private ParallelRenderer parallelRenderer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        model = new Model(MeshGenerators.generate(shape, faces));
+        camera = new Camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 1.0F, 1, 0.01F, 100);
+        camera.setAspectRatio((float) WIDTH / HEIGHT);
+        // Камера вблизи середины модели: в кадр попадает её малая часть, остальное отсекается
+        final float[] bounds = model.mesh.getBounds().bounds;
+        final Vector3f center = new Vector3f(
+                (bounds[0] + bounds[3]) / 2, (bounds[1] + bounds[4]) / 2, (bounds[2] + bounds[5]) / 2);
+        zoomedCamera = new Camera(
+                new Vector3f(center.x, center.y + 5, center.z - 10), center, 1.0F, 1, 0.01F, 100);
+        zoomedCamera.setAspectRatio((float) WIDTH / HEIGHT);
+        // Камера вдали от модели: модель занимает на экране пару сотен пикселей
+        final float size = Math.max(bounds[3] - bounds[0], Math.max(bounds[4] - bounds[1], bounds[5] - bounds[2]));
+        distantCamera = new Camera(
+                new Vector3f(center.x, center.y + size, center.z - 10 * size), center, 1.0F, 1, 0.01F, 100);
+        distantCamera.setAspectRatio((float) WIDTH / HEIGHT);
+        // Та же модель с уровнями детализации; уровни хранятся в Mesh, поэтому у неё своя Mesh с общими массивами
+        lodModel = new Model(model.mesh.withVertices(model.mesh.vertices, model.mesh.normals));
+        lodModel.setLodChain(LodChain.build(lodModel.mesh, lodModel.mesh.getBounds()));
+        graphicsContext = new Canvas(WIDTH, HEIGHT).getGraphicsContext2D();
+        frameBuffer = new FrameBuffer(WIDTH, HEIGHT);
+        screenVertices = new float[3 * model.mesh.getVertexCount()];
+        // Список рёбер и ограничивающие параллелепипеды строятся заранее, как при загрузке модели
+        model.mesh.getEdges();
+        parallelRenderer = new ParallelRenderer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parallelRenderer.shutdown();
+    }
+
+    // Преобразование всех вершин модели в экранные координаты по одной, с объектами на каждую вершину
+    @Benchmark
+    public void transformVertices(Blackhole blackhole) {
+        final Matrix4f modelViewProjectionMatrix = modelViewProjectionMatrix();
+        final float[] vertices = model.mesh.vertices;
+        for (int i = 0; i < vertices.length; i += 3) {
+            final Vector3f vertex = new Vector3f(vertices[i], vertices[i + 1], vertices[i + 2]);
+            final Vector2f point = GraphicConveyor.vertexToPoint(
+                    GraphicConveyor.multiplyMatrix4ByVector3(modelViewProjectionMatrix, vertex), WIDTH, HEIGHT);
+            blackhole.consume(point);
+        }
+    }
+
+    // То же одним проходом в переиспользуемый массив, как в RenderEngine
+    @Benchmark
+    public float[] projectVertices() {
+        GraphicConveyor.projectVertices(
+                modelViewProjectionMatrix(), model.mesh.vertices, model.mesh.getVertexCount(), WIDTH, HEIGHT, screenVertices);
+        return screenVertices;
+    }
+
+    private Matrix4f modelViewProjectionMatrix() {
+        final Matrix4f modelViewProjectionMatrix = new Matrix4f(GraphicConveyor.rotateScaleTranslate());
+        modelViewProjectionMatrix.mul(GraphicConveyor.lookAt(camera.getPosition(), camera.getTarget()));
+        modelViewProjectionMatrix.mul(GraphicConveyor.perspective(1.0F, (float) WIDTH / HEIGHT, 0.01F, 100));
+        return modelViewProjectionMatrix;
+    }
+
+    // Построение списка уникальных рёбер
+    @Benchmark
+    public MeshEdges buildEdges() {
+        return MeshEdges.build(model.mesh);
+    }
+
+    // Разбиение полигонов на треугольники
+    @Benchmark
+    public MeshTriangulation buildTriangulation() {
+        return MeshTriangulation.build(model.mesh);
+    }
+
+    // Полный кадр: очистка холста и отрисовка модели
+    @Benchmark
+    public GraphicsContext renderFrame() {
+        graphicsContext.clearRect(0, 0, WIDTH, HEIGHT);
+        RenderEngine.render(graphicsContext, camera, model, WIDTH, HEIGHT);
+        return graphicsContext;
+    }
+
+    // Тот же кадр через буфер кадра: растеризация рёбер в массив пикселей (без вывода на экран)
+    @Benchmark
+    public FrameBuffer renderFrameBuffer() {
+        frameBuffer.clear(0);
+        RenderEngine.render(frameBuffer, camera, model);
+        return frameBuffer;
+    }
+
+    // Тот же кадр многопоточной растеризацией плитками; потоков столько, сколько процессоров
+    @Benchmark
+    public FrameBuffer renderTiled() {
+        frameBuffer.clear(0);
+        parallelRenderer.render(frameBuffer, camera, model);
+        return frameBuffer;
+    }
+
+    // Кадр в буфер с далёкой камеры: исходная модель и подходящий уровень детализации
+    @Benchmark
+    public FrameBuffer renderDistant() {
+        frameBuffer.clear(0);
+        RenderEngine.render(frameBuffer, distantCamera, model);
+        return frameBuffer;
+    }
+
+    @Benchmark
+    public FrameBuffer renderDistantLod() {
+        frameBuffer.clear(0);
+        RenderEngine.render(frameBuffer, distantCamera, lodModel);
+        return frameBuffer;
+    }
+
+    // Кадр в буфер камерой, приближенной к середине модели: невидимые группы рёбер отбрасываются
+    @Benchmark
+    public FrameBuffer renderZoomed() {
+        frameBuffer.clear(0);
+        RenderEngine.render(frameBuffer, zoomedCamera, model);
+        return frameBuffer;
+    }
+
+    // Тот же кадр закрашенными гранями с буфером глубины и каркасом без невидимых линий
+    @Benchmark
+    public FrameBuffer renderSolid() {
+        return renderInMode(RenderMode.SOLID);
+    }
+
+    @Benchmark
+    public FrameBuffer renderHiddenLine() {
+        return renderInMode(RenderMode.HIDDEN_LINE);
+    }
+
+    private FrameBuffer renderInMode(RenderMode mode) {
+        frameBuffer.clear(0);
+        RenderEngine.setRenderMode(mode);
+        RenderEngine.render(frameBuffer, camera, model);
+        RenderEngine.setRenderMode(RenderMode.WIREFRAME);
+        return frameBuffer;
+    }
+}
@@ -0,0 +1,113 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Scene;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.FrameBuffer;
+import com.cgvsu.render_engine.RenderEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сцена из множества небольших моделей, расставленных кубом; камера видит малую их часть
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SceneBenchmark {
+
+    private static final int WIDTH = 1600;
+    private static final int HEIGHT = 870;
+
+    @Param({"1000", "10000"})
+    public int models;
+
+    // Модели — экземпляры одной Mesh с разным положением, а не отдельные копии вершин
+    @Param({"false", "true"})
+    public boolean instanced;
+
+    private Scene scene;
+    private Camera camera;
+    private FrameBuffer frameBuffer;
+    private final List<Model> visibleModels = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scene = new Scene();
+        final int side = (int) Math.ceil(Math.cbrt(models));
+        final Mesh shared = MeshGenerators.sphere(200);
+        shared.getBounds();
+        for (int i = 0; i < models; ++i) {
+            final float dx = 10 * (i % side), dy = 10 * (i / side % side), dz = 10 * (i / side / side);
+            if (instanced) {
+                // Экземпляры одной Mesh, расставленные положением модели
+                final Model model = new Model(shared);
+                model.transform.translate(dx, dy, dz);
+                scene.addModel(model);
+                continue;
+            }
+            final Mesh mesh = MeshGenerators.sphere(200);
+            final float[] vertices = mesh.vertices;
+            for (int j = 0; j < vertices.length; j += 3) {
+                vertices[j] += dx;
+                vertices[j + 1] += dy;
+                vertices[j + 2] += dz;
+            }
+            mesh.getBounds();
+            scene.addModel(new Model(mesh));
+        }
+        // Камера в центре куба, смотрит вдоль оси z: позади и по сторонам от неё большая часть моделей
+        final float center = 5 * side;
+        camera = new Camera(
+                new Vector3f(center, center, center), new Vector3f(center, center, center + 1), 1.0F, 1, 0.01F, 100);
+        camera.setAspectRatio((float) WIDTH / HEIGHT);
+        frameBuffer = new FrameBuffer(WIDTH, HEIGHT);
+        RenderEngine.collectVisibleModels(camera, scene, visibleModels);
+    }
+
+    // Отбор видимых моделей по иерархии
+    @Benchmark
+    public List<Model> collectVisibleModels() {
+        RenderEngine.collectVisibleModels(camera, scene, visibleModels);
+        return visibleModels;
+    }
+
+    // Кадр из моделей, отобранных по иерархии
+    @Benchmark
+    public FrameBuffer renderVisibleModels() {
+        frameBuffer.clear(0);
+        RenderEngine.collectVisibleModels(camera, scene, visibleModels);
+        for (int i = 0; i < visibleModels.size(); ++i) {
+            RenderEngine.render(frameBuffer, camera, visibleModels.get(i));
+        }
+        return frameBuffer;
+    }
+
+    // Тот же кадр с проверкой каждой модели сцены по отдельности
+    @Benchmark
+    public FrameBuffer renderAllModels() {
+        frameBuffer.clear(0);
+        final List<Model> sceneModels = scene.getModels();
+        for (int i = 0; i < sceneModels.size(); ++i) {
+            RenderEngine.render(frameBuffer, camera, sceneModels.get(i));
+        }
+        return frameBuffer;
+    }
+}
@@ -1,11 +1,24 @@
 package com.cgvsu;
 
+import com.cgvsu.meshcache.MeshCache;
+import com.cgvsu.model.LodChain;
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.MeshBounds;
+import com.cgvsu.model.MeshPreview;
+import com.cgvsu.model.MeshWelder;
 import com.cgvsu.model.Scene;
+import com.cgvsu.objreader.ObjReader;
 import com.cgvsu.objreader.ObjReaderException;
 import com.cgvsu.objwriter.ObjWriter;
+import com.cgvsu.render_engine.FrameBuffer;
+import com.cgvsu.render_engine.ParallelRenderer;
 import com.cgvsu.render_engine.RenderEngine;
+import com.cgvsu.render_engine.RenderMode;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
 import javafx.fxml.FXML;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
@@ -15,8 +28,10 @@ import javafx.scene.Parent;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
@@ -24,14 +39,19 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import javafx.stage.FileChooser;
 import javafx.util.Duration;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.io.IOException;
 import java.io.File;
-import javax.vecmath.Vector3f;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import com.cgvsu.math.Vector3f;
 
 import com.cgvsu.model.Model;
-import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.model.ModelTransform;
 import com.cgvsu.render_engine.Camera;
 
 public class GuiController {
@@ -46,20 +66,86 @@ public class GuiController {
 
     private Scene scene = new Scene();
 
+    // Кэш разобранных моделей: повторное открытие того же OBJ не требует его разбора
+    private final MeshCache meshCache = new MeshCache(MeshCache.defaultDirectory());
+
     private Camera camera = new Camera(
             new Vector3f(0, 00, 100),
             new Vector3f(0, 0, 0),
             1.0F, 1, 0.01F, 100);
 
+    // Непрерывная отрисовка по таймеру; включается только для замеров производительности
     private Timeline timeline;
 
+    // Запрошен ли уже кадр: изменения, накопившиеся до его отрисовки, объединяются в один кадр
+    private final AtomicBoolean renderRequested = new AtomicBoolean();
+
+    // true — кадр строится каждые 15 мс, даже если ничего не изменилось (для замеров)
+    private boolean continuousRendering = false;
+
     @FXML
     private ListView<String> modelList;
 
+    // Слияние совпадающих вершин сразу после чтения модели
+    @FXML
+    private CheckMenuItem weldOnImportMenuItem;
+
     private ObservableList<String> modelNames = FXCollections.observableArrayList();
 
+    // Прочитанные части загружаемых моделей; снимки публикуются потоками загрузки, список меняется только в потоке JavaFX
+    private final List<AtomicReference<MeshPreview>> loadingPreviews = new ArrayList<>();
+
+    // Панель фоновых задач: по строке с прогрессом и кнопкой отмены на каждую задачу
+    @FXML
+    private VBox tasksBox;
+
+    // Потоки для фоновых задач (загрузка и сохранение моделей); daemon, чтобы не мешать закрытию приложения
+    private final ExecutorService backgroundExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Поток построения уровней детализации: задачи идут по очереди, и устаревшие к своему началу
+    // (вершины модели успели снова измениться) пропускаются
+    private final ExecutorService levelOfDetailExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @FXML
+    private Label rendererLabel;
+
+    @FXML
+    private Label renderingLabel;
+
+    @FXML
+    private Label renderModeLabel;
+
     private boolean isDarkTheme = false;
 
+    // Буфер кадра, в который модели растеризуются программно; кадр выводится на холст одним изображением
+    private final FrameBuffer frameBuffer = new FrameBuffer(0, 0);
+
+    // Способ отрисовки; переключается кнопкой для сравнения
+    private enum RendererMode {
+        // Многопоточная растеризация плитками в буфер кадра
+        TILED,
+        // Растеризация в буфер кадра в потоке JavaFX
+        FRAME_BUFFER,
+        // Команда strokeLine на каждое ребро
+        CANVAS
+    }
+
+    private RendererMode rendererMode = RendererMode.TILED;
+
+    // Потоки многопоточной отрисовки, по числу процессоров
+    private final ParallelRenderer parallelRenderer = new ParallelRenderer();
+
+    // Модели сцены, попадающие в кадр; список переиспользуется между кадрами
+    private final List<Model> visibleModels = new ArrayList<>();
+
     @FXML
     private void initialize() {
         anchorPane.prefWidthProperty().addListener((ov, oldValue, newValue) -> canvas.setWidth(newValue.doubleValue()));
@@ -67,34 +153,92 @@ public class GuiController {
 
         // Инициализация ListView
         modelList.setItems(modelNames);
-        modelList.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
-            int selectedIndex = modelList.getSelectionModel().getSelectedIndex();
+        // По номеру, а не по имени: у экземпляров одной модели и у повторно открытого файла имена совпадают
+        modelList.getSelectionModel().selectedIndexProperty().addListener((observable, oldValue, newValue) -> {
+            int selectedIndex = newValue.intValue();
             if (selectedIndex >= 0) {
                 scene.setActiveModel(scene.getModels().get(selectedIndex));
             }
         });
 
-        timeline = new Timeline();
+        // Кадр строится только после изменений: камеры, моделей, темы, размеров холста и состава сцены
+        canvas.widthProperty().addListener(observable -> requestRender());
+        canvas.heightProperty().addListener(observable -> requestRender());
+
+        timeline = new Timeline(new KeyFrame(Duration.millis(15), event -> renderFrame()));
         timeline.setCycleCount(Animation.INDEFINITE);
 
-        KeyFrame frame = new KeyFrame(Duration.millis(15), event -> {
-            double width = canvas.getWidth();
-            double height = canvas.getHeight();
+        rendererLabel.setText(rendererLabelText());
+
+        // Применяем тему при запуске
+        applyTheme();
+    }
+
+    // Запрос перерисовки; можно вызывать из любого потока. Кадр будет построен в потоке JavaFX
+    private void requestRender() {
+        if (renderRequested.compareAndSet(false, true)) {
+            Platform.runLater(this::renderFrame);
+        }
+    }
+
+    private void renderFrame() {
+        renderRequested.set(false);
+
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
 
-            canvas.getGraphicsContext2D().clearRect(0, 0, width, height);
-            camera.setAspectRatio((float) (width / height));
+        canvas.getGraphicsContext2D().clearRect(0, 0, width, height);
+        camera.setAspectRatio((float) (width / height));
+        RenderEngine.collectVisibleModels(camera, scene, visibleModels);
 
-            // Отрисовываем все модели в сцене
-            for (Model model : scene.getModels()) {
-                RenderEngine.render(canvas.getGraphicsContext2D(), camera, model, (int) width, (int) height);
+        // Грани требуют буфера глубины, поэтому на холст командами рисуется только каркас
+        if (rendererMode == RendererMode.CANVAS && RenderEngine.getRenderMode() == RenderMode.WIREFRAME) {
+            renderToCanvas((int) width, (int) height);
+        } else {
+            renderToFrameBuffer((int) width, (int) height);
+        }
+    }
+
+    // Кадр через буфер кадра: модели растеризуются в массив пикселей, который выводится на холст целиком
+    private void renderToFrameBuffer(int width, int height) {
+        frameBuffer.resize(width, height);
+        frameBuffer.clear(0);
+
+        // Отрисовываем видимые модели сцены; обход по индексу, чтобы кадр не создавал итераторов
+        final List<Model> models = visibleModels;
+        for (int i = 0; i < models.size(); ++i) {
+            if (rendererMode == RendererMode.TILED) {
+                parallelRenderer.render(frameBuffer, camera, models.get(i));
+            } else {
+                RenderEngine.render(frameBuffer, camera, models.get(i));
             }
-        });
+        }
 
-        timeline.getKeyFrames().add(frame);
-        timeline.play();
+        // И уже прочитанные части моделей, которые ещё загружаются
+        for (int i = 0; i < loadingPreviews.size(); ++i) {
+            MeshPreview meshPreview = loadingPreviews.get(i).get();
+            if (meshPreview != null) {
+                RenderEngine.render(frameBuffer, camera, meshPreview);
+            }
+        }
 
-        // Применяем тему при запуске
-        applyTheme();
+        frameBuffer.present(canvas.getGraphicsContext2D());
+    }
+
+    // Кадр командами холста: отдельный strokeLine на каждое ребро
+    private void renderToCanvas(int width, int height) {
+        // Отрисовываем видимые модели сцены
+        for (Model model : visibleModels) {
+            RenderEngine.render(canvas.getGraphicsContext2D(), camera, model, width, height);
+        }
+
+        // И уже прочитанные части моделей, которые ещё загружаются
+        for (AtomicReference<MeshPreview> preview : loadingPreviews) {
+            MeshPreview meshPreview = preview.get();
+            if (meshPreview != null) {
+                RenderEngine.render(canvas.getGraphicsContext2D(), camera, meshPreview, width, height);
+            }
+        }
     }
 
     @FXML
@@ -110,20 +254,64 @@ public class GuiController {
 
         Path fileName = Path.of(file.getAbsolutePath());
 
-        try {
-            String fileContent = Files.readString(fileName);
-            Model model = ObjReader.read(fileContent);
+        // Модель читается в фоне; в сцену она попадает в потоке JavaFX только после загрузки,
+        // а до тех пор рисуется уже прочитанная её часть
+        final AtomicReference<MeshPreview> preview = new AtomicReference<>();
+        final boolean weld = weldOnImportMenuItem.isSelected();
+        final AtomicReference<MeshWelder.Result> weldResult = new AtomicReference<>();
+        final Task<Model> task = new Task<>() {
+            @Override
+            protected Model call() throws IOException {
+                Model model = meshCache.load(fileName, new ObjReader.ProgressListener() {
+                    @Override
+                    public void onProgress(long read, long total) {
+                        updateProgress(read, total);
+                    }
+
+                    @Override
+                    public void onPreview(MeshPreview meshPreview) {
+                        preview.set(meshPreview);
+                        requestRender();
+                    }
+                }, weld ? weldResult::set : null);
+                // Список рёбер, треугольники и ограничивающие параллелепипеды строятся здесь, а не
+                // при первой отрисовке в потоке JavaFX
+                model.mesh.getBounds();
+                model.mesh.getTriangulation();
+                return model;
+            }
+        };
+        loadingPreviews.add(preview);
+        task.stateProperty().addListener((observable, oldState, newState) -> {
+            if (newState == Worker.State.SUCCEEDED || newState == Worker.State.FAILED || newState == Worker.State.CANCELLED) {
+                loadingPreviews.remove(preview);
+                requestRender();
+            }
+        });
+        task.setOnSucceeded(event -> {
+            Model model = task.getValue();
             scene.addModel(model); // Добавляем модель в сцену
+            requestRender();
             scene.setActiveModel(model); // Делаем её активной
 
             // Добавляем имя модели в ListView
             modelNames.add(file.getName());
             modelList.getSelectionModel().select(modelNames.size() - 1); // Выбираем последнюю добавленную модель
-        } catch (IOException exception) {
-            showErrorDialog("Load Error", "Failed to load the model: " + exception.getMessage());
-        } catch (ObjReaderException exception) {
-            showErrorDialog("Load Error", "Failed to parse the model: " + exception.getMessage());
-        }
+
+            buildLevelsOfDetail(model);
+            if (weldResult.get() != null && weldResult.get().removedVertexCount > 0) {
+                showSuccessDialog("Vertices Welded", weldMessage(weldResult.get()));
+            }
+        });
+        task.setOnFailed(event -> {
+            Throwable exception = task.getException();
+            if (exception instanceof ObjReaderException) {
+                showErrorDialog("Load Error", "Failed to parse the model: " + exception.getMessage());
+            } else {
+                showErrorDialog("Load Error", "Failed to load the model: " + exception.getMessage());
+            }
+        });
+        runInBackground(task, "Loading " + file.getName());
     }
 
     @FXML
@@ -133,14 +321,86 @@ public class GuiController {
         fileChooser.setTitle("Save Model");
         File file = fileChooser.showSaveDialog((Stage) canvas.getScene().getWindow());
 
-        if (file != null) {
-            try {
-                ObjWriter.write(scene.getActiveModel(), file); // Сохраняем активную модель
-                showSuccessDialog("Save Successful", "Model saved successfully.");
-            } catch (IOException e) {
-                showErrorDialog("Save Error", "Failed to save the model: " + e.getMessage());
+        if (file == null || scene.getActiveModel() == null) {
+            return;
+        }
+
+        // Сохраняем активную модель в фоне, чтобы не останавливать отрисовку. Положение модели
+        // переносится в сохраняемые вершины. Положение и Mesh берутся здесь: кнопки меняют положение, а перенос
+        // положения в вершины заменяет Mesh, и во время записи они не должны смешаться
+        final Model model = scene.getActiveModel();
+        final Mesh mesh = model.mesh;
+        final ModelTransform transform = new ModelTransform();
+        transform.set(model.transform);
+        final Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws IOException {
+                ObjWriter.write(mesh, transform, file.toPath(), this::updateProgress);
+                return null;
             }
+        };
+        task.setOnSucceeded(event -> showSuccessDialog("Save Successful", "Model saved successfully."));
+        task.setOnFailed(event -> showErrorDialog("Save Error", "Failed to save the model: " + task.getException().getMessage()));
+        runInBackground(task, "Saving " + file.getName());
+    }
+
+    // Положение активной модели изменено: вершины, их параллелепипеды и уровни детализации остаются
+    // прежними, в иерархии сцены пересчитывается только её параллелепипед
+    private void activeModelMoved() {
+        scene.transformChanged(scene.getActiveModel());
+        requestRender();
+    }
+
+    // Вершины активной модели изменены: сбрасываем зависящее от них и перестраиваем уровни детализации
+    private void activeModelChanged() {
+        final Model model = scene.getActiveModel();
+        scene.modelChanged(model);
+        buildLevelsOfDetail(model);
+    }
+
+    // Построение уровней детализации модели в фоне. До его окончания, как и после следующего
+    // изменения вершин, рисуется исходная модель; сама она не меняется и сохраняется целиком
+    private void buildLevelsOfDetail(Model model) {
+        final Mesh mesh = model.mesh;
+        if (mesh.getPolygonCount() < LodChain.MIN_POLYGON_COUNT) {
+            return;
+        }
+        // Уровни общей Mesh уже построены для другого её экземпляра (или той же загрузки файла)
+        final LodChain chain = mesh.getLodChain();
+        if (chain != null && mesh.isCurrentBounds(chain.sourceBounds)) {
+            return;
         }
+        // Параллелепипеды берутся в потоке JavaFX, пока вершины точно не меняются
+        final MeshBounds bounds = mesh.getBounds();
+        levelOfDetailExecutor.execute(() -> {
+            if (!mesh.isCurrentBounds(bounds)) {
+                return;
+            }
+            // Уровни достаются той Mesh, для которой построены: model.mesh к этому времени может быть
+            // уже другой (перенос положения в вершины), а прежняя Mesh остаётся у других экземпляров
+            mesh.setLodChain(LodChain.build(mesh, bounds));
+            requestRender();
+        });
+    }
+
+    // Запуск фоновой задачи со строкой прогресса на панели задач; строка убирается по завершении задачи
+    private void runInBackground(Task<?> task, String title) {
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.progressProperty().bind(task.progressProperty());
+        Button cancelButton = new Button("Cancel");
+        // Отмена прерывает поток задачи
+        cancelButton.setOnAction(event -> task.cancel());
+        HBox row = new HBox(5, new Label(title), progressBar, cancelButton);
+
+        task.stateProperty().addListener((observable, oldState, newState) -> {
+            if (newState == Worker.State.SUCCEEDED || newState == Worker.State.FAILED || newState == Worker.State.CANCELLED) {
+                tasksBox.getChildren().remove(row);
+            }
+        });
+        tasksBox.getChildren().add(row);
+        applyTheme(); // Новая строка получает стиль текущей темы
+
+        backgroundExecutor.execute(task);
     }
 
     private void showErrorDialog(String title, String message) {
@@ -162,199 +422,206 @@ public class GuiController {
     @FXML
     public void handleTranslateX(ActionEvent actionEvent) {
         float delta = 0.1f; // Шаг перемещения
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            vertex.x += delta;
-        }
+        scene.getActiveModel().transform.translate(delta, 0, 0);
+        activeModelMoved();
     }
 
     @FXML
     public void handleTranslateY(ActionEvent actionEvent) {
         float delta = 0.1f; // Шаг перемещения
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            vertex.y += delta;
-        }
+        scene.getActiveModel().transform.translate(0, delta, 0);
+        activeModelMoved();
     }
 
     @FXML
     public void handleTranslateZ(ActionEvent actionEvent) {
         float delta = 0.1f; // Шаг перемещения
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            vertex.z += delta;
-        }
+        scene.getActiveModel().transform.translate(0, 0, delta);
+        activeModelMoved();
     }
 
     @FXML
     public void handleRotateX(ActionEvent actionEvent) {
         float angle = 5.0f; // Угол поворота в градусах
-        float rad = (float) Math.toRadians(angle);
-        float cos = (float) Math.cos(rad);
-        float sin = (float) Math.sin(rad);
-
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            float y = vertex.y * cos - vertex.z * sin;
-            float z = vertex.y * sin + vertex.z * cos;
-            vertex.y = y;
-            vertex.z = z;
-        }
+        scene.getActiveModel().transform.rotate(angle, 0, 0);
+        activeModelMoved();
     }
 
     @FXML
     public void handleRotateY(ActionEvent actionEvent) {
         float angle = 5.0f; // Угол поворота в градусах
-        float rad = (float) Math.toRadians(angle);
-        float cos = (float) Math.cos(rad);
-        float sin = (float) Math.sin(rad);
-
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            float x = vertex.x * cos + vertex.z * sin;
-            float z = -vertex.x * sin + vertex.z * cos;
-            vertex.x = x;
-            vertex.z = z;
-        }
+        scene.getActiveModel().transform.rotate(0, angle, 0);
+        activeModelMoved();
     }
 
     @FXML
     public void handleRotateZ(ActionEvent actionEvent) {
         float angle = 5.0f; // Угол поворота в градусах
-        float rad = (float) Math.toRadians(angle);
-        float cos = (float) Math.cos(rad);
-        float sin = (float) Math.sin(rad);
-
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            float x = vertex.x * cos - vertex.y * sin;
-            float y = vertex.x * sin + vertex.y * cos;
-            vertex.x = x;
-            vertex.y = y;
-        }
+        scene.getActiveModel().transform.rotate(0, 0, angle);
+        activeModelMoved();
     }
 
     @FXML
     public void handleScale(ActionEvent actionEvent) {
         float scaleFactor = 1.1f; // Коэффициент масштабирования
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            vertex.x *= scaleFactor;
-            vertex.y *= scaleFactor;
-            vertex.z *= scaleFactor;
-        }
+        scene.getActiveModel().transform.scale(scaleFactor);
+        activeModelMoved();
     }
 
     @FXML
     public void handleCameraForward(ActionEvent actionEvent) {
         camera.movePosition(new Vector3f(0, 0, -TRANSLATION));
+        requestRender();
     }
 
     @FXML
     public void handleCameraBackward(ActionEvent actionEvent) {
         camera.movePosition(new Vector3f(0, 0, TRANSLATION));
+        requestRender();
     }
 
     @FXML
     public void handleCameraLeft(ActionEvent actionEvent) {
         camera.movePosition(new Vector3f(TRANSLATION, 0, 0));
+        requestRender();
     }
 
     @FXML
     public void handleCameraRight(ActionEvent actionEvent) {
         camera.movePosition(new Vector3f(-TRANSLATION, 0, 0));
+        requestRender();
     }
 
     @FXML
     public void handleCameraUp(ActionEvent actionEvent) {
         camera.movePosition(new Vector3f(0, TRANSLATION, 0));
+        requestRender();
     }
 
     @FXML
     public void handleCameraDown(ActionEvent actionEvent) {
         camera.movePosition(new Vector3f(0, -TRANSLATION, 0));
+        requestRender();
     }
 
     @FXML
     public void handleTranslateXNegative(ActionEvent actionEvent) {
         float delta = -0.1f; // Шаг перемещения в отрицательном направлении
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            vertex.x += delta;
-        }
+        scene.getActiveModel().transform.translate(delta, 0, 0);
+        activeModelMoved();
     }
 
     @FXML
     public void handleTranslateYNegative(ActionEvent actionEvent) {
         float delta = -0.1f; // Шаг перемещения в отрицательном направлении
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            vertex.y += delta;
-        }
+        scene.getActiveModel().transform.translate(0, delta, 0);
+        activeModelMoved();
     }
 
     @FXML
     public void handleTranslateZNegative(ActionEvent actionEvent) {
         float delta = -0.1f; // Шаг перемещения в отрицательном направлении
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            vertex.z += delta;
-        }
+        scene.getActiveModel().transform.translate(0, 0, delta);
+        activeModelMoved();
     }
 
     @FXML
     public void handleRotateXNegative(ActionEvent actionEvent) {
         float angle = -5.0f; // Угол поворота в отрицательном направлении
-        float rad = (float) Math.toRadians(angle);
-        float cos = (float) Math.cos(rad);
-        float sin = (float) Math.sin(rad);
-
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            float y = vertex.y * cos - vertex.z * sin;
-            float z = vertex.y * sin + vertex.z * cos;
-            vertex.y = y;
-            vertex.z = z;
-        }
+        scene.getActiveModel().transform.rotate(angle, 0, 0);
+        activeModelMoved();
     }
 
     @FXML
     public void handleRotateYNegative(ActionEvent actionEvent) {
         float angle = -5.0f; // Угол поворота в отрицательном направлении
-        float rad = (float) Math.toRadians(angle);
-        float cos = (float) Math.cos(rad);
-        float sin = (float) Math.sin(rad);
-
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            float x = vertex.x * cos + vertex.z * sin;
-            float z = -vertex.x * sin + vertex.z * cos;
-            vertex.x = x;
-            vertex.z = z;
-        }
+        scene.getActiveModel().transform.rotate(0, angle, 0);
+        activeModelMoved();
     }
 
     @FXML
     public void handleRotateZNegative(ActionEvent actionEvent) {
         float angle = -5.0f; // Угол поворота в отрицательном направлении
-        float rad = (float) Math.toRadians(angle);
-        float cos = (float) Math.cos(rad);
-        float sin = (float) Math.sin(rad);
-
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            float x = vertex.x * cos - vertex.y * sin;
-            float y = vertex.x * sin + vertex.y * cos;
-            vertex.x = x;
-            vertex.y = y;
-        }
+        scene.getActiveModel().transform.rotate(0, 0, angle);
+        activeModelMoved();
     }
 
     @FXML
     public void handleScaleIncrease(ActionEvent actionEvent) {
         float scaleFactor = 1.1f; // Увеличение масштаба
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            vertex.x *= scaleFactor;
-            vertex.y *= scaleFactor;
-            vertex.z *= scaleFactor;
-        }
+        scene.getActiveModel().transform.scale(scaleFactor);
+        activeModelMoved();
     }
 
     @FXML
     public void handleScaleDecrease(ActionEvent actionEvent) {
         float scaleFactor = 0.9f; // Уменьшение масштаба
-        for (com.cgvsu.math.Vector3f vertex : scene.getActiveModel().vertices) {
-            vertex.x *= scaleFactor;
-            vertex.y *= scaleFactor;
-            vertex.z *= scaleFactor;
+        scene.getActiveModel().transform.scale(scaleFactor);
+        activeModelMoved();
+    }
+
+    @FXML
+    public void handleAddInstance(ActionEvent actionEvent) {
+        // Ещё одно размещение активной модели с той же геометрией, сдвинутое вдоль x на её ширину
+        final Model model = scene.getActiveModel();
+        if (model == null) {
+            return;
+        }
+        final String name = modelNames.get(scene.getModels().indexOf(model));
+        final float[] bounds = model.getWorldBounds();
+        final Model instance = scene.addInstance(model);
+        instance.transform.translate(Math.max(0, bounds[3] - bounds[0]), 0, 0);
+        scene.setActiveModel(instance);
+        modelNames.add(name);
+        modelList.getSelectionModel().select(modelNames.size() - 1);
+        requestRender();
+    }
+
+    @FXML
+    public void handleBakeTransform(ActionEvent actionEvent) {
+        // Перенос положения активной модели в её вершины
+        final Model model = scene.getActiveModel();
+        if (model == null || model.transform.isIdentity()) {
+            return;
         }
+        model.bakeTransform();
+        activeModelChanged();
+        requestRender();
+    }
+
+    @FXML
+    public void handleWeldVertices(ActionEvent actionEvent) {
+        // Слияние совпадающих вершин активной модели в фоне; новая Mesh достаётся всем её экземплярам
+        final Model model = scene.getActiveModel();
+        if (model == null) {
+            return;
+        }
+        final Mesh mesh = model.mesh;
+        final Task<MeshWelder.Result> task = new Task<>() {
+            @Override
+            protected MeshWelder.Result call() {
+                final MeshWelder.Result result = MeshWelder.weld(mesh, MeshWelder.defaultEpsilon(mesh));
+                result.mesh.getBounds();
+                result.mesh.getTriangulation();
+                return result;
+            }
+        };
+        task.setOnSucceeded(event -> {
+            final MeshWelder.Result result = task.getValue();
+            if (result.mesh != mesh) {
+                scene.replaceMesh(mesh, result.mesh);
+                buildLevelsOfDetail(model);
+                requestRender();
+            }
+            showSuccessDialog("Vertices Welded", weldMessage(result));
+        });
+        task.setOnFailed(event -> showErrorDialog("Weld Error", "Failed to weld vertices: " + task.getException().getMessage()));
+        runInBackground(task, "Welding vertices");
+    }
+
+    private static String weldMessage(MeshWelder.Result result) {
+        return "Removed " + result.removedVertexCount + " vertices and "
+                + result.removedPolygonCount + " degenerate polygons.";
     }
 
     @FXML
@@ -363,7 +630,47 @@ public class GuiController {
         applyTheme(); // Применяем тему
     }
 
+    @FXML
+    public void handleToggleRenderer(ActionEvent actionEvent) {
+        // Переключаем способ отрисовки по кругу
+        rendererMode = RendererMode.values()[(rendererMode.ordinal() + 1) % RendererMode.values().length];
+        rendererLabel.setText(rendererLabelText());
+        requestRender();
+    }
+
+    private String rendererLabelText() {
+        return switch (rendererMode) {
+            case TILED -> "Renderer: tiled, " + parallelRenderer.getThreadCount() + " threads";
+            case FRAME_BUFFER -> "Renderer: frame buffer";
+            case CANVAS -> "Renderer: strokeLine";
+        };
+    }
+
+    @FXML
+    public void handleToggleRenderMode(ActionEvent actionEvent) {
+        final RenderMode[] modes = RenderMode.values();
+        RenderEngine.setRenderMode(modes[(RenderEngine.getRenderMode().ordinal() + 1) % modes.length]);
+        renderModeLabel.setText(switch (RenderEngine.getRenderMode()) {
+            case WIREFRAME -> "Mode: wireframe";
+            case SOLID -> "Mode: solid";
+            case HIDDEN_LINE -> "Mode: hidden line";
+        });
+        requestRender();
+    }
+
+    @FXML
+    public void handleToggleContinuousRendering(ActionEvent actionEvent) {
+        continuousRendering = !continuousRendering;
+        if (continuousRendering) {
+            timeline.play();
+        } else {
+            timeline.stop();
+        }
+        renderingLabel.setText(continuousRendering ? "Rendering: continuous" : "Rendering: on demand");
+    }
+
     private void applyTheme() {
+        requestRender(); // Меняется цвет моделей
         if (isDarkTheme) {
             // Устанавливаем тёмную тему
             anchorPane.setStyle("-fx-background-color: #2E2E2E;");
@@ -0,0 +1,254 @@
+package com.cgvsu.math;
+
+// Матрица 4 x 4 для векторов-строк: точка v переходит в v * M, перенос хранится в строке 3 (m30, m31, m32).
+// Все операции изменяют матрицу на месте или пишут в переданный результат, новых объектов не создают
+public class Matrix4f {
+    public float m00, m01, m02, m03;
+    public float m10, m11, m12, m13;
+    public float m20, m21, m22, m23;
+    public float m30, m31, m32, m33;
+
+    // Нулевая матрица
+    public Matrix4f() {
+    }
+
+    // Матрица из 16 чисел по строкам
+    public Matrix4f(float[] values) {
+        set(values);
+    }
+
+    public Matrix4f(Matrix4f other) {
+        set(other);
+    }
+
+    // Заполнение из 16 чисел по строкам
+    public void set(float[] values) {
+        m00 = values[0];
+        m01 = values[1];
+        m02 = values[2];
+        m03 = values[3];
+        m10 = values[4];
+        m11 = values[5];
+        m12 = values[6];
+        m13 = values[7];
+        m20 = values[8];
+        m21 = values[9];
+        m22 = values[10];
+        m23 = values[11];
+        m30 = values[12];
+        m31 = values[13];
+        m32 = values[14];
+        m33 = values[15];
+    }
+
+    public void set(Matrix4f other) {
+        m00 = other.m00;
+        m01 = other.m01;
+        m02 = other.m02;
+        m03 = other.m03;
+        m10 = other.m10;
+        m11 = other.m11;
+        m12 = other.m12;
+        m13 = other.m13;
+        m20 = other.m20;
+        m21 = other.m21;
+        m22 = other.m22;
+        m23 = other.m23;
+        m30 = other.m30;
+        m31 = other.m31;
+        m32 = other.m32;
+        m33 = other.m33;
+    }
+
+    // Запись 16 чисел по строкам в result
+    public void get(float[] result) {
+        result[0] = m00;
+        result[1] = m01;
+        result[2] = m02;
+        result[3] = m03;
+        result[4] = m10;
+        result[5] = m11;
+        result[6] = m12;
+        result[7] = m13;
+        result[8] = m20;
+        result[9] = m21;
+        result[10] = m22;
+        result[11] = m23;
+        result[12] = m30;
+        result[13] = m31;
+        result[14] = m32;
+        result[15] = m33;
+    }
+
+    public void setZero() {
+        m00 = m01 = m02 = m03 = 0;
+        m10 = m11 = m12 = m13 = 0;
+        m20 = m21 = m22 = m23 = 0;
+        m30 = m31 = m32 = m33 = 0;
+    }
+
+    public void setIdentity() {
+        setZero();
+        m00 = m11 = m22 = m33 = 1;
+    }
+
+    // Умножение справа: this = this * right. Сначала действует this, затем right
+    public void mul(Matrix4f right) {
+        mul(this, right);
+    }
+
+    // this = left * right; left и right могут совпадать с this
+    public void mul(Matrix4f left, Matrix4f right) {
+        final float r00 = left.m00 * right.m00 + left.m01 * right.m10 + left.m02 * right.m20 + left.m03 * right.m30;
+        final float r01 = left.m00 * right.m01 + left.m01 * right.m11 + left.m02 * right.m21 + left.m03 * right.m31;
+        final float r02 = left.m00 * right.m02 + left.m01 * right.m12 + left.m02 * right.m22 + left.m03 * right.m32;
+        final float r03 = left.m00 * right.m03 + left.m01 * right.m13 + left.m02 * right.m23 + left.m03 * right.m33;
+        final float r10 = left.m10 * right.m00 + left.m11 * right.m10 + left.m12 * right.m20 + left.m13 * right.m30;
+        final float r11 = left.m10 * right.m01 + left.m11 * right.m11 + left.m12 * right.m21 + left.m13 * right.m31;
+        final float r12 = left.m10 * right.m02 + left.m11 * right.m12 + left.m12 * right.m22 + left.m13 * right.m32;
+        final float r13 = left.m10 * right.m03 + left.m11 * right.m13 + left.m12 * right.m23 + left.m13 * right.m33;
+        final float r20 = left.m20 * right.m00 + left.m21 * right.m10 + left.m22 * right.m20 + left.m23 * right.m30;
+        final float r21 = left.m20 * right.m01 + left.m21 * right.m11 + left.m22 * right.m21 + left.m23 * right.m31;
+        final float r22 = left.m20 * right.m02 + left.m21 * right.m12 + left.m22 * right.m22 + left.m23 * right.m32;
+        final float r23 = left.m20 * right.m03 + left.m21 * right.m13 + left.m22 * right.m23 + left.m23 * right.m33;
+        final float r30 = left.m30 * right.m00 + left.m31 * right.m10 + left.m32 * right.m20 + left.m33 * right.m30;
+        final float r31 = left.m30 * right.m01 + left.m31 * right.m11 + left.m32 * right.m21 + left.m33 * right.m31;
+        final float r32 = left.m30 * right.m02 + left.m31 * right.m12 + left.m32 * right.m22 + left.m33 * right.m32;
+        final float r33 = left.m30 * right.m03 + left.m31 * right.m13 + left.m32 * right.m23 + left.m33 * right.m33;
+        m00 = r00;
+        m01 = r01;
+        m02 = r02;
+        m03 = r03;
+        m10 = r10;
+        m11 = r11;
+        m12 = r12;
+        m13 = r13;
+        m20 = r20;
+        m21 = r21;
+        m22 = r22;
+        m23 = r23;
+        m30 = r30;
+        m31 = r31;
+        m32 = r32;
+        m33 = r33;
+    }
+
+    // Определитель через миноры 2 x 2 двух верхних и двух нижних строк
+    public float determinant() {
+        final float s0 = m00 * m11 - m10 * m01;
+        final float s1 = m00 * m12 - m10 * m02;
+        final float s2 = m00 * m13 - m10 * m03;
+        final float s3 = m01 * m12 - m11 * m02;
+        final float s4 = m01 * m13 - m11 * m03;
+        final float s5 = m02 * m13 - m12 * m03;
+        final float c5 = m22 * m33 - m32 * m23;
+        final float c4 = m21 * m33 - m31 * m23;
+        final float c3 = m21 * m32 - m31 * m22;
+        final float c2 = m20 * m33 - m30 * m23;
+        final float c1 = m20 * m32 - m30 * m22;
+        final float c0 = m20 * m31 - m30 * m21;
+        return s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+    }
+
+    // Обращение на месте
+    public void invert() {
+        final float s0 = m00 * m11 - m10 * m01;
+        final float s1 = m00 * m12 - m10 * m02;
+        final float s2 = m00 * m13 - m10 * m03;
+        final float s3 = m01 * m12 - m11 * m02;
+        final float s4 = m01 * m13 - m11 * m03;
+        final float s5 = m02 * m13 - m12 * m03;
+        final float c5 = m22 * m33 - m32 * m23;
+        final float c4 = m21 * m33 - m31 * m23;
+        final float c3 = m21 * m32 - m31 * m22;
+        final float c2 = m20 * m33 - m30 * m23;
+        final float c1 = m20 * m32 - m30 * m22;
+        final float c0 = m20 * m31 - m30 * m21;
+        final float determinant = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+        if (determinant == 0) throw new IllegalStateException("Cannot invert a singular matrix");
+        final float inverse = 1 / determinant;
+
+        final float r00 = (m11 * c5 - m12 * c4 + m13 * c3) * inverse;
+        final float r01 = (-m01 * c5 + m02 * c4 - m03 * c3) * inverse;
+        final float r02 = (m31 * s5 - m32 * s4 + m33 * s3) * inverse;
+        final float r03 = (-m21 * s5 + m22 * s4 - m23 * s3) * inverse;
+        final float r10 = (-m10 * c5 + m12 * c2 - m13 * c1) * inverse;
+        final float r11 = (m00 * c5 - m02 * c2 + m03 * c1) * inverse;
+        final float r12 = (-m30 * s5 + m32 * s2 - m33 * s1) * inverse;
+        final float r13 = (m20 * s5 - m22 * s2 + m23 * s1) * inverse;
+        final float r20 = (m10 * c4 - m11 * c2 + m13 * c0) * inverse;
+        final float r21 = (-m00 * c4 + m01 * c2 - m03 * c0) * inverse;
+        final float r22 = (m30 * s4 - m31 * s2 + m33 * s0) * inverse;
+        final float r23 = (-m20 * s4 + m21 * s2 - m23 * s0) * inverse;
+        final float r30 = (-m10 * c3 + m11 * c1 - m12 * c0) * inverse;
+        final float r31 = (m00 * c3 - m01 * c1 + m02 * c0) * inverse;
+        final float r32 = (-m30 * s3 + m31 * s1 - m32 * s0) * inverse;
+        final float r33 = (m20 * s3 - m21 * s1 + m22 * s0) * inverse;
+        m00 = r00;
+        m01 = r01;
+        m02 = r02;
+        m03 = r03;
+        m10 = r10;
+        m11 = r11;
+        m12 = r12;
+        m13 = r13;
+        m20 = r20;
+        m21 = r21;
+        m22 = r22;
+        m23 = r23;
+        m30 = r30;
+        m31 = r31;
+        m32 = r32;
+        m33 = r33;
+    }
+
+    // Точка point после матрицы, с делением на w, в result; result может совпадать с point
+    public Vector3f transformPoint(Vector3f point, Vector3f result) {
+        final float x = point.x * m00 + point.y * m10 + point.z * m20 + m30;
+        final float y = point.x * m01 + point.y * m11 + point.z * m21 + m31;
+        final float z = point.x * m02 + point.y * m12 + point.z * m22 + m32;
+        final float w = point.x * m03 + point.y * m13 + point.z * m23 + m33;
+        return result.set(x / w, y / w, z / w);
+    }
+
+    // Пакетное преобразование точек (x, y, z подряд) с номерами из [fromPoint, toPoint) из source
+    // в result на тех же местах; source и result могут совпадать. Матрица считается аффинной
+    // (столбец 3 равен (0, 0, 0, 1)), деления на w нет
+    public void transformPoints(float[] source, int fromPoint, int toPoint, float[] result) {
+        final float a00 = m00, a01 = m01, a02 = m02;
+        final float a10 = m10, a11 = m11, a12 = m12;
+        final float a20 = m20, a21 = m21, a22 = m22;
+        final float a30 = m30, a31 = m31, a32 = m32;
+        for (int i = 3 * fromPoint; i < 3 * toPoint; i += 3) {
+            final float x = source[i], y = source[i + 1], z = source[i + 2];
+            result[i] = x * a00 + y * a10 + z * a20 + a30;
+            result[i + 1] = x * a01 + y * a11 + z * a21 + a31;
+            result[i + 2] = x * a02 + y * a12 + z * a22 + a32;
+        }
+    }
+
+    // То же для направлений: действует только часть 3 x 3, перенос не учитывается
+    public void transformDirections(float[] source, int fromDirection, int toDirection, float[] result) {
+        final float a00 = m00, a01 = m01, a02 = m02;
+        final float a10 = m10, a11 = m11, a12 = m12;
+        final float a20 = m20, a21 = m21, a22 = m22;
+        for (int i = 3 * fromDirection; i < 3 * toDirection; i += 3) {
+            final float x = source[i], y = source[i + 1], z = source[i + 2];
+            result[i] = x * a00 + y * a10 + z * a20;
+            result[i + 1] = x * a01 + y * a11 + z * a21;
+            result[i + 2] = x * a02 + y * a12 + z * a22;
+        }
+    }
+
+    // Сравнение матриц с учётом погрешности
+    public boolean epsilonEquals(Matrix4f other, float eps) {
+        return Math.abs(m00 - other.m00) <= eps && Math.abs(m01 - other.m01) <= eps
+                && Math.abs(m02 - other.m02) <= eps && Math.abs(m03 - other.m03) <= eps
+                && Math.abs(m10 - other.m10) <= eps && Math.abs(m11 - other.m11) <= eps
+                && Math.abs(m12 - other.m12) <= eps && Math.abs(m13 - other.m13) <= eps
+                && Math.abs(m20 - other.m20) <= eps && Math.abs(m21 - other.m21) <= eps
+                && Math.abs(m22 - other.m22) <= eps && Math.abs(m23 - other.m23) <= eps
+                && Math.abs(m30 - other.m30) <= eps && Math.abs(m31 - other.m31) <= eps
+                && Math.abs(m32 - other.m32) <= eps && Math.abs(m33 - other.m33) <= eps;
+    }
+}
@@ -8,6 +8,36 @@ public class Vector2f {
         this.y = y;
     }
 
+    public Vector2f() {
+    }
+
+    public Vector2f set(float x, float y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    // Операции ниже с параметром result не создают объектов: результат пишется в result и он же
+    // возвращается. result может совпадать с this или other, тогда операция выполняется на месте
+
+    public Vector2f add(Vector2f other, Vector2f result) {
+        return result.set(x + other.x, y + other.y);
+    }
+
+    public Vector2f subtract(Vector2f other, Vector2f result) {
+        return result.set(x - other.x, y - other.y);
+    }
+
+    public Vector2f multiply(float scalar, Vector2f result) {
+        return result.set(x * scalar, y * scalar);
+    }
+
+    public Vector2f normalize(Vector2f result) {
+        float length = length();
+        if (length == 0) throw new IllegalStateException("Cannot normalize a zero-length vector");
+        return result.set(x / length, y / length);
+    }
+
     // Сложение векторов
     public Vector2f add(Vector2f other) {
         return new Vector2f(this.x + other.x, this.y + other.y);
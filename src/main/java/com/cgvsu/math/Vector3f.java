@@ -9,6 +9,71 @@ public class Vector3f {
         this.z = z;
     }
 
+    public Vector3f() {
+    }
+
+    public Vector3f(Vector3f other) {
+        this(other.x, other.y, other.z);
+    }
+
+    public Vector3f set(float x, float y, float z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    public Vector3f set(Vector3f other) {
+        return set(other.x, other.y, other.z);
+    }
+
+    // Операции ниже с параметром result не создают объектов: результат пишется в result и он же
+    // возвращается. result может совпадать с this или other, тогда операция выполняется на месте
+
+    public Vector3f add(Vector3f other, Vector3f result) {
+        return result.set(x + other.x, y + other.y, z + other.z);
+    }
+
+    public Vector3f subtract(Vector3f other, Vector3f result) {
+        return result.set(x - other.x, y - other.y, z - other.z);
+    }
+
+    public Vector3f multiply(float scalar, Vector3f result) {
+        return result.set(x * scalar, y * scalar, z * scalar);
+    }
+
+    public Vector3f divide(float scalar, Vector3f result) {
+        if (scalar == 0) throw new IllegalArgumentException("Division by zero");
+        return result.set(x / scalar, y / scalar, z / scalar);
+    }
+
+    public Vector3f normalize(Vector3f result) {
+        float length = length();
+        if (length == 0) throw new IllegalStateException("Cannot normalize a zero-length vector");
+        return result.set(x / length, y / length, z / length);
+    }
+
+    public Vector3f cross(Vector3f other, Vector3f result) {
+        return result.set(
+                y * other.z - z * other.y,
+                z * other.x - x * other.z,
+                x * other.y - y * other.x
+        );
+    }
+
+    // Пакетная нормализация векторов (x, y, z подряд) с номерами из [fromVector, toVector) на месте.
+    // Нулевые векторы остаются нулевыми
+    public static void normalize(float[] vectors, int fromVector, int toVector) {
+        for (int i = 3 * fromVector; i < 3 * toVector; i += 3) {
+            final float x = vectors[i], y = vectors[i + 1], z = vectors[i + 2];
+            final float length = (float) Math.sqrt(x * x + y * y + z * z);
+            final float inverseLength = length > 0 ? 1 / length : 0;
+            vectors[i] = x * inverseLength;
+            vectors[i + 1] = y * inverseLength;
+            vectors[i + 2] = z * inverseLength;
+        }
+    }
+
     // Сложение векторов
     public Vector3f add(Vector3f other) {
         return new Vector3f(this.x + other.x, this.y + other.y, this.z + other.z);
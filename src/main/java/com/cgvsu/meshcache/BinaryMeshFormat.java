@@ -0,0 +1,271 @@
+package com.cgvsu.meshcache;
+
+import com.cgvsu.model.Mesh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+// Двоичный формат Mesh для кэша. Все числа little-endian, массивы выровнены по 4 байтам и лежат
+// подряд, поэтому при чтении файл отображается в память и массивы копируются целиком.
+//
+// Заголовок (64 байта):
+//   0  int  магическое число "S3DM"      36 int  число координат вершин
+//   4  int  версия формата              40 int  число текстурных координат
+//   8  long размер исходного OBJ        44 int  число координат нормалей
+//   16 long время изменения OBJ (мс)    48 int  число полигонов
+//   24 long хэш содержимого OBJ         52 int  число индексов
+//   32 int  длина пути к OBJ в байтах   56 int  флаги (1 — текстурные индексы, 2 — индексы нормалей)
+// Затем путь к OBJ в UTF-8 (дополненный нулями до кратного 4 размера) и массивы:
+// vertices, textureVertices, normals, polygonOffsets, vertexIndices, textureVertexIndices, normalIndices
+final class BinaryMeshFormat {
+
+    static final int MAGIC = 'S' | '3' << 8 | 'D' << 16 | 'M' << 24;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    private static final int FLAG_TEXTURE_VERTEX_INDICES = 1;
+    private static final int FLAG_NORMAL_INDICES = 2;
+
+    // Размер окна отображения при чтении массивов и буфера при записи
+    private static final int WINDOW_SIZE = 1 << 28;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private BinaryMeshFormat() {
+    }
+
+    // Заголовок файла кэша: ключ исходного OBJ и размеры массивов
+    static final class Header {
+        long sourceSize;
+        long sourceModified;
+        long contentHash;
+        String sourcePath;
+
+        int vertexCoordinateCount;
+        int textureVertexCoordinateCount;
+        int normalCoordinateCount;
+        int polygonCount;
+        int indexCount;
+        int flags;
+
+        // Позиция первого массива в файле
+        long dataOffset() {
+            return HEADER_SIZE + align(sourcePath.getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+
+    static void write(FileChannel channel, Header header, Mesh mesh) throws IOException {
+        final byte[] pathBytes = header.sourcePath.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(header.sourceSize);
+        buffer.putLong(header.sourceModified);
+        buffer.putLong(header.contentHash);
+        buffer.putInt(pathBytes.length);
+        buffer.putInt(mesh.vertices.length);
+        buffer.putInt(mesh.textureVertices.length);
+        buffer.putInt(mesh.normals.length);
+        buffer.putInt(mesh.getPolygonCount());
+        buffer.putInt(mesh.vertexIndices.length);
+        buffer.putInt((mesh.textureVertexIndices != null ? FLAG_TEXTURE_VERTEX_INDICES : 0)
+                | (mesh.normalIndices != null ? FLAG_NORMAL_INDICES : 0));
+        buffer.putInt(0);
+        buffer.put(pathBytes);
+        buffer.put(new byte[align(pathBytes.length) - pathBytes.length]);
+        flush(channel, buffer);
+
+        writeFloats(channel, buffer, mesh.vertices);
+        writeFloats(channel, buffer, mesh.textureVertices);
+        writeFloats(channel, buffer, mesh.normals);
+        writeInts(channel, buffer, mesh.polygonOffsets);
+        writeInts(channel, buffer, mesh.vertexIndices);
+        if (mesh.textureVertexIndices != null) {
+            writeInts(channel, buffer, mesh.textureVertexIndices);
+        }
+        if (mesh.normalIndices != null) {
+            writeInts(channel, buffer, mesh.normalIndices);
+        }
+    }
+
+    // Чтение заголовка; null, если файл не является кэшем этой версии
+    static Header readHeader(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            return null;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, buffer, 0);
+        buffer.flip();
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return null;
+        }
+
+        final Header header = new Header();
+        header.sourceSize = buffer.getLong();
+        header.sourceModified = buffer.getLong();
+        header.contentHash = buffer.getLong();
+        final int pathLength = buffer.getInt();
+        header.vertexCoordinateCount = buffer.getInt();
+        header.textureVertexCoordinateCount = buffer.getInt();
+        header.normalCoordinateCount = buffer.getInt();
+        header.polygonCount = buffer.getInt();
+        header.indexCount = buffer.getInt();
+        header.flags = buffer.getInt();
+        if (pathLength < 0 || HEADER_SIZE + (long) pathLength > channel.size()) {
+            return null;
+        }
+
+        final ByteBuffer pathBuffer = ByteBuffer.allocate(pathLength);
+        readFully(channel, pathBuffer, HEADER_SIZE);
+        header.sourcePath = new String(pathBuffer.array(), StandardCharsets.UTF_8);
+        return header;
+    }
+
+    // Чтение массивов Mesh, описанных заголовком. Повреждённый файл (неверные размеры, смещения полигонов
+    // или индексы) даёт IOException, а не модель, на которой отрисовка упадёт позже
+    static Mesh readMesh(FileChannel channel, Header header) throws IOException {
+        if (header.vertexCoordinateCount < 0 || header.vertexCoordinateCount % 3 != 0
+                || header.textureVertexCoordinateCount < 0 || header.textureVertexCoordinateCount % 2 != 0
+                || header.normalCoordinateCount < 0 || header.normalCoordinateCount % 3 != 0
+                || header.polygonCount < 0 || header.polygonCount == Integer.MAX_VALUE || header.indexCount < 0) {
+            throw new IOException("Mesh cache file has invalid array sizes.");
+        }
+        final boolean hasTextureVertexIndices = (header.flags & FLAG_TEXTURE_VERTEX_INDICES) != 0;
+        final boolean hasNormalIndices = (header.flags & FLAG_NORMAL_INDICES) != 0;
+        final long expectedSize = header.dataOffset() + 4L * (
+                (long) header.vertexCoordinateCount
+                        + header.textureVertexCoordinateCount
+                        + header.normalCoordinateCount
+                        + header.polygonCount + 1
+                        + (long) header.indexCount * (1 + (hasTextureVertexIndices ? 1 : 0) + (hasNormalIndices ? 1 : 0)));
+        if (channel.size() != expectedSize) {
+            throw new IOException("Mesh cache file is truncated.");
+        }
+
+        long position = header.dataOffset();
+        final float[] vertices = new float[header.vertexCoordinateCount];
+        position = readFloats(channel, position, vertices);
+        final float[] textureVertices = new float[header.textureVertexCoordinateCount];
+        position = readFloats(channel, position, textureVertices);
+        final float[] normals = new float[header.normalCoordinateCount];
+        position = readFloats(channel, position, normals);
+        final int[] polygonOffsets = new int[header.polygonCount + 1];
+        position = readInts(channel, position, polygonOffsets);
+        final int[] vertexIndices = new int[header.indexCount];
+        position = readInts(channel, position, vertexIndices);
+        int[] textureVertexIndices = null;
+        if (hasTextureVertexIndices) {
+            textureVertexIndices = new int[header.indexCount];
+            position = readInts(channel, position, textureVertexIndices);
+        }
+        int[] normalIndices = null;
+        if (hasNormalIndices) {
+            normalIndices = new int[header.indexCount];
+            readInts(channel, position, normalIndices);
+        }
+
+        checkPolygons(polygonOffsets, header.indexCount);
+        checkIndices(vertexIndices, 0, header.vertexCoordinateCount / 3);
+        if (textureVertexIndices != null) {
+            checkIndices(textureVertexIndices, Mesh.NO_INDEX, header.textureVertexCoordinateCount / 2);
+        }
+        if (normalIndices != null) {
+            checkIndices(normalIndices, Mesh.NO_INDEX, header.normalCoordinateCount / 3);
+        }
+        return new Mesh(vertices, textureVertices, normals, polygonOffsets, vertexIndices, textureVertexIndices, normalIndices);
+    }
+
+    // Смещения полигонов начинаются с 0, не убывают и кончаются числом индексов
+    private static void checkPolygons(int[] polygonOffsets, int indexCount) throws IOException {
+        if (polygonOffsets[0] != 0 || polygonOffsets[polygonOffsets.length - 1] != indexCount) {
+            throw new IOException("Mesh cache file has invalid polygon offsets.");
+        }
+        for (int i = 1; i < polygonOffsets.length; ++i) {
+            if (polygonOffsets[i] < polygonOffsets[i - 1]) {
+                throw new IOException("Mesh cache file has invalid polygon offsets.");
+            }
+        }
+    }
+
+    // Индексы лежат в [min, count)
+    private static void checkIndices(int[] indices, int min, int count) throws IOException {
+        for (int index : indices) {
+            if (index < min || index >= count) {
+                throw new IOException("Mesh cache file has an index out of range.");
+            }
+        }
+    }
+
+    private static long readFloats(FileChannel channel, long position, float[] destination) throws IOException {
+        int done = 0;
+        while (done < destination.length) {
+            final int count = Math.min(destination.length - done, WINDOW_SIZE / Float.BYTES);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, (long) count * Float.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer()
+                    .get(destination, done, count);
+            done += count;
+            position += (long) count * Float.BYTES;
+        }
+        return position;
+    }
+
+    private static long readInts(FileChannel channel, long position, int[] destination) throws IOException {
+        int done = 0;
+        while (done < destination.length) {
+            final int count = Math.min(destination.length - done, WINDOW_SIZE / Integer.BYTES);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, (long) count * Integer.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asIntBuffer()
+                    .get(destination, done, count);
+            done += count;
+            position += (long) count * Integer.BYTES;
+        }
+        return position;
+    }
+
+    private static void writeFloats(FileChannel channel, ByteBuffer buffer, float[] source) throws IOException {
+        int done = 0;
+        while (done < source.length) {
+            final int count = Math.min(source.length - done, buffer.capacity() / Float.BYTES);
+            buffer.asFloatBuffer().put(source, done, count);
+            buffer.position(count * Float.BYTES);
+            flush(channel, buffer);
+            done += count;
+        }
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] source) throws IOException {
+        int done = 0;
+        while (done < source.length) {
+            final int count = Math.min(source.length - done, buffer.capacity() / Integer.BYTES);
+            buffer.asIntBuffer().put(source, done, count);
+            buffer.position(count * Integer.BYTES);
+            flush(channel, buffer);
+            done += count;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of mesh cache file.");
+            }
+        }
+    }
+
+    private static int align(int size) {
+        return (size + 3) & ~3;
+    }
+}
@@ -0,0 +1,233 @@
+package com.cgvsu.meshcache;
+
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.MeshWelder;
+import com.cgvsu.model.Model;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objreader.ObjValidationMode;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+// Кэш разобранных моделей в двоичном формате. Запись кэша привязана к пути, размеру, времени изменения
+// и хэшу содержимого OBJ; пока они совпадают, модель читается из кэша без разбора OBJ
+public class MeshCache {
+
+    private static final String CACHE_FILE_EXTENSION = ".mesh";
+
+    // Размер окна отображения при подсчёте хэша
+    private static final long HASH_WINDOW_SIZE = 1L << 28;
+
+    private final Path directory;
+
+    // Mesh, уже загруженные через этот кэш, по пути к OBJ: повторное открытие неизменённого файла даёт
+    // новую модель с той же Mesh, без чтения и второй копии вершин в памяти. Ссылки слабые: Mesh
+    // забывается, когда её не использует ни одна модель
+    private final Map<Path, LoadedMesh> loadedMeshes = new HashMap<>();
+
+    // То же для Mesh после слияния совпадающих вершин: файл, открытый со слиянием, получает общую слитую Mesh
+    private final Map<Path, LoadedMesh> weldedMeshes = new HashMap<>();
+
+    public MeshCache(Path directory) {
+        this.directory = directory;
+    }
+
+    // Каталог кэша по умолчанию: ~/.cache/simple3dviewer
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".cache", "simple3dviewer");
+    }
+
+    // Загрузка модели: из кэша, если он действителен, иначе через ObjReader с последующим сохранением в кэш
+    public Model load(Path objPath) throws IOException {
+        return load(objPath, null);
+    }
+
+    // Загрузка с наблюдателем за ходом разбора OBJ (при попадании в кэш разбора нет). Модели одного и того же
+    // неизменённого файла получают общую Mesh, поэтому менять её вершины на месте нельзя
+    public Model load(Path objPath, ObjReader.ProgressListener listener) throws IOException {
+        return load(objPath, listener, null);
+    }
+
+    // Загрузка со слиянием совпадающих вершин, если weldListener не null. Слитая Mesh тоже общая для всех
+    // открытий файла со слиянием; weldListener получает результат, только когда слияние действительно
+    // выполнялось, а не была взята уже слитая Mesh. В файле кэша хранится Mesh без слияния
+    public Model load(Path objPath, ObjReader.ProgressListener listener, Consumer<MeshWelder.Result> weldListener)
+            throws IOException {
+        final Source source = Source.of(objPath);
+        if (weldListener == null) {
+            return new Model(loadMesh(source, listener));
+        }
+
+        final Mesh loaded = findLoaded(weldedMeshes, source);
+        if (loaded != null) {
+            return new Model(loaded);
+        }
+        final Mesh mesh = loadMesh(source, listener);
+        final MeshWelder.Result result = MeshWelder.weld(mesh, MeshWelder.defaultEpsilon(mesh));
+        rememberLoaded(weldedMeshes, source, result.mesh);
+        weldListener.accept(result);
+        return new Model(result.mesh);
+    }
+
+    private Mesh loadMesh(Source source, ObjReader.ProgressListener listener) throws IOException {
+        final Mesh loaded = findLoaded(loadedMeshes, source);
+        if (loaded != null) {
+            return loaded;
+        }
+
+        final Mesh cached = read(source);
+        if (cached != null) {
+            rememberLoaded(loadedMeshes, source, cached);
+            return cached;
+        }
+
+        final Mesh mesh = ObjReader.read(source.path, ObjValidationMode.STRICT, listener).mesh;
+        try {
+            store(source, mesh);
+        } catch (IOException ignored) {
+            // Кэш — только ускорение: если его не удалось записать, модель всё равно загружена
+        }
+        rememberLoaded(loadedMeshes, source, mesh);
+        return mesh;
+    }
+
+    // Чтение Mesh из кэша; null, если записи нет или она устарела
+    public Mesh read(Path objPath) {
+        try {
+            return read(Source.of(objPath));
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+
+    private Mesh read(Source source) {
+        final Path cachePath = cachePath(source.path);
+        if (!Files.isRegularFile(cachePath)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+            final BinaryMeshFormat.Header header = BinaryMeshFormat.readHeader(channel);
+            if (header == null
+                    || !header.sourcePath.equals(source.path.toString())
+                    || header.sourceSize != source.size
+                    || header.sourceModified != source.modified
+                    || header.contentHash != source.contentHash) {
+                return null;
+            }
+            return BinaryMeshFormat.readMesh(channel, header);
+        } catch (IOException | RuntimeException exception) {
+            // Повреждённая запись кэша (её проверяет readMesh) равносильна её отсутствию, как и любой другой сбой чтения
+            return null;
+        }
+    }
+
+    // Сохранение Mesh в кэш; файл сначала пишется во временный и затем атомарно переименовывается
+    public void store(Path objPath, Mesh mesh) throws IOException {
+        store(Source.of(objPath), mesh);
+    }
+
+    private void store(Source source, Mesh mesh) throws IOException {
+        final BinaryMeshFormat.Header header = new BinaryMeshFormat.Header();
+        header.sourcePath = source.path.toString();
+        header.sourceSize = source.size;
+        header.sourceModified = source.modified;
+        header.contentHash = source.contentHash;
+
+        Files.createDirectories(directory);
+        final Path cachePath = cachePath(source.path);
+        final Path temporaryPath = Files.createTempFile(directory, cachePath.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                BinaryMeshFormat.write(channel, header, mesh);
+            }
+            Files.move(temporaryPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    // Загрузки идут из фоновых потоков, поэтому обращения к loadedMeshes и weldedMeshes синхронизированы
+    private synchronized Mesh findLoaded(Map<Path, LoadedMesh> meshes, Source source) {
+        final LoadedMesh loaded = meshes.get(source.path);
+        return loaded != null && loaded.source.isSameFile(source) ? loaded.mesh.get() : null;
+    }
+
+    private synchronized void rememberLoaded(Map<Path, LoadedMesh> meshes, Source source, Mesh mesh) {
+        meshes.values().removeIf(loaded -> loaded.mesh.get() == null);
+        meshes.put(source.path, new LoadedMesh(source, mesh));
+    }
+
+    // Файл OBJ и то, по чему проверяется, что он не изменился: размер, время изменения и хэш содержимого
+    private static final class Source {
+        final Path path;
+        final long size;
+        final long modified;
+        final long contentHash;
+
+        private Source(Path path) throws IOException {
+            this.path = path;
+            this.size = Files.size(path);
+            this.modified = Files.getLastModifiedTime(path).toMillis();
+            this.contentHash = contentHash(path);
+        }
+
+        static Source of(Path objPath) throws IOException {
+            return new Source(objPath.toAbsolutePath().normalize());
+        }
+
+        boolean isSameFile(Source other) {
+            return path.equals(other.path) && size == other.size && modified == other.modified
+                    && contentHash == other.contentHash;
+        }
+    }
+
+    private static final class LoadedMesh {
+        final Source source;
+        final WeakReference<Mesh> mesh;
+
+        LoadedMesh(Source source, Mesh mesh) {
+            this.source = source;
+            this.mesh = new WeakReference<>(mesh);
+        }
+    }
+
+    // Имя файла кэша — хэш абсолютного пути к OBJ
+    Path cachePath(Path sourcePath) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(sourcePath.toString().getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest, 0, 16) + CACHE_FILE_EXTENSION);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    // Хэш содержимого файла (CRC32C аппаратно ускорен и считается со скоростью чтения с диска)
+    static long contentHash(Path path) throws IOException {
+        final CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            for (long position = 0; position < size; position += HASH_WINDOW_SIZE) {
+                final MappedByteBuffer window = channel.map(
+                        FileChannel.MapMode.READ_ONLY, position, Math.min(HASH_WINDOW_SIZE, size - position));
+                crc.update(window);
+            }
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,8 @@
+package com.cgvsu.model;
+
+// Проверка видимости ограничивающего параллелепипеда: bounds[offset..offset + 6) — minX, minY, minZ,
+// maxX, maxY, maxZ. Ответ «да» может быть ложным, «нет» — только для действительно невидимого
+@FunctionalInterface
+public interface BoundsPredicate {
+    boolean intersects(float[] bounds, int offset);
+}
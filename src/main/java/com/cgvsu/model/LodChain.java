@@ -0,0 +1,92 @@
+package com.cgvsu.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Цепочка упрощённых копий модели (уровней детализации) от подробной к грубой. Строится в фоне
+// и не заменяет исходную модель: редактируется и сохраняется по-прежнему Model.mesh. Цепочка верна,
+// пока у модели те же ограничивающие параллелепипеды, из которых она построена: после изменения
+// вершин Mesh.getBounds() возвращает новый объект, и устаревшая цепочка перестаёт использоваться
+public final class LodChain {
+
+    // Модели с меньшим числом полигонов не упрощаются: их отрисовка и так быстрая
+    public static final int MIN_POLYGON_COUNT = 1 << 14;
+
+    // Число ячеек вдоль модели для самого подробного уровня; каждый следующий в COARSENING раз грубее
+    private static final int MAX_RESOLUTION = 1024;
+    private static final int COARSENING = 2;
+    private static final int MIN_RESOLUTION = 8;
+
+    // Уровень сохраняется, только если в нём не больше половины полигонов предыдущего
+    private static final int MIN_REDUCTION = 2;
+
+    // Допустимая ошибка уровня на экране: ячейка не больше двух пикселей
+    private static final float MAX_PIXEL_ERROR = 2.0F;
+
+    // Параллелепипеды исходной модели, по которым построена цепочка
+    public final MeshBounds sourceBounds;
+
+    // Уровни от подробного к грубому и число ячеек вдоль модели у каждого
+    private final Mesh[] levels;
+    private final int[] resolutions;
+
+    private LodChain(MeshBounds sourceBounds, Mesh[] levels, int[] resolutions) {
+        this.sourceBounds = sourceBounds;
+        this.levels = levels;
+        this.resolutions = resolutions;
+    }
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    public Mesh getLevel(int level) {
+        return levels[level];
+    }
+
+    /**
+     * Строит цепочку уровней; у каждого уровня заранее строятся рёбра, треугольники и параллелепипеды, поэтому
+     * переключение уровней при отрисовке ничего не вычисляет.
+     *
+     * @param mesh         Исходная модель.
+     * @param sourceBounds Параллелепипеды исходной модели (mesh.getBounds() на момент запуска).
+     */
+    public static LodChain build(Mesh mesh, MeshBounds sourceBounds) {
+        final List<Mesh> levels = new ArrayList<>();
+        final List<Integer> resolutions = new ArrayList<>();
+        if (mesh.getPolygonCount() >= MIN_POLYGON_COUNT && !sourceBounds.isEmpty()) {
+            int previousPolygonCount = mesh.getPolygonCount();
+            for (int resolution = MAX_RESOLUTION; resolution >= MIN_RESOLUTION; resolution /= COARSENING) {
+                final Mesh level = MeshSimplifier.simplify(mesh, sourceBounds.bounds, resolution);
+                if (level.getPolygonCount() * MIN_REDUCTION > previousPolygonCount) {
+                    continue;
+                }
+                level.getBounds();
+                level.getTriangulation();
+                levels.add(level);
+                resolutions.add(resolution);
+                previousPolygonCount = level.getPolygonCount();
+            }
+        }
+        final int[] resolutionArray = new int[resolutions.size()];
+        for (int i = 0; i < resolutionArray.length; ++i) {
+            resolutionArray[i] = resolutions.get(i);
+        }
+        return new LodChain(sourceBounds, levels.toArray(new Mesh[0]), resolutionArray);
+    }
+
+    /**
+     * Самый грубый уровень, ошибка которого на экране не больше MAX_PIXEL_ERROR пикселей.
+     *
+     * @param original      Исходная модель; возвращается, если ни один уровень не подходит.
+     * @param projectedSize Размер модели на экране в пикселях.
+     */
+    public Mesh select(Mesh original, float projectedSize) {
+        for (int level = levels.length - 1; level >= 0; --level) {
+            if (resolutions[level] * MAX_PIXEL_ERROR >= projectedSize) {
+                return levels[level];
+            }
+        }
+        return original;
+    }
+}
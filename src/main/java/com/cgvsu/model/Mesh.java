@@ -0,0 +1,196 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+
+import java.util.ArrayList;
+
+// Компактное представление геометрии модели: координаты упакованы в массивы float,
+// полигоны хранятся в формате CSR (смещения начала каждого полигона + общий массив индексов)
+public class Mesh {
+
+    // Признак отсутствия текстурной вершины или нормали у вершины полигона
+    public static final int NO_INDEX = -1;
+
+    // Координаты вершин подряд: x0, y0, z0, x1, y1, z1, ...
+    public final float[] vertices;
+
+    // Текстурные координаты подряд: u0, v0, u1, v1, ...
+    public final float[] textureVertices;
+
+    // Нормали подряд: x0, y0, z0, x1, y1, z1, ...
+    public final float[] normals;
+
+    // Индексы полигона i лежат в диапазоне [polygonOffsets[i], polygonOffsets[i + 1])
+    public final int[] polygonOffsets;
+
+    public final int[] vertexIndices;
+
+    // null, если в модели нет текстурных вершин; иначе выровнен с vertexIndices
+    public final int[] textureVertexIndices;
+
+    // null, если в модели нет нормалей; иначе выровнен с vertexIndices (NO_INDEX — нормаль не задана)
+    public final int[] normalIndices;
+
+    // Список уникальных рёбер; строится при первом обращении. Полигоны Mesh не меняются, поэтому
+    // список остаётся верным при любых перемещениях вершин
+    private volatile MeshEdges edges;
+
+    // Разбиение полигонов на треугольники; строится при первом обращении и, как и рёбра, не сбрасывается
+    private volatile MeshTriangulation triangulation;
+
+    // Ограничивающие параллелепипеды рёбер; строятся при первом обращении и сбрасываются verticesChanged
+    private volatile MeshBounds bounds;
+
+    // Уровни детализации; null, пока не построены. Общие для всех моделей с этой Mesh. Записываются из фонового потока
+    private volatile LodChain lodChain;
+
+    public Mesh(
+            float[] vertices,
+            float[] textureVertices,
+            float[] normals,
+            int[] polygonOffsets,
+            int[] vertexIndices,
+            int[] textureVertexIndices,
+            int[] normalIndices) {
+        assert vertices.length % 3 == 0 && textureVertices.length % 2 == 0 && normals.length % 3 == 0;
+        assert polygonOffsets.length > 0 && polygonOffsets[polygonOffsets.length - 1] == vertexIndices.length;
+        this.vertices = vertices;
+        this.textureVertices = textureVertices;
+        this.normals = normals;
+        this.polygonOffsets = polygonOffsets;
+        this.vertexIndices = vertexIndices;
+        this.textureVertexIndices = textureVertexIndices;
+        this.normalIndices = normalIndices;
+    }
+
+    public int getVertexCount() {
+        return vertices.length / 3;
+    }
+
+    public int getTextureVertexCount() {
+        return textureVertices.length / 2;
+    }
+
+    public int getNormalCount() {
+        return normals.length / 3;
+    }
+
+    public int getPolygonCount() {
+        return polygonOffsets.length - 1;
+    }
+
+    public int getPolygonVertexCount(int polygonInd) {
+        return polygonOffsets[polygonInd + 1] - polygonOffsets[polygonInd];
+    }
+
+    public MeshEdges getEdges() {
+        MeshEdges result = edges;
+        if (result == null) {
+            result = MeshEdges.build(this);
+            edges = result;
+        }
+        return result;
+    }
+
+    public MeshTriangulation getTriangulation() {
+        MeshTriangulation result = triangulation;
+        if (result == null) {
+            result = MeshTriangulation.build(this);
+            triangulation = result;
+        }
+        return result;
+    }
+
+    public MeshBounds getBounds() {
+        MeshBounds result = bounds;
+        if (result == null) {
+            result = MeshBounds.build(this, getEdges());
+            bounds = result;
+        }
+        return result;
+    }
+
+    public LodChain getLodChain() {
+        return lodChain;
+    }
+
+    public void setLodChain(LodChain lodChain) {
+        this.lodChain = lodChain;
+    }
+
+    // Копия с другими координатами вершин и нормалей (тех же размеров) и общими с этой Mesh полигонами
+    // и текстурными координатами. Рёбра и разбиение на треугольники тоже общие: аффинное преобразование
+    // вершин (например, перенос положения модели) не меняет ни список рёбер, ни годность треугольников
+    public Mesh withVertices(float[] vertices, float[] normals) {
+        assert vertices.length == this.vertices.length && normals.length == this.normals.length;
+        final Mesh result = new Mesh(
+                vertices, textureVertices, normals, polygonOffsets, vertexIndices, textureVertexIndices, normalIndices);
+        result.edges = edges;
+        result.triangulation = triangulation;
+        return result;
+    }
+
+    // Вызывается после изменения координат вершин: сбрасывает то, что от них зависит
+    public void verticesChanged() {
+        bounds = null;
+    }
+
+    // Построены ли текущие параллелепипеды модели именно как bounds; сами параллелепипеды не строятся
+    public boolean isCurrentBounds(MeshBounds bounds) {
+        return bounds != null && this.bounds == bounds;
+    }
+
+    public boolean hasTextureVertices() {
+        return textureVertexIndices != null;
+    }
+
+    // Есть ли у полигона нормали
+    public boolean hasNormals(int polygonInd) {
+        return normalIndices != null && normalIndices[polygonOffsets[polygonInd]] != NO_INDEX;
+    }
+
+    // Копия вершины в виде вектора (для инструментов, не для циклов отрисовки)
+    public Vector3f getVertex(int vertexInd) {
+        return new Vector3f(vertices[vertexInd * 3], vertices[vertexInd * 3 + 1], vertices[vertexInd * 3 + 2]);
+    }
+
+    // Вершина в уже существующий вектор result, без создания объектов
+    public Vector3f getVertex(int vertexInd, Vector3f result) {
+        return result.set(vertices[vertexInd * 3], vertices[vertexInd * 3 + 1], vertices[vertexInd * 3 + 2]);
+    }
+
+    public Vector2f getTextureVertex(int textureVertexInd) {
+        return new Vector2f(textureVertices[textureVertexInd * 2], textureVertices[textureVertexInd * 2 + 1]);
+    }
+
+    public Vector3f getNormal(int normalInd) {
+        return new Vector3f(normals[normalInd * 3], normals[normalInd * 3 + 1], normals[normalInd * 3 + 2]);
+    }
+
+    public Vector3f getNormal(int normalInd, Vector3f result) {
+        return result.set(normals[normalInd * 3], normals[normalInd * 3 + 1], normals[normalInd * 3 + 2]);
+    }
+
+    // Копия полигона в виде отдельного объекта (для инструментов, не для циклов отрисовки)
+    public Polygon getPolygon(int polygonInd) {
+        ArrayList<Integer> polygonVertexIndices = new ArrayList<>();
+        ArrayList<Integer> polygonTextureVertexIndices = new ArrayList<>();
+        ArrayList<Integer> polygonNormalIndices = new ArrayList<>();
+        for (int i = polygonOffsets[polygonInd]; i < polygonOffsets[polygonInd + 1]; ++i) {
+            polygonVertexIndices.add(vertexIndices[i]);
+            if (textureVertexIndices != null) {
+                polygonTextureVertexIndices.add(textureVertexIndices[i]);
+            }
+            if (hasNormals(polygonInd)) {
+                polygonNormalIndices.add(normalIndices[i]);
+            }
+        }
+
+        Polygon polygon = new Polygon();
+        polygon.setVertexIndices(polygonVertexIndices);
+        polygon.setTextureVertexIndices(polygonTextureVertexIndices);
+        polygon.setNormalIndices(polygonNormalIndices);
+        return polygon;
+    }
+}
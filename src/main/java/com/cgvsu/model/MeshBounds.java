@@ -0,0 +1,87 @@
+package com.cgvsu.model;
+
+// Ограничивающие параллелепипеды рёбер модели: общий и для каждой группы из CLUSTER_SIZE подряд идущих
+// рёбер списка MeshEdges. По ним отрисовка пропускает целиком невидимые модели и группы рёбер.
+// Зависит от положения вершин, поэтому пересчитывается после их изменения
+public final class MeshBounds {
+
+    // Число рёбер в группе
+    public static final int CLUSTER_SIZE = 1 << 12;
+
+    // minX, minY, minZ, maxX, maxY, maxZ; у модели без рёбер min больше max
+    public final float[] bounds;
+
+    // По шесть чисел на группу в том же порядке
+    public final float[] clusterBounds;
+
+    // Вершины рёбер группы c лежат в [clusterVertexRanges[2c], clusterVertexRanges[2c + 1])
+    public final int[] clusterVertexRanges;
+
+    private MeshBounds(float[] bounds, float[] clusterBounds, int[] clusterVertexRanges) {
+        this.bounds = bounds;
+        this.clusterBounds = clusterBounds;
+        this.clusterVertexRanges = clusterVertexRanges;
+    }
+
+    public int getClusterCount() {
+        return clusterVertexRanges.length / 2;
+    }
+
+    public boolean isEmpty() {
+        return bounds[0] > bounds[3];
+    }
+
+    public static MeshBounds build(Mesh mesh, MeshEdges edges) {
+        final float[] vertices = mesh.vertices;
+        final int[] edgeVertexIndices = edges.edgeVertexIndices;
+        final int edgeCount = edges.getEdgeCount();
+        final int clusterCount = (edgeCount + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+        final float[] clusterBounds = new float[6 * clusterCount];
+        final int[] clusterVertexRanges = new int[2 * clusterCount];
+        final float[] bounds = emptyBounds();
+        for (int cluster = 0; cluster < clusterCount; ++cluster) {
+            float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+            float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+            int minVertex = Integer.MAX_VALUE;
+            int maxVertex = Integer.MIN_VALUE;
+            final int end = 2 * Math.min(edgeCount, (cluster + 1) * CLUSTER_SIZE);
+            for (int i = 2 * cluster * CLUSTER_SIZE; i < end; ++i) {
+                final int vertexInd = edgeVertexIndices[i];
+                final float x = vertices[3 * vertexInd];
+                final float y = vertices[3 * vertexInd + 1];
+                final float z = vertices[3 * vertexInd + 2];
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                minZ = Math.min(minZ, z);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+                maxZ = Math.max(maxZ, z);
+                minVertex = Math.min(minVertex, vertexInd);
+                maxVertex = Math.max(maxVertex, vertexInd);
+            }
+            final int offset = 6 * cluster;
+            clusterBounds[offset] = minX;
+            clusterBounds[offset + 1] = minY;
+            clusterBounds[offset + 2] = minZ;
+            clusterBounds[offset + 3] = maxX;
+            clusterBounds[offset + 4] = maxY;
+            clusterBounds[offset + 5] = maxZ;
+            clusterVertexRanges[2 * cluster] = minVertex;
+            clusterVertexRanges[2 * cluster + 1] = maxVertex + 1;
+
+            bounds[0] = Math.min(bounds[0], minX);
+            bounds[1] = Math.min(bounds[1], minY);
+            bounds[2] = Math.min(bounds[2], minZ);
+            bounds[3] = Math.max(bounds[3], maxX);
+            bounds[4] = Math.max(bounds[4], maxY);
+            bounds[5] = Math.max(bounds[5], maxZ);
+        }
+        return new MeshBounds(bounds, clusterBounds, clusterVertexRanges);
+    }
+
+    private static float[] emptyBounds() {
+        return new float[]{
+                Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+    }
+}
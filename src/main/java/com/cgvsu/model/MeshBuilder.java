@@ -0,0 +1,226 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Построитель Mesh: растущие массивы примитивов, в которые читатели дописывают элементы по одному
+public class MeshBuilder {
+
+    private float[] vertices = new float[3 * 16];
+    private int vertexCoordinateCount = 0;
+
+    private float[] textureVertices = new float[2 * 16];
+    private int textureVertexCoordinateCount = 0;
+
+    private float[] normals = new float[3 * 16];
+    private int normalCoordinateCount = 0;
+
+    private int[] polygonOffsets = new int[16 + 1];
+    private int polygonCount = 0;
+
+    private int[] vertexIndices = new int[3 * 16];
+    private int[] textureVertexIndices = new int[3 * 16];
+    private int[] normalIndices = new int[3 * 16];
+    private int indexCount = 0;
+
+    private boolean hasTextureVertexIndices = false;
+    private boolean hasNormalIndices = false;
+
+    public void addVertex(float x, float y, float z) {
+        vertices = ensureCapacity(vertices, vertexCoordinateCount + 3);
+        vertices[vertexCoordinateCount++] = x;
+        vertices[vertexCoordinateCount++] = y;
+        vertices[vertexCoordinateCount++] = z;
+    }
+
+    public void addTextureVertex(float u, float v) {
+        textureVertices = ensureCapacity(textureVertices, textureVertexCoordinateCount + 2);
+        textureVertices[textureVertexCoordinateCount++] = u;
+        textureVertices[textureVertexCoordinateCount++] = v;
+    }
+
+    public void addNormal(float x, float y, float z) {
+        normals = ensureCapacity(normals, normalCoordinateCount + 3);
+        normals[normalCoordinateCount++] = x;
+        normals[normalCoordinateCount++] = y;
+        normals[normalCoordinateCount++] = z;
+    }
+
+    // Добавление вершины в текущий (ещё не завершённый) полигон; Mesh.NO_INDEX — элемент не задан
+    public void addPolygonVertex(int vertexIndex, int textureVertexIndex, int normalIndex) {
+        if (indexCount == vertexIndices.length) {
+            final int capacity = indexCount * 2;
+            vertexIndices = Arrays.copyOf(vertexIndices, capacity);
+            textureVertexIndices = Arrays.copyOf(textureVertexIndices, capacity);
+            normalIndices = Arrays.copyOf(normalIndices, capacity);
+        }
+        vertexIndices[indexCount] = vertexIndex;
+        textureVertexIndices[indexCount] = textureVertexIndex;
+        normalIndices[indexCount] = normalIndex;
+        ++indexCount;
+        hasTextureVertexIndices |= textureVertexIndex != Mesh.NO_INDEX;
+        hasNormalIndices |= normalIndex != Mesh.NO_INDEX;
+    }
+
+    // Завершение текущего полигона: все добавленные после предыдущего полигона вершины входят в него
+    public void endPolygon() {
+        if (polygonCount + 2 > polygonOffsets.length) {
+            polygonOffsets = Arrays.copyOf(polygonOffsets, polygonOffsets.length * 2);
+        }
+        polygonOffsets[++polygonCount] = indexCount;
+    }
+
+    // Отбрасывание вершин текущего (ещё не завершённого) полигона
+    public void discardPolygon() {
+        indexCount = polygonOffsets[polygonCount];
+    }
+
+    // Удаление отмеченных полигонов с сохранением порядка остальных. Полигоны переписываются в новые
+    // массивы, чтобы не менять части, уже отданные в MeshPreview
+    public void removePolygons(BitSet removed) {
+        final int[] keptPolygonOffsets = new int[polygonOffsets.length];
+        final int[] keptVertexIndices = new int[vertexIndices.length];
+        final int[] keptTextureVertexIndices = new int[textureVertexIndices.length];
+        final int[] keptNormalIndices = new int[normalIndices.length];
+        int keptPolygonCount = 0;
+        int keptIndexCount = 0;
+        for (int polygonInd = 0; polygonInd < polygonCount; ++polygonInd) {
+            if (!removed.get(polygonInd)) {
+                final int start = polygonOffsets[polygonInd];
+                final int size = polygonOffsets[polygonInd + 1] - start;
+                System.arraycopy(vertexIndices, start, keptVertexIndices, keptIndexCount, size);
+                System.arraycopy(textureVertexIndices, start, keptTextureVertexIndices, keptIndexCount, size);
+                System.arraycopy(normalIndices, start, keptNormalIndices, keptIndexCount, size);
+                keptIndexCount += size;
+                keptPolygonOffsets[++keptPolygonCount] = keptIndexCount;
+            }
+        }
+        polygonOffsets = keptPolygonOffsets;
+        vertexIndices = keptVertexIndices;
+        textureVertexIndices = keptTextureVertexIndices;
+        normalIndices = keptNormalIndices;
+        polygonCount = keptPolygonCount;
+        indexCount = keptIndexCount;
+    }
+
+    // Дописывание всех элементов другого построителя; его индексы переносятся без изменений
+    public void append(MeshBuilder other) {
+        vertices = ensureCapacity(vertices, vertexCoordinateCount + other.vertexCoordinateCount);
+        System.arraycopy(other.vertices, 0, vertices, vertexCoordinateCount, other.vertexCoordinateCount);
+        vertexCoordinateCount += other.vertexCoordinateCount;
+
+        textureVertices = ensureCapacity(textureVertices, textureVertexCoordinateCount + other.textureVertexCoordinateCount);
+        System.arraycopy(other.textureVertices, 0, textureVertices, textureVertexCoordinateCount, other.textureVertexCoordinateCount);
+        textureVertexCoordinateCount += other.textureVertexCoordinateCount;
+
+        normals = ensureCapacity(normals, normalCoordinateCount + other.normalCoordinateCount);
+        System.arraycopy(other.normals, 0, normals, normalCoordinateCount, other.normalCoordinateCount);
+        normalCoordinateCount += other.normalCoordinateCount;
+
+        final int otherIndexCount = other.polygonOffsets[other.polygonCount];
+        vertexIndices = ensureCapacity(vertexIndices, indexCount + otherIndexCount);
+        textureVertexIndices = ensureCapacity(textureVertexIndices, indexCount + otherIndexCount);
+        normalIndices = ensureCapacity(normalIndices, indexCount + otherIndexCount);
+        System.arraycopy(other.vertexIndices, 0, vertexIndices, indexCount, otherIndexCount);
+        System.arraycopy(other.textureVertexIndices, 0, textureVertexIndices, indexCount, otherIndexCount);
+        System.arraycopy(other.normalIndices, 0, normalIndices, indexCount, otherIndexCount);
+
+        polygonOffsets = ensureCapacity(polygonOffsets, polygonCount + other.polygonCount + 1);
+        for (int i = 1; i <= other.polygonCount; ++i) {
+            polygonOffsets[polygonCount + i] = indexCount + other.polygonOffsets[i];
+        }
+        polygonCount += other.polygonCount;
+        indexCount += otherIndexCount;
+
+        hasTextureVertexIndices |= other.hasTextureVertexIndices;
+        hasNormalIndices |= other.hasNormalIndices;
+    }
+
+    public int getVertexCount() {
+        return vertexCoordinateCount / 3;
+    }
+
+    public int getTextureVertexCount() {
+        return textureVertexCoordinateCount / 2;
+    }
+
+    public int getNormalCount() {
+        return normalCoordinateCount / 3;
+    }
+
+    public int getPolygonCount() {
+        return polygonCount;
+    }
+
+    // Начало полигона в массивах индексов; для polygonInd == getPolygonCount() — начало текущего полигона
+    public int getPolygonStart(int polygonInd) {
+        return polygonOffsets[polygonInd];
+    }
+
+    // Число индексов с учётом ещё не завершённого полигона
+    public int getIndexCount() {
+        return indexCount;
+    }
+
+    public int getVertexIndex(int index) {
+        return vertexIndices[index];
+    }
+
+    public int getTextureVertexIndex(int index) {
+        return textureVertexIndices[index];
+    }
+
+    public int getNormalIndex(int index) {
+        return normalIndices[index];
+    }
+
+    // Задана ли у полигона хотя бы одна текстурная вершина
+    public boolean hasTextureVertices(int polygonInd) {
+        return hasAnyIndex(textureVertexIndices, polygonOffsets[polygonInd], polygonOffsets[polygonInd + 1]);
+    }
+
+    // Задана ли у полигона хотя бы одна нормаль
+    public boolean hasNormals(int polygonInd) {
+        return hasAnyIndex(normalIndices, polygonOffsets[polygonInd], polygonOffsets[polygonInd + 1]);
+    }
+
+    // Снимок готовой части для отрисовки модели во время загрузки; массивы не копируются
+    public MeshPreview preview() {
+        return new MeshPreview(vertices, getVertexCount(), polygonOffsets, vertexIndices, polygonCount);
+    }
+
+    // Сборка Mesh; массивы обрезаются до точного размера. Массивы текстурных индексов и нормалей
+    // не создаются, если все полигоны, где они были, отброшены
+    public Mesh build() {
+        final int[] offsets = Arrays.copyOf(polygonOffsets, polygonCount + 1);
+        final int meshIndexCount = offsets[polygonCount];
+        final boolean hasTextureVertexIndices = this.hasTextureVertexIndices
+                && hasAnyIndex(textureVertexIndices, 0, meshIndexCount);
+        final boolean hasNormalIndices = this.hasNormalIndices && hasAnyIndex(normalIndices, 0, meshIndexCount);
+        return new Mesh(
+                Arrays.copyOf(vertices, vertexCoordinateCount),
+                Arrays.copyOf(textureVertices, textureVertexCoordinateCount),
+                Arrays.copyOf(normals, normalCoordinateCount),
+                offsets,
+                Arrays.copyOf(vertexIndices, meshIndexCount),
+                hasTextureVertexIndices ? Arrays.copyOf(textureVertexIndices, meshIndexCount) : null,
+                hasNormalIndices ? Arrays.copyOf(normalIndices, meshIndexCount) : null);
+    }
+
+    private static boolean hasAnyIndex(int[] indices, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            if (indices[i] != Mesh.NO_INDEX) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static float[] ensureCapacity(float[] array, int capacity) {
+        return capacity <= array.length ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        return capacity <= array.length ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+}
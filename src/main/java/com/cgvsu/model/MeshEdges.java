@@ -0,0 +1,220 @@
+package com.cgvsu.model;
+
+import com.cgvsu.util.ParallelTasks;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+// Список уникальных рёбер модели: каждое ребро, общее для нескольких полигонов, встречается один раз.
+// Зависит только от топологии (полигонов), поэтому не меняется при перемещении вершин
+public final class MeshEdges {
+
+    // С какого числа индексов полигонов список строится параллельно
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Признак пустой ячейки хэш-таблицы; ключи рёбер неотрицательны
+    private static final long EMPTY = -1;
+
+    // Множитель для перемешивания ключей при выборе ячейки хэш-таблицы
+    private static final long SLOT_MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+
+    // Концы рёбер подряд: a0, b0, a1, b1, ...; a < b
+    public final int[] edgeVertexIndices;
+
+    private MeshEdges(int[] edgeVertexIndices) {
+        this.edgeVertexIndices = edgeVertexIndices;
+    }
+
+    public int getEdgeCount() {
+        return edgeVertexIndices.length / 2;
+    }
+
+    // Построение списка рёбер. Полигоны со ссылками на несуществующие вершины пропускаются целиком,
+    // как и при отрисовке; вырожденные рёбра (вершина сама с собой) не входят в список
+    public static MeshEdges build(Mesh mesh) {
+        final int indexCount = mesh.vertexIndices.length;
+        if (indexCount < PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            return buildSequential(mesh);
+        }
+        return buildParallel(mesh);
+    }
+
+    private static MeshEdges buildSequential(Mesh mesh) {
+        final long[] table = newTable(mesh.vertexIndices.length);
+        final long[] keys = new long[mesh.vertexIndices.length];
+        int keyCount = 0;
+        final int polygonCount = mesh.getPolygonCount();
+        for (int polygonInd = 0; polygonInd < polygonCount; ++polygonInd) {
+            if (!isValidPolygon(mesh, polygonInd)) {
+                continue;
+            }
+            final int start = mesh.polygonOffsets[polygonInd];
+            final int end = mesh.polygonOffsets[polygonInd + 1];
+            int previous = mesh.vertexIndices[end - 1];
+            for (int i = start; i < end; ++i) {
+                final int current = mesh.vertexIndices[i];
+                if (current != previous) {
+                    final long key = edgeKey(previous, current);
+                    if (insert(table, key)) {
+                        keys[keyCount++] = key;
+                    }
+                }
+                previous = current;
+            }
+        }
+        return new MeshEdges(toEdgeVertexIndices(keys, keyCount));
+    }
+
+    // Параллельное построение: полигоны делятся на участки, ключи рёбер раскладываются по частям
+    // по диапазонам меньшей вершины (как в поразрядной сортировке), после чего каждая часть очищается
+    // от повторов своей хэш-таблицей. Порядок рёбер не зависит от расписания потоков, а рёбра с близкими
+    // номерами вершин остаются рядом, как и при последовательном построении
+    private static MeshEdges buildParallel(Mesh mesh) {
+        final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        final int polygonCount = mesh.getPolygonCount();
+        final int chunkCount = Math.max(1, Math.min(polygonCount, parallelism * 4));
+        final int partitionCount = parallelism * 2;
+        final long vertexCount = Math.max(1, mesh.getVertexCount());
+
+        // Число ключей каждого участка в каждой части
+        final int[] counts = new int[chunkCount * partitionCount];
+        ParallelTasks.run(ForkJoinPool.commonPool(), chunkCount, chunk -> forEachEdgeKey(mesh,
+                chunkStart(chunk, chunkCount, polygonCount), chunkStart(chunk + 1, chunkCount, polygonCount),
+                key -> ++counts[chunk * partitionCount + partition(key, partitionCount, vertexCount)]));
+
+        // Части идут подряд, внутри части — участки по порядку
+        final int[] positions = new int[chunkCount * partitionCount];
+        final int[] partitionStarts = new int[partitionCount + 1];
+        int position = 0;
+        for (int partition = 0; partition < partitionCount; ++partition) {
+            partitionStarts[partition] = position;
+            for (int chunk = 0; chunk < chunkCount; ++chunk) {
+                positions[chunk * partitionCount + partition] = position;
+                position += counts[chunk * partitionCount + partition];
+            }
+        }
+        partitionStarts[partitionCount] = position;
+
+        final long[] keys = new long[position];
+        ParallelTasks.run(ForkJoinPool.commonPool(), chunkCount, chunk -> forEachEdgeKey(mesh,
+                chunkStart(chunk, chunkCount, polygonCount), chunkStart(chunk + 1, chunkCount, polygonCount),
+                key -> keys[positions[chunk * partitionCount + partition(key, partitionCount, vertexCount)]++] = key));
+
+        // Уникальные ключи каждой части сдвигаются в начало её диапазона
+        final int[] uniqueCounts = new int[partitionCount];
+        ParallelTasks.run(ForkJoinPool.commonPool(), partitionCount, partition -> {
+            final int from = partitionStarts[partition];
+            final int to = partitionStarts[partition + 1];
+            final long[] table = newTable(to - from);
+            int unique = from;
+            for (int i = from; i < to; ++i) {
+                if (insert(table, keys[i])) {
+                    keys[unique++] = keys[i];
+                }
+            }
+            uniqueCounts[partition] = unique - from;
+        });
+
+        final int[] outputStarts = new int[partitionCount + 1];
+        for (int partition = 0; partition < partitionCount; ++partition) {
+            outputStarts[partition + 1] = outputStarts[partition] + uniqueCounts[partition];
+        }
+        final int[] edgeVertexIndices = new int[2 * outputStarts[partitionCount]];
+        ParallelTasks.run(ForkJoinPool.commonPool(), partitionCount, partition -> {
+            final int from = partitionStarts[partition];
+            int edgeInd = outputStarts[partition];
+            for (int i = from; i < from + uniqueCounts[partition]; ++i, ++edgeInd) {
+                edgeVertexIndices[2 * edgeInd] = (int) (keys[i] >>> 32);
+                edgeVertexIndices[2 * edgeInd + 1] = (int) keys[i];
+            }
+        });
+        return new MeshEdges(edgeVertexIndices);
+    }
+
+    @FunctionalInterface
+    private interface KeyConsumer {
+        void accept(long key);
+    }
+
+    private static void forEachEdgeKey(Mesh mesh, int fromPolygon, int toPolygon, KeyConsumer consumer) {
+        for (int polygonInd = fromPolygon; polygonInd < toPolygon; ++polygonInd) {
+            if (!isValidPolygon(mesh, polygonInd)) {
+                continue;
+            }
+            final int start = mesh.polygonOffsets[polygonInd];
+            final int end = mesh.polygonOffsets[polygonInd + 1];
+            int previous = mesh.vertexIndices[end - 1];
+            for (int i = start; i < end; ++i) {
+                final int current = mesh.vertexIndices[i];
+                if (current != previous) {
+                    consumer.accept(edgeKey(previous, current));
+                }
+                previous = current;
+            }
+        }
+    }
+
+    static boolean isValidPolygon(Mesh mesh, int polygonInd) {
+        final int start = mesh.polygonOffsets[polygonInd];
+        final int end = mesh.polygonOffsets[polygonInd + 1];
+        if (start == end) {
+            return false;
+        }
+        final int vertexCount = mesh.getVertexCount();
+        for (int i = start; i < end; ++i) {
+            final int vertexIndex = mesh.vertexIndices[i];
+            if (vertexIndex < 0 || vertexIndex >= vertexCount) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int chunkStart(int chunk, int chunkCount, int polygonCount) {
+        return (int) ((long) polygonCount * chunk / chunkCount);
+    }
+
+    // Ключ ребра: меньший индекс в старших 32 битах, больший — в младших
+    private static long edgeKey(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    // Часть по меньшей вершине ребра: вершины делятся на partitionCount равных диапазонов
+    private static int partition(long key, int partitionCount, long vertexCount) {
+        return (int) ((key >>> 32) * partitionCount / vertexCount);
+    }
+
+    // Хэш-таблица с открытой адресацией не меньше чем вдвое больше числа ключей
+    private static long[] newTable(int keyCount) {
+        final int capacity = Integer.highestOneBit(Math.max(keyCount, 8) * 2 - 1) << 1;
+        final long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    // Добавление ключа в таблицу; false, если он уже был
+    private static boolean insert(long[] table, long key) {
+        final int mask = table.length - 1;
+        int slot = (int) ((key * SLOT_MULTIPLIER) >>> 32) & mask;
+        while (true) {
+            final long existing = table[slot];
+            if (existing == EMPTY) {
+                table[slot] = key;
+                return true;
+            }
+            if (existing == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int[] toEdgeVertexIndices(long[] keys, int keyCount) {
+        final int[] edgeVertexIndices = new int[2 * keyCount];
+        for (int i = 0; i < keyCount; ++i) {
+            edgeVertexIndices[2 * i] = (int) (keys[i] >>> 32);
+            edgeVertexIndices[2 * i + 1] = (int) keys[i];
+        }
+        return edgeVertexIndices;
+    }
+}
@@ -0,0 +1,24 @@
+package com.cgvsu.model;
+
+// Уже прочитанная часть модели, которая ещё загружается: массивы MeshBuilder без копирования и границы
+// готовой части. Построитель только дописывает элементы за этими границами и при росте заменяет массивы
+// новыми, поэтому готовую часть можно читать из другого потока. Видимость содержимого массивов
+// гарантируют final-поля и публикация снимка через volatile-ссылку
+public final class MeshPreview {
+
+    // Массивы длиннее готовой части: действительны только первые vertexCount вершин и polygonCount полигонов
+    public final float[] vertices;
+    public final int[] polygonOffsets;
+    public final int[] vertexIndices;
+
+    public final int vertexCount;
+    public final int polygonCount;
+
+    MeshPreview(float[] vertices, int vertexCount, int[] polygonOffsets, int[] vertexIndices, int polygonCount) {
+        this.vertices = vertices;
+        this.vertexCount = vertexCount;
+        this.polygonOffsets = polygonOffsets;
+        this.vertexIndices = vertexIndices;
+        this.polygonCount = polygonCount;
+    }
+}
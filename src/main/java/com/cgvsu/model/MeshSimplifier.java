@@ -0,0 +1,251 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+
+// Упрощение модели кластеризацией вершин с квадриками ошибки (Линдстром, 2000). Параллелепипед модели
+// делится на кубические ячейки; все вершины ячейки сливаются в одну, положение которой минимизирует
+// сумму квадратов расстояний до плоскостей треугольников при вершинах ячейки (квадрика Гарланда —
+// Хекберта). Полигоны, у которых после слияния осталось меньше трёх вершин, пропадают.
+// Работает за один проход по модели, поэтому подходит для моделей с миллионами полигонов
+public final class MeshSimplifier {
+
+    // Признак пустой ячейки хэш-таблицы ячеек; ключи неотрицательны
+    private static final long EMPTY = -1;
+
+    private static final long SLOT_MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+
+    // Число коэффициентов симметричной квадрики 4 x 4
+    private static final int QUADRIC_SIZE = 10;
+
+    private MeshSimplifier() {
+    }
+
+    /**
+     * Строит упрощённую копию модели без текстурных координат и нормалей.
+     *
+     * @param mesh       Исходная модель; не изменяется.
+     * @param bounds     Параллелепипед модели: minX, minY, minZ, maxX, maxY, maxZ.
+     * @param resolution Число ячеек вдоль самой длинной стороны параллелепипеда.
+     * @return Упрощённая модель; пустая, если у модели нет полигонов.
+     */
+    public static Mesh simplify(Mesh mesh, float[] bounds, int resolution) {
+        final float[] vertices = mesh.vertices;
+        final int vertexCount = mesh.getVertexCount();
+        final float extent = Math.max(bounds[3] - bounds[0], Math.max(bounds[4] - bounds[1], bounds[5] - bounds[2]));
+        if (!(extent > 0) || resolution < 1) {
+            return new Mesh(new float[0], new float[0], new float[0], new int[]{0}, new int[0], null, null);
+        }
+        final float cellSize = extent / resolution;
+        final int cellsX = cellCount(bounds[3] - bounds[0], cellSize);
+        final int cellsY = cellCount(bounds[4] - bounds[1], cellSize);
+        final int cellsZ = cellCount(bounds[5] - bounds[2], cellSize);
+
+        // Номер ячейки (кластера) каждой вершины; кластеры нумеруются по первой вершине
+        final int[] vertexClusters = new int[vertexCount];
+        final long[] table = newTable((int) Math.min(vertexCount, (long) cellsX * cellsY * cellsZ));
+        final int[] tableClusters = new int[table.length];
+        int clusterCount = 0;
+        for (int vertexInd = 0; vertexInd < vertexCount; ++vertexInd) {
+            final int cellX = cell(vertices[3 * vertexInd] - bounds[0], cellSize, cellsX);
+            final int cellY = cell(vertices[3 * vertexInd + 1] - bounds[1], cellSize, cellsY);
+            final int cellZ = cell(vertices[3 * vertexInd + 2] - bounds[2], cellSize, cellsZ);
+            final long key = ((long) cellZ * cellsY + cellY) * cellsX + cellX;
+            final int mask = table.length - 1;
+            int slot = (int) ((key * SLOT_MULTIPLIER) >>> 32) & mask;
+            while (table[slot] != EMPTY && table[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (table[slot] == EMPTY) {
+                table[slot] = key;
+                tableClusters[slot] = clusterCount++;
+            }
+            vertexClusters[vertexInd] = tableClusters[slot];
+        }
+
+        // Квадрики и средние точки кластеров
+        final double[] quadrics = new double[QUADRIC_SIZE * clusterCount];
+        final double[] sums = new double[3 * clusterCount];
+        final int[] counts = new int[clusterCount];
+        for (int vertexInd = 0; vertexInd < vertexCount; ++vertexInd) {
+            final int cluster = vertexClusters[vertexInd];
+            sums[3 * cluster] += vertices[3 * vertexInd];
+            sums[3 * cluster + 1] += vertices[3 * vertexInd + 1];
+            sums[3 * cluster + 2] += vertices[3 * vertexInd + 2];
+            ++counts[cluster];
+        }
+        final int polygonCount = mesh.getPolygonCount();
+        for (int polygonInd = 0; polygonInd < polygonCount; ++polygonInd) {
+            if (!isValidPolygon(mesh, polygonInd)) {
+                continue;
+            }
+            // Веером треугольников от первой вершины
+            final int start = mesh.polygonOffsets[polygonInd];
+            final int end = mesh.polygonOffsets[polygonInd + 1];
+            final int a = mesh.vertexIndices[start];
+            for (int i = start + 1; i + 1 < end; ++i) {
+                addTriangleQuadric(vertices, a, mesh.vertexIndices[i], mesh.vertexIndices[i + 1], vertexClusters, quadrics);
+            }
+        }
+
+        // Полигоны упрощённой модели: вершины заменяются кластерами, соседние повторы убираются
+        final int[] offsets = new int[polygonCount + 1];
+        final int[] indices = new int[mesh.vertexIndices.length];
+        final int[] newClusterIndices = new int[clusterCount];
+        Arrays.fill(newClusterIndices, -1);
+        int newPolygonCount = 0;
+        int indexCount = 0;
+        int newVertexCount = 0;
+        for (int polygonInd = 0; polygonInd < polygonCount; ++polygonInd) {
+            if (!isValidPolygon(mesh, polygonInd)) {
+                continue;
+            }
+            final int start = mesh.polygonOffsets[polygonInd];
+            final int end = mesh.polygonOffsets[polygonInd + 1];
+            final int polygonStart = indexCount;
+            for (int i = start; i < end; ++i) {
+                final int cluster = vertexClusters[mesh.vertexIndices[i]];
+                if (indexCount == polygonStart || indices[indexCount - 1] != cluster) {
+                    indices[indexCount++] = cluster;
+                }
+            }
+            while (indexCount - polygonStart > 1 && indices[indexCount - 1] == indices[polygonStart]) {
+                --indexCount;
+            }
+            if (indexCount - polygonStart < 3) {
+                indexCount = polygonStart;
+                continue;
+            }
+            for (int i = polygonStart; i < indexCount; ++i) {
+                final int cluster = indices[i];
+                if (newClusterIndices[cluster] < 0) {
+                    newClusterIndices[cluster] = newVertexCount++;
+                }
+                indices[i] = newClusterIndices[cluster];
+            }
+            offsets[++newPolygonCount] = indexCount;
+        }
+
+        // Положения вершин упрощённой модели
+        final float[] newVertices = new float[3 * newVertexCount];
+        final double[] position = new double[3];
+        for (int cluster = 0; cluster < clusterCount; ++cluster) {
+            final int newIndex = newClusterIndices[cluster];
+            if (newIndex < 0) {
+                continue;
+            }
+            final double meanX = sums[3 * cluster] / counts[cluster];
+            final double meanY = sums[3 * cluster + 1] / counts[cluster];
+            final double meanZ = sums[3 * cluster + 2] / counts[cluster];
+            // Точка минимума квадрики берётся, только если она не дальше ячейки от среднего положения:
+            // иначе квадрика вырождена (плоский или линейный кластер) и минимум неустойчив
+            if (!minimizeQuadric(quadrics, QUADRIC_SIZE * cluster, position)
+                    || Math.abs(position[0] - meanX) > cellSize
+                    || Math.abs(position[1] - meanY) > cellSize
+                    || Math.abs(position[2] - meanZ) > cellSize) {
+                position[0] = meanX;
+                position[1] = meanY;
+                position[2] = meanZ;
+            }
+            newVertices[3 * newIndex] = (float) position[0];
+            newVertices[3 * newIndex + 1] = (float) position[1];
+            newVertices[3 * newIndex + 2] = (float) position[2];
+        }
+
+        return new Mesh(
+                newVertices, new float[0], new float[0],
+                Arrays.copyOf(offsets, newPolygonCount + 1), Arrays.copyOf(indices, indexCount),
+                null, null);
+    }
+
+    private static int cellCount(float size, float cellSize) {
+        return Math.max(1, (int) (size / cellSize) + 1);
+    }
+
+    // Ячейка координаты, отсчитанной от начала параллелепипеда; выход за пределы (в том числе NaN) зажимается
+    private static int cell(float offset, float cellSize, int cellCount) {
+        final int cell = (int) (offset / cellSize);
+        return Math.min(Math.max(cell, 0), cellCount - 1);
+    }
+
+    // Квадрика плоскости треугольника с весом, равным его площади, добавляется к кластерам его вершин
+    private static void addTriangleQuadric(float[] vertices, int a, int b, int c, int[] vertexClusters, double[] quadrics) {
+        final double ax = vertices[3 * a], ay = vertices[3 * a + 1], az = vertices[3 * a + 2];
+        final double abX = vertices[3 * b] - ax, abY = vertices[3 * b + 1] - ay, abZ = vertices[3 * b + 2] - az;
+        final double acX = vertices[3 * c] - ax, acY = vertices[3 * c + 1] - ay, acZ = vertices[3 * c + 2] - az;
+        double nx = abY * acZ - abZ * acY;
+        double ny = abZ * acX - abX * acZ;
+        double nz = abX * acY - abY * acX;
+        final double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (!(length > 0)) {
+            return;
+        }
+        final double area = length / 2;
+        nx /= length;
+        ny /= length;
+        nz /= length;
+        final double d = -(nx * ax + ny * ay + nz * az);
+        addQuadric(quadrics, QUADRIC_SIZE * vertexClusters[a], nx, ny, nz, d, area);
+        addQuadric(quadrics, QUADRIC_SIZE * vertexClusters[b], nx, ny, nz, d, area);
+        addQuadric(quadrics, QUADRIC_SIZE * vertexClusters[c], nx, ny, nz, d, area);
+    }
+
+    // Коэффициенты: aa, ab, ac, ad, bb, bc, bd, cc, cd, dd
+    private static void addQuadric(double[] quadrics, int offset, double a, double b, double c, double d, double weight) {
+        quadrics[offset] += weight * a * a;
+        quadrics[offset + 1] += weight * a * b;
+        quadrics[offset + 2] += weight * a * c;
+        quadrics[offset + 3] += weight * a * d;
+        quadrics[offset + 4] += weight * b * b;
+        quadrics[offset + 5] += weight * b * c;
+        quadrics[offset + 6] += weight * b * d;
+        quadrics[offset + 7] += weight * c * c;
+        quadrics[offset + 8] += weight * c * d;
+        quadrics[offset + 9] += weight * d * d;
+    }
+
+    // Точка минимума квадрики: решение системы A * p = -b по правилу Крамера; false, если A почти вырождена
+    private static boolean minimizeQuadric(double[] quadrics, int offset, double[] result) {
+        final double a00 = quadrics[offset], a01 = quadrics[offset + 1], a02 = quadrics[offset + 2];
+        final double a11 = quadrics[offset + 4], a12 = quadrics[offset + 5], a22 = quadrics[offset + 7];
+        final double b0 = -quadrics[offset + 3], b1 = -quadrics[offset + 6], b2 = -quadrics[offset + 8];
+        final double c00 = a11 * a22 - a12 * a12;
+        final double c01 = a02 * a12 - a01 * a22;
+        final double c02 = a01 * a12 - a02 * a11;
+        final double determinant = a00 * c00 + a01 * c01 + a02 * c02;
+        final double trace = a00 + a11 + a22;
+        if (!(Math.abs(determinant) > 1e-6 * trace * trace * trace)) {
+            return false;
+        }
+        final double c11 = a00 * a22 - a02 * a02;
+        final double c12 = a01 * a02 - a00 * a12;
+        final double c22 = a00 * a11 - a01 * a01;
+        result[0] = (c00 * b0 + c01 * b1 + c02 * b2) / determinant;
+        result[1] = (c01 * b0 + c11 * b1 + c12 * b2) / determinant;
+        result[2] = (c02 * b0 + c12 * b1 + c22 * b2) / determinant;
+        return true;
+    }
+
+    private static boolean isValidPolygon(Mesh mesh, int polygonInd) {
+        final int start = mesh.polygonOffsets[polygonInd];
+        final int end = mesh.polygonOffsets[polygonInd + 1];
+        if (end - start < 3) {
+            return false;
+        }
+        final int vertexCount = mesh.getVertexCount();
+        for (int i = start; i < end; ++i) {
+            final int vertexIndex = mesh.vertexIndices[i];
+            if (vertexIndex < 0 || vertexIndex >= vertexCount) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Хэш-таблица с открытой адресацией не меньше чем вдвое больше числа ключей
+    private static long[] newTable(int keyCount) {
+        final int capacity = Integer.highestOneBit(Math.max(keyCount, 8) * 2 - 1) << 1;
+        final long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+}
@@ -0,0 +1,202 @@
+package com.cgvsu.model;
+
+import com.cgvsu.util.ParallelTasks;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Разбиение полигонов модели на треугольники для закраски и выбора граней. Выпуклый полигон делится
+// веером, невыпуклый — отсечением ушей в плоскости полигона. Полигон из n вершин всегда даёт n - 2
+// треугольника с тем же обходом; полигоны со ссылками на несуществующие вершины не дают ни одного.
+// Зависит от топологии, а вид полигона (выпуклый или нет) определяется по вершинам в момент построения
+public final class MeshTriangulation {
+
+    // С какого числа индексов полигонов разбиение строится параллельно
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Углы треугольников подряд: a0, b0, c0, a1, ... Угол — позиция в Mesh.vertexIndices (а значит
+    // и в textureVertexIndices и normalIndices), поэтому по нему доступны вершина, текстура и нормаль
+    public final int[] triangleCorners;
+
+    // Номер исходного полигона каждого треугольника
+    public final int[] trianglePolygons;
+
+    private MeshTriangulation(int[] triangleCorners, int[] trianglePolygons) {
+        this.triangleCorners = triangleCorners;
+        this.trianglePolygons = trianglePolygons;
+    }
+
+    public int getTriangleCount() {
+        return trianglePolygons.length;
+    }
+
+    public static MeshTriangulation build(Mesh mesh) {
+        final int polygonCount = mesh.getPolygonCount();
+        // Треугольники полигона i занимают [triangleStarts[i], triangleStarts[i + 1])
+        final int[] triangleStarts = new int[polygonCount + 1];
+        for (int polygonInd = 0; polygonInd < polygonCount; ++polygonInd) {
+            final int size = mesh.getPolygonVertexCount(polygonInd);
+            final int triangleCount = size >= 3 && MeshEdges.isValidPolygon(mesh, polygonInd) ? size - 2 : 0;
+            triangleStarts[polygonInd + 1] = triangleStarts[polygonInd] + triangleCount;
+        }
+        final int triangleCount = triangleStarts[polygonCount];
+        final int[] triangleCorners = new int[3 * triangleCount];
+        final int[] trianglePolygons = new int[triangleCount];
+
+        if (mesh.vertexIndices.length < PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            new Triangulator(mesh, triangleStarts, triangleCorners, trianglePolygons).run(0, polygonCount);
+        } else {
+            final int chunkCount = Math.min(polygonCount, ForkJoinPool.getCommonPoolParallelism() * 4);
+            ParallelTasks.run(ForkJoinPool.commonPool(), chunkCount, chunk ->
+                    new Triangulator(mesh, triangleStarts, triangleCorners, trianglePolygons).run(
+                            (int) ((long) polygonCount * chunk / chunkCount),
+                            (int) ((long) polygonCount * (chunk + 1) / chunkCount)));
+        }
+        return new MeshTriangulation(triangleCorners, trianglePolygons);
+    }
+
+    // Разбиение участка полигонов; у каждого участка свои рабочие массивы
+    private static final class Triangulator {
+        private final Mesh mesh;
+        private final int[] triangleStarts;
+        private final int[] triangleCorners;
+        private final int[] trianglePolygons;
+
+        // Проекция вершин полигона на его плоскость и двусвязный список ещё не отсечённых вершин
+        private float[] xs = new float[16];
+        private float[] ys = new float[16];
+        private int[] previous = new int[16];
+        private int[] next = new int[16];
+
+        private int triangleInd;
+
+        Triangulator(Mesh mesh, int[] triangleStarts, int[] triangleCorners, int[] trianglePolygons) {
+            this.mesh = mesh;
+            this.triangleStarts = triangleStarts;
+            this.triangleCorners = triangleCorners;
+            this.trianglePolygons = trianglePolygons;
+        }
+
+        void run(int fromPolygon, int toPolygon) {
+            for (int polygonInd = fromPolygon; polygonInd < toPolygon; ++polygonInd) {
+                triangleInd = triangleStarts[polygonInd];
+                if (triangleStarts[polygonInd + 1] == triangleInd) {
+                    continue;
+                }
+                final int start = mesh.polygonOffsets[polygonInd];
+                final int size = mesh.getPolygonVertexCount(polygonInd);
+                if (size == 3 || !projectConcave(start, size)) {
+                    for (int i = 2; i < size; ++i) {
+                        emit(polygonInd, start, start + i - 1, start + i);
+                    }
+                } else {
+                    clipEars(polygonInd, start, size);
+                }
+            }
+        }
+
+        // Проецирует полигон на координатную плоскость, ближайшую к его собственной, так, чтобы обход
+        // в проекции шёл против часовой стрелки. Возвращает true, если у полигона есть вогнутые углы
+        private boolean projectConcave(int start, int size) {
+            final float[] vertices = mesh.vertices;
+            final int[] vertexIndices = mesh.vertexIndices;
+            // Нормаль полигона по методу Ньюэлла
+            float normalX = 0, normalY = 0, normalZ = 0;
+            for (int i = 0; i < size; ++i) {
+                final int a = 3 * vertexIndices[start + i];
+                final int b = 3 * vertexIndices[start + (i + 1) % size];
+                normalX += (vertices[a + 1] - vertices[b + 1]) * (vertices[a + 2] + vertices[b + 2]);
+                normalY += (vertices[a + 2] - vertices[b + 2]) * (vertices[a] + vertices[b]);
+                normalZ += (vertices[a] - vertices[b]) * (vertices[a + 1] + vertices[b + 1]);
+            }
+            final float absX = Math.abs(normalX), absY = Math.abs(normalY), absZ = Math.abs(normalZ);
+            final int dropped = absX >= absY && absX >= absZ ? 0 : absY >= absZ ? 1 : 2;
+            final float normal = dropped == 0 ? normalX : dropped == 1 ? normalY : normalZ;
+            // Оси (u, v), дополняющие отброшенную ось до правой тройки
+            final int u = (dropped + 1) % 3;
+            final int v = (dropped + 2) % 3;
+            final float mirror = normal < 0 ? -1 : 1;
+
+            if (xs.length < size) {
+                xs = new float[2 * size];
+                ys = new float[2 * size];
+                previous = new int[2 * size];
+                next = new int[2 * size];
+            }
+            for (int i = 0; i < size; ++i) {
+                final int vertex = 3 * vertexIndices[start + i];
+                xs[i] = vertices[vertex + u];
+                ys[i] = mirror * vertices[vertex + v];
+            }
+            for (int i = 0; i < size; ++i) {
+                if (cross(i == 0 ? size - 1 : i - 1, i, (i + 1) % size) < 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Отсечение ушей: угол, выпуклый и не содержащий других вершин, отрезается треугольником.
+        // Если ушей не осталось (самопересекающийся или вырожденный полигон), остаток делится веером
+        private void clipEars(int polygonInd, int start, int size) {
+            for (int i = 0; i < size; ++i) {
+                previous[i] = i == 0 ? size - 1 : i - 1;
+                next[i] = (i + 1) % size;
+            }
+            int remaining = size;
+            int corner = 0;
+            int attempts = 0;
+            while (remaining > 3 && attempts < remaining) {
+                final int a = previous[corner];
+                final int c = next[corner];
+                if (isEar(a, corner, c)) {
+                    emit(polygonInd, start + a, start + corner, start + c);
+                    next[a] = c;
+                    previous[c] = a;
+                    --remaining;
+                    attempts = 0;
+                    corner = c;
+                } else {
+                    ++attempts;
+                    corner = c;
+                }
+            }
+            for (int i = 2; i < remaining; ++i) {
+                final int b = next[corner];
+                emit(polygonInd, start + corner, start + b, start + next[b]);
+                next[corner] = next[b];
+            }
+        }
+
+        private boolean isEar(int a, int b, int c) {
+            if (cross(a, b, c) <= 0) {
+                return false;
+            }
+            for (int i = next[c]; i != a; i = next[i]) {
+                if (sameVertex(i, a) || sameVertex(i, b) || sameVertex(i, c)) {
+                    continue;
+                }
+                if (cross(a, b, i) >= 0 && cross(b, c, i) >= 0 && cross(c, a, i) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean sameVertex(int i, int j) {
+            return xs[i] == xs[j] && ys[i] == ys[j];
+        }
+
+        // Удвоенная ориентированная площадь треугольника a, b, c в проекции; > 0 — против часовой стрелки
+        private float cross(int a, int b, int c) {
+            return (xs[b] - xs[a]) * (ys[c] - ys[a]) - (xs[c] - xs[a]) * (ys[b] - ys[a]);
+        }
+
+        private void emit(int polygonInd, int a, int b, int c) {
+            triangleCorners[3 * triangleInd] = a;
+            triangleCorners[3 * triangleInd + 1] = b;
+            triangleCorners[3 * triangleInd + 2] = c;
+            trianglePolygons[triangleInd] = polygonInd;
+            ++triangleInd;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.cgvsu.model;
+
+import com.cgvsu.util.ParallelTasks;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+// Слияние совпадающих вершин. Экспорт OBJ часто повторяет вершину для каждого полигона при ней, из-за чего
+// вершин в 3–6 раз больше, чем нужно, а полигоны не связаны общими вершинами. Вершины раскладываются по
+// хэш-таблице кубических ячеек со стороной 2 * epsilon: всё, что ближе epsilon, лежит в ячейке вершины или
+// в соседней по каждой оси со стороны ближайшей грани, то есть в одной из 8 ячеек. Вершина сливается с
+// вершиной меньшего номера не дальше epsilon от неё (с наименьшей из них), а та — дальше по той же цепочке,
+// поэтому вершины, связанные цепочкой близких пар, сливаются в одну, даже если крайние дальше epsilon.
+// Положение берётся у вершины с наименьшим номером, результат от числа потоков не зависит
+public final class MeshWelder {
+
+    // Расстояние слияния по умолчанию — такая доля диагонали параллелепипеда модели
+    public static final float DEFAULT_RELATIVE_EPSILON = 1e-6F;
+
+    // С такого числа вершин или полигонов поиск соседей и перенумерация идут параллельно
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // До такого числа вершин полигона разные вершины считаются попарным сравнением, без выделения памяти
+    private static final int SMALL_POLYGON_SIZE = 16;
+
+    private static final long SLOT_MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+
+    private MeshWelder() {
+    }
+
+    // Модель после слияния и то, сколько из неё пропало
+    public static final class Result {
+        public final Mesh mesh;
+        public final int removedVertexCount;
+        public final int removedPolygonCount;
+
+        Result(Mesh mesh, int removedVertexCount, int removedPolygonCount) {
+            this.mesh = mesh;
+            this.removedVertexCount = removedVertexCount;
+            this.removedPolygonCount = removedPolygonCount;
+        }
+    }
+
+    // Расстояние слияния по умолчанию для модели: DEFAULT_RELATIVE_EPSILON её диагонали; 0 для пустой модели
+    public static float defaultEpsilon(Mesh mesh) {
+        final float[] vertices = mesh.vertices;
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < vertices.length; i += 3) {
+            minX = Math.min(minX, vertices[i]);
+            minY = Math.min(minY, vertices[i + 1]);
+            minZ = Math.min(minZ, vertices[i + 2]);
+            maxX = Math.max(maxX, vertices[i]);
+            maxY = Math.max(maxY, vertices[i + 1]);
+            maxZ = Math.max(maxZ, vertices[i + 2]);
+        }
+        final double diagonal = Math.sqrt((double) (maxX - minX) * (maxX - minX)
+                + (double) (maxY - minY) * (maxY - minY) + (double) (maxZ - minZ) * (maxZ - minZ));
+        return Double.isFinite(diagonal) ? (float) (diagonal * DEFAULT_RELATIVE_EPSILON) : 0;
+    }
+
+    /**
+     * Сливает вершины модели, расстояние между которыми не больше epsilon.
+     * Индексы полигонов перенумеровываются, повторы подряд идущих вершин полигона убираются,
+     * а полигоны, у которых после этого осталось меньше трёх вершин или какая-то вершина повторяется, пропадают.
+     *
+     * @param mesh    Исходная модель; не изменяется. Текстурные координаты и нормали остаются общими с ней.
+     * @param epsilon Расстояние слияния; 0 — сливаются только точно совпадающие вершины.
+     * @return Новая модель и число удалённых вершин и полигонов; сама mesh, если сливать нечего.
+     */
+    public static Result weld(Mesh mesh, float epsilon) {
+        if (!(epsilon >= 0) || Float.isInfinite(epsilon)) {
+            throw new IllegalArgumentException("Invalid weld distance: " + epsilon);
+        }
+        final int vertexCount = mesh.getVertexCount();
+        final Cells cells = new Cells(mesh.vertices, epsilon, newTableSize(vertexCount));
+
+        // Ячейки вершин и раскладка номеров вершин по ячейкам таблицы подсчётом: внутри ячейки по возрастанию
+        final int[] vertexSlots = new int[vertexCount];
+        forEachRange(vertexCount, (from, to) -> {
+            for (int vertexInd = from; vertexInd < to; ++vertexInd) {
+                vertexSlots[vertexInd] = cells.slot(cells.cell(mesh.vertices[3 * vertexInd]),
+                        cells.cell(mesh.vertices[3 * vertexInd + 1]), cells.cell(mesh.vertices[3 * vertexInd + 2]));
+            }
+        });
+        final int[] slotStarts = new int[cells.tableSize + 1];
+        for (int vertexInd = 0; vertexInd < vertexCount; ++vertexInd) {
+            ++slotStarts[vertexSlots[vertexInd] + 1];
+        }
+        for (int slot = 0; slot < cells.tableSize; ++slot) {
+            slotStarts[slot + 1] += slotStarts[slot];
+        }
+        final int[] slotVertices = new int[vertexCount];
+        final int[] slotEnds = Arrays.copyOf(slotStarts, cells.tableSize);
+        for (int vertexInd = 0; vertexInd < vertexCount; ++vertexInd) {
+            slotVertices[slotEnds[vertexSlots[vertexInd]]++] = vertexInd;
+        }
+
+        // Для каждой вершины — наименьший номер вершины не дальше epsilon (она сама, если таких нет)
+        final int[] nearest = new int[vertexCount];
+        forEachRange(vertexCount, (from, to) -> {
+            for (int vertexInd = from; vertexInd < to; ++vertexInd) {
+                nearest[vertexInd] = cells.findNearest(vertexInd, slotStarts, slotVertices);
+            }
+        });
+
+        // Номера вершин новой модели; nearest меньше номера вершины, поэтому её номер уже известен
+        final int[] newIndices = new int[vertexCount];
+        int newVertexCount = 0;
+        for (int vertexInd = 0; vertexInd < vertexCount; ++vertexInd) {
+            newIndices[vertexInd] = nearest[vertexInd] == vertexInd ? newVertexCount++ : newIndices[nearest[vertexInd]];
+        }
+        if (newVertexCount == vertexCount) {
+            return new Result(mesh, 0, 0);
+        }
+        final float[] newVertices = new float[3 * newVertexCount];
+        for (int vertexInd = 0; vertexInd < vertexCount; ++vertexInd) {
+            if (nearest[vertexInd] == vertexInd) {
+                System.arraycopy(mesh.vertices, 3 * vertexInd, newVertices, 3 * newIndices[vertexInd], 3);
+            }
+        }
+
+        // Полигоны в два прохода: длины после перенумерации (-1 у выродившихся), затем по их суммам
+        // запись индексов. Каждая часть пишет только в свои полигоны
+        final int polygonCount = mesh.getPolygonCount();
+        final int[] lengths = new int[polygonCount];
+        forEachRange(polygonCount, (from, to) -> {
+            for (int polygonInd = from; polygonInd < to; ++polygonInd) {
+                lengths[polygonInd] = remapPolygon(mesh, polygonInd, newIndices, null, null, null, 0, Integer.MAX_VALUE);
+            }
+        });
+        final int[] starts = new int[polygonCount];
+        final int[] offsets = new int[polygonCount + 1];
+        int newPolygonCount = 0;
+        for (int polygonInd = 0; polygonInd < polygonCount; ++polygonInd) {
+            if (lengths[polygonInd] < 0) {
+                continue;
+            }
+            starts[polygonInd] = offsets[newPolygonCount];
+            offsets[newPolygonCount + 1] = offsets[newPolygonCount] + lengths[polygonInd];
+            ++newPolygonCount;
+        }
+        final int indexCount = offsets[newPolygonCount];
+        final int[] vertexIndices = new int[indexCount];
+        final int[] textureVertexIndices = mesh.textureVertexIndices != null ? new int[indexCount] : null;
+        final int[] normalIndices = mesh.normalIndices != null ? new int[indexCount] : null;
+        forEachRange(polygonCount, (from, to) -> {
+            for (int polygonInd = from; polygonInd < to; ++polygonInd) {
+                if (lengths[polygonInd] >= 0) {
+                    remapPolygon(mesh, polygonInd, newIndices, vertexIndices, textureVertexIndices, normalIndices,
+                            starts[polygonInd], lengths[polygonInd]);
+                }
+            }
+        });
+
+        final Mesh result = new Mesh(
+                newVertices, mesh.textureVertices, mesh.normals,
+                Arrays.copyOf(offsets, newPolygonCount + 1), vertexIndices, textureVertexIndices, normalIndices);
+        return new Result(result, vertexCount - newVertexCount, polygonCount - newPolygonCount);
+    }
+
+    // Вершины полигона с новыми номерами без подряд идущих повторов (в том числе последней и первой).
+    // Возвращает их число или -1, если полигон выродился: осталось меньше трёх вершин или вершина повторяется
+    // не подряд; полигоны, у которых вершин меньше трёх было и раньше, остаются. При vertexIndices != null первые length из них вместе
+    // с индексами текстурных вершин и нормалей записываются с позиции start. Неверные номера не меняются
+    private static int remapPolygon(
+            Mesh mesh, int polygonInd, int[] newIndices,
+            int[] vertexIndices, int[] textureVertexIndices, int[] normalIndices, int start, int length) {
+        final int from = mesh.polygonOffsets[polygonInd];
+        final int to = mesh.polygonOffsets[polygonInd + 1];
+        final int vertexCount = newIndices.length;
+        int first = 0;
+        int previous = 0;
+        int count = 0;
+        for (int i = from; i < to; ++i) {
+            final int index = mesh.vertexIndices[i];
+            final int newIndex = remap(index, newIndices, vertexCount);
+            if (count > 0 && newIndex == previous) {
+                continue;
+            }
+            if (count == 0) {
+                first = newIndex;
+            }
+            if (vertexIndices != null && count < length) {
+                vertexIndices[start + count] = newIndex;
+                if (textureVertexIndices != null) {
+                    textureVertexIndices[start + count] = mesh.textureVertexIndices[i];
+                }
+                if (normalIndices != null) {
+                    normalIndices[start + count] = mesh.normalIndices[i];
+                }
+            }
+            previous = newIndex;
+            ++count;
+        }
+        if (count > 1 && previous == first) {
+            --count;
+        }
+        if (count < 3) {
+            return to - from >= 3 ? -1 : count;
+        }
+        // Повтор не подряд (A B A C — слились противоположные углы) тоже вырождает полигон. Проверка нужна
+        // только при подсчёте: записываются лишь оставшиеся полигоны
+        if (vertexIndices == null && countDistinct(mesh.vertexIndices, from, to, newIndices) < count) {
+            return -1;
+        }
+        return count;
+    }
+
+    // Число разных вершин среди indices[from, to) после перенумерации
+    private static int countDistinct(int[] indices, int from, int to, int[] newIndices) {
+        final int vertexCount = newIndices.length;
+        if (to - from <= SMALL_POLYGON_SIZE) {
+            int distinct = 0;
+            for (int i = from; i < to; ++i) {
+                final int index = remap(indices[i], newIndices, vertexCount);
+                int j = from;
+                while (j < i && remap(indices[j], newIndices, vertexCount) != index) {
+                    ++j;
+                }
+                if (j == i) {
+                    ++distinct;
+                }
+            }
+            return distinct;
+        }
+        final int[] sorted = new int[to - from];
+        for (int i = from; i < to; ++i) {
+            sorted[i - from] = remap(indices[i], newIndices, vertexCount);
+        }
+        Arrays.sort(sorted);
+        int distinct = 1;
+        for (int i = 1; i < sorted.length; ++i) {
+            if (sorted[i] != sorted[i - 1]) {
+                ++distinct;
+            }
+        }
+        return distinct;
+    }
+
+    // Новый номер вершины; неверные номера не меняются
+    private static int remap(int index, int[] newIndices, int vertexCount) {
+        return index >= 0 && index < vertexCount ? newIndices[index] : index;
+    }
+
+    // Хэш-таблица ячеек: по номерам ячейки вдоль осей — номер ячейки таблицы
+    private static final class Cells {
+        final float[] vertices;
+        final float epsilon;
+        final float epsilonSquared;
+        final double inverseCellSize;
+        final int tableSize;
+
+        Cells(float[] vertices, float epsilon, int tableSize) {
+            this.vertices = vertices;
+            this.epsilon = epsilon;
+            this.epsilonSquared = epsilon * epsilon;
+            this.inverseCellSize = epsilon > 0 ? 1 / (2.0 * epsilon) : 0;
+            this.tableSize = tableSize;
+        }
+
+        // При epsilon = 0 ячейка — сама точка: ключ из битов координат (-0 и 0 совпадают)
+        long cell(float coordinate) {
+            if (epsilon == 0) {
+                return Float.floatToIntBits(coordinate + 0.0F);
+            }
+            return (long) Math.floor(coordinate * inverseCellSize);
+        }
+
+        // Сдвиг к соседней ячейке со стороны ближайшей грани
+        int side(float coordinate) {
+            final double scaled = coordinate * inverseCellSize;
+            return scaled - Math.floor(scaled) < 0.5 ? -1 : 1;
+        }
+
+        int slot(long cellX, long cellY, long cellZ) {
+            final long key = (cellX * 73856093L) ^ (cellY * 19349663L) ^ (cellZ * 83492791L);
+            return (int) ((key * SLOT_MULTIPLIER) >>> 32) & (tableSize - 1);
+        }
+
+        // Наименьший номер вершины не дальше epsilon среди 8 ячеек (одной при epsilon = 0). Номера в ячейке
+        // таблицы возрастают, поэтому просмотр ячейки кончается на первом номере не меньше уже найденного
+        int findNearest(int vertexInd, int[] slotStarts, int[] slotVertices) {
+            final float x = vertices[3 * vertexInd];
+            final float y = vertices[3 * vertexInd + 1];
+            final float z = vertices[3 * vertexInd + 2];
+            final long cellX = cell(x), cellY = cell(y), cellZ = cell(z);
+            final int sideX = side(x), sideY = side(y), sideZ = side(z);
+            final int cornerCount = epsilon > 0 ? 8 : 1;
+            int nearest = vertexInd;
+            for (int cornerInd = 0; cornerInd < cornerCount; ++cornerInd) {
+                final int slot = slot(
+                        (cornerInd & 1) != 0 ? cellX + sideX : cellX,
+                        (cornerInd & 2) != 0 ? cellY + sideY : cellY,
+                        (cornerInd & 4) != 0 ? cellZ + sideZ : cellZ);
+                for (int i = slotStarts[slot]; i < slotStarts[slot + 1]; ++i) {
+                    final int other = slotVertices[i];
+                    if (other >= nearest) {
+                        break;
+                    }
+                    final float dx = vertices[3 * other] - x;
+                    final float dy = vertices[3 * other + 1] - y;
+                    final float dz = vertices[3 * other + 2] - z;
+                    if (dx * dx + dy * dy + dz * dz <= epsilonSquared) {
+                        nearest = other;
+                        break;
+                    }
+                }
+            }
+            return nearest;
+        }
+    }
+
+    // Диапазон номеров [from, to) для одной части работы
+    private interface RangeTask {
+        void run(int from, int to);
+    }
+
+    // Выполнение task для всех номеров из [0, count): большие диапазоны делятся на части для общего пула
+    private static void forEachRange(int count, RangeTask task) {
+        final int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (count < PARALLEL_THRESHOLD || parallelism < 2) {
+            task.run(0, count);
+            return;
+        }
+        final int chunkCount = Math.min(count, parallelism * 4);
+        ParallelTasks.run(ForkJoinPool.commonPool(), chunkCount, chunk ->
+                task.run((int) ((long) count * chunk / chunkCount), (int) ((long) count * (chunk + 1) / chunkCount)));
+    }
+
+    // Размер таблицы — степень двойки не меньше чем вдвое больше числа вершин
+    private static int newTableSize(int vertexCount) {
+        return Integer.highestOneBit(Math.max(vertexCount, 8) * 2 - 1) << 1;
+    }
+}
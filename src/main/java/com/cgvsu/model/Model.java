@@ -1,13 +1,62 @@
 package com.cgvsu.model;
-import com.cgvsu.math.Vector2f;
-import com.cgvsu.math.Vector3f;
-
-import java.util.*;
 
+// Размещение геометрии в сцене: mesh и её положение. Одна Mesh может быть общей для многих моделей
+// (экземпляров, см. Scene.addInstance), поэтому вершины mesh на месте не меняются
 public class Model {
 
-    public ArrayList<Vector3f> vertices = new ArrayList<Vector3f>();
-    public ArrayList<Vector2f> textureVertices = new ArrayList<Vector2f>();
-    public ArrayList<Vector3f> normals = new ArrayList<Vector3f>();
-    public ArrayList<Polygon> polygons = new ArrayList<Polygon>();
+    public Mesh mesh;
+
+    // Положение модели в сцене; применяется при отрисовке и сохранении, вершины mesh не меняет
+    public final ModelTransform transform = new ModelTransform();
+
+    // Параллелепипед модели в координатах сцены и то, из чего он посчитан
+    private final float[] worldBounds = new float[6];
+    private MeshBounds worldBoundsSource;
+    private int worldBoundsVersion;
+
+    public Model(Mesh mesh) {
+        this.mesh = mesh;
+    }
+
+    // Уровни детализации mesh; общие для всех её экземпляров
+    public LodChain getLodChain() {
+        return mesh.getLodChain();
+    }
+
+    // Параллелепипед mesh после transform, выровненный по осям сцены (min, max); пересчитывается,
+    // только если с прошлого вызова изменились вершины или положение модели
+    public float[] getWorldBounds() {
+        final MeshBounds bounds = mesh.getBounds();
+        if (bounds != worldBoundsSource || transform.getVersion() != worldBoundsVersion) {
+            transform.transformBounds(bounds.bounds, worldBounds);
+            worldBoundsSource = bounds;
+            worldBoundsVersion = transform.getVersion();
+        }
+        return worldBounds;
+    }
+
+    // Перенос положения в вершины и нормали; после этого transform единичное. Модель получает новую
+    // Mesh с преобразованными копиями вершин (с общими полигонами), прежняя mesh и другие её экземпляры
+    // не меняются. Уровней детализации у новой Mesh нет, параллелепипеды строятся заново
+    public void bakeTransform() {
+        if (transform.isIdentity()) {
+            return;
+        }
+        final float[] vertices = new float[mesh.vertices.length];
+        final float[] normals = new float[mesh.normals.length];
+        transform.transformPoints(mesh.vertices, mesh.getVertexCount(), vertices);
+        transform.transformNormals(mesh.normals, mesh.getNormalCount(), normals);
+        mesh = mesh.withVertices(vertices, normals);
+        transform.reset();
+    }
+
+    // Модель для отрисовки размером projectedSize пикселей: подходящий уровень детализации или сама mesh,
+    // если уровней нет или они построены до последнего изменения вершин
+    public Mesh getLevelOfDetail(float projectedSize) {
+        final LodChain chain = mesh.getLodChain();
+        if (chain == null || !mesh.isCurrentBounds(chain.sourceBounds)) {
+            return mesh;
+        }
+        return chain.select(mesh, projectedSize);
+    }
 }
@@ -0,0 +1,220 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+
+// Положение модели в сцене: масштаб, поворот и перенос, которые применяются к вершинам при отрисовке,
+// не изменяя их. Углы и масштаб хранятся отдельно и складываются в матрицу заново, поэтому сотни
+// поворотов не накапливают погрешность в вершинах. Вершина модели v переходит в v * S * Rx * Ry * Rz + t
+// (вектор-строка, как в GraphicConveyor): сначала масштаб, затем повороты вокруг осей x, y, z, затем перенос
+public final class ModelTransform {
+
+    private float translationX;
+    private float translationY;
+    private float translationZ;
+
+    // Углы поворота вокруг осей в градусах, в пределах (-360, 360)
+    private float rotationX;
+    private float rotationY;
+    private float rotationZ;
+
+    private float scaleX = 1;
+    private float scaleY = 1;
+    private float scaleZ = 1;
+
+    // Номер изменения; растёт при каждом изменении, чтобы зависящее от положения можно было кэшировать
+    private int version;
+
+    // Матрица для текущего положения; пересчитывается в getMatrix после изменений
+    private final Matrix4f matrix = new Matrix4f();
+    private int matrixVersion = -1;
+
+    // Матрица одного поворота (без масштаба) для обратного преобразования; пересчитывается так же
+    private final Matrix4f rotationMatrix = new Matrix4f();
+    private int rotationMatrixVersion = -1;
+
+    public void translate(float dx, float dy, float dz) {
+        translationX += dx;
+        translationY += dy;
+        translationZ += dz;
+        ++version;
+    }
+
+    // Поворот на углы в градусах; добавляется к текущим углам
+    public void rotate(float degreesX, float degreesY, float degreesZ) {
+        rotationX = (rotationX + degreesX) % 360;
+        rotationY = (rotationY + degreesY) % 360;
+        rotationZ = (rotationZ + degreesZ) % 360;
+        ++version;
+    }
+
+    public void scale(float factor) {
+        scale(factor, factor, factor);
+    }
+
+    public void scale(float factorX, float factorY, float factorZ) {
+        scaleX *= factorX;
+        scaleY *= factorY;
+        scaleZ *= factorZ;
+        ++version;
+    }
+
+    // Копирование положения other, например чтобы передать его снимок в фоновый поток
+    public void set(ModelTransform other) {
+        translationX = other.translationX;
+        translationY = other.translationY;
+        translationZ = other.translationZ;
+        rotationX = other.rotationX;
+        rotationY = other.rotationY;
+        rotationZ = other.rotationZ;
+        scaleX = other.scaleX;
+        scaleY = other.scaleY;
+        scaleZ = other.scaleZ;
+        ++version;
+    }
+
+    // Возврат к исходному положению: вершины модели совпадают с вершинами сцены
+    public void reset() {
+        translationX = translationY = translationZ = 0;
+        rotationX = rotationY = rotationZ = 0;
+        scaleX = scaleY = scaleZ = 1;
+        ++version;
+    }
+
+    public boolean isIdentity() {
+        return translationX == 0 && translationY == 0 && translationZ == 0
+                && rotationX == 0 && rotationY == 0 && rotationZ == 0
+                && scaleX == 1 && scaleY == 1 && scaleZ == 1;
+    }
+
+    // Зеркальное положение (отрицательный определитель): нечётное число отрицательных масштабов
+    public boolean isMirrored() {
+        return (scaleX < 0) ^ (scaleY < 0) ^ (scaleZ < 0);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public float getTranslationX() {
+        return translationX;
+    }
+
+    public float getTranslationY() {
+        return translationY;
+    }
+
+    public float getTranslationZ() {
+        return translationZ;
+    }
+
+    public float getRotationX() {
+        return rotationX;
+    }
+
+    public float getRotationY() {
+        return rotationY;
+    }
+
+    public float getRotationZ() {
+        return rotationZ;
+    }
+
+    public float getScaleX() {
+        return scaleX;
+    }
+
+    public float getScaleY() {
+        return scaleY;
+    }
+
+    public float getScaleZ() {
+        return scaleZ;
+    }
+
+    // Матрица 4 x 4: строки 0-2 — образы осей модели, строка 3 — перенос. Возвращается внутренняя
+    // матрица, изменять её нельзя
+    public Matrix4f getMatrix() {
+        if (matrixVersion != version) {
+            linearPart(matrix, scaleX, scaleY, scaleZ);
+            matrix.m30 = translationX;
+            matrix.m31 = translationY;
+            matrix.m32 = translationZ;
+            matrixVersion = version;
+        }
+        return matrix;
+    }
+
+    // Вершины (x, y, z подряд) в координатах сцены: из source[0..count * 3) в result
+    public void transformPoints(float[] source, int count, float[] result) {
+        getMatrix().transformPoints(source, 0, count, result);
+    }
+
+    // Точка сцены point в координатах модели: (point - t) * R^T / S. Считается по углам и масштабу, без
+    // обращения матрицы, поэтому годится и при очень малом масштабе, когда определитель матрицы равен нулю
+    public void inverseTransformPoint(Vector3f point, Vector3f result) {
+        if (rotationMatrixVersion != version) {
+            linearPart(rotationMatrix, 1, 1, 1);
+            rotationMatrixVersion = version;
+        }
+        final Matrix4f r = rotationMatrix;
+        final float x = point.x - translationX, y = point.y - translationY, z = point.z - translationZ;
+        result.set(
+                (x * r.m00 + y * r.m01 + z * r.m02) / scaleX,
+                (x * r.m10 + y * r.m11 + z * r.m12) / scaleY,
+                (x * r.m20 + y * r.m21 + z * r.m22) / scaleZ);
+    }
+
+    // Нормали в координатах сцены: масштаб действует на них обратно, после поворота они нормируются.
+    // Нулевые нормали остаются нулевыми
+    public void transformNormals(float[] source, int count, float[] result) {
+        final Matrix4f normalMatrix = new Matrix4f();
+        linearPart(normalMatrix, 1 / scaleX, 1 / scaleY, 1 / scaleZ);
+        normalMatrix.transformDirections(source, 0, count, result);
+        Vector3f.normalize(result, 0, count);
+    }
+
+    // Параллелепипед bounds[0..6) (min, max) после преобразования, снова выровненный по осям, в result[0..6).
+    // Пустой параллелепипед (min > max) остаётся пустым
+    public void transformBounds(float[] bounds, float[] result) {
+        if (bounds[0] > bounds[3]) {
+            System.arraycopy(bounds, 0, result, 0, 6);
+            return;
+        }
+        final Matrix4f m = getMatrix();
+        transformBoundsAxis(bounds, m.m00, m.m10, m.m20, m.m30, 0, result);
+        transformBoundsAxis(bounds, m.m01, m.m11, m.m21, m.m31, 1, result);
+        transformBoundsAxis(bounds, m.m02, m.m12, m.m22, m.m32, 2, result);
+    }
+
+    // Ось сцены axis со столбцом матрицы (x, y, z, t): каждая ось модели даёт вклад от меньшего из концов к большему
+    private static void transformBoundsAxis(float[] bounds, float x, float y, float z, float t, int axis, float[] result) {
+        result[axis] = t + Math.min(bounds[0] * x, bounds[3] * x)
+                + Math.min(bounds[1] * y, bounds[4] * y) + Math.min(bounds[2] * z, bounds[5] * z);
+        result[axis + 3] = t + Math.max(bounds[0] * x, bounds[3] * x)
+                + Math.max(bounds[1] * y, bounds[4] * y) + Math.max(bounds[2] * z, bounds[5] * z);
+    }
+
+    // Матрица diag(sx, sy, sz) * Rx * Ry * Rz без переноса
+    private void linearPart(Matrix4f result, float sx, float sy, float sz) {
+        final double ax = Math.toRadians(rotationX), ay = Math.toRadians(rotationY), az = Math.toRadians(rotationZ);
+        final float cx = (float) Math.cos(ax), sinX = (float) Math.sin(ax);
+        final float cy = (float) Math.cos(ay), sinY = (float) Math.sin(ay);
+        final float cz = (float) Math.cos(az), sinZ = (float) Math.sin(az);
+        // Rx * Ry
+        final float a00 = cy, a01 = 0, a02 = -sinY;
+        final float a10 = sinX * sinY, a11 = cx, a12 = sinX * cy;
+        final float a20 = cx * sinY, a21 = -sinX, a22 = cx * cy;
+        // (Rx * Ry) * Rz, строки умножены на масштаб
+        result.setIdentity();
+        result.m00 = sx * (a00 * cz - a01 * sinZ);
+        result.m01 = sx * (a00 * sinZ + a01 * cz);
+        result.m02 = sx * a02;
+        result.m10 = sy * (a10 * cz - a11 * sinZ);
+        result.m11 = sy * (a10 * sinZ + a11 * cz);
+        result.m12 = sy * a12;
+        result.m20 = sz * (a20 * cz - a21 * sinZ);
+        result.m21 = sz * (a20 * sinZ + a21 * cz);
+        result.m22 = sz * a22;
+    }
+}
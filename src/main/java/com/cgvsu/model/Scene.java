@@ -1,21 +1,61 @@
 package com.cgvsu.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 public class Scene {
     private List<Model> models = new ArrayList<>();
+    private final List<Model> unmodifiableModels = Collections.unmodifiableList(models);
     private Model activeModel = null;
 
+    // Иерархия параллелепипедов моделей для отбора видимых. Перестраивается при следующем запросе
+    // после добавления или удаления модели; изменённые модели пересчитываются в ней без перестроения
+    private final SceneBvh bvh = new SceneBvh();
+    private boolean bvhValid = false;
+    private final List<Model> changedModels = new ArrayList<>();
+
     public void addModel(Model model) {
         models.add(model);
+        bvhValid = false;
         if (activeModel == null) {
             activeModel = model;
         }
     }
 
+    // Новый экземпляр модели: та же Mesh (вершины и всё построенное по ним не копируются) в том же
+    // положении. Добавляется в сцену и возвращается, чтобы его можно было передвинуть
+    public Model addInstance(Model model) {
+        final Model instance = new Model(model.mesh);
+        instance.transform.set(model.transform);
+        addModel(instance);
+        return instance;
+    }
+
+    // Число разных Mesh среди моделей сцены: память сцены растёт с ним, а не с числом моделей
+    public int getMeshCount() {
+        final Set<Mesh> meshes = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Model model : models) {
+            meshes.add(model.mesh);
+        }
+        return meshes.size();
+    }
+
+    public void removeModel(Model model) {
+        if (!models.remove(model)) {
+            return;
+        }
+        bvhValid = false;
+        if (activeModel == model) {
+            activeModel = models.isEmpty() ? null : models.get(0);
+        }
+    }
+
+    // Модели сцены в порядке добавления; изменять сцену можно только её методами
     public List<Model> getModels() {
-        return models;
+        return unmodifiableModels;
     }
 
     public Model getActiveModel() {
@@ -27,4 +67,52 @@ public class Scene {
             activeModel = model;
         }
     }
-}
\ No newline at end of file
+
+    // Сообщение о том, что вершины модели изменились (или заменена её mesh): её ограничивающие
+    // параллелепипеды будут пересчитаны. Вершины общей Mesh меняются у всех её экземпляров
+    public void modelChanged(Model model) {
+        model.mesh.verticesChanged();
+        for (Model other : models) {
+            if (other.mesh == model.mesh) {
+                changedModels.add(other);
+            }
+        }
+    }
+
+    // Замена Mesh у всех моделей, которые её используют (например, после слияния вершин): экземпляры
+    // остаются общими
+    public void replaceMesh(Mesh mesh, Mesh replacement) {
+        for (Model model : models) {
+            if (model.mesh == mesh) {
+                model.mesh = replacement;
+                changedModels.add(model);
+            }
+        }
+    }
+
+    // Сообщение о том, что изменилось положение модели (model.transform): вершины и всё, что от них
+    // зависит, остаются прежними, пересчитывается только её место в иерархии
+    public void transformChanged(Model model) {
+        changedModels.add(model);
+    }
+
+    /**
+     * Собирает модели, которые могут быть видны, отбрасывая целые поддеревья иерархии.
+     *
+     * @param test   Проверка видимости параллелепипеда, например пирамида видимости камеры.
+     * @param result Список, в который записываются модели; предварительно очищается.
+     */
+    public void collectVisibleModels(BoundsPredicate test, List<Model> result) {
+        result.clear();
+        if (!bvhValid) {
+            bvh.build(models);
+            bvhValid = true;
+        } else {
+            for (int i = 0; i < changedModels.size(); ++i) {
+                bvh.refit(changedModels.get(i));
+            }
+        }
+        changedModels.clear();
+        bvh.collect(test, result);
+    }
+}
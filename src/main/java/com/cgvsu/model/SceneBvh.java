@@ -0,0 +1,219 @@
+package com.cgvsu.model;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Иерархия ограничивающих параллелепипедов над моделями сцены (Model.getWorldBounds). Узел хранит параллелепипед всех своих
+// моделей, поэтому при запросе невидимое поддерево отбрасывается одной проверкой. Строится делением
+// моделей пополам по самой длинной оси центров; после изменения модели параллелепипеды её листа
+// и его предков пересчитываются без перестроения (refit)
+final class SceneBvh {
+
+    // Наибольшее число моделей в листе
+    private static final int LEAF_SIZE = 4;
+
+    // Модели в порядке листьев: лист node содержит models[first[node], first[node] + count[node])
+    private Model[] models = new Model[0];
+    // Лист каждой модели из models
+    private int[] modelNodes = new int[0];
+    private final Map<Model, Integer> modelIndices = new IdentityHashMap<>();
+
+    // По шесть чисел на узел, как в MeshBounds
+    private float[] nodeBounds = new float[0];
+    // Потомки внутреннего узла; у листа -1
+    private int[] left = new int[0];
+    private int[] right = new int[0];
+    private int[] parents = new int[0];
+    private int[] first = new int[0];
+    private int[] count = new int[0];
+    private int nodeCount;
+
+    // Центры моделей при построении
+    private float[] centers = new float[0];
+    // Стек обхода; растёт, если дерево глубже
+    private int[] stack = new int[64];
+
+    void build(List<Model> sceneModels) {
+        final int modelCount = sceneModels.size();
+        models = sceneModels.toArray(new Model[0]);
+        modelNodes = new int[modelCount];
+        modelIndices.clear();
+        centers = new float[3 * modelCount];
+        for (int i = 0; i < modelCount; ++i) {
+            final float[] bounds = models[i].getWorldBounds();
+            for (int axis = 0; axis < 3; ++axis) {
+                // У модели без рёбер центра нет; она попадает в любой лист и никогда не видна
+                centers[3 * i + axis] = bounds[axis] <= bounds[axis + 3] ? (bounds[axis] + bounds[axis + 3]) / 2 : 0;
+            }
+        }
+
+        final int maxNodeCount = Math.max(1, 2 * modelCount);
+        nodeBounds = new float[6 * maxNodeCount];
+        left = new int[maxNodeCount];
+        right = new int[maxNodeCount];
+        parents = new int[maxNodeCount];
+        first = new int[maxNodeCount];
+        count = new int[maxNodeCount];
+        nodeCount = 0;
+        buildNode(0, modelCount, -1);
+
+        for (int i = 0; i < modelCount; ++i) {
+            modelIndices.put(models[i], i);
+        }
+        centers = new float[0];
+    }
+
+    private int buildNode(int from, int to, int parent) {
+        final int node = nodeCount++;
+        parents[node] = parent;
+        if (to - from <= LEAF_SIZE) {
+            left[node] = -1;
+            right[node] = -1;
+            first[node] = from;
+            count[node] = to - from;
+            for (int i = from; i < to; ++i) {
+                modelNodes[i] = node;
+            }
+            updateLeafBounds(node);
+            return node;
+        }
+
+        // Деление по медиане центров вдоль оси, на которой они разбросаны сильнее всего
+        float[] extent = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        for (int i = from; i < to; ++i) {
+            for (int axis = 0; axis < 3; ++axis) {
+                extent[axis] = Math.min(extent[axis], centers[3 * i + axis]);
+                extent[axis + 3] = Math.max(extent[axis + 3], centers[3 * i + axis]);
+            }
+        }
+        int splitAxis = 0;
+        for (int axis = 1; axis < 3; ++axis) {
+            if (extent[axis + 3] - extent[axis] > extent[splitAxis + 3] - extent[splitAxis]) {
+                splitAxis = axis;
+            }
+        }
+        final int middle = (from + to) >>> 1;
+        select(from, to - 1, middle, splitAxis);
+
+        left[node] = buildNode(from, middle, node);
+        right[node] = buildNode(middle, to, node);
+        first[node] = from;
+        count[node] = 0;
+        updateInnerBounds(node);
+        return node;
+    }
+
+    // Перестановка моделей [from, to] так, что на месте k оказывается k-я по центру вдоль axis,
+    // левее — не большие, правее — не меньшие (быстрый выбор Хоара)
+    private void select(int from, int to, int k, int axis) {
+        while (from < to) {
+            final float pivot = centers[3 * ((from + to) >>> 1) + axis];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (centers[3 * i + axis] < pivot) {
+                    ++i;
+                }
+                while (centers[3 * j + axis] > pivot) {
+                    --j;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                to = j;
+            } else if (k >= i) {
+                from = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        final Model model = models[i];
+        models[i] = models[j];
+        models[j] = model;
+        for (int axis = 0; axis < 3; ++axis) {
+            final float center = centers[3 * i + axis];
+            centers[3 * i + axis] = centers[3 * j + axis];
+            centers[3 * j + axis] = center;
+        }
+    }
+
+    // Пересчёт параллелепипедов листа модели и его предков; false, если модели нет в дереве
+    boolean refit(Model model) {
+        final Integer index = modelIndices.get(model);
+        if (index == null) {
+            return false;
+        }
+        int node = modelNodes[index];
+        updateLeafBounds(node);
+        for (node = parents[node]; node >= 0; node = parents[node]) {
+            updateInnerBounds(node);
+        }
+        return true;
+    }
+
+    private void updateLeafBounds(int node) {
+        setEmpty(node);
+        final int offset = 6 * node;
+        for (int i = first[node]; i < first[node] + count[node]; ++i) {
+            final float[] bounds = models[i].getWorldBounds();
+            for (int axis = 0; axis < 3; ++axis) {
+                nodeBounds[offset + axis] = Math.min(nodeBounds[offset + axis], bounds[axis]);
+                nodeBounds[offset + axis + 3] = Math.max(nodeBounds[offset + axis + 3], bounds[axis + 3]);
+            }
+        }
+    }
+
+    private void updateInnerBounds(int node) {
+        final int offset = 6 * node;
+        final int leftOffset = 6 * left[node];
+        final int rightOffset = 6 * right[node];
+        for (int axis = 0; axis < 3; ++axis) {
+            nodeBounds[offset + axis] = Math.min(nodeBounds[leftOffset + axis], nodeBounds[rightOffset + axis]);
+            nodeBounds[offset + axis + 3] = Math.max(nodeBounds[leftOffset + axis + 3], nodeBounds[rightOffset + axis + 3]);
+        }
+    }
+
+    private void setEmpty(int node) {
+        final int offset = 6 * node;
+        for (int axis = 0; axis < 3; ++axis) {
+            nodeBounds[offset + axis] = Float.POSITIVE_INFINITY;
+            nodeBounds[offset + axis + 3] = Float.NEGATIVE_INFINITY;
+        }
+    }
+
+    // Модели, параллелепипеды которых проходят проверку test, добавляются в result
+    void collect(BoundsPredicate test, List<Model> result) {
+        if (nodeCount == 0) {
+            return;
+        }
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            final int node = stack[--top];
+            if (!test.intersects(nodeBounds, 6 * node)) {
+                continue;
+            }
+            if (left[node] < 0) {
+                for (int i = first[node]; i < first[node] + count[node]; ++i) {
+                    if (count[node] == 1 || test.intersects(models[i].getWorldBounds(), 0)) {
+                        result.add(models[i]);
+                    }
+                }
+            } else {
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * stack.length);
+                }
+                stack[top++] = right[node];
+                stack[top++] = left[node];
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.MeshBuilder;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Проверка полигонов прямо во время разбора. Индекс сверяется с числом элементов, объявленных
+// до полигона; ссылки вперёд (на элементы ниже по файлу) запоминаются и проверяются в конце
+// по наибольшему индексу, поэтому повторный проход по всем полигонам нужен только при ошибке
+final class FaceValidator {
+
+	// До этого размера полигона повторы ищутся попарным сравнением: так быстрее, чем через хэш-таблицу
+	private static final int SMALL_POLYGON_SIZE = 8;
+
+	private final ObjValidationMode mode;
+
+	// Наибольшие индексы ссылок вперёд и строки, в которых они встретились впервые
+	private final int[] maxForwardIndices = {-1, -1, -1};
+	private final int[] maxForwardIndexLineInds = new int[3];
+
+	private static final int VERTEX = 0;
+	private static final int TEXTURE_VERTEX = 1;
+	private static final int NORMAL = 2;
+
+	// Строка первого принятого полигона; 0, если полигонов ещё нет (нужна при склейке участков файла)
+	int firstPolygonLineInd = 0;
+
+	// Хэш-таблица вершин текущего полигона с открытой адресацией. Ячейка занята, если её отметка
+	// равна номеру текущего полигона, поэтому между полигонами таблицу очищать не нужно
+	private int[] slots = new int[0];
+	private int[] slotStamps = new int[0];
+	private int stamp = 0;
+
+	FaceValidator(ObjValidationMode mode) {
+		this.mode = mode;
+	}
+
+	ObjValidationMode getMode() {
+		return mode;
+	}
+
+	// Проверка только что прочитанного полигона [from, to) в массивах индексов. Счётчики — число элементов,
+	// объявленных до полигона. В строгом режиме ошибка бросается, в нестрогом возвращается false
+	boolean checkPolygon(
+			MeshBuilder result,
+			int from,
+			int to,
+			int vertexCount,
+			int textureVertexCount,
+			int normalCount,
+			int lineInd) {
+		for (int i = from; i < to; ++i) {
+			if (!checkIndex(VERTEX, result.getVertexIndex(i), vertexCount, lineInd)) {
+				return false;
+			}
+		}
+		for (int i = from; i < to; ++i) {
+			final int normalIndex = result.getNormalIndex(i);
+			if (normalIndex != Mesh.NO_INDEX && !checkIndex(NORMAL, normalIndex, normalCount, lineInd)) {
+				return false;
+			}
+		}
+		for (int i = from; i < to; ++i) {
+			final int textureVertexIndex = result.getTextureVertexIndex(i);
+			if (textureVertexIndex != Mesh.NO_INDEX
+					&& !checkIndex(TEXTURE_VERTEX, textureVertexIndex, textureVertexCount, lineInd)) {
+				return false;
+			}
+		}
+
+		if (hasDuplicates(result, from, to)) {
+			return fail("The polygon contains duplicate vertex indices.", lineInd);
+		}
+		return true;
+	}
+
+	// Ошибка полигона: в строгом режиме исключение, в нестрогом — false (полигон пропускается)
+	boolean fail(String errorMessage, int lineInd) {
+		if (mode == ObjValidationMode.STRICT) {
+			throw new ObjReaderException(errorMessage, lineInd);
+		}
+		return false;
+	}
+
+	// Учёт ссылок вперёд следующего участка файла (участки объединяются в порядке следования)
+	void merge(FaceValidator other) {
+		for (int kind = 0; kind < maxForwardIndices.length; ++kind) {
+			if (other.maxForwardIndices[kind] > maxForwardIndices[kind]) {
+				maxForwardIndices[kind] = other.maxForwardIndices[kind];
+				maxForwardIndexLineInds[kind] = other.maxForwardIndexLineInds[kind];
+			}
+		}
+	}
+
+	// Проверка ссылок вперёд после разбора всего файла. В нестрогом режиме полигоны с индексами
+	// за пределами модели удаляются
+	void checkForwardReferences(MeshBuilder result) {
+		final int[] counts = {result.getVertexCount(), result.getTextureVertexCount(), result.getNormalCount()};
+		boolean isValid = true;
+		for (int kind : new int[]{VERTEX, NORMAL, TEXTURE_VERTEX}) {
+			if (maxForwardIndices[kind] >= counts[kind]) {
+				fail(outOfBoundsMessage(kind), maxForwardIndexLineInds[kind]);
+				isValid = false;
+			}
+		}
+		if (isValid) {
+			return;
+		}
+
+		final BitSet invalidPolygons = new BitSet(result.getPolygonCount());
+		for (int polygonInd = 0; polygonInd < result.getPolygonCount(); ++polygonInd) {
+			final int end = result.getPolygonStart(polygonInd + 1);
+			for (int i = result.getPolygonStart(polygonInd); i < end; ++i) {
+				if (result.getVertexIndex(i) >= counts[VERTEX]
+						|| result.getTextureVertexIndex(i) >= counts[TEXTURE_VERTEX]
+						|| result.getNormalIndex(i) >= counts[NORMAL]) {
+					invalidPolygons.set(polygonInd);
+					break;
+				}
+			}
+		}
+		result.removePolygons(invalidPolygons);
+	}
+
+	private boolean checkIndex(int kind, int index, int count, int lineInd) {
+		if (index < 0) {
+			return fail(outOfBoundsMessage(kind), lineInd);
+		}
+		if (index >= count && index > maxForwardIndices[kind]) {
+			maxForwardIndices[kind] = index;
+			maxForwardIndexLineInds[kind] = lineInd;
+		}
+		return true;
+	}
+
+	private static String outOfBoundsMessage(int kind) {
+		final String token = switch (kind) {
+			case VERTEX -> "v";
+			case TEXTURE_VERTEX -> "vt";
+			default -> "vn";
+		};
+		return "The polygon is specified incorrectly: " + token + " index out of bounds.";
+	}
+
+	// Поиск повторяющихся вершин за время, линейное по размеру полигона
+	private boolean hasDuplicates(MeshBuilder result, int from, int to) {
+		final int size = to - from;
+		if (size <= SMALL_POLYGON_SIZE) {
+			for (int i = from; i < to - 1; i++) {
+				final int vertexIndex = result.getVertexIndex(i);
+				for (int j = i + 1; j < to; j++) {
+					if (vertexIndex == result.getVertexIndex(j)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		// Таблица заполнена не больше чем наполовину
+		final int bits = 32 - Integer.numberOfLeadingZeros(2 * size - 1);
+		if (slots.length < 1 << bits) {
+			slots = new int[1 << bits];
+			slotStamps = new int[1 << bits];
+			stamp = 0;
+		}
+		if (++stamp == 0) {
+			Arrays.fill(slotStamps, 0);
+			stamp = 1;
+		}
+		final int mask = slots.length - 1;
+		final int shift = Integer.numberOfLeadingZeros(mask);
+		for (int i = from; i < to; ++i) {
+			final int vertexIndex = result.getVertexIndex(i);
+			// Фибоначчиево хэширование: старшие биты произведения
+			int slot = (vertexIndex * 0x9E3779B9) >>> shift;
+			while (slotStamps[slot] == stamp) {
+				if (slots[slot] == vertexIndex) {
+					return true;
+				}
+				slot = (slot + 1) & mask;
+			}
+			slots[slot] = vertexIndex;
+			slotStamps[slot] = stamp;
+		}
+		return false;
+	}
+}
@@ -1,213 +1,337 @@
 package com.cgvsu.objreader;
 
-import com.cgvsu.math.Vector2f;
-import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.MeshBuilder;
+import com.cgvsu.model.MeshPreview;
 import com.cgvsu.model.Model;
-import com.cgvsu.model.Polygon;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
 
 public class ObjReader {
 
-	// Константы для токенов, используемых в формате OBJ
-	private static final String OBJ_VERTEX_TOKEN = "v";
-	private static final String OBJ_TEXTURE_TOKEN = "vt";
-	private static final String OBJ_NORMAL_TOKEN = "vn";
-	private static final String OBJ_FACE_TOKEN = "f";
+	// Размер окна, которым файл отображается в память (MappedByteBuffer ограничен 2 ГБ)
+	static final long MAPPED_WINDOW_SIZE = 1L << 28;
+
+	// Файлы меньше этого размера всегда разбираются в одном потоке
+	public static final long PARALLEL_THRESHOLD = 1L << 24;
+
+	// Размер части окна, после разбора которой сообщается о ходе чтения и проверяется отмена
+	static final int PROGRESS_SLICE_SIZE = 1 << 22;
+
+	// Наблюдатель за ходом чтения: разобрано read из total байт файла. Вызывается в потоке чтения
+	@FunctionalInterface
+	public interface ProgressListener {
+		void onProgress(long read, long total);
+
+		// Уже прочитанная часть модели для отрисовки до окончания загрузки. Снимок ещё не проверен
+		// полностью: в нём могут быть ссылки на вершины, которые объявлены дальше по файлу
+		default void onPreview(MeshPreview preview) {
+		}
+	}
 
 	// Основной метод для чтения и парсинга файла OBJ
 	public static Model read(String fileContent) {
-		Model result = new Model();
+		return read(fileContent, ObjValidationMode.STRICT);
+	}
+
+	// Чтение содержимого OBJ с выбранной строгостью проверки полигонов
+	public static Model read(String fileContent, ObjValidationMode mode) {
+		MeshBuilder result = new MeshBuilder();
+		FaceValidator validator = new FaceValidator(mode);
+
+		final int lineInd = parseLines(
+				new ObjTokenizer(fileContent.getBytes(StandardCharsets.UTF_8)), 0, result, validator, 0, 0, 0);
+
+		validateModel(result, validator, lineInd);
+		return new Model(result.build());
+	}
+
+	// Чтение файла OBJ напрямую с диска: файл отображается в память окнами через FileChannel,
+	// строки разбираются прямо из отображённых байтов без загрузки всего файла в String.
+	// Большие файлы разбираются параллельно, маленькие — в одном потоке
+	public static Model read(Path path) throws IOException {
+		return read(path, ObjValidationMode.STRICT);
+	}
+
+	// Чтение файла OBJ с выбранной строгостью проверки полигонов
+	public static Model read(Path path, ObjValidationMode mode) throws IOException {
+		return read(path, Files.size(path) >= PARALLEL_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1, mode);
+	}
+
+	// Чтение файла OBJ с явным выбором режима: parallel = false принудительно включает однопоточный разбор
+	public static Model read(Path path, boolean parallel) throws IOException {
+		return read(path, parallel, ObjValidationMode.STRICT);
+	}
+
+	public static Model read(Path path, boolean parallel, ObjValidationMode mode) throws IOException {
+		return read(path, parallel, mode, null);
+	}
+
+	// Чтение файла OBJ с наблюдателем за ходом чтения. Прерывание потока отменяет чтение
+	// (InterruptedIOException или ClosedByInterruptException, если поток прерван во время работы с каналом)
+	public static Model read(Path path, ObjValidationMode mode, ProgressListener listener) throws IOException {
+		return read(path, Files.size(path) >= PARALLEL_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1, mode, listener);
+	}
+
+	public static Model read(Path path, boolean parallel, ObjValidationMode mode, ProgressListener listener) throws IOException {
+		if (parallel) {
+			return ParallelObjReader.read(path, ParallelObjReader.chunkSize(Files.size(path)), mode, listener);
+		}
+
+		MeshBuilder result = new MeshBuilder();
+		FaceValidator validator = new FaceValidator(mode);
 
 		int lineInd = 0;
-		Scanner scanner = new Scanner(fileContent);
-		while (scanner.hasNextLine()) {
-			final String line = scanner.nextLine();
-			ArrayList<String> wordsInLine = new ArrayList<>(Arrays.asList(line.split("\\s+")));
-			if (wordsInLine.isEmpty()) {
-				continue;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final long fileSize = channel.size();
+
+			long windowStart = 0;
+			while (windowStart < fileSize) {
+				final long windowSize = Math.min(MAPPED_WINDOW_SIZE, fileSize - windowStart);
+				final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+				final boolean isLastWindow = windowStart + windowSize == fileSize;
+
+				// Окно обрезается по последнему переводу строки, чтобы строка не разрывалась между окнами
+				int windowEnd = (int) windowSize;
+				if (!isLastWindow) {
+					while (windowEnd > 0 && window.get(windowEnd - 1) != '\n') {
+						--windowEnd;
+					}
+					if (windowEnd == 0) {
+						throw new ObjReaderException("Line is too long.", lineInd + 1);
+					}
+				}
+
+				// Окно разбирается частями, чтобы сообщать о ходе чтения и вовремя замечать отмену
+				int sliceStart = 0;
+				while (sliceStart < windowEnd) {
+					int sliceEnd = Math.min(windowEnd, sliceStart + PROGRESS_SLICE_SIZE);
+					while (sliceEnd < windowEnd && window.get(sliceEnd - 1) != '\n') {
+						++sliceEnd;
+					}
+					lineInd = parseLines(new ObjTokenizer(window, sliceStart, sliceEnd), lineInd, result, validator, 0, 0, 0);
+					sliceStart = sliceEnd;
+
+					checkCancelled();
+					if (listener != null) {
+						listener.onPreview(result.preview());
+						listener.onProgress(windowStart + sliceEnd, fileSize);
+					}
+				}
+				windowStart += windowEnd;
 			}
+		}
 
-			final String token = wordsInLine.get(0);
-			wordsInLine.remove(0);
+		validateModel(result, validator, lineInd);
+		return new Model(result.build());
+	}
 
+	// Отмена чтения прерыванием потока
+	static void checkCancelled() throws InterruptedIOException {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new InterruptedIOException("Loading the model was cancelled.");
+		}
+	}
+
+	// Разбор всех строк под курсором; возвращает номер последней прочитанной строки.
+	// Смещения — число элементов, объявленных до начала участка (нужны для относительных индексов)
+	static int parseLines(
+			ObjTokenizer tokenizer,
+			int lineInd,
+			MeshBuilder result,
+			FaceValidator validator,
+			int vertexOffset,
+			int textureVertexOffset,
+			int normalOffset) {
+		final boolean checkTextureVertices = validator.getMode() != ObjValidationMode.TRUSTED;
+		while (tokenizer.nextLine()) {
 			++lineInd;
-			switch (token) {
+			switch (tokenizer.readKeyword()) {
 				// Парсинг вершин
-				case OBJ_VERTEX_TOKEN -> result.vertices.add(parseVertex(wordsInLine, lineInd));
+				case ObjTokenizer.VERTEX_TOKEN -> parseVertex(tokenizer, result, lineInd);
 				// Парсинг текстурных вершин
-				case OBJ_TEXTURE_TOKEN -> result.textureVertices.add(parseTextureVertex(wordsInLine, lineInd));
+				case ObjTokenizer.TEXTURE_TOKEN -> parseTextureVertex(tokenizer, result, lineInd);
 				// Парсинг нормалей
-				case OBJ_NORMAL_TOKEN -> result.normals.add(parseNormal(wordsInLine, lineInd));
+				case ObjTokenizer.NORMAL_TOKEN -> parseNormal(tokenizer, result, lineInd);
 				// Парсинг полигонов
-				case OBJ_FACE_TOKEN -> {
-					result.polygons.add(parseFace(wordsInLine, lineInd));
+				case ObjTokenizer.FACE_TOKEN -> {
+					parseFace(
+							tokenizer,
+							result,
+							vertexOffset + result.getVertexCount(),
+							textureVertexOffset + result.getTextureVertexCount(),
+							normalOffset + result.getNormalCount(),
+							validator,
+							lineInd);
+					final int polygonCount = result.getPolygonCount();
+					if (polygonCount == 1 && validator.firstPolygonLineInd == 0) {
+						validator.firstPolygonLineInd = lineInd;
+					}
 					// Проверка на соответствие текстурных вершин в полигонах
-					if (result.polygons.size() > 1 &&
-							(result.polygons.get(result.polygons.size() - 2).getTextureVertexIndices().size() == 0) !=
-									(result.polygons.get(result.polygons.size() - 1).getTextureVertexIndices().size() == 0)) {
+					if (checkTextureVertices && polygonCount > 1 &&
+							result.hasTextureVertices(polygonCount - 2) != result.hasTextureVertices(polygonCount - 1)) {
 						throw new ObjReaderException("Polygon has no texture vertices.", lineInd);
 					}
 				}
 				default -> {}
 			}
 		}
+		return lineInd;
+	}
 
+	// Проверка модели после разбора всех строк. Индексы полигонов уже проверены при разборе,
+	// здесь остаются только ссылки вперёд
+	static void validateModel(MeshBuilder result, FaceValidator validator, int lineInd) {
 		// Проверка на наличие хотя бы одного полигона
-		if (result.polygons.isEmpty()) {
+		if (result.getPolygonCount() == 0) {
 			throw new ObjReaderException("OBJ file has no polygons.", lineInd);
 		}
 
 		// Проверка на наличие хотя бы одной вершины
-		if (result.vertices.isEmpty()) {
+		if (result.getVertexCount() == 0) {
 			throw new ObjReaderException("OBJ file has no vertices.", lineInd);
 		}
 
-		// Проверка индексов вершин, нормалей и текстурных вершин в полигонах
-		for (Polygon polygon : result.polygons) {
-			validateIndices(polygon.getVertexIndices(), result.vertices.size(), OBJ_VERTEX_TOKEN, lineInd);
-			validateIndices(polygon.getNormalIndices(), result.normals.size(), OBJ_NORMAL_TOKEN, lineInd);
-			validateIndices(polygon.getTextureVertexIndices(), result.textureVertices.size(), OBJ_TEXTURE_TOKEN, lineInd);
+		validator.checkForwardReferences(result);
+		// В нестрогом режиме могли быть отброшены все полигоны
+		if (result.getPolygonCount() == 0) {
+			throw new ObjReaderException("OBJ file has no polygons.", lineInd);
 		}
-
-		return result;
 	}
 
 	// Метод для парсинга вершин
-	protected static Vector3f parseVertex(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
+	protected static void parseVertex(final ObjTokenizer tokenizer, MeshBuilder result, int lineInd) {
 		try {
-			if (wordsInLineWithoutToken.size() > 3) {
+			if (tokenizer.countWords() > 3) {
 				throw new ObjReaderException("Too many vertex arguments.", lineInd);
 			}
 
-			return new Vector3f(
-					Float.parseFloat(wordsInLineWithoutToken.get(0)),
-					Float.parseFloat(wordsInLineWithoutToken.get(1)),
-					Float.parseFloat(wordsInLineWithoutToken.get(2)));
+			result.addVertex(tokenizer.nextFloat(), tokenizer.nextFloat(), tokenizer.nextFloat());
 
 		} catch (NumberFormatException e) {
 			throw new ObjReaderException("Failed to parse float value.", lineInd);
-		} catch (IndexOutOfBoundsException e) {
+		} catch (NoSuchElementException e) {
 			throw new ObjReaderException("Too few vertex arguments.", lineInd);
 		}
 	}
 
 	// Метод для парсинга текстурных вершин
-	protected static Vector2f parseTextureVertex(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
+	protected static void parseTextureVertex(final ObjTokenizer tokenizer, MeshBuilder result, int lineInd) {
 		try {
-			if (wordsInLineWithoutToken.size() > 2) {
+			if (tokenizer.countWords() > 2) {
 				throw new ObjReaderException("Too many texture vertex arguments.", lineInd);
 			}
-			return new Vector2f(
-					Float.parseFloat(wordsInLineWithoutToken.get(0)),
-					Float.parseFloat(wordsInLineWithoutToken.get(1)));
+			result.addTextureVertex(tokenizer.nextFloat(), tokenizer.nextFloat());
 
 		} catch (NumberFormatException e) {
 			throw new ObjReaderException("Failed to parse float value.", lineInd);
-		} catch (IndexOutOfBoundsException e) {
+		} catch (NoSuchElementException e) {
 			throw new ObjReaderException("Too few texture vertex arguments.", lineInd);
 		}
 	}
 
 	// Метод для парсинга нормалей
-	protected static Vector3f parseNormal(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
+	protected static void parseNormal(final ObjTokenizer tokenizer, MeshBuilder result, int lineInd) {
 		try {
-			if (wordsInLineWithoutToken.size() > 3) {
+			if (tokenizer.countWords() > 3) {
 				throw new ObjReaderException("Too many normal arguments.", lineInd);
 			}
-			return new Vector3f(
-					Float.parseFloat(wordsInLineWithoutToken.get(0)),
-					Float.parseFloat(wordsInLineWithoutToken.get(1)),
-					Float.parseFloat(wordsInLineWithoutToken.get(2)));
+			result.addNormal(tokenizer.nextFloat(), tokenizer.nextFloat(), tokenizer.nextFloat());
 
 		} catch (NumberFormatException e) {
 			throw new ObjReaderException("Failed to parse float value.", lineInd);
-		} catch (IndexOutOfBoundsException e) {
+		} catch (NoSuchElementException e) {
 			throw new ObjReaderException("Too few normal arguments.", lineInd);
 		}
 	}
 
-	// Метод для парсинга полигонов
-	protected static Polygon parseFace(final ArrayList<String> wordsInLineWithoutToken, int lineInd) {
-		if (wordsInLineWithoutToken.size() < 3) {
-			throw new ObjReaderException("Polygon has too few vertices.", lineInd);
+	// Метод для парсинга полигонов; счётчики — число элементов, объявленных до этого полигона.
+	// Полигон проверяется сразу после разбора; в нестрогом режиме неверный полигон пропускается
+	protected static void parseFace(
+			final ObjTokenizer tokenizer,
+			MeshBuilder result,
+			int vertexCount,
+			int textureVertexCount,
+			int normalCount,
+			FaceValidator validator,
+			int lineInd) {
+		final boolean isTrusted = validator.getMode() == ObjValidationMode.TRUSTED;
+		if (!isTrusted && tokenizer.countWords() < 3) {
+			validator.fail("Polygon has too few vertices.", lineInd);
+			return;
 		}
 
-		ArrayList<Integer> vertexIndices = new ArrayList<>();
-		ArrayList<Integer> textureVertexIndices = new ArrayList<>();
-		ArrayList<Integer> normalIndices = new ArrayList<>();
-
-		for (String s : wordsInLineWithoutToken) {
-			parseFaceWord(s, vertexIndices, textureVertexIndices, normalIndices, lineInd);
+		final int polygonStart = result.getIndexCount();
+		while (tokenizer.nextWord()) {
+			parseFaceWord(tokenizer, result, vertexCount, textureVertexCount, normalCount, lineInd);
 		}
 
-		if (hasDuplicates(vertexIndices)) {
-			throw new ObjReaderException("The polygon contains duplicate vertex indices.", lineInd);
+		if (!isTrusted && !validator.checkPolygon(
+				result, polygonStart, result.getIndexCount(), vertexCount, textureVertexCount, normalCount, lineInd)) {
+			result.discardPolygon();
+			return;
 		}
 
-		Polygon polygon = new Polygon();
-		polygon.setVertexIndices(vertexIndices);
-		polygon.setTextureVertexIndices(textureVertexIndices);
-		polygon.setNormalIndices(normalIndices);
-		return polygon;
+		result.endPolygon();
 	}
 
-	// Метод для парсинга отдельных слов в строках полигонов
+	// Метод для парсинга текущего слова в строке полигона (v, v/vt, v/vt/vn или v//vn)
 	protected static void parseFaceWord(
-			String wordInLine,
-			ArrayList<Integer> vertexIndices,
-			ArrayList<Integer> textureVertexIndices,
-			ArrayList<Integer> normalIndices,
+			ObjTokenizer tokenizer,
+			MeshBuilder result,
+			int vertexCount,
+			int textureVertexCount,
+			int normalCount,
 			int lineInd) {
 		try {
-			String[] wordIndices = wordInLine.split("/");
-			switch (wordIndices.length) {
-				case 1 -> vertexIndices.add(Integer.parseInt(wordIndices[0]) - 1);
-				case 2 -> {
-					vertexIndices.add(Integer.parseInt(wordIndices[0]) - 1);
-					textureVertexIndices.add(Integer.parseInt(wordIndices[1]) - 1);
-				}
-				case 3 -> {
-					vertexIndices.add(Integer.parseInt(wordIndices[0]) - 1);
-					normalIndices.add(Integer.parseInt(wordIndices[2]) - 1);
-					if (!wordIndices[1].isEmpty()) {
-						textureVertexIndices.add(Integer.parseInt(wordIndices[1]) - 1);
-					}
-				}
-				default -> throw new ObjReaderException("Invalid element size.", lineInd);
+			final int wordStart = tokenizer.wordStart();
+			int wordEnd = tokenizer.wordEnd();
+			// Завершающие пустые части отбрасываются так же, как это делает String.split("/")
+			while (wordEnd > wordStart && tokenizer.byteAt(wordEnd - 1) == '/') {
+				--wordEnd;
 			}
-		} catch (NumberFormatException e) {
-			throw new ObjReaderException("Failed to parse int value.", lineInd);
-		} catch (IndexOutOfBoundsException e) {
-			throw new ObjReaderException("Too few arguments.", lineInd);
-		}
-	}
 
-	// Метод для проверки индексов
-	private static void validateIndices(ArrayList<Integer> indices, int maxIndex, String token, int lineInd) {
-		for (int i = 0; i < indices.size(); i++) {
-			int index = indices.get(i);
-			if (index < 0) {
-				index = maxIndex + 1 + index;
-				indices.set(i, index);
+			final int firstSlash = wordEnd == wordStart ? wordEnd : tokenizer.indexOf('/', wordStart, wordEnd);
+			final int secondSlash = firstSlash < 0 ? -1 : tokenizer.indexOf('/', firstSlash + 1, wordEnd);
+			if (wordEnd == wordStart || (secondSlash >= 0 && tokenizer.indexOf('/', secondSlash + 1, wordEnd) >= 0)) {
+				throw new ObjReaderException("Invalid element size.", lineInd);
 			}
-			if (index >= maxIndex || index < 0) {
-				throw new ObjReaderException("The polygon is specified incorrectly: " + token + " index out of bounds.", lineInd);
+
+			if (firstSlash < 0) {
+				result.addPolygonVertex(
+						toIndex(tokenizer.parseInt(wordStart, wordEnd), vertexCount),
+						Mesh.NO_INDEX,
+						Mesh.NO_INDEX);
+			} else if (secondSlash < 0) {
+				final int vertexIndex = toIndex(tokenizer.parseInt(wordStart, firstSlash), vertexCount);
+				final int textureVertexIndex = toIndex(tokenizer.parseInt(firstSlash + 1, wordEnd), textureVertexCount);
+				result.addPolygonVertex(vertexIndex, textureVertexIndex, Mesh.NO_INDEX);
+			} else {
+				final int vertexIndex = toIndex(tokenizer.parseInt(wordStart, firstSlash), vertexCount);
+				final int normalIndex = toIndex(tokenizer.parseInt(secondSlash + 1, wordEnd), normalCount);
+				final int textureVertexIndex = secondSlash == firstSlash + 1
+						? Mesh.NO_INDEX
+						: toIndex(tokenizer.parseInt(firstSlash + 1, secondSlash), textureVertexCount);
+				result.addPolygonVertex(vertexIndex, textureVertexIndex, normalIndex);
 			}
+		} catch (NumberFormatException e) {
+			throw new ObjReaderException("Failed to parse int value.", lineInd);
 		}
 	}
 
-	// Метод для проверки на дублирование индексов вершин в полигоне
-	private static boolean hasDuplicates(ArrayList<Integer> vertexIndices) {
-		for (int i = 0; i < vertexIndices.size() - 1; i++) {
-			for (int j = i + 1; j < vertexIndices.size(); j++) {
-				if (vertexIndices.get(i).equals(vertexIndices.get(j))) {
-					return true;
-				}
-			}
-		}
-		return false;
+	// Перевод индекса OBJ в индекс с нуля. Отрицательный индекс отсчитывается от последнего
+	// объявленного к этому моменту элемента (-1 — последний), как того требует формат.
+	// Неверные индексы остаются отрицательными, но не совпадают с Mesh.NO_INDEX
+	private static int toIndex(int objIndex, int count) {
+		final long index = objIndex < 0 ? (long) count + objIndex : objIndex - 1L;
+		return index < 0 ? (int) Math.max(index - 1, Integer.MIN_VALUE) : (int) index;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,314 @@
+package com.cgvsu.objreader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+// Курсор по байтам файла OBJ: делит данные на строки и слова и разбирает числа
+// прямо из буфера, не создавая промежуточных строк и массивов
+final class ObjTokenizer {
+
+	// Коды ключевых слов в начале строки
+	static final int OTHER_TOKEN = 0;
+	static final int VERTEX_TOKEN = 1;
+	static final int TEXTURE_TOKEN = 2;
+	static final int NORMAL_TOKEN = 3;
+	static final int FACE_TOKEN = 4;
+
+	// Степени десяти, которые представимы в double точно
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+	// Наибольшая мантисса, которая хранится в double без потери точности
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	private final ByteBuffer buffer;
+	private final int limit;
+
+	private int position;
+	private int lineEnd;
+	private int nextLineStart;
+	private int wordStart;
+	private int wordEnd;
+
+	ObjTokenizer(ByteBuffer buffer, int start, int limit) {
+		this.buffer = buffer;
+		this.limit = limit;
+		this.position = start;
+		this.lineEnd = start;
+		this.nextLineStart = start;
+	}
+
+	ObjTokenizer(byte[] bytes) {
+		this(ByteBuffer.wrap(bytes), 0, bytes.length);
+	}
+
+	// Курсор по одной строке без ключевого слова
+	ObjTokenizer(String line) {
+		this(line.getBytes(StandardCharsets.UTF_8));
+		nextLine();
+	}
+
+	// Переход к следующей строке; строки разделяются "\n", "\r\n" или "\r"
+	boolean nextLine() {
+		if (nextLineStart >= limit) {
+			position = lineEnd = limit;
+			return false;
+		}
+
+		int end = nextLineStart;
+		while (end < limit && buffer.get(end) != '\n' && buffer.get(end) != '\r') {
+			++end;
+		}
+		position = nextLineStart;
+		lineEnd = end;
+
+		if (end == limit) {
+			nextLineStart = limit;
+		} else if (buffer.get(end) == '\r' && end + 1 < limit && buffer.get(end + 1) == '\n') {
+			nextLineStart = end + 2;
+		} else {
+			nextLineStart = end + 1;
+		}
+		return true;
+	}
+
+	// Чтение ключевого слова в начале текущей строки
+	int readKeyword() {
+		if (!nextWordAtLineStart()) {
+			return OTHER_TOKEN;
+		}
+		final int length = wordEnd - wordStart;
+		final byte first = buffer.get(wordStart);
+		if (length == 1) {
+			if (first == 'v') {
+				return VERTEX_TOKEN;
+			}
+			if (first == 'f') {
+				return FACE_TOKEN;
+			}
+		} else if (length == 2 && first == 'v') {
+			final byte second = buffer.get(wordStart + 1);
+			if (second == 't') {
+				return TEXTURE_TOKEN;
+			}
+			if (second == 'n') {
+				return NORMAL_TOKEN;
+			}
+		}
+		return OTHER_TOKEN;
+	}
+
+	// Ключевое слово должно стоять в самом начале строки, как при разбиении по "\\s+"
+	private boolean nextWordAtLineStart() {
+		if (position >= lineEnd || isWhitespace(buffer.get(position))) {
+			return false;
+		}
+		return nextWord();
+	}
+
+	// Количество слов от курсора до конца строки (курсор не сдвигается)
+	int countWords() {
+		int count = 0;
+		int i = position;
+		while (i < lineEnd) {
+			while (i < lineEnd && isWhitespace(buffer.get(i))) {
+				++i;
+			}
+			if (i == lineEnd) {
+				break;
+			}
+			++count;
+			while (i < lineEnd && !isWhitespace(buffer.get(i))) {
+				++i;
+			}
+		}
+		return count;
+	}
+
+	// Переход к следующему слову строки
+	boolean nextWord() {
+		int i = position;
+		while (i < lineEnd && isWhitespace(buffer.get(i))) {
+			++i;
+		}
+		if (i == lineEnd) {
+			position = i;
+			return false;
+		}
+		wordStart = i;
+		while (i < lineEnd && !isWhitespace(buffer.get(i))) {
+			++i;
+		}
+		wordEnd = i;
+		position = i;
+		return true;
+	}
+
+	int wordStart() {
+		return wordStart;
+	}
+
+	int wordEnd() {
+		return wordEnd;
+	}
+
+	byte byteAt(int index) {
+		return buffer.get(index);
+	}
+
+	// Поиск символа в диапазоне [from, to); -1, если символ не найден
+	int indexOf(char c, int from, int to) {
+		for (int i = from; i < to; ++i) {
+			if (buffer.get(i) == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// Следующее слово строки как число с плавающей точкой
+	float nextFloat() {
+		if (!nextWord()) {
+			throw new NoSuchElementException();
+		}
+		return parseFloat(wordStart, wordEnd);
+	}
+
+	// Разбор float из диапазона [from, to). Обычная десятичная запись разбирается вручную,
+	// всё остальное (NaN, Infinity, шестнадцатеричная запись, очень длинные мантиссы)
+	// отдаётся Float.parseFloat, поэтому результат и ошибки совпадают с ним бит в бит
+	float parseFloat(int from, int to) {
+		int i = from;
+		boolean negative = false;
+		if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+			negative = buffer.get(i) == '-';
+			++i;
+		}
+
+		long mantissa = 0;
+		int exponent = 0;
+		boolean hasDigits = false;
+		while (i < to && isDigit(buffer.get(i))) {
+			mantissa = mantissa * 10 + (buffer.get(i) - '0');
+			if (mantissa >= MAX_EXACT_MANTISSA) {
+				return parseFloatSlow(from, to);
+			}
+			hasDigits = true;
+			++i;
+		}
+		if (i < to && buffer.get(i) == '.') {
+			++i;
+			while (i < to && isDigit(buffer.get(i))) {
+				mantissa = mantissa * 10 + (buffer.get(i) - '0');
+				if (mantissa >= MAX_EXACT_MANTISSA) {
+					return parseFloatSlow(from, to);
+				}
+				--exponent;
+				hasDigits = true;
+				++i;
+			}
+		}
+		if (!hasDigits) {
+			return parseFloatSlow(from, to);
+		}
+		if (i < to && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+			++i;
+			boolean negativeExponent = false;
+			if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+				negativeExponent = buffer.get(i) == '-';
+				++i;
+			}
+			if (i == to) {
+				return parseFloatSlow(from, to);
+			}
+			int explicitExponent = 0;
+			while (i < to && isDigit(buffer.get(i))) {
+				explicitExponent = explicitExponent * 10 + (buffer.get(i) - '0');
+				if (explicitExponent > POWERS_OF_TEN.length * 2) {
+					return parseFloatSlow(from, to);
+				}
+				++i;
+			}
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+		if (i != to) {
+			return parseFloatSlow(from, to);
+		}
+
+		if (mantissa == 0) {
+			return negative ? -0.0F : 0.0F;
+		}
+		if (exponent < -(POWERS_OF_TEN.length - 1) || exponent > POWERS_OF_TEN.length - 1) {
+			return parseFloatSlow(from, to);
+		}
+
+		// Оба операнда точны, поэтому результат double округлён корректно
+		final double value = exponent >= 0
+				? mantissa * POWERS_OF_TEN[exponent]
+				: mantissa / POWERS_OF_TEN[-exponent];
+
+		// Двойное округление double -> float расходится с прямым только на середине между float,
+		// а также для денормализованных и переполненных значений
+		final long bits = Double.doubleToRawLongBits(value);
+		if ((bits & 0x1FFFFFFFL) == 0x10000000L || value < Float.MIN_NORMAL || value > Float.MAX_VALUE) {
+			return parseFloatSlow(from, to);
+		}
+
+		final float result = (float) value;
+		return negative ? -result : result;
+	}
+
+	private float parseFloatSlow(int from, int to) {
+		return Float.parseFloat(asString(from, to));
+	}
+
+	// Разбор int из диапазона [from, to) по правилам Integer.parseInt
+	int parseInt(int from, int to) {
+		int i = from;
+		boolean negative = false;
+		if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+			negative = buffer.get(i) == '-';
+			++i;
+		}
+		if (i == to) {
+			throw new NumberFormatException();
+		}
+
+		long value = 0;
+		while (i < to) {
+			final byte b = buffer.get(i);
+			if (!isDigit(b)) {
+				throw new NumberFormatException();
+			}
+			value = value * 10 + (b - '0');
+			if (value > (long) Integer.MAX_VALUE + 1) {
+				throw new NumberFormatException();
+			}
+			++i;
+		}
+		if (negative) {
+			value = -value;
+		}
+		if (value > Integer.MAX_VALUE) {
+			throw new NumberFormatException();
+		}
+		return (int) value;
+	}
+
+	String asString(int from, int to) {
+		final byte[] bytes = new byte[to - from];
+		buffer.get(from, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+
+	// Те же символы, что и "\\s" в регулярных выражениях (кроме перевода строки)
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\r' || b == 0x0B || b == '\f';
+	}
+}
@@ -0,0 +1,11 @@
+package com.cgvsu.objreader;
+
+// Строгость проверки полигонов при чтении OBJ
+public enum ObjValidationMode {
+	// Любой неверный полигон — ошибка чтения (поведение по умолчанию)
+	STRICT,
+	// Полигоны с неверными или повторяющимися индексами и полигоны меньше чем из трёх вершин пропускаются
+	LENIENT,
+	// Файл считается заведомо верным (например, записан нашей же программой): полигоны не проверяются
+	TRUSTED
+}
@@ -0,0 +1,237 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.MeshBuilder;
+import com.cgvsu.model.Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// Многопоточный разбор файла OBJ: файл режется на участки по границам строк, участки разбираются
+// в ForkJoinPool, а списки вершин и полигонов склеиваются в исходном порядке по мере готовности участков
+final class ParallelObjReader {
+
+	// Минимальный размер участка: на меньших участках накладные расходы превышают выигрыш
+	private static final long MIN_CHUNK_SIZE = 1L << 22;
+
+	// Размер буфера для поиска перевода строки на границе участков
+	private static final int BOUNDARY_SCAN_SIZE = 4096;
+
+	private ParallelObjReader() {
+	}
+
+	// Размер участка: по несколько участков на поток для равномерной загрузки ядер
+	static long chunkSize(long fileSize) {
+		final long perTask = fileSize / (ForkJoinPool.getCommonPoolParallelism() * 4L);
+		return Math.min(ObjReader.MAPPED_WINDOW_SIZE, Math.max(MIN_CHUNK_SIZE, perTask));
+	}
+
+	static Model read(Path path, long chunkSize, ObjValidationMode mode, ObjReader.ProgressListener listener) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final long fileSize = channel.size();
+			final List<Chunk> chunks = split(channel, chunkSize, mode);
+
+			// Первый проход: подсчёт строк и элементов каждого участка, чтобы узнать глобальные смещения
+			ForkJoinPool.commonPool().invoke(new CountTask(chunks, 0, chunks.size(), Thread.currentThread()));
+			ObjReader.checkCancelled();
+
+			int lineOffset = 0;
+			int vertexOffset = 0;
+			int textureVertexOffset = 0;
+			int normalOffset = 0;
+			for (Chunk chunk : chunks) {
+				chunk.lineOffset = lineOffset;
+				chunk.vertexOffset = vertexOffset;
+				chunk.textureVertexOffset = textureVertexOffset;
+				chunk.normalOffset = normalOffset;
+				lineOffset += chunk.lineCount;
+				vertexOffset += chunk.vertexCount;
+				textureVertexOffset += chunk.textureVertexCount;
+				normalOffset += chunk.normalCount;
+			}
+
+			// Второй проход: участки разбираются параллельно с уже известными смещениями, а склеиваются
+			// по порядку, как только готов очередной участок, поэтому начало модели доступно до конца разбора
+			final List<ForkJoinTask<?>> parseTasks = new ArrayList<>(chunks.size());
+			for (Chunk chunk : chunks) {
+				parseTasks.add(ForkJoinPool.commonPool().submit(chunk::parse));
+			}
+
+			final FaceValidator validator = new FaceValidator(mode);
+			final MeshBuilder result = new MeshBuilder();
+			try {
+				long parsed = 0;
+				for (int chunkInd = 0; chunkInd < chunks.size(); ++chunkInd) {
+					parseTasks.get(chunkInd).join();
+					ObjReader.checkCancelled();
+
+					final Chunk chunk = chunks.get(chunkInd);
+					append(result, chunk, validator);
+					parsed += chunk.buffer.limit();
+					// Склеенный участок больше не нужен
+					chunks.set(chunkInd, null);
+					parseTasks.set(chunkInd, null);
+
+					if (listener != null) {
+						listener.onPreview(result.preview());
+						listener.onProgress(parsed, fileSize);
+					}
+				}
+			} finally {
+				// При ошибке или отмене ещё не начатые участки не разбираются
+				for (ForkJoinTask<?> task : parseTasks) {
+					if (task != null) {
+						task.cancel(false);
+					}
+				}
+			}
+
+			ObjReader.validateModel(result, validator, lineOffset);
+			return new Model(result.build());
+		}
+	}
+
+	// Разрезание файла на участки; каждая граница сдвигается вперёд до ближайшего перевода строки
+	private static List<Chunk> split(FileChannel channel, long chunkSize, ObjValidationMode mode) throws IOException {
+		final long fileSize = channel.size();
+		final List<Chunk> chunks = new ArrayList<>();
+		final ByteBuffer scanBuffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+
+		long start = 0;
+		while (start < fileSize) {
+			long end = Math.min(fileSize, start + chunkSize);
+			while (end < fileSize) {
+				scanBuffer.clear();
+				final int read = channel.read(scanBuffer, end);
+				int newline = -1;
+				for (int i = 0; i < read; ++i) {
+					if (scanBuffer.get(i) == '\n') {
+						newline = i;
+						break;
+					}
+				}
+				if (newline >= 0) {
+					end += newline + 1;
+					break;
+				}
+				end += Math.max(read, 0);
+			}
+			// Номера строк здесь ещё не посчитаны, поэтому ошибка без номера строки
+			if (end - start > Integer.MAX_VALUE) {
+				throw new IOException("OBJ file has a line longer than " + Integer.MAX_VALUE + " bytes.");
+			}
+			chunks.add(new Chunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), mode));
+			start = end;
+		}
+		return chunks;
+	}
+
+	// Дописывание участка к результату; ссылки вперёд участка собираются в validator
+	private static void append(MeshBuilder result, Chunk chunk, FaceValidator validator) {
+		// Соответствие текстурных вершин на стыке участков проверяется здесь же.
+		// Ошибку, которая в файле стоит раньше, однопоточный разбор нашёл бы первой
+		final int previousPolygonCount = result.getPolygonCount();
+		if (validator.getMode() != ObjValidationMode.TRUSTED
+				&& previousPolygonCount > 0 && chunk.model.getPolygonCount() > 0
+				&& result.hasTextureVertices(previousPolygonCount - 1) != chunk.model.hasTextureVertices(0)) {
+			final int firstPolygonLineInd = chunk.validator.firstPolygonLineInd;
+			if (chunk.error == null || chunk.error.getLineInd() > firstPolygonLineInd) {
+				throw new ObjReaderException("Polygon has no texture vertices.", firstPolygonLineInd);
+			}
+		}
+		if (chunk.error != null) {
+			throw chunk.error;
+		}
+
+		result.append(chunk.model);
+		validator.merge(chunk.validator);
+	}
+
+	// Участок файла и результат его разбора
+	private static final class Chunk {
+		final MappedByteBuffer buffer;
+		final MeshBuilder model = new MeshBuilder();
+		final FaceValidator validator;
+
+		int lineCount;
+		int vertexCount;
+		int textureVertexCount;
+		int normalCount;
+
+		int lineOffset;
+		int vertexOffset;
+		int textureVertexOffset;
+		int normalOffset;
+
+		ObjReaderException error;
+
+		Chunk(MappedByteBuffer buffer, ObjValidationMode mode) {
+			this.buffer = buffer;
+			this.validator = new FaceValidator(mode);
+		}
+
+		void count() {
+			final ObjTokenizer tokenizer = new ObjTokenizer(buffer, 0, buffer.limit());
+			while (tokenizer.nextLine()) {
+				++lineCount;
+				switch (tokenizer.readKeyword()) {
+					case ObjTokenizer.VERTEX_TOKEN -> ++vertexCount;
+					case ObjTokenizer.TEXTURE_TOKEN -> ++textureVertexCount;
+					case ObjTokenizer.NORMAL_TOKEN -> ++normalCount;
+					default -> {}
+				}
+			}
+		}
+
+		void parse() {
+			try {
+				ObjReader.parseLines(
+						new ObjTokenizer(buffer, 0, buffer.limit()),
+						lineOffset, model, validator,
+						vertexOffset, textureVertexOffset, normalOffset);
+			} catch (ObjReaderException exception) {
+				error = exception;
+			}
+		}
+	}
+
+	// Задача fork-join подсчёта элементов в диапазоне участков. Отменяется прерыванием вызвавшего потока
+	private static final class CountTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final List<Chunk> chunks;
+		private final int from;
+		private final int to;
+		private final Thread caller;
+
+		CountTask(List<Chunk> chunks, int from, int to, Thread caller) {
+			this.chunks = chunks;
+			this.from = from;
+			this.to = to;
+			this.caller = caller;
+		}
+
+		@Override
+		protected void compute() {
+			if (caller.isInterrupted()) {
+				return;
+			}
+			if (to - from == 1) {
+				chunks.get(from).count();
+				return;
+			}
+			if (to - from > 1) {
+				final int middle = (from + to) >>> 1;
+				invokeAll(new CountTask(chunks, from, middle, caller), new CountTask(chunks, middle, to, caller));
+			}
+		}
+	}
+}
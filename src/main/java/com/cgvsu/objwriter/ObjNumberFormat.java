@@ -0,0 +1,177 @@
+package com.cgvsu.objwriter;
+
+import java.nio.charset.StandardCharsets;
+
+// Запись чисел в байтовый буфер без создания строк. Для float выбирается самая короткая десятичная
+// запись (не длиннее 9 значащих цифр), которая при чтении даёт в точности то же значение
+final class ObjNumberFormat {
+
+    // Наибольшая длина записи одного числа в байтах
+    static final int MAX_NUMBER_LENGTH = 32;
+
+    // Степени десяти, которые представимы в double точно
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    // Числа от 10^MIN_PLAIN_EXPONENT до 10^MAX_PLAIN_EXPONENT пишутся без экспоненты
+    private static final int MIN_PLAIN_EXPONENT = -4;
+    private static final int MAX_PLAIN_EXPONENT = 9;
+
+    private static final int MAX_FLOAT_DIGITS = 9;
+
+    private ObjNumberFormat() {
+    }
+
+    // Запись int; возвращает позицию после последнего записанного байта
+    static int formatInt(int value, byte[] buffer, int offset) {
+        long remaining = value;
+        if (remaining < 0) {
+            buffer[offset++] = '-';
+            remaining = -remaining;
+        }
+        final int start = offset;
+        do {
+            buffer[offset++] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        reverse(buffer, start, offset);
+        return offset;
+    }
+
+    // Запись float; возвращает позицию после последнего записанного байта
+    static int formatFloat(float value, byte[] buffer, int offset) {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            return formatFallback(value, buffer, offset);
+        }
+        if (Float.floatToRawIntBits(value) < 0) {
+            buffer[offset++] = '-';
+            value = -value;
+        }
+        if (value == 0.0F) {
+            buffer[offset++] = '0';
+            return offset;
+        }
+
+        final double absolute = value;
+        final int decimalExponent = (int) Math.floor(Math.log10(absolute));
+        // Чем больше цифр, тем ближе запись к value, поэтому самое короткое подходящее число цифр
+        // ищется двоичным поиском: обычно хватает четырёх проверок вместо девяти
+        long bestMantissa = candidateMantissa(absolute, decimalExponent, MAX_FLOAT_DIGITS);
+        if (bestMantissa < 0 || !parsesTo(bestMantissa, decimalExponent - MAX_FLOAT_DIGITS + 1, value)) {
+            return formatFallback(value, buffer, offset);
+        }
+        int bestDigits = MAX_FLOAT_DIGITS;
+        int low = 1;
+        int high = MAX_FLOAT_DIGITS - 1;
+        while (low <= high) {
+            final int digits = (low + high) >>> 1;
+            final long mantissa = candidateMantissa(absolute, decimalExponent, digits);
+            if (mantissa >= 0 && parsesTo(mantissa, decimalExponent - digits + 1, value)) {
+                bestMantissa = mantissa;
+                bestDigits = digits;
+                high = digits - 1;
+            } else {
+                low = digits + 1;
+            }
+        }
+        return formatDecimal((int) bestMantissa, decimalExponent - bestDigits + 1, buffer, offset);
+    }
+
+    // Мантисса из digits цифр, ближайшая к absolute / 10^(decimalExponent - digits + 1); -1, если степень
+    // десяти не представима в double точно
+    private static long candidateMantissa(double absolute, int decimalExponent, int digits) {
+        final int exponent = decimalExponent - digits + 1;
+        if (exponent < -(POWERS_OF_TEN.length - 1) || exponent > POWERS_OF_TEN.length - 1) {
+            return -1;
+        }
+        return Math.round(exponent >= 0
+                ? absolute / POWERS_OF_TEN[exponent]
+                : absolute * POWERS_OF_TEN[-exponent]);
+    }
+
+    // Даёт ли запись mantissa * 10^exponent при корректно округляющем чтении ровно value
+    private static boolean parsesTo(long mantissa, int exponent, float value) {
+        final double candidate = exponent >= 0
+                ? mantissa * POWERS_OF_TEN[exponent]
+                : mantissa / POWERS_OF_TEN[-exponent];
+        // На середине между соседними float двойное округление double -> float ненадёжно
+        final long bits = Double.doubleToRawLongBits(candidate);
+        if ((bits & 0x1FFFFFFFL) == 0x10000000L || candidate < Float.MIN_NORMAL || candidate > Float.MAX_VALUE) {
+            return false;
+        }
+        return (float) candidate == value;
+    }
+
+    // Мантисса не длиннее MAX_FLOAT_DIGITS цифр и помещается в int
+    private static int formatDecimal(int mantissa, int exponent, byte[] buffer, int offset) {
+        while (mantissa % 10 == 0) {
+            mantissa /= 10;
+            ++exponent;
+        }
+
+        final int digitsStart = offset;
+        int digitsEnd = offset;
+        do {
+            buffer[digitsEnd++] = (byte) ('0' + mantissa % 10);
+            mantissa /= 10;
+        } while (mantissa != 0);
+        reverse(buffer, digitsStart, digitsEnd);
+        final int digitCount = digitsEnd - digitsStart;
+        final int scientificExponent = exponent + digitCount - 1;
+
+        if (scientificExponent < MIN_PLAIN_EXPONENT || scientificExponent >= MAX_PLAIN_EXPONENT) {
+            // Научная запись: d.dddE±x
+            offset = digitsEnd;
+            if (digitCount > 1) {
+                System.arraycopy(buffer, digitsStart + 1, buffer, digitsStart + 2, digitCount - 1);
+                buffer[digitsStart + 1] = '.';
+                ++offset;
+            }
+            buffer[offset++] = 'E';
+            return formatInt(scientificExponent, buffer, offset);
+        }
+
+        if (exponent >= 0) {
+            // Целое число: цифры и нули
+            offset = digitsEnd;
+            for (int i = 0; i < exponent; ++i) {
+                buffer[offset++] = '0';
+            }
+            return offset;
+        }
+
+        final int pointPosition = digitCount + exponent;
+        if (pointPosition > 0) {
+            // Точка внутри цифр: ddd.ddd
+            System.arraycopy(buffer, digitsStart + pointPosition, buffer, digitsStart + pointPosition + 1, digitCount - pointPosition);
+            buffer[digitsStart + pointPosition] = '.';
+            return digitsEnd + 1;
+        }
+
+        // Число меньше единицы: 0.000ddd
+        final int leadingZeros = -pointPosition;
+        System.arraycopy(buffer, digitsStart, buffer, digitsStart + 2 + leadingZeros, digitCount);
+        buffer[digitsStart] = '0';
+        buffer[digitsStart + 1] = '.';
+        for (int i = 0; i < leadingZeros; ++i) {
+            buffer[digitsStart + 2 + i] = '0';
+        }
+        return digitsEnd + 2 + leadingZeros;
+    }
+
+    // Редкие значения (NaN, бесконечности, очень большие и очень маленькие числа) пишутся через Float.toString
+    private static int formatFallback(float value, byte[] buffer, int offset) {
+        final byte[] bytes = Float.toString(value).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+        return offset + bytes.length;
+    }
+
+    private static void reverse(byte[] buffer, int from, int to) {
+        for (int i = from, j = to - 1; i < j; ++i, --j) {
+            final byte b = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = b;
+        }
+    }
+}
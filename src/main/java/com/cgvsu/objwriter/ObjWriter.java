@@ -1,69 +1,234 @@
 package com.cgvsu.objwriter;
 
+import com.cgvsu.model.Mesh;
 import com.cgvsu.model.Model;
-import com.cgvsu.math.Vector2f;
-import com.cgvsu.math.Vector3f;
-import com.cgvsu.model.Polygon;
+import com.cgvsu.model.ModelTransform;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 public class ObjWriter {
 
+    // Размер буфера, который целиком отдаётся в FileChannel
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Через сколько элементов сообщать о ходе записи и проверять отмену
+    private static final int PROGRESS_STEP = 1 << 14;
+
+    // Варианты записи вершины полигона: v, v/vt, v//vn, v/vt/vn
+    private static final int LAYOUT_VERTEX = 0;
+    private static final int LAYOUT_TEXTURE = 1;
+    private static final int LAYOUT_NORMAL = 2;
+    private static final int LAYOUT_TEXTURE_NORMAL = LAYOUT_TEXTURE | LAYOUT_NORMAL;
+
+    // Наблюдатель за ходом записи: записано written из total элементов (вершин, нормалей, полигонов)
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long written, long total);
+    }
+
     public static void write(Model model, File file) throws IOException {
-        try (FileWriter writer = new FileWriter(file)) {
-            // Запись вершин
-            for (Vector3f vertex : model.vertices) {
-                writer.write("v " + vertex.x + " " + vertex.y + " " + vertex.z + "\n");
+        write(model, file.toPath(), null);
+    }
+
+    public static void write(Model model, Path path, ProgressListener listener) throws IOException {
+        write(model.mesh, model.transform, path, listener);
+    }
+
+    // Запись модели во временный файл рядом с целевым и атомарное переименование после успешной записи.
+    // Положение модели transform переносится в записываемые вершины и нормали; сама mesh не меняется.
+    // Прерывание потока отменяет запись; целевой файл при этом остаётся нетронутым
+    public static void write(Mesh mesh, ModelTransform transform, Path path, ProgressListener listener) throws IOException {
+        final Path target = path.toAbsolutePath();
+        final Path temporary = target.resolveSibling(target.getFileName() + "." + System.nanoTime() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(
+                    temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                new Output(channel, mesh, transform, listener).writeMesh();
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // Буферизованный вывод модели в канал
+    private static final class Output {
+        private final FileChannel channel;
+        private final Mesh mesh;
+        private final ModelTransform transform;
+        private final ProgressListener listener;
+
+        private final byte[] bytes = new byte[BUFFER_SIZE];
+        private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        private int position = 0;
+
+        private final long total;
+        private long written = 0;
+
+        Output(FileChannel channel, Mesh mesh, ModelTransform transform, ProgressListener listener) {
+            this.channel = channel;
+            this.mesh = mesh;
+            this.transform = transform;
+            this.listener = listener;
+            this.total = mesh.getVertexCount() + mesh.getTextureVertexCount() + mesh.getNormalCount() + mesh.getPolygonCount();
+        }
+
+        void writeMesh() throws IOException {
+            // Запись вершин; преобразованные копии делаются только для непустого положения
+            final boolean transformed = !transform.isIdentity();
+            final float[] vertices = transformed ? new float[mesh.vertices.length] : mesh.vertices;
+            if (transformed) {
+                transform.transformPoints(mesh.vertices, mesh.getVertexCount(), vertices);
+            }
+            for (int i = 0; i < vertices.length; i += 3) {
+                ensureCapacity(4 + 3 * ObjNumberFormat.MAX_NUMBER_LENGTH);
+                put('v');
+                put(' ');
+                position = ObjNumberFormat.formatFloat(vertices[i], bytes, position);
+                put(' ');
+                position = ObjNumberFormat.formatFloat(vertices[i + 1], bytes, position);
+                put(' ');
+                position = ObjNumberFormat.formatFloat(vertices[i + 2], bytes, position);
+                put('\n');
+                advance();
             }
 
             // Запись текстурных вершин (если они есть)
-            if (!model.textureVertices.isEmpty()) {
-                for (Vector2f textureVertex : model.textureVertices) {
-                    writer.write("vt " + textureVertex.x + " " + textureVertex.y + "\n");
-                }
+            final float[] textureVertices = mesh.textureVertices;
+            for (int i = 0; i < textureVertices.length; i += 2) {
+                ensureCapacity(4 + 2 * ObjNumberFormat.MAX_NUMBER_LENGTH);
+                put('v');
+                put('t');
+                put(' ');
+                position = ObjNumberFormat.formatFloat(textureVertices[i], bytes, position);
+                put(' ');
+                position = ObjNumberFormat.formatFloat(textureVertices[i + 1], bytes, position);
+                put('\n');
+                advance();
             }
 
             // Запись нормалей (если они есть)
-            if (!model.normals.isEmpty()) {
-                for (Vector3f normal : model.normals) {
-                    writer.write("vn " + normal.x + " " + normal.y + " " + normal.z + "\n");
-                }
+            final float[] normals = transformed ? new float[mesh.normals.length] : mesh.normals;
+            if (transformed) {
+                transform.transformNormals(mesh.normals, mesh.getNormalCount(), normals);
+            }
+            for (int i = 0; i < normals.length; i += 3) {
+                ensureCapacity(5 + 3 * ObjNumberFormat.MAX_NUMBER_LENGTH);
+                put('v');
+                put('n');
+                put(' ');
+                position = ObjNumberFormat.formatFloat(normals[i], bytes, position);
+                put(' ');
+                position = ObjNumberFormat.formatFloat(normals[i + 1], bytes, position);
+                put(' ');
+                position = ObjNumberFormat.formatFloat(normals[i + 2], bytes, position);
+                put('\n');
+                advance();
             }
 
-            // Запись полигонов
-            for (Polygon polygon : model.polygons) {
-                writer.write("f ");
-
-                for (int i = 0; i < polygon.getVertexIndices().size(); i++) {
-                    int vertexIndex = polygon.getVertexIndices().get(i) + 1; // Индексы в OBJ начинаются с 1
-
-                    // Если есть текстурные вершины, добавляем их
-                    if (!polygon.getTextureVertexIndices().isEmpty()) {
-                        int textureIndex = polygon.getTextureVertexIndices().get(i) + 1;
+            // Запись полигонов; формат вершин выбирается один раз на полигон
+            final int[] vertexIndices = mesh.vertexIndices;
+            final int[] textureVertexIndices = mesh.textureVertexIndices;
+            final int[] normalIndices = mesh.normalIndices;
+            final int cornerCapacity = 3 + 3 * ObjNumberFormat.MAX_NUMBER_LENGTH;
+            final int nPolygons = mesh.getPolygonCount();
+            for (int polygonInd = 0; polygonInd < nPolygons; ++polygonInd) {
+                final int start = mesh.polygonOffsets[polygonInd];
+                final int end = mesh.polygonOffsets[polygonInd + 1];
+                final int layout = (mesh.hasTextureVertices() ? LAYOUT_TEXTURE : 0)
+                        | (mesh.hasNormals(polygonInd) ? LAYOUT_NORMAL : 0);
 
-                        // Если есть нормали, добавляем их
-                        if (!polygon.getNormalIndices().isEmpty()) {
-                            int normalIndex = polygon.getNormalIndices().get(i) + 1;
-                            writer.write(vertexIndex + "/" + textureIndex + "/" + normalIndex + " ");
-                        } else {
-                            writer.write(vertexIndex + "/" + textureIndex + " ");
+                ensureCapacity(1);
+                put('f');
+                // Индексы в OBJ начинаются с 1
+                switch (layout) {
+                    case LAYOUT_VERTEX -> {
+                        for (int i = start; i < end; ++i) {
+                            ensureCapacity(cornerCapacity);
+                            put(' ');
+                            position = ObjNumberFormat.formatInt(vertexIndices[i] + 1, bytes, position);
+                        }
+                    }
+                    case LAYOUT_TEXTURE -> {
+                        for (int i = start; i < end; ++i) {
+                            ensureCapacity(cornerCapacity);
+                            put(' ');
+                            position = ObjNumberFormat.formatInt(vertexIndices[i] + 1, bytes, position);
+                            put('/');
+                            position = ObjNumberFormat.formatInt(textureVertexIndices[i] + 1, bytes, position);
                         }
-                    } else {
-                        // Если нет текстурных вершин, но есть нормали
-                        if (!polygon.getNormalIndices().isEmpty()) {
-                            int normalIndex = polygon.getNormalIndices().get(i) + 1;
-                            writer.write(vertexIndex + "//" + normalIndex + " ");
-                        } else {
-                            // Если нет ни текстурных вершин, ни нормалей
-                            writer.write(vertexIndex + " ");
+                    }
+                    case LAYOUT_NORMAL -> {
+                        for (int i = start; i < end; ++i) {
+                            ensureCapacity(cornerCapacity);
+                            put(' ');
+                            position = ObjNumberFormat.formatInt(vertexIndices[i] + 1, bytes, position);
+                            put('/');
+                            put('/');
+                            position = ObjNumberFormat.formatInt(normalIndices[i] + 1, bytes, position);
                         }
                     }
+                    case LAYOUT_TEXTURE_NORMAL -> {
+                        for (int i = start; i < end; ++i) {
+                            ensureCapacity(cornerCapacity);
+                            put(' ');
+                            position = ObjNumberFormat.formatInt(vertexIndices[i] + 1, bytes, position);
+                            put('/');
+                            position = ObjNumberFormat.formatInt(textureVertexIndices[i] + 1, bytes, position);
+                            put('/');
+                            position = ObjNumberFormat.formatInt(normalIndices[i] + 1, bytes, position);
+                        }
+                    }
+                    default -> throw new IllegalStateException();
                 }
+                ensureCapacity(1);
+                put('\n');
+                advance();
+            }
+
+            flush();
+            if (listener != null) {
+                listener.onProgress(total, total);
+            }
+        }
 
-                writer.write("\n");
+        private void put(char c) {
+            bytes[position++] = (byte) c;
+        }
+
+        private void ensureCapacity(int length) throws IOException {
+            if (position + length > bytes.length) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.clear().limit(position);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            position = 0;
+        }
+
+        // Учёт записанного элемента: периодически сообщает о ходе записи и проверяет отмену
+        private void advance() throws IOException {
+            if (++written % PROGRESS_STEP != 0) {
+                return;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Saving the model was cancelled.");
+            }
+            if (listener != null) {
+                listener.onProgress(written, total);
             }
         }
     }
-}
\ No newline at end of file
+}
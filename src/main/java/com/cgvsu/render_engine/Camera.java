@@ -1,6 +1,6 @@
 package com.cgvsu.render_engine;
-import javax.vecmath.Vector3f;
-import javax.vecmath.Matrix4f;
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
 
 public class Camera {
 
@@ -40,11 +40,11 @@ public class Camera {
     }
 
     public void movePosition(final Vector3f translation) {
-        this.position.add(translation);
+        this.position.add(translation, this.position);
     }
 
     public void moveTarget(final Vector3f translation) {
-        this.target.add(target);
+        this.target.add(translation, this.target);
     }
 
     Matrix4f getViewMatrix() {
@@ -55,6 +55,19 @@ public class Camera {
         return GraphicConveyor.perspective(fov, aspectRatio, nearPlane, farPlane);
     }
 
+    // Варианты для покадровой отрисовки: матрица записывается в result без создания объектов
+    void getViewMatrix(final Matrix4f result) {
+        GraphicConveyor.lookAt(position, target, result);
+    }
+
+    void getProjectionMatrix(final Matrix4f result) {
+        GraphicConveyor.perspective(fov, aspectRatio, nearPlane, farPlane, result);
+    }
+
+    float getNearPlane() {
+        return nearPlane;
+    }
+
     private Vector3f position;
     private Vector3f target;
     private float fov;
@@ -0,0 +1,441 @@
+package com.cgvsu.render_engine;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+
+// Буфер кадра в памяти: линии растеризуются прямо в массив пикселей, а готовый кадр передаётся
+// на холст одним вызовом setPixels вместо отдельной команды JavaFX на каждое ребро
+public class FrameBuffer implements LineTarget {
+
+    // Пиксели в формате ARGB (с предумноженной альфой), строка за строкой
+    private int[] pixels;
+    private int width;
+    private int height;
+
+    // Цвет, которым рисуются линии
+    private int color = 0xFF000000;
+
+    // Глубина пикселей для сплошной отрисовки: 1 / w ближайшей закрашенной точки, 0 — пусто.
+    // Величина 1 / w линейна на экране, поэтому интерполируется без поправки на перспективу.
+    // Создаётся при первой отрисовке с глубиной
+    private float[] depth;
+
+    // Допуск при проверке глубины рёбер: ребро лежит на своих гранях и не должно ими закрываться
+    private static final float DEPTH_BIAS = 1e-3F;
+
+    // Вершины треугольника округляются до 1 / SUBPIXELS пикселя, чтобы соседние треугольники
+    // считали общее ребро одинаково и между ними не было щелей
+    private static final double SUBPIXELS = 16;
+
+    // Изображение, через которое кадр выводится на холст; создаётся при первом выводе
+    private WritableImage image;
+
+    // Концы последнего обрезанного отрезка
+    private final int[] clippedLine = new int[4];
+
+    public FrameBuffer(int width, int height) {
+        this.width = Math.max(width, 0);
+        this.height = Math.max(height, 0);
+        this.pixels = new int[this.width * this.height];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    // Изменение размера кадра; массив пересоздаётся только при изменении размера
+    public void resize(int width, int height) {
+        width = Math.max(width, 0);
+        height = Math.max(height, 0);
+        if (width == this.width && height == this.height) {
+            return;
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+        this.depth = null;
+        this.image = null;
+    }
+
+    // Заливка всего кадра цветом argb; 0 — прозрачный фон, сквозь который виден фон окна.
+    // Глубина сбрасывается вместе с пикселями
+    public void clear(int argb) {
+        Arrays.fill(pixels, argb);
+        if (depth != null) {
+            Arrays.fill(depth, 0);
+        }
+    }
+
+    public int getColor() {
+        return color;
+    }
+
+    public void setColor(int argb) {
+        this.color = argb;
+    }
+
+    public void setColor(Color color) {
+        this.color = toArgb(color);
+    }
+
+    public int getPixel(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    // Отрезок между точками с экранными координатами
+    @Override
+    public void drawLine(float x0, float y0, float x1, float y1) {
+        if (clipLine(x0, y0, x1, y1, width, height, clippedLine)) {
+            drawClippedLine(clippedLine[0], clippedLine[1], clippedLine[2], clippedLine[3], 0, 0, width - 1, height - 1);
+        }
+    }
+
+    // Обрезка отрезка по границам кадра (Коэн — Сазерленд) и округление концов до пикселей.
+    // Концы записываются в result (x0, y0, x1, y1); false, если отрезок не виден. Концы в охранной
+    // полосе шириной в кадр вокруг него не обрезаются: drawClippedLine сама пропускает пиксели вне
+    // кадра, а вычисления пересечений нужны только для далёких концов
+    static boolean clipLine(float x0, float y0, float x1, float y1, int width, int height, int[] result) {
+        if (width == 0 || height == 0
+                || !Float.isFinite(x0) || !Float.isFinite(y0) || !Float.isFinite(x1) || !Float.isFinite(y1)) {
+            return false;
+        }
+
+        final float maxX = width - 1;
+        final float maxY = height - 1;
+        int code0 = outCode(x0, y0, maxX, maxY);
+        int code1 = outCode(x1, y1, maxX, maxY);
+        if ((code0 & code1) != 0) {
+            return false;
+        }
+        if (inGuardBand(x0, width) && inGuardBand(y0, height) && inGuardBand(x1, width) && inGuardBand(y1, height)) {
+            result[0] = Math.round(x0);
+            result[1] = Math.round(y0);
+            result[2] = Math.round(x1);
+            result[3] = Math.round(y1);
+            return true;
+        }
+        // Каждый конец обрезается не более чем по двум границам; ошибки округления после этого
+        // убираются зажатием координат
+        for (int clipCount = 0; (code0 | code1) != 0 && clipCount < 4; ++clipCount) {
+            if ((code0 & code1) != 0) {
+                // Отрезок целиком за одной из границ
+                return false;
+            }
+            final int code = code0 != 0 ? code0 : code1;
+            float x;
+            float y;
+            if ((code & OUT_TOP) != 0) {
+                x = x0 + (x1 - x0) * (0 - y0) / (y1 - y0);
+                y = 0;
+            } else if ((code & OUT_BOTTOM) != 0) {
+                x = x0 + (x1 - x0) * (maxY - y0) / (y1 - y0);
+                y = maxY;
+            } else if ((code & OUT_LEFT) != 0) {
+                y = y0 + (y1 - y0) * (0 - x0) / (x1 - x0);
+                x = 0;
+            } else {
+                y = y0 + (y1 - y0) * (maxX - x0) / (x1 - x0);
+                x = maxX;
+            }
+            if (code == code0) {
+                x0 = x;
+                y0 = y;
+                code0 = outCode(x0, y0, maxX, maxY);
+            } else {
+                x1 = x;
+                y1 = y;
+                code1 = outCode(x1, y1, maxX, maxY);
+            }
+        }
+        if ((code0 & code1) != 0) {
+            return false;
+        }
+
+        result[0] = clamp(Math.round(x0), width);
+        result[1] = clamp(Math.round(y0), height);
+        result[2] = clamp(Math.round(x1), width);
+        result[3] = clamp(Math.round(y1), height);
+        return true;
+    }
+
+    // Растеризация отрезка, концы которого внутри кадра или его охранной полосы; пишутся только пиксели прямоугольника
+    // [minX, maxX] x [minY, maxY]. Пиксель на каждом шаге по ведущей оси определяется только его
+    // номером (как у Брезенхэма), поэтому отрезок, нарисованный по частям в разных прямоугольниках,
+    // совпадает с нарисованным целиком. Разные прямоугольники можно рисовать из разных потоков
+    void drawClippedLine(int x0, int y0, int x1, int y1, int minX, int minY, int maxX, int maxY) {
+        if (Math.abs(x1 - x0) >= Math.abs(y1 - y0)) {
+            if (x1 < x0) {
+                drawXMajorLine(x1, y1, x0, y0, minX, minY, maxX, maxY);
+            } else {
+                drawXMajorLine(x0, y0, x1, y1, minX, minY, maxX, maxY);
+            }
+        } else {
+            if (y1 < y0) {
+                drawYMajorLine(x1, y1, x0, y0, minX, minY, maxX, maxY);
+            } else {
+                drawYMajorLine(x0, y0, x1, y1, minX, minY, maxX, maxY);
+            }
+        }
+    }
+
+    // Пологий отрезок, x0 <= x1: y(x) = y0 + floor(((x - x0) * 2 * dy + dx) / (2 * dx))
+    private void drawXMajorLine(int x0, int y0, int x1, int y1, int minX, int minY, int maxX, int maxY) {
+        final int from = Math.max(x0, minX);
+        final int to = Math.min(x1, maxX);
+        if (from > to) {
+            return;
+        }
+        final int dx = x1 - x0;
+        if (dx == 0) {
+            if (y0 >= minY && y0 <= maxY) {
+                pixels[y0 * width + x0] = color;
+            }
+            return;
+        }
+        final int twoDx = 2 * dx;
+        final int twoDy = 2 * (y1 - y0);
+        final long numerator = (long) (from - x0) * twoDy + dx;
+        int y = y0 + (int) Math.floorDiv(numerator, twoDx);
+        int remainder = Math.floorMod(numerator, twoDx);
+        final int[] pixels = this.pixels;
+        final int width = this.width;
+        final int color = this.color;
+        for (int x = from; x <= to; ++x) {
+            if (y >= minY && y <= maxY) {
+                pixels[y * width + x] = color;
+            }
+            remainder += twoDy;
+            if (remainder >= twoDx) {
+                remainder -= twoDx;
+                ++y;
+            } else if (remainder < 0) {
+                remainder += twoDx;
+                --y;
+            }
+        }
+    }
+
+    // Крутой отрезок, y0 < y1: x(y) = x0 + floor(((y - y0) * 2 * dx + dy) / (2 * dy))
+    private void drawYMajorLine(int x0, int y0, int x1, int y1, int minX, int minY, int maxX, int maxY) {
+        final int from = Math.max(y0, minY);
+        final int to = Math.min(y1, maxY);
+        if (from > to) {
+            return;
+        }
+        final int dy = y1 - y0;
+        final int twoDy = 2 * dy;
+        final int twoDx = 2 * (x1 - x0);
+        final long numerator = (long) (from - y0) * twoDx + dy;
+        int x = x0 + (int) Math.floorDiv(numerator, twoDy);
+        int remainder = Math.floorMod(numerator, twoDy);
+        final int[] pixels = this.pixels;
+        final int width = this.width;
+        final int color = this.color;
+        for (int y = from; y <= to; ++y) {
+            if (x >= minX && x <= maxX) {
+                pixels[y * width + x] = color;
+            }
+            remainder += twoDx;
+            if (remainder >= twoDy) {
+                remainder -= twoDy;
+                ++x;
+            } else if (remainder < 0) {
+                remainder += twoDy;
+                --x;
+            }
+        }
+    }
+
+    // Закраска треугольника цветом color с проверкой глубины. Вершины — экранные координаты и w
+    // (глубина перед камерой, w > 0). Рисуются только треугольники с положительной ориентированной
+    // площадью, то есть обращённые к камере; writeColor = false — пишется только глубина.
+    // Пиксель (x, y) закрашивается, если точка (x, y) внутри треугольника; точки на общем ребре
+    // соседних треугольников достаются одному из них (правило верхнего левого ребра)
+    void fillTriangle(
+            float x0, float y0, float w0,
+            float x1, float y1, float w1,
+            float x2, float y2, float w2,
+            boolean writeColor) {
+        if (width == 0 || height == 0) {
+            return;
+        }
+        final double ax = snap(x0), ay = snap(y0);
+        final double bx = snap(x1), by = snap(y1);
+        final double cx = snap(x2), cy = snap(y2);
+        final double area = (bx - ax) * (cy - ay) - (cx - ax) * (by - ay);
+        if (!(area > 0)) {
+            return;
+        }
+        final int minX = (int) Math.max(0, Math.ceil(Math.min(ax, Math.min(bx, cx))));
+        final int maxX = (int) Math.min(width - 1, Math.floor(Math.max(ax, Math.max(bx, cx))));
+        final int minY = (int) Math.max(0, Math.ceil(Math.min(ay, Math.min(by, cy))));
+        final int maxY = (int) Math.min(height - 1, Math.floor(Math.max(ay, Math.max(by, cy))));
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+        final float[] depth = depthBuffer();
+
+        // Рёберные функции: e0 — ребро b -> c (вес вершины a), e1 — c -> a, e2 — a -> b
+        final double stepX0 = -(cy - by), stepY0 = cx - bx;
+        final double stepX1 = -(ay - cy), stepY1 = ax - cx;
+        final double stepX2 = -(by - ay), stepY2 = bx - ax;
+        final boolean topLeft0 = isTopLeft(cx - bx, cy - by);
+        final boolean topLeft1 = isTopLeft(ax - cx, ay - cy);
+        final boolean topLeft2 = isTopLeft(bx - ax, by - ay);
+        double row0 = (cx - bx) * (minY - by) - (cy - by) * (minX - bx);
+        double row1 = (ax - cx) * (minY - cy) - (ay - cy) * (minX - cx);
+        double row2 = (bx - ax) * (minY - ay) - (by - ay) * (minX - ax);
+
+        final double inverseArea = 1 / area;
+        final double depth0 = 1.0 / w0 * inverseArea;
+        final double depth1 = 1.0 / w1 * inverseArea;
+        final double depth2 = 1.0 / w2 * inverseArea;
+        final int[] pixels = this.pixels;
+        final int color = this.color;
+        for (int y = minY; y <= maxY; ++y) {
+            double e0 = row0;
+            double e1 = row1;
+            double e2 = row2;
+            int index = y * width + minX;
+            for (int x = minX; x <= maxX; ++x, ++index) {
+                if ((e0 > 0 || (e0 == 0 && topLeft0))
+                        && (e1 > 0 || (e1 == 0 && topLeft1))
+                        && (e2 > 0 || (e2 == 0 && topLeft2))) {
+                    final float z = (float) (e0 * depth0 + e1 * depth1 + e2 * depth2);
+                    if (z > depth[index]) {
+                        depth[index] = z;
+                        if (writeColor) {
+                            pixels[index] = color;
+                        }
+                    }
+                }
+                e0 += stepX0;
+                e1 += stepX1;
+                e2 += stepX2;
+            }
+            row0 += stepY0;
+            row1 += stepY1;
+            row2 += stepY2;
+        }
+    }
+
+    // Отрезок между точками с экранными координатами и глубиной w, как drawLine, но пиксели,
+    // закрытые уже нарисованными треугольниками, пропускаются
+    void drawDepthTestedLine(float x0, float y0, float w0, float x1, float y1, float w1) {
+        if (!clipLine(x0, y0, x1, y1, width, height, clippedLine)) {
+            return;
+        }
+        final float[] depth = depthBuffer();
+        final int ix0 = clippedLine[0], iy0 = clippedLine[1], ix1 = clippedLine[2], iy1 = clippedLine[3];
+        final boolean xMajor = Math.abs(ix1 - ix0) >= Math.abs(iy1 - iy0);
+        final boolean swap = xMajor ? ix1 < ix0 : iy1 < iy0;
+        // Ведущая ось обозначается u, вторая — v; пиксели те же, что у drawClippedLine
+        final int u0 = xMajor ? (swap ? ix1 : ix0) : (swap ? iy1 : iy0);
+        final int v0 = xMajor ? (swap ? iy1 : iy0) : (swap ? ix1 : ix0);
+        final int du = (xMajor ? (swap ? ix0 : ix1) : (swap ? iy0 : iy1)) - u0;
+        final int dv = (xMajor ? (swap ? iy0 : iy1) : (swap ? ix0 : ix1)) - v0;
+        final int uSize = xMajor ? width : height;
+        final int vSize = xMajor ? height : width;
+
+        // 1 / w линейна вдоль отрезка на экране; параметр считается по исходным (необрезанным) концам
+        final float startU = xMajor ? (swap ? x1 : x0) : (swap ? y1 : y0);
+        final float endU = xMajor ? (swap ? x0 : x1) : (swap ? y0 : y1);
+        final float startDepth = 1 / (swap ? w1 : w0);
+        final float endDepth = 1 / (swap ? w0 : w1);
+        final float depthSlope = endU != startU ? (endDepth - startDepth) / (endU - startU) : 0;
+
+        final int from = Math.max(u0, 0);
+        final int to = Math.min(u0 + du, uSize - 1);
+        for (int u = from; u <= to; ++u) {
+            final int v = du == 0 ? v0 : v0 + (int) Math.floorDiv((long) (u - u0) * 2 * dv + du, 2L * du);
+            if (v < 0 || v >= vSize) {
+                continue;
+            }
+            final int index = xMajor ? v * width + u : u * width + v;
+            final float z = startDepth + (u - startU) * depthSlope;
+            if (z * (1 + DEPTH_BIAS) >= depth[index]) {
+                pixels[index] = color;
+            }
+        }
+    }
+
+    private float[] depthBuffer() {
+        if (depth == null) {
+            depth = new float[width * height];
+        }
+        return depth;
+    }
+
+    private static double snap(float coordinate) {
+        return Math.rint(coordinate * SUBPIXELS) / SUBPIXELS;
+    }
+
+    // Верхнее (горизонтальное, слева направо) или левое (идущее вверх) ребро треугольника
+    // с положительной площадью при оси y, направленной вниз
+    private static boolean isTopLeft(double dx, double dy) {
+        return dy < 0 || (dy == 0 && dx > 0);
+    }
+
+    // Вывод кадра на холст: пиксели копируются в изображение одним вызовом и рисуются поверх холста
+    public void present(GraphicsContext graphicsContext) {
+        if (width == 0 || height == 0) {
+            return;
+        }
+        if (image == null) {
+            image = new WritableImage(width, height);
+        }
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), pixels, 0, width);
+        graphicsContext.drawImage(image, 0, 0);
+    }
+
+    // Цвет JavaFX в ARGB с предумноженной альфой
+    public static int toArgb(Color color) {
+        final double opacity = color.getOpacity();
+        final int a = (int) Math.round(opacity * 255);
+        final int r = (int) Math.round(color.getRed() * opacity * 255);
+        final int g = (int) Math.round(color.getGreen() * opacity * 255);
+        final int b = (int) Math.round(color.getBlue() * opacity * 255);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    private static final int OUT_LEFT = 1;
+    private static final int OUT_RIGHT = 2;
+    private static final int OUT_TOP = 4;
+    private static final int OUT_BOTTOM = 8;
+
+    // Концы отрезка после clipLine лежат в [-size, 2 * size)
+    private static boolean inGuardBand(float coordinate, int size) {
+        return coordinate >= -size && coordinate < 2 * size - 1;
+    }
+
+    private static int clamp(int coordinate, int size) {
+        return Math.min(Math.max(coordinate, 0), size - 1);
+    }
+
+    private static int outCode(float x, float y, float maxX, float maxY) {
+        int code = 0;
+        if (x < 0) {
+            code |= OUT_LEFT;
+        } else if (x > maxX) {
+            code |= OUT_RIGHT;
+        }
+        if (y < 0) {
+            code |= OUT_TOP;
+        } else if (y > maxY) {
+            code |= OUT_BOTTOM;
+        }
+        return code;
+    }
+}
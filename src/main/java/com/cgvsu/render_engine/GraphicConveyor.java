@@ -1,5 +1,8 @@
 package com.cgvsu.render_engine;
-import javax.vecmath.*;
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.ModelTransform;
 
 public class GraphicConveyor {
 
@@ -12,29 +15,72 @@ public class GraphicConveyor {
         return new Matrix4f(matrix);
     }
 
+    // Матрица модели по её положению в сцене, в уже существующую матрицу result
+    public static void rotateScaleTranslate(ModelTransform transform, Matrix4f result) {
+        result.set(transform.getMatrix());
+    }
+
+    // Направление "вверх" для камеры по умолчанию; не изменяется
+    private static final Vector3f DEFAULT_UP = new Vector3f(0F, 1.0F, 0F);
+
     public static Matrix4f lookAt(Vector3f eye, Vector3f target) {
-        return lookAt(eye, target, new Vector3f(0F, 1.0F, 0F));
+        return lookAt(eye, target, DEFAULT_UP);
     }
 
     public static Matrix4f lookAt(Vector3f eye, Vector3f target, Vector3f up) {
-        Vector3f resultX = new Vector3f();
-        Vector3f resultY = new Vector3f();
-        Vector3f resultZ = new Vector3f();
+        Matrix4f result = new Matrix4f();
+        lookAt(eye, target, up, result);
+        return result;
+    }
 
-        resultZ.sub(target, eye);
-        resultX.cross(up, resultZ);
-        resultY.cross(resultZ, resultX);
+    // Матрица вида в уже существующую матрицу result, без создания объектов
+    public static void lookAt(Vector3f eye, Vector3f target, Matrix4f result) {
+        lookAt(eye, target, DEFAULT_UP, result);
+    }
 
-        resultX.normalize();
-        resultY.normalize();
-        resultZ.normalize();
+    public static void lookAt(Vector3f eye, Vector3f target, Vector3f up, Matrix4f result) {
+        // resultZ = target - eye
+        float zX = target.x - eye.x;
+        float zY = target.y - eye.y;
+        float zZ = target.z - eye.z;
+        // resultX = up x resultZ
+        float xX = up.y * zZ - up.z * zY;
+        float xY = up.z * zX - up.x * zZ;
+        float xZ = up.x * zY - up.y * zX;
+        // resultY = resultZ x resultX
+        float yX = zY * xZ - zZ * xY;
+        float yY = zZ * xX - zX * xZ;
+        float yZ = zX * xY - zY * xX;
 
-        float[] matrix = new float[]{
-                resultX.x, resultY.x, resultZ.x, 0,
-                resultX.y, resultY.y, resultZ.y, 0,
-                resultX.z, resultY.z, resultZ.z, 0,
-                -resultX.dot(eye), -resultY.dot(eye), -resultZ.dot(eye), 1};
-        return new Matrix4f(matrix);
+        final float xLength = (float) Math.sqrt(xX * xX + xY * xY + xZ * xZ);
+        xX /= xLength;
+        xY /= xLength;
+        xZ /= xLength;
+        final float yLength = (float) Math.sqrt(yX * yX + yY * yY + yZ * yZ);
+        yX /= yLength;
+        yY /= yLength;
+        yZ /= yLength;
+        final float zLength = (float) Math.sqrt(zX * zX + zY * zY + zZ * zZ);
+        zX /= zLength;
+        zY /= zLength;
+        zZ /= zLength;
+
+        result.m00 = xX;
+        result.m01 = yX;
+        result.m02 = zX;
+        result.m03 = 0;
+        result.m10 = xY;
+        result.m11 = yY;
+        result.m12 = zY;
+        result.m13 = 0;
+        result.m20 = xZ;
+        result.m21 = yZ;
+        result.m22 = zZ;
+        result.m23 = 0;
+        result.m30 = -(xX * eye.x + xY * eye.y + xZ * eye.z);
+        result.m31 = -(yX * eye.x + yY * eye.y + yZ * eye.z);
+        result.m32 = -(zX * eye.x + zY * eye.y + zZ * eye.z);
+        result.m33 = 1;
     }
 
     public static Matrix4f perspective(
@@ -43,24 +89,93 @@ public class GraphicConveyor {
             final float nearPlane,
             final float farPlane) {
         Matrix4f result = new Matrix4f();
+        perspective(fov, aspectRatio, nearPlane, farPlane, result);
+        return result;
+    }
+
+    // Матрица проекции в уже существующую матрицу result, без создания объектов
+    public static void perspective(
+            final float fov,
+            final float aspectRatio,
+            final float nearPlane,
+            final float farPlane,
+            final Matrix4f result) {
+        result.setZero();
         float tangentMinusOnDegree = (float) (1.0F / (Math.tan(fov * 0.5F)));
         result.m00 = tangentMinusOnDegree / aspectRatio;
         result.m11 = tangentMinusOnDegree;
         result.m22 = (farPlane + nearPlane) / (farPlane - nearPlane);
         result.m23 = 1.0F;
         result.m32 = 2 * (nearPlane * farPlane) / (nearPlane - farPlane);
-        return result;
     }
 
     public static Vector3f multiplyMatrix4ByVector3(final Matrix4f matrix, final Vector3f vertex) {
-        final float x = (vertex.x * matrix.m00) + (vertex.y * matrix.m10) + (vertex.z * matrix.m20) + matrix.m30;
-        final float y = (vertex.x * matrix.m01) + (vertex.y * matrix.m11) + (vertex.z * matrix.m21) + matrix.m31;
-        final float z = (vertex.x * matrix.m02) + (vertex.y * matrix.m12) + (vertex.z * matrix.m22) + matrix.m32;
-        final float w = (vertex.x * matrix.m03) + (vertex.y * matrix.m13) + (vertex.z * matrix.m23) + matrix.m33;
-        return new Vector3f(x / w, y / w, z / w);
+        return matrix.transformPoint(vertex, new Vector3f());
+    }
+
+    public static Vector2f vertexToPoint(final Vector3f vertex, final int width, final int height) {
+        return new Vector2f(vertex.x * width + width / 2.0F, -vertex.y * height + height / 2.0F);
+    }
+
+    // Преобразование первых vertexCount вершин (x, y, z подряд) в экранные координаты: в result
+    // записываются тройки (x, y, w), по тройке на вершину; w — глубина вершины перед камерой, по ней
+    // отсекаются точки за ближней плоскостью. Тот же расчёт, что multiplyMatrix4ByVector3 и
+    // vertexToPoint, но без создания объектов на каждую вершину
+    public static void projectVertices(
+            final Matrix4f matrix,
+            final float[] vertices,
+            final int vertexCount,
+            final int width,
+            final int height,
+            final float[] result) {
+        projectVertices(matrix, vertices, 0, vertexCount, width, height, result);
+    }
+
+    // То же для вершин с номерами из [fromVertex, toVertex); части можно обрабатывать из разных потоков.
+    // Считает ядро PROJECTION_KERNEL: векторное, если подключён модуль jdk.incubator.vector
+    public static void projectVertices(
+            final Matrix4f matrix,
+            final float[] vertices,
+            final int fromVertex,
+            final int toVertex,
+            final int width,
+            final int height,
+            final float[] result) {
+        PROJECTION_KERNEL.project(matrix, vertices, fromVertex, toVertex, width, height, result);
+    }
+
+    private static final ProjectionKernel PROJECTION_KERNEL = ProjectionKernel.select();
+
+    // Используется ли векторное ядро преобразования вершин
+    public static boolean isProjectionVectorized() {
+        return PROJECTION_KERNEL != ProjectionKernel.SCALAR;
     }
 
-    public static Point2f vertexToPoint(final Vector3f vertex, final int width, final int height) {
-        return new Point2f(vertex.x * width + width / 2.0F, -vertex.y * height + height / 2.0F);
+    // Скалярное ядро projectVertices; им же векторное ядро досчитывает остаток вершин
+    static void projectVerticesScalar(
+            final Matrix4f matrix,
+            final float[] vertices,
+            final int fromVertex,
+            final int toVertex,
+            final int width,
+            final int height,
+            final float[] result) {
+        final float m00 = matrix.m00, m01 = matrix.m01, m03 = matrix.m03;
+        final float m10 = matrix.m10, m11 = matrix.m11, m13 = matrix.m13;
+        final float m20 = matrix.m20, m21 = matrix.m21, m23 = matrix.m23;
+        final float m30 = matrix.m30, m31 = matrix.m31, m33 = matrix.m33;
+        final float halfWidth = width / 2.0F;
+        final float halfHeight = height / 2.0F;
+        for (int vertexInd = fromVertex; vertexInd < toVertex; ++vertexInd) {
+            final float vx = vertices[3 * vertexInd];
+            final float vy = vertices[3 * vertexInd + 1];
+            final float vz = vertices[3 * vertexInd + 2];
+            final float x = (vx * m00) + (vy * m10) + (vz * m20) + m30;
+            final float y = (vx * m01) + (vy * m11) + (vz * m21) + m31;
+            final float w = (vx * m03) + (vy * m13) + (vz * m23) + m33;
+            result[3 * vertexInd] = x / w * width + halfWidth;
+            result[3 * vertexInd + 1] = -y / w * height + halfHeight;
+            result[3 * vertexInd + 2] = w;
+        }
     }
 }
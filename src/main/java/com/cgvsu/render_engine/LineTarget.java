@@ -0,0 +1,7 @@
+package com.cgvsu.render_engine;
+
+// Приёмник рёбер полигонов для RenderEngine: холст JavaFX (по команде strokeLine на ребро) или буфер кадра
+@FunctionalInterface
+interface LineTarget {
+    void drawLine(float x0, float y0, float x1, float y1);
+}
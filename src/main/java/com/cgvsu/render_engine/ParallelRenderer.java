@@ -0,0 +1,337 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.MeshBounds;
+import com.cgvsu.model.Model;
+import com.cgvsu.util.ParallelTasks;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+// Многопоточная отрисовка в буфер кадра. Невидимые группы рёбер отбрасываются, как и в RenderEngine,
+// вершины видимых групп переводятся в экранные координаты параллельными участками, рёбра раскладываются по квадратным плиткам экрана, а плитки растеризуются потоками пула
+// независимо друг от друга: у каждой плитки свои пиксели, поэтому синхронизация не нужна.
+// Кадр попиксельно совпадает с однопоточной отрисовкой RenderEngine. Закрашенные грани (RenderMode.SOLID
+// и HIDDEN_LINE) пишут общий буфер глубины и рисуются в одном потоке через RenderEngine
+public class ParallelRenderer {
+
+    // Плитки 64 x 64 пикселя
+    private static final int TILE_SHIFT = 6;
+    private static final int TILE_SIZE = 1 << TILE_SHIFT;
+
+    // Модели с меньшим числом рёбер рисуются в одном потоке: делить их работу дороже, чем рисовать
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    // Число вершин в одном участке преобразования
+    private static final int VERTEX_CHUNK_SIZE = 1 << 14;
+
+    // Концы отрезка упаковываются по 16 бит на координату со сдвигом GUARD_BAND_BIAS: концы после
+    // FrameBuffer.clipLine лежат в [-size, 2 * size), поэтому размеры кадра ограничены
+    private static final int MAX_FRAME_SIZE = 1 << 14;
+    private static final int GUARD_BAND_BIAS = MAX_FRAME_SIZE;
+    private static final long INVISIBLE = -1;
+
+    private final ForkJoinPool pool;
+
+    private final Matrix4f viewMatrix = new Matrix4f();
+    private final Matrix4f projectionMatrix = new Matrix4f();
+    private final Matrix4f modelViewProjectionMatrix = new Matrix4f();
+    private final ViewFrustum frustum = new ViewFrustum();
+
+    // Рабочие массивы кадра; переиспользуются и растут по мере надобности
+    private float[] screenVertices = new float[0];
+    // Номера видимых групп рёбер и участки вершин (начало << 32 | конец), которые нужно преобразовать
+    private int[] visibleClusters = new int[0];
+    private long[] vertexRanges = new long[0];
+    private long[] vertexChunks = new long[0];
+    // Рёбра, обрезанные по кадру, в упакованном виде (см. pack); INVISIBLE — ребро не видно
+    private long[] clippedEdges = new long[0];
+    // Число рёбер каждого участка в каждой плитке, затем — позиции их записи в binnedLines
+    private int[] tileCounts = new int[0];
+    // Отрезки плитки t лежат в binnedLines[tileStarts[t], tileStarts[t + 1])
+    private int[] tileStarts = new int[0];
+    private long[] binnedLines = new long[0];
+    // Концы обрезанного отрезка для каждой параллельной задачи: после ближней плоскости и после границ кадра
+    private float[][] nearClippedLines = new float[0][];
+    private int[][] clippedLines = new int[0][];
+
+    // Пул по числу доступных процессоров
+    public ParallelRenderer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelRenderer(int threadCount) {
+        this.pool = new ForkJoinPool(threadCount);
+    }
+
+    public int getThreadCount() {
+        return pool.getParallelism();
+    }
+
+    // Остановка потоков пула; после неё отрисовывать нельзя
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Отрисовывает модель в буфер кадра; результат тот же, что у {@link RenderEngine#render(FrameBuffer, Camera, Model)}.
+     *
+     * @param frameBuffer Буфер кадра, размеры которого задают размеры изображения.
+     * @param camera      Камера, используемая для отрисовки.
+     * @param model       Модель, которую нужно отрисовать.
+     */
+    public void render(final FrameBuffer frameBuffer, final Camera camera, final Model model) {
+        final int width = frameBuffer.getWidth();
+        final int height = frameBuffer.getHeight();
+        final Mesh mesh = RenderEngine.levelOfDetail(camera, model, height, viewMatrix, projectionMatrix);
+        final int[] edgeVertexIndices = mesh.getEdges().edgeVertexIndices;
+        final int edgeCount = edgeVertexIndices.length / 2;
+        if (RenderEngine.getRenderMode() != RenderMode.WIREFRAME
+                || edgeCount < PARALLEL_THRESHOLD || pool.getParallelism() < 2
+                || width == 0 || height == 0 || width > MAX_FRAME_SIZE || height > MAX_FRAME_SIZE) {
+            RenderEngine.render(frameBuffer, camera, model);
+            return;
+        }
+        final MeshBounds bounds = mesh.getBounds();
+        RenderEngine.modelViewProjectionMatrix(camera, model.transform, viewMatrix, projectionMatrix, modelViewProjectionMatrix);
+        final Matrix4f matrix = modelViewProjectionMatrix;
+        frustum.set(matrix, camera.getNearPlane());
+        if (!frustum.intersects(bounds.bounds, 0)) {
+            return;
+        }
+        frameBuffer.setColor(RenderEngine.getStrokeColor());
+
+        // Видимые группы рёбер и вершины, которые им нужны
+        final int clusterCount = bounds.getClusterCount();
+        if (visibleClusters.length < clusterCount) {
+            visibleClusters = new int[clusterCount];
+            vertexRanges = new long[clusterCount];
+        }
+        final int[] clusters = visibleClusters;
+        final int visibleClusterCount = frustum.collectVisibleClusters(bounds, clusters);
+        if (visibleClusterCount == 0) {
+            return;
+        }
+        final int rangeCount = ViewFrustum.mergeVertexRanges(bounds, clusters, visibleClusterCount, vertexRanges);
+
+        // Преобразование вершин параллельными участками не длиннее VERTEX_CHUNK_SIZE
+        final int vertexCount = mesh.getVertexCount();
+        if (screenVertices.length < 3 * vertexCount) {
+            screenVertices = new float[3 * vertexCount];
+        }
+        final float[] points = screenVertices;
+        final int vertexChunkCount = splitVertexRanges(rangeCount);
+        final long[] vertexChunks = this.vertexChunks;
+        runInParallel(vertexChunkCount, chunk -> GraphicConveyor.projectVertices(
+                matrix, mesh.vertices, (int) (vertexChunks[chunk] >>> 32), (int) vertexChunks[chunk],
+                width, height, points));
+
+        // Раскладка рёбер видимых групп по плиткам: обрезка и подсчёт, позиции записи, запись отрезков.
+        // Участок — несколько видимых групп подряд
+        final int tilesX = (width + TILE_SIZE - 1) >> TILE_SHIFT;
+        final int tilesY = (height + TILE_SIZE - 1) >> TILE_SHIFT;
+        final int tileCount = tilesX * tilesY;
+        final int chunkCount = Math.min(visibleClusterCount, pool.getParallelism() * 4);
+        ensureWorkspace(edgeCount, chunkCount, tileCount);
+        final int[] counts = tileCounts;
+        final long[] clipped = clippedEdges;
+        Arrays.fill(counts, 0, chunkCount * tileCount, 0);
+
+        runInParallel(chunkCount, chunk -> {
+            final float[] nearClipped = nearClippedLines[chunk];
+            final int[] line = clippedLines[chunk];
+            final int toCluster = chunkStart(chunk + 1, chunkCount, visibleClusterCount);
+            for (int i = chunkStart(chunk, chunkCount, visibleClusterCount); i < toCluster; ++i) {
+                final int from = clusters[i] * MeshBounds.CLUSTER_SIZE;
+                final int to = Math.min(edgeCount, from + MeshBounds.CLUSTER_SIZE);
+                for (int edgeInd = from; edgeInd < to; ++edgeInd) {
+                    if (frustum.clipEdge(mesh.vertices, points, edgeVertexIndices[2 * edgeInd],
+                            edgeVertexIndices[2 * edgeInd + 1], width, height, nearClipped)
+                            && FrameBuffer.clipLine(nearClipped[0], nearClipped[1], nearClipped[2], nearClipped[3],
+                            width, height, line)) {
+                        final long packed = pack(line);
+                        clipped[edgeInd] = packed;
+                        binLine(packed, tilesX, tilesY, counts, chunk * tileCount, null);
+                    } else {
+                        clipped[edgeInd] = INVISIBLE;
+                    }
+                }
+            }
+        });
+
+        // Плитки идут подряд, внутри плитки — участки по порядку
+        final int[] starts = tileStarts;
+        int position = 0;
+        for (int tile = 0; tile < tileCount; ++tile) {
+            starts[tile] = position;
+            for (int chunk = 0; chunk < chunkCount; ++chunk) {
+                final int count = counts[chunk * tileCount + tile];
+                counts[chunk * tileCount + tile] = position;
+                position += count;
+            }
+        }
+        starts[tileCount] = position;
+        if (binnedLines.length < position) {
+            binnedLines = new long[Math.max(position, binnedLines.length + binnedLines.length / 2)];
+        }
+        final long[] bins = binnedLines;
+
+        runInParallel(chunkCount, chunk -> {
+            final int toCluster = chunkStart(chunk + 1, chunkCount, visibleClusterCount);
+            for (int i = chunkStart(chunk, chunkCount, visibleClusterCount); i < toCluster; ++i) {
+                final int from = clusters[i] * MeshBounds.CLUSTER_SIZE;
+                final int to = Math.min(edgeCount, from + MeshBounds.CLUSTER_SIZE);
+                for (int edgeInd = from; edgeInd < to; ++edgeInd) {
+                    final long packed = clipped[edgeInd];
+                    if (packed != INVISIBLE) {
+                        binLine(packed, tilesX, tilesY, counts, chunk * tileCount, bins);
+                    }
+                }
+            }
+        });
+
+        // Растеризация плиток: каждая пишет только в свой прямоугольник пикселей
+        runInParallel(tileCount, tile -> {
+            final int minX = (tile % tilesX) << TILE_SHIFT;
+            final int minY = (tile / tilesX) << TILE_SHIFT;
+            final int maxX = Math.min(minX + TILE_SIZE, width) - 1;
+            final int maxY = Math.min(minY + TILE_SIZE, height) - 1;
+            for (int i = starts[tile]; i < starts[tile + 1]; ++i) {
+                final long packed = bins[i];
+                frameBuffer.drawClippedLine(x0(packed), y0(packed), x1(packed), y1(packed), minX, minY, maxX, maxY);
+            }
+        });
+    }
+
+    // Деление диапазонов вершин на участки не длиннее VERTEX_CHUNK_SIZE; возвращает число участков
+    private int splitVertexRanges(int rangeCount) {
+        int chunkCount = 0;
+        for (int i = 0; i < rangeCount; ++i) {
+            chunkCount += ((int) vertexRanges[i] - (int) (vertexRanges[i] >>> 32) + VERTEX_CHUNK_SIZE - 1) / VERTEX_CHUNK_SIZE;
+        }
+        if (vertexChunks.length < chunkCount) {
+            vertexChunks = new long[chunkCount];
+        }
+        int chunk = 0;
+        for (int i = 0; i < rangeCount; ++i) {
+            final int to = (int) vertexRanges[i];
+            for (int from = (int) (vertexRanges[i] >>> 32); from < to; from += VERTEX_CHUNK_SIZE) {
+                vertexChunks[chunk++] = ((long) from << 32) | Math.min(to, from + VERTEX_CHUNK_SIZE);
+            }
+        }
+        return chunkCount;
+    }
+
+    // Отрезок после FrameBuffer.clipLine: x0, y0, x1, y1 со сдвигом GUARD_BAND_BIAS по 16 бит, от старших к младшим
+    private static long pack(int[] line) {
+        return ((long) (line[0] + GUARD_BAND_BIAS) << 48) | ((long) (line[1] + GUARD_BAND_BIAS) << 32)
+                | ((long) (line[2] + GUARD_BAND_BIAS) << 16) | (line[3] + GUARD_BAND_BIAS);
+    }
+
+    private static int x0(long packed) {
+        return (int) (packed >>> 48) - GUARD_BAND_BIAS;
+    }
+
+    private static int y0(long packed) {
+        return ((int) (packed >>> 32) & 0xFFFF) - GUARD_BAND_BIAS;
+    }
+
+    private static int x1(long packed) {
+        return ((int) (packed >>> 16) & 0xFFFF) - GUARD_BAND_BIAS;
+    }
+
+    private static int y1(long packed) {
+        return ((int) packed & 0xFFFF) - GUARD_BAND_BIAS;
+    }
+
+    // Раскладка отрезка по плиткам, через пиксели которых он проходит. Для каждого столбца (строки)
+    // плиток по ведущей оси диапазон плиток по второй оси считается по той же формуле, что и пиксели
+    // в FrameBuffer.drawClippedLine; плитки за пределами кадра (концы в охранной полосе) пропускаются.
+    // Без bins — подсчёт: counts[base + плитка] увеличивается; с bins — запись: отрезок пишется
+    // в bins[counts[base + плитка]++]
+    private static void binLine(long packed, int tilesX, int tilesY, int[] counts, int base, long[] bins) {
+        int x0 = x0(packed);
+        int y0 = y0(packed);
+        int x1 = x1(packed);
+        int y1 = y1(packed);
+        if (x0 >> TILE_SHIFT == x1 >> TILE_SHIFT && y0 >> TILE_SHIFT == y1 >> TILE_SHIFT) {
+            // Короткие рёбра обычно целиком внутри одной плитки. Она всегда в кадре: концы, лежащие
+            // в одной плитке за его пределами, были бы с одной стороны кадра, и clipLine отбросила бы отрезок
+            final int tile = (y0 >> TILE_SHIFT) * tilesX + (x0 >> TILE_SHIFT);
+            if (bins == null) {
+                ++counts[base + tile];
+            } else {
+                bins[counts[base + tile]++] = packed;
+            }
+            return;
+        }
+        final boolean xMajor = Math.abs(x1 - x0) >= Math.abs(y1 - y0);
+        // Ведущая ось обозначается u, вторая — v
+        if (xMajor ? x1 < x0 : y1 < y0) {
+            int t = x0;
+            x0 = x1;
+            x1 = t;
+            t = y0;
+            y0 = y1;
+            y1 = t;
+        }
+        final int u0 = xMajor ? x0 : y0;
+        final int v0 = xMajor ? y0 : x0;
+        final int du = xMajor ? x1 - x0 : y1 - y0;
+        final int dv = xMajor ? y1 - y0 : x1 - x0;
+        final int u1 = u0 + du;
+        final int maxTileU = (xMajor ? tilesX : tilesY) - 1;
+        final int maxTileV = (xMajor ? tilesY : tilesX) - 1;
+        final int tileUTo = Math.min(u1 >> TILE_SHIFT, maxTileU);
+        for (int tileU = Math.max(u0 >> TILE_SHIFT, 0); tileU <= tileUTo; ++tileU) {
+            final int fromU = Math.max(u0, tileU << TILE_SHIFT);
+            final int toU = Math.min(u1, ((tileU + 1) << TILE_SHIFT) - 1);
+            final int vFrom = minorCoordinate(fromU - u0, v0, du, dv);
+            final int vTo = minorCoordinate(toU - u0, v0, du, dv);
+            final int tileVFrom = Math.max(Math.min(vFrom, vTo) >> TILE_SHIFT, 0);
+            final int tileVTo = Math.min(Math.max(vFrom, vTo) >> TILE_SHIFT, maxTileV);
+            for (int tileV = tileVFrom; tileV <= tileVTo; ++tileV) {
+                final int tile = xMajor ? tileV * tilesX + tileU : tileU * tilesX + tileV;
+                if (bins == null) {
+                    ++counts[base + tile];
+                } else {
+                    bins[counts[base + tile]++] = packed;
+                }
+            }
+        }
+    }
+
+    // Координата по второй оси на шаге step по ведущей: v0 + floor((step * 2 * dv + du) / (2 * du))
+    private static int minorCoordinate(int step, int v0, int du, int dv) {
+        if (du == 0) {
+            return v0;
+        }
+        return v0 + (int) Math.floorDiv((long) step * 2 * dv + du, 2L * du);
+    }
+
+    private void ensureWorkspace(int edgeCount, int chunkCount, int tileCount) {
+        if (clippedEdges.length < edgeCount) {
+            clippedEdges = new long[edgeCount];
+        }
+        if (tileCounts.length < chunkCount * tileCount) {
+            tileCounts = new int[chunkCount * tileCount];
+        }
+        if (tileStarts.length < tileCount + 1) {
+            tileStarts = new int[tileCount + 1];
+        }
+        if (clippedLines.length < chunkCount) {
+            nearClippedLines = new float[chunkCount][6];
+            clippedLines = new int[chunkCount][4];
+        }
+    }
+
+    private static int chunkStart(int chunk, int chunkCount, int count) {
+        return (int) ((long) count * chunk / chunkCount);
+    }
+
+    private void runInParallel(int taskCount, IntConsumer task) {
+        ParallelTasks.run(pool, taskCount, task);
+    }
+}
@@ -0,0 +1,50 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+
+import java.util.Optional;
+
+// Ядро GraphicConveyor.projectVertices: вершины с номерами из [fromVertex, toVertex) в тройки (x, y, w).
+// Векторное ядро (VectorProjectionKernel, модуль jdk.incubator.vector; собирается только профилем Maven vector)
+// выбирается при запуске, если модуль подключён (java --add-modules jdk.incubator.vector ...); иначе работает скалярное. Оба дают
+// одинаковые до бита результаты: операции те же и в том же порядке, без слитного умножения-сложения
+interface ProjectionKernel {
+
+    // Системное свойство, которым векторное ядро можно выключить: -Dcgvsu.vectorKernel=false
+    String VECTOR_KERNEL_PROPERTY = "cgvsu.vectorKernel";
+
+    String VECTOR_MODULE = "jdk.incubator.vector";
+
+    ProjectionKernel SCALAR = GraphicConveyor::projectVerticesScalar;
+
+    void project(
+            Matrix4f matrix,
+            float[] vertices,
+            int fromVertex,
+            int toVertex,
+            int width,
+            int height,
+            float[] result);
+
+    // Векторное ядро, если оно собрано (профиль Maven vector), модуль доступен и не выключен свойством, иначе
+    // скалярное. Класс векторного ядра загружается только здесь и только при наличии модуля, поэтому без модуля
+    // ошибок связывания нет. module-info модуль не требует (иначе каждая сборка предупреждала бы об инкубационном
+    // модуле), поэтому чтение модуля добавляется здесь; вне модульного запуска это ничего не делает
+    static ProjectionKernel select() {
+        if (!Boolean.parseBoolean(System.getProperty(VECTOR_KERNEL_PROPERTY, "true"))) {
+            return SCALAR;
+        }
+        final Optional<Module> vectorModule = ModuleLayer.boot().findModule(VECTOR_MODULE);
+        if (vectorModule.isEmpty()) {
+            return SCALAR;
+        }
+        try {
+            ProjectionKernel.class.getModule().addReads(vectorModule.get());
+            return (ProjectionKernel) Class.forName("com.cgvsu.render_engine.VectorProjectionKernel")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // В том числе сборка без векторного ядра и отказ конструктора при слишком коротких векторах
+            return SCALAR;
+        }
+    }
+}
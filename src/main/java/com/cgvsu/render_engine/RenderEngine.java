@@ -1,11 +1,16 @@
 package com.cgvsu.render_engine;
 
-import com.cgvsu.math.Vector3f;
 import javafx.scene.canvas.GraphicsContext;
-import javax.vecmath.*;
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.MeshBounds;
+import com.cgvsu.model.MeshPreview;
 import com.cgvsu.model.Model;
+import com.cgvsu.model.ModelTransform;
+import com.cgvsu.model.Scene;
 
-import java.util.ArrayList;
+import java.util.List;
 
 import static com.cgvsu.render_engine.GraphicConveyor.*;
 
@@ -14,6 +19,34 @@ public class RenderEngine {
     // Добавляем переменную для хранения цвета отрисовки
     private static javafx.scene.paint.Color strokeColor = javafx.scene.paint.Color.BLACK;
 
+    // Цвет граней в режиме SOLID; грань тем темнее, чем круче она повёрнута от камеры
+    private static javafx.scene.paint.Color fillColor = javafx.scene.paint.Color.LIGHTGRAY;
+
+    // Доля освещения, которую получает даже грань, видимая с ребра
+    private static final float AMBIENT_LIGHT = 0.25F;
+
+    private static RenderMode renderMode = RenderMode.WIREFRAME;
+
+    // Переиспользуемые между кадрами матрицы и экранные координаты вершин, чтобы кадр не создавал
+    // объектов. Отрисовка идёт только из потока JavaFX
+    private static final Matrix4f viewMatrix = new Matrix4f();
+    private static final Matrix4f projectionMatrix = new Matrix4f();
+    private static final Matrix4f modelViewProjectionMatrix = new Matrix4f();
+    // Матрица модели, обращённая: переводит камеру в координаты модели для освещения граней
+    private static final Vector3f eye = new Vector3f();
+    private static float[] screenVertices = new float[3 * 1024];
+
+    // Пирамида видимости текущей модели, видимые группы рёбер и нужные им диапазоны вершин
+    private static final ViewFrustum frustum = new ViewFrustum();
+    private static int[] visibleClusters = new int[64];
+    private static long[] vertexRanges = new long[64];
+    // Пирамида видимости для отбора моделей сцены
+    private static final ViewFrustum sceneFrustum = new ViewFrustum();
+    // Концы текущего ребра после обрезки ближней плоскостью и их глубины
+    private static final float[] line = new float[6];
+    // Текущий треугольник после обрезки ближней плоскостью: до четырёх троек (x, y, w)
+    private static final float[] triangle = new float[12];
+
     /**
      * Устанавливает цвет отрисовки для всех моделей.
      *
@@ -23,8 +56,46 @@ public class RenderEngine {
         strokeColor = color;
     }
 
+    static javafx.scene.paint.Color getStrokeColor() {
+        return strokeColor;
+    }
+
+    public static void setFillColor(javafx.scene.paint.Color color) {
+        fillColor = color;
+    }
+
+    /**
+     * Устанавливает вид моделей при отрисовке в буфер кадра.
+     *
+     * @param mode Каркас, закрашенные грани или каркас без невидимых линий.
+     */
+    public static void setRenderMode(RenderMode mode) {
+        renderMode = mode;
+    }
+
+    public static RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    /**
+     * Собирает модели сцены, которые могут попасть в кадр; остальные можно не отрисовывать.
+     *
+     * @param camera Камера, для которой отбираются модели.
+     * @param scene  Сцена.
+     * @param result Список, в который записываются модели; предварительно очищается.
+     */
+    public static void collectVisibleModels(
+            final Camera camera,
+            final Scene scene,
+            final List<Model> result) {
+        // Пирамида в координатах сцены: параллелепипеды моделей в иерархии уже учитывают их положение
+        modelViewProjectionMatrix(camera, viewMatrix, projectionMatrix, modelViewProjectionMatrix);
+        sceneFrustum.set(modelViewProjectionMatrix, camera.getNearPlane());
+        scene.collectVisibleModels(sceneFrustum, result);
+    }
+
     /**
-     * Отрисовывает модель на холсте с использованием текущей камеры.
+     * Отрисовывает каркас модели на холсте с использованием текущей камеры; вид отрисовки не учитывается.
      *
      * @param graphicsContext Контекст графики для отрисовки.
      * @param camera          Камера, используемая для отрисовки.
@@ -38,81 +109,352 @@ public class RenderEngine {
             final Model mesh,
             final int width,
             final int height) {
+        graphicsContext.setStroke(strokeColor);
+        renderEdges(
+                graphicsContext::strokeLine, camera, mesh.transform,
+                levelOfDetail(camera, mesh, height, viewMatrix, projectionMatrix), width, height);
+    }
 
-        // Матрица модели (пока что единичная, но может быть изменена для трансформаций)
-        Matrix4f modelMatrix = rotateScaleTranslate();
+    /**
+     * Отрисовывает уже прочитанную часть модели, которая ещё загружается.
+     *
+     * @param graphicsContext Контекст графики для отрисовки.
+     * @param camera          Камера, используемая для отрисовки.
+     * @param preview         Снимок прочитанной части модели.
+     * @param width           Ширина холста.
+     * @param height          Высота холста.
+     */
+    public static void render(
+            final GraphicsContext graphicsContext,
+            final Camera camera,
+            final MeshPreview preview,
+            final int width,
+            final int height) {
+        graphicsContext.setStroke(strokeColor);
+        renderPolygons(
+                graphicsContext::strokeLine, camera,
+                preview.vertices, preview.vertexCount,
+                preview.polygonOffsets, preview.vertexIndices, preview.polygonCount,
+                width, height);
+    }
 
-        // Матрица вида (из камеры)
-        Matrix4f viewMatrix = camera.getViewMatrix();
+    /**
+     * Отрисовывает модель в буфер кадра в текущем виде (см. {@link #setRenderMode}); на холст кадр
+     * выводится вызовом {@link FrameBuffer#present}. Глубина граней хранится в буфере кадра до его
+     * очистки, поэтому модели одного кадра закрывают друг друга.
+     *
+     * @param frameBuffer Буфер кадра, размеры которого задают размеры изображения.
+     * @param camera      Камера, используемая для отрисовки.
+     * @param mesh        Модель, которую нужно отрисовать.
+     */
+    public static void render(
+            final FrameBuffer frameBuffer,
+            final Camera camera,
+            final Model mesh) {
+        final Mesh levelOfDetail = levelOfDetail(camera, mesh, frameBuffer.getHeight(), viewMatrix, projectionMatrix);
+        switch (renderMode) {
+            case WIREFRAME -> {
+                frameBuffer.setColor(strokeColor);
+                renderEdges(frameBuffer, camera, mesh.transform, levelOfDetail, frameBuffer.getWidth(), frameBuffer.getHeight());
+            }
+            case SOLID -> renderFaces(frameBuffer, camera, mesh.transform, levelOfDetail, false);
+            case HIDDEN_LINE -> renderFaces(frameBuffer, camera, mesh.transform, levelOfDetail, true);
+        }
+    }
 
-        // Матрица проекции (из камеры)
-        Matrix4f projectionMatrix = camera.getProjectionMatrix();
+    /**
+     * Отрисовывает в буфер кадра уже прочитанную часть модели, которая ещё загружается.
+     *
+     * @param frameBuffer Буфер кадра, размеры которого задают размеры изображения.
+     * @param camera      Камера, используемая для отрисовки.
+     * @param preview     Снимок прочитанной части модели.
+     */
+    public static void render(
+            final FrameBuffer frameBuffer,
+            final Camera camera,
+            final MeshPreview preview) {
+        frameBuffer.setColor(strokeColor);
+        renderPolygons(
+                frameBuffer, camera,
+                preview.vertices, preview.vertexCount,
+                preview.polygonOffsets, preview.vertexIndices, preview.polygonCount,
+                frameBuffer.getWidth(), frameBuffer.getHeight());
+    }
 
-        // Комбинируем матрицы
-        Matrix4f modelViewProjectionMatrix = new Matrix4f(modelMatrix);
-        modelViewProjectionMatrix.mul(viewMatrix);
-        modelViewProjectionMatrix.mul(projectionMatrix);
+    // Отрисовка готовой модели по списку уникальных рёбер: общее ребро соседних полигонов рисуется один раз.
+    // Модель, целиком не попадающая в пирамиду видимости, не обрабатывается вовсе; у видимой модели
+    // переводятся в экранные координаты только вершины видимых групп рёбер и рисуются только эти группы
+    private static void renderEdges(
+            final LineTarget lineTarget,
+            final Camera camera,
+            final ModelTransform transform,
+            final Mesh mesh,
+            final int width,
+            final int height) {
+        final MeshBounds bounds = mesh.getBounds();
+        modelViewProjectionMatrix(camera, transform, viewMatrix, projectionMatrix, modelViewProjectionMatrix);
+        frustum.set(modelViewProjectionMatrix, camera.getNearPlane());
+        if (!frustum.intersects(bounds.bounds, 0)) {
+            return;
+        }
 
-        // Устанавливаем цвет отрисовки
-        graphicsContext.setStroke(strokeColor);
+        final int clusterCount = bounds.getClusterCount();
+        if (visibleClusters.length < clusterCount) {
+            visibleClusters = new int[Math.max(clusterCount, 2 * visibleClusters.length)];
+            vertexRanges = new long[visibleClusters.length];
+        }
+        final int visibleClusterCount = frustum.collectVisibleClusters(bounds, visibleClusters);
+        final int rangeCount = ViewFrustum.mergeVertexRanges(bounds, visibleClusters, visibleClusterCount, vertexRanges);
+        final float[] points = screenVertices(mesh.getVertexCount());
+        for (int i = 0; i < rangeCount; ++i) {
+            GraphicConveyor.projectVertices(
+                    modelViewProjectionMatrix, mesh.vertices, (int) (vertexRanges[i] >>> 32), (int) vertexRanges[i],
+                    width, height, points);
+        }
 
-        // Отрисовка полигонов модели
-        final int nPolygons = mesh.polygons.size();
-        for (int polygonInd = 0; polygonInd < nPolygons; ++polygonInd) {
-            final int nVerticesInPolygon = mesh.polygons.get(polygonInd).getVertexIndices().size();
-
-            ArrayList<Point2f> resultPoints = new ArrayList<>();
-            for (int vertexInPolygonInd = 0; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
-                // Получаем вершину
-                Vector3f vertex = mesh.vertices.get(mesh.polygons.get(polygonInd).getVertexIndices().get(vertexInPolygonInd));
-
-                // Преобразуем вершину в экранные координаты
-                javax.vecmath.Vector3f vertexVecmath = new javax.vecmath.Vector3f(vertex.x, vertex.y, vertex.z);
-                Point2f resultPoint = vertexToPoint(multiplyMatrix4ByVector3(modelViewProjectionMatrix, vertexVecmath), width, height);
-                resultPoints.add(resultPoint);
+        final int[] edgeVertexIndices = mesh.getEdges().edgeVertexIndices;
+        final int edgeCount = edgeVertexIndices.length / 2;
+        for (int i = 0; i < visibleClusterCount; ++i) {
+            final int from = visibleClusters[i] * MeshBounds.CLUSTER_SIZE;
+            final int to = Math.min(edgeCount, from + MeshBounds.CLUSTER_SIZE);
+            for (int edgeInd = from; edgeInd < to; ++edgeInd) {
+                if (frustum.clipEdge(mesh.vertices, points, edgeVertexIndices[2 * edgeInd],
+                        edgeVertexIndices[2 * edgeInd + 1], width, height, line)) {
+                    lineTarget.drawLine(line[0], line[1], line[2], line[3]);
+                }
             }
+        }
+    }
+
+    // Грани модели в буфер глубины по готовому разбиению на треугольники (Mesh.getTriangulation);
+    // треугольники, обращённые от камеры, отбрасываются по знаку площади на экране до растеризации. При hiddenLine грани
+    // только закрывают собой дальнее, а поверх рисуются рёбра с проверкой глубины
+    private static void renderFaces(
+            final FrameBuffer frameBuffer,
+            final Camera camera,
+            final ModelTransform transform,
+            final Mesh mesh,
+            final boolean hiddenLine) {
+        final int width = frameBuffer.getWidth();
+        final int height = frameBuffer.getHeight();
+        modelViewProjectionMatrix(camera, transform, viewMatrix, projectionMatrix, modelViewProjectionMatrix);
+        frustum.set(modelViewProjectionMatrix, camera.getNearPlane());
+        if (width == 0 || height == 0 || !frustum.intersects(mesh.getBounds().bounds, 0)) {
+            return;
+        }
+        final float[] vertices = mesh.vertices;
+        final float[] points = screenVertices(mesh.getVertexCount());
+        GraphicConveyor.projectVertices(modelViewProjectionMatrix, vertices, mesh.getVertexCount(), width, height, points);
+
+        frameBuffer.setColor(fillColor);
+        final int fill = frameBuffer.getColor();
+        // Грани освещаются в координатах модели: камера переводится в них обратным преобразованием модели.
+        // Зеркальное положение модели меняет обход граней на экране
+        final boolean mirrored = transform.isMirrored();
+        transform.inverseTransformPoint(camera.getPosition(), eye);
+        final int[] vertexIndices = mesh.vertexIndices;
+        final int[] triangleCorners = mesh.getTriangulation().triangleCorners;
+        for (int i = 0; i < triangleCorners.length; i += 3) {
+            final int a = vertexIndices[triangleCorners[i]];
+            final int b = vertexIndices[triangleCorners[i + 1]];
+            final int c = vertexIndices[triangleCorners[i + 2]];
+            final int count = frustum.clipTriangle(vertices, points, a, b, c, width, height, triangle);
+            if (count == 0 || (mirrored ? -signedArea(triangle) : signedArea(triangle)) <= 0) {
+                continue;
+            }
+            if (!hiddenLine) {
+                frameBuffer.setColor(shade(fill, vertices, a, b, c, eye));
+            }
+            fillPolygon(frameBuffer, count, !hiddenLine, mirrored);
+        }
+
+        if (hiddenLine) {
+            frameBuffer.setColor(strokeColor);
+            final int[] edgeVertexIndices = mesh.getEdges().edgeVertexIndices;
+            for (int i = 0; i < edgeVertexIndices.length; i += 2) {
+                if (frustum.clipEdge(vertices, points, edgeVertexIndices[i], edgeVertexIndices[i + 1], width, height, line)) {
+                    frameBuffer.drawDepthTestedLine(line[0], line[1], line[4], line[2], line[3], line[5]);
+                }
+            }
+        }
+    }
+
+    // Удвоенная ориентированная площадь первых трёх вершин triangle на экране. Положительна у граней,
+    // обход которых виден камере против часовой стрелки (как принято в OBJ): при матрице вида Camera
+    // и оси y экрана, направленной вниз, такой обход на экране идёт по часовой стрелке
+    private static float signedArea(final float[] triangle) {
+        return (triangle[3] - triangle[0]) * (triangle[7] - triangle[1])
+                - (triangle[6] - triangle[0]) * (triangle[4] - triangle[1]);
+    }
+
+    // Закраска многоугольника из count вершин triangle (3 или 4) веером треугольников; у зеркальной
+    // модели обход меняется на обратный, чтобы лицевые треугольники имели положительную площадь
+    private static void fillPolygon(
+            final FrameBuffer frameBuffer,
+            final int count,
+            final boolean writeColor,
+            final boolean mirrored) {
+        for (int i = 2; i < count; ++i) {
+            final int b = mirrored ? i : i - 1;
+            final int c = mirrored ? i - 1 : i;
+            frameBuffer.fillTriangle(
+                    triangle[0], triangle[1], triangle[2],
+                    triangle[3 * b], triangle[3 * b + 1], triangle[3 * b + 2],
+                    triangle[3 * c], triangle[3 * c + 1], triangle[3 * c + 2],
+                    writeColor);
+        }
+    }
+
+    // Цвет грани a, b, c: fill, приглушённый по косинусу угла между нормалью грани и направлением на камеру
+    private static int shade(
+            final int fill,
+            final float[] vertices,
+            final int a,
+            final int b,
+            final int c,
+            final Vector3f eye) {
+        final float ax = vertices[3 * a], ay = vertices[3 * a + 1], az = vertices[3 * a + 2];
+        final float abX = vertices[3 * b] - ax, abY = vertices[3 * b + 1] - ay, abZ = vertices[3 * b + 2] - az;
+        final float acX = vertices[3 * c] - ax, acY = vertices[3 * c + 1] - ay, acZ = vertices[3 * c + 2] - az;
+        final float normalX = abY * acZ - abZ * acY;
+        final float normalY = abZ * acX - abX * acZ;
+        final float normalZ = abX * acY - abY * acX;
+        final float toEyeX = eye.x - ax, toEyeY = eye.y - ay, toEyeZ = eye.z - az;
+        final double lengths = Math.sqrt((normalX * normalX + normalY * normalY + normalZ * normalZ)
+                * (toEyeX * toEyeX + toEyeY * toEyeY + toEyeZ * toEyeZ));
+        final float cosine = lengths > 0
+                ? (float) Math.abs((normalX * toEyeX + normalY * toEyeY + normalZ * toEyeZ) / lengths) : 1;
+        final float light = AMBIENT_LIGHT + (1 - AMBIENT_LIGHT) * cosine;
+        final int red = (int) (((fill >> 16) & 0xFF) * light);
+        final int green = (int) (((fill >> 8) & 0xFF) * light);
+        final int blue = (int) ((fill & 0xFF) * light);
+        return (fill & 0xFF000000) | (red << 16) | (green << 8) | blue;
+    }
+
+    // Отрисовка первых polygonCount полигонов загружаемой модели. Полигоны со ссылками на
+    // вершины за пределами первых vertexCount (ещё не прочитанные) пропускаются
+    private static void renderPolygons(
+            final LineTarget lineTarget,
+            final Camera camera,
+            final float[] vertices,
+            final int vertexCount,
+            final int[] polygonOffsets,
+            final int[] vertexIndices,
+            final int polygonCount,
+            final int width,
+            final int height) {
+        modelViewProjectionMatrix(camera, viewMatrix, projectionMatrix, modelViewProjectionMatrix);
+        frustum.set(modelViewProjectionMatrix, camera.getNearPlane());
+        final float[] points = screenVertices(vertexCount);
+        GraphicConveyor.projectVertices(modelViewProjectionMatrix, vertices, vertexCount, width, height, points);
 
-            // Отрисовка линий между вершинами полигона
-            for (int vertexInPolygonInd = 1; vertexInPolygonInd < nVerticesInPolygon; ++vertexInPolygonInd) {
-                graphicsContext.strokeLine(
-                        resultPoints.get(vertexInPolygonInd - 1).x,
-                        resultPoints.get(vertexInPolygonInd - 1).y,
-                        resultPoints.get(vertexInPolygonInd).x,
-                        resultPoints.get(vertexInPolygonInd).y);
+        // Отрисовка полигонов модели
+        polygons:
+        for (int polygonInd = 0; polygonInd < polygonCount; ++polygonInd) {
+            final int polygonStart = polygonOffsets[polygonInd];
+            final int polygonEnd = polygonOffsets[polygonInd + 1];
+            if (polygonStart == polygonEnd) {
+                continue;
+            }
+            for (int i = polygonStart; i < polygonEnd; ++i) {
+                final int vertexIndex = vertexIndices[i];
+                if (vertexIndex < 0 || vertexIndex >= vertexCount) {
+                    continue polygons;
+                }
             }
 
-            // Замыкание полигона (линия от последней вершины к первой)
-            if (nVerticesInPolygon > 0) {
-                graphicsContext.strokeLine(
-                        resultPoints.get(nVerticesInPolygon - 1).x,
-                        resultPoints.get(nVerticesInPolygon - 1).y,
-                        resultPoints.get(0).x,
-                        resultPoints.get(0).y);
+            // Отрисовка линий между вершинами полигона, начиная с замыкающей (от последней вершины к первой)
+            int previous = vertexIndices[polygonEnd - 1];
+            for (int i = polygonStart; i < polygonEnd; ++i) {
+                final int current = vertexIndices[i];
+                if (frustum.clipEdge(vertices, points, previous, current, width, height, line)) {
+                    lineTarget.drawLine(line[0], line[1], line[2], line[3]);
+                }
+                previous = current;
             }
         }
     }
 
-    // Метод для создания единичной матрицы модели
-    private static Matrix4f rotateScaleTranslate() {
-        float[] matrix = new float[]{
-                1, 0, 0, 0,
-                0, 1, 0, 0,
-                0, 0, 1, 0,
-                0, 0, 0, 1};
-        return new Matrix4f(matrix);
+    // Каждая вершина переводится в экранные координаты один раз за кадр; рёбра затем берут готовые
+    // координаты по индексам. Возвращает переиспользуемый массив троек (x, y, w) не меньше чем на vertexCount вершин
+    private static float[] screenVertices(final int vertexCount) {
+        if (screenVertices.length < 3 * vertexCount) {
+            screenVertices = new float[Math.max(3 * vertexCount, 2 * screenVertices.length)];
+        }
+        return screenVertices;
     }
 
-    // Метод для преобразования вершины с помощью матрицы
-    private static javax.vecmath.Vector3f multiplyMatrix4ByVector3(final Matrix4f matrix, final javax.vecmath.Vector3f vertex) {
-        final float x = (vertex.x * matrix.m00) + (vertex.y * matrix.m10) + (vertex.z * matrix.m20) + matrix.m30;
-        final float y = (vertex.x * matrix.m01) + (vertex.y * matrix.m11) + (vertex.z * matrix.m21) + matrix.m31;
-        final float z = (vertex.x * matrix.m02) + (vertex.y * matrix.m12) + (vertex.z * matrix.m22) + matrix.m32;
-        final float w = (vertex.x * matrix.m03) + (vertex.y * matrix.m13) + (vertex.z * matrix.m23) + matrix.m33;
-        return new javax.vecmath.Vector3f(x / w, y / w, z / w);
+    // Модель или её уровень детализации для кадра высотой height. Размер модели на экране — диаметр
+    // сферы вокруг её параллелепипеда в сцене на расстоянии ближайшей к камере точки сферы; если камера
+    // внутри сферы, рисуется исходная модель. view и projection — рабочие матрицы вызывающего
+    static Mesh levelOfDetail(
+            final Camera camera,
+            final Model model,
+            final int height,
+            final Matrix4f view,
+            final Matrix4f projection) {
+        if (model.getLodChain() == null) {
+            return model.mesh;
+        }
+        final float[] bounds = model.getWorldBounds();
+        if (bounds[0] > bounds[3]) {
+            return model.mesh;
+        }
+        final float centerX = (bounds[0] + bounds[3]) / 2;
+        final float centerY = (bounds[1] + bounds[4]) / 2;
+        final float centerZ = (bounds[2] + bounds[5]) / 2;
+        final float sizeX = bounds[3] - bounds[0];
+        final float sizeY = bounds[4] - bounds[1];
+        final float sizeZ = bounds[5] - bounds[2];
+        final float radius = (float) Math.sqrt(sizeX * sizeX + sizeY * sizeY + sizeZ * sizeZ) / 2;
+
+        // Глубина центра перед камерой — w после проекции
+        camera.getViewMatrix(view);
+        camera.getProjectionMatrix(projection);
+        final float depth = centerX * view.m02 + centerY * view.m12 + centerZ * view.m22 + view.m32;
+        final float nearestDepth = depth - radius;
+        if (nearestDepth <= camera.getNearPlane()) {
+            return model.mesh;
+        }
+        return model.getLevelOfDetail(2 * radius * projection.m11 * height / nearestDepth);
+    }
+
+    // Матрица MVP модели с положением transform для камеры; view и projection — рабочие матрицы вызывающего
+    static void modelViewProjectionMatrix(
+            final Camera camera,
+            final ModelTransform transform,
+            final Matrix4f view,
+            final Matrix4f projection,
+            final Matrix4f result) {
+        // Матрица модели (из её положения в сцене)
+        GraphicConveyor.rotateScaleTranslate(transform, result);
+        viewProjection(camera, view, projection, result);
+    }
+
+    // Матрица вида и проекции для координат сцены (модель без преобразования)
+    static void modelViewProjectionMatrix(
+            final Camera camera,
+            final Matrix4f view,
+            final Matrix4f projection,
+            final Matrix4f result) {
+        result.setIdentity();
+        viewProjection(camera, view, projection, result);
     }
 
-    // Метод для преобразования вершины в экранные координаты
-    private static Point2f vertexToPoint(final javax.vecmath.Vector3f vertex, final int width, final int height) {
-        return new Point2f(vertex.x * width + width / 2.0F, -vertex.y * height + height / 2.0F);
+    // Домножение result на матрицы вида и проекции камеры
+    private static void viewProjection(
+            final Camera camera,
+            final Matrix4f view,
+            final Matrix4f projection,
+            final Matrix4f result) {
+        // Матрица вида (из камеры)
+        camera.getViewMatrix(view);
+
+        // Матрица проекции (из камеры)
+        camera.getProjectionMatrix(projection);
+
+        // Комбинируем матрицы
+        result.mul(view);
+        result.mul(projection);
     }
-}
\ No newline at end of file
+}
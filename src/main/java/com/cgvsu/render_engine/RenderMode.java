@@ -0,0 +1,11 @@
+package com.cgvsu.render_engine;
+
+// Вид моделей при отрисовке в буфер кадра; на холст командами strokeLine рисуется только каркас
+public enum RenderMode {
+    // Все рёбра модели
+    WIREFRAME,
+    // Закрашенные грани с буфером глубины
+    SOLID,
+    // Рёбра без участков, закрытых гранями
+    HIDDEN_LINE
+}
@@ -0,0 +1,144 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+// Векторное ядро ProjectionKernel: за шаг обрабатывается столько вершин, сколько чисел в векторе (lanes).
+// Их 3 * lanes чисел читаются тремя векторами подряд и раскладываются перестановками на векторы x, y и z;
+// результат (x, y, w) так же собирается обратно в три вектора. Вершины, не вошедшие в целый шаг,
+// обрабатываются скалярным ядром. Загружается только через ProjectionKernel.select; компилируется только
+// профилем Maven vector
+final class VectorProjectionKernel implements ProjectionKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    // Раскладка: компонента (x, y, z) берётся из векторов a, b, c перестановками UNPACK_*, из b и c — в
+    // позициях масок UNPACK_*_MASK. Каждая перестановка и маска в своём поле, чтобы компилятор считал их
+    // константами и не создавал объектов векторов
+    private static final VectorShuffle<Float> UNPACK_X_A = unpackShuffle(0, 0);
+    private static final VectorShuffle<Float> UNPACK_X_B = unpackShuffle(0, 1);
+    private static final VectorShuffle<Float> UNPACK_X_C = unpackShuffle(0, 2);
+    private static final VectorShuffle<Float> UNPACK_Y_A = unpackShuffle(1, 0);
+    private static final VectorShuffle<Float> UNPACK_Y_B = unpackShuffle(1, 1);
+    private static final VectorShuffle<Float> UNPACK_Y_C = unpackShuffle(1, 2);
+    private static final VectorShuffle<Float> UNPACK_Z_A = unpackShuffle(2, 0);
+    private static final VectorShuffle<Float> UNPACK_Z_B = unpackShuffle(2, 1);
+    private static final VectorShuffle<Float> UNPACK_Z_C = unpackShuffle(2, 2);
+    private static final VectorMask<Float> UNPACK_X_B_MASK = unpackMask(0, 1);
+    private static final VectorMask<Float> UNPACK_X_C_MASK = unpackMask(0, 2);
+    private static final VectorMask<Float> UNPACK_Y_B_MASK = unpackMask(1, 1);
+    private static final VectorMask<Float> UNPACK_Y_C_MASK = unpackMask(1, 2);
+    private static final VectorMask<Float> UNPACK_Z_B_MASK = unpackMask(2, 1);
+    private static final VectorMask<Float> UNPACK_Z_C_MASK = unpackMask(2, 2);
+    // Сборка: вектор результата (0, 1, 2) берёт x, y и w перестановками PACK_*, y и w — в позициях масок
+    private static final VectorShuffle<Float> PACK_0_X = packShuffle(0, 0);
+    private static final VectorShuffle<Float> PACK_0_Y = packShuffle(0, 1);
+    private static final VectorShuffle<Float> PACK_0_W = packShuffle(0, 2);
+    private static final VectorShuffle<Float> PACK_1_X = packShuffle(1, 0);
+    private static final VectorShuffle<Float> PACK_1_Y = packShuffle(1, 1);
+    private static final VectorShuffle<Float> PACK_1_W = packShuffle(1, 2);
+    private static final VectorShuffle<Float> PACK_2_X = packShuffle(2, 0);
+    private static final VectorShuffle<Float> PACK_2_Y = packShuffle(2, 1);
+    private static final VectorShuffle<Float> PACK_2_W = packShuffle(2, 2);
+    private static final VectorMask<Float> PACK_0_Y_MASK = packMask(0, 1);
+    private static final VectorMask<Float> PACK_0_W_MASK = packMask(0, 2);
+    private static final VectorMask<Float> PACK_1_Y_MASK = packMask(1, 1);
+    private static final VectorMask<Float> PACK_1_W_MASK = packMask(1, 2);
+    private static final VectorMask<Float> PACK_2_Y_MASK = packMask(2, 1);
+    private static final VectorMask<Float> PACK_2_W_MASK = packMask(2, 2);
+
+    // Число компоненты component вершины lane лежит на позиции 3 * lane + component среди 3 * LANES прочитанных
+    private static VectorShuffle<Float> unpackShuffle(int component, int source) {
+        final int[] indices = new int[LANES];
+        for (int lane = 0; lane < LANES; ++lane) {
+            final int index = 3 * lane + component;
+            indices[lane] = index / LANES == source ? index % LANES : 0;
+        }
+        return VectorShuffle.fromArray(SPECIES, indices, 0);
+    }
+
+    private static VectorMask<Float> unpackMask(int component, int source) {
+        final boolean[] mask = new boolean[LANES];
+        for (int lane = 0; lane < LANES; ++lane) {
+            mask[lane] = (3 * lane + component) / LANES == source;
+        }
+        return VectorMask.fromArray(SPECIES, mask, 0);
+    }
+
+    // Позиция lane вектора результата target — число 3 * vertex + component
+    private static VectorShuffle<Float> packShuffle(int target, int component) {
+        final int[] indices = new int[LANES];
+        for (int lane = 0; lane < LANES; ++lane) {
+            final int index = target * LANES + lane;
+            indices[lane] = index % 3 == component ? index / 3 : 0;
+        }
+        return VectorShuffle.fromArray(SPECIES, indices, 0);
+    }
+
+    private static VectorMask<Float> packMask(int target, int component) {
+        final boolean[] mask = new boolean[LANES];
+        for (int lane = 0; lane < LANES; ++lane) {
+            mask[lane] = (target * LANES + lane) % 3 == component;
+        }
+        return VectorMask.fromArray(SPECIES, mask, 0);
+    }
+
+    VectorProjectionKernel() {
+        // На коротких векторах перестановки дороже выигрыша
+        if (LANES < 4) {
+            throw new UnsupportedOperationException("Vector species is too short: " + LANES);
+        }
+    }
+
+    @Override
+    public void project(
+            final Matrix4f matrix,
+            final float[] vertices,
+            final int fromVertex,
+            final int toVertex,
+            final int width,
+            final int height,
+            final float[] result) {
+        final float m00 = matrix.m00, m01 = matrix.m01, m03 = matrix.m03;
+        final float m10 = matrix.m10, m11 = matrix.m11, m13 = matrix.m13;
+        final float m20 = matrix.m20, m21 = matrix.m21, m23 = matrix.m23;
+        final float m30 = matrix.m30, m31 = matrix.m31, m33 = matrix.m33;
+        final float widthF = width;
+        final float heightF = height;
+        final float halfWidth = width / 2.0F;
+        final float halfHeight = height / 2.0F;
+
+        final int vectorEnd = fromVertex + (toVertex - fromVertex) / LANES * LANES;
+        for (int vertexInd = fromVertex; vertexInd < vectorEnd; vertexInd += LANES) {
+            final int offset = 3 * vertexInd;
+            final FloatVector a = FloatVector.fromArray(SPECIES, vertices, offset);
+            final FloatVector b = FloatVector.fromArray(SPECIES, vertices, offset + LANES);
+            final FloatVector c = FloatVector.fromArray(SPECIES, vertices, offset + 2 * LANES);
+            final FloatVector vx = a.rearrange(UNPACK_X_A)
+                    .blend(b.rearrange(UNPACK_X_B), UNPACK_X_B_MASK).blend(c.rearrange(UNPACK_X_C), UNPACK_X_C_MASK);
+            final FloatVector vy = a.rearrange(UNPACK_Y_A)
+                    .blend(b.rearrange(UNPACK_Y_B), UNPACK_Y_B_MASK).blend(c.rearrange(UNPACK_Y_C), UNPACK_Y_C_MASK);
+            final FloatVector vz = a.rearrange(UNPACK_Z_A)
+                    .blend(b.rearrange(UNPACK_Z_B), UNPACK_Z_B_MASK).blend(c.rearrange(UNPACK_Z_C), UNPACK_Z_C_MASK);
+
+            // Тот же порядок операций, что в скалярном ядре
+            final FloatVector x = vx.mul(m00).add(vy.mul(m10)).add(vz.mul(m20)).add(m30);
+            final FloatVector y = vx.mul(m01).add(vy.mul(m11)).add(vz.mul(m21)).add(m31);
+            final FloatVector w = vx.mul(m03).add(vy.mul(m13)).add(vz.mul(m23)).add(m33);
+            final FloatVector screenX = x.div(w).mul(widthF).add(halfWidth);
+            final FloatVector screenY = y.neg().div(w).mul(heightF).add(halfHeight);
+
+            screenX.rearrange(PACK_0_X).blend(screenY.rearrange(PACK_0_Y), PACK_0_Y_MASK)
+                    .blend(w.rearrange(PACK_0_W), PACK_0_W_MASK).intoArray(result, offset);
+            screenX.rearrange(PACK_1_X).blend(screenY.rearrange(PACK_1_Y), PACK_1_Y_MASK)
+                    .blend(w.rearrange(PACK_1_W), PACK_1_W_MASK).intoArray(result, offset + LANES);
+            screenX.rearrange(PACK_2_X).blend(screenY.rearrange(PACK_2_Y), PACK_2_Y_MASK)
+                    .blend(w.rearrange(PACK_2_W), PACK_2_W_MASK).intoArray(result, offset + 2 * LANES);
+        }
+        GraphicConveyor.projectVerticesScalar(matrix, vertices, vectorEnd, toVertex, width, height, result);
+    }
+}
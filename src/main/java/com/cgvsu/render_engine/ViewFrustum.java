@@ -0,0 +1,227 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.model.BoundsPredicate;
+import com.cgvsu.model.MeshBounds;
+
+import java.util.Arrays;
+
+// Пирамида видимости камеры для одной модели: плоскости берутся из матрицы MVP (метод Грибба — Хартманна).
+// Видимой считается область, которую vertexToPoint переводит в пределы холста (|x|, |y| <= w / 2),
+// перед ближней плоскостью камеры (w >= near). Дальняя плоскость не отсекает: отрисовка её не учитывала
+final class ViewFrustum implements BoundsPredicate {
+
+    private static final int PLANE_COUNT = 5;
+
+    // Коэффициенты a, b, c, d плоскостей: точка внутри, если a * x + b * y + c * z + d >= 0
+    private final float[] planes = new float[4 * PLANE_COUNT];
+
+    private Matrix4f matrix;
+    private float nearPlane;
+
+    // Рабочий массив clipTriangle
+    private final int[] triangleCorners = new int[3];
+
+    void set(final Matrix4f modelViewProjectionMatrix, final float nearPlane) {
+        this.matrix = modelViewProjectionMatrix;
+        this.nearPlane = nearPlane;
+        final Matrix4f m = modelViewProjectionMatrix;
+        // Столбцы матрицы дают x, y и w вершины в пространстве отсечения
+        setPlane(0, 0.5F * m.m03 + m.m00, 0.5F * m.m13 + m.m10, 0.5F * m.m23 + m.m20, 0.5F * m.m33 + m.m30);
+        setPlane(1, 0.5F * m.m03 - m.m00, 0.5F * m.m13 - m.m10, 0.5F * m.m23 - m.m20, 0.5F * m.m33 - m.m30);
+        setPlane(2, 0.5F * m.m03 + m.m01, 0.5F * m.m13 + m.m11, 0.5F * m.m23 + m.m21, 0.5F * m.m33 + m.m31);
+        setPlane(3, 0.5F * m.m03 - m.m01, 0.5F * m.m13 - m.m11, 0.5F * m.m23 - m.m21, 0.5F * m.m33 - m.m31);
+        setPlane(4, m.m03, m.m13, m.m23, m.m33 - nearPlane);
+    }
+
+    private void setPlane(int plane, float a, float b, float c, float d) {
+        planes[4 * plane] = a;
+        planes[4 * plane + 1] = b;
+        planes[4 * plane + 2] = c;
+        planes[4 * plane + 3] = d;
+    }
+
+    // Пересекает ли пирамиду параллелепипед bounds[offset..offset + 6) (min, max). Проверяется вершина
+    // параллелепипеда, дальше всех выдвинутая внутрь каждой плоскости; ответ «да» может быть ложным
+    // для параллелепипедов у рёбер пирамиды, но видимое никогда не отбрасывается
+    @Override
+    public boolean intersects(final float[] bounds, final int offset) {
+        if (bounds[offset] > bounds[offset + 3]) {
+            return false;
+        }
+        for (int plane = 0; plane < PLANE_COUNT; ++plane) {
+            final float a = planes[4 * plane];
+            final float b = planes[4 * plane + 1];
+            final float c = planes[4 * plane + 2];
+            final float d = planes[4 * plane + 3];
+            final float x = a >= 0 ? bounds[offset + 3] : bounds[offset];
+            final float y = b >= 0 ? bounds[offset + 4] : bounds[offset + 1];
+            final float z = c >= 0 ? bounds[offset + 5] : bounds[offset + 2];
+            if (a * x + b * y + c * z + d < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Номера групп рёбер, пересекающих пирамиду, в clusters; возвращает их число
+    int collectVisibleClusters(final MeshBounds bounds, final int[] clusters) {
+        int count = 0;
+        final int clusterCount = bounds.getClusterCount();
+        for (int cluster = 0; cluster < clusterCount; ++cluster) {
+            if (intersects(bounds.clusterBounds, 6 * cluster)) {
+                clusters[count++] = cluster;
+            }
+        }
+        return count;
+    }
+
+    // Диапазоны вершин, нужные видимым группам, без пересечений и по возрастанию: в ranges пишутся
+    // упакованные пары (начало << 32 | конец). Возвращает число диапазонов
+    static int mergeVertexRanges(final MeshBounds bounds, final int[] clusters, final int clusterCount, final long[] ranges) {
+        for (int i = 0; i < clusterCount; ++i) {
+            final int cluster = clusters[i];
+            ranges[i] = ((long) bounds.clusterVertexRanges[2 * cluster] << 32) | bounds.clusterVertexRanges[2 * cluster + 1];
+        }
+        Arrays.sort(ranges, 0, clusterCount);
+        int merged = 0;
+        for (int i = 0; i < clusterCount; ++i) {
+            final int from = (int) (ranges[i] >>> 32);
+            final int to = (int) ranges[i];
+            if (merged > 0 && from <= (int) ranges[merged - 1]) {
+                final long last = ranges[merged - 1];
+                ranges[merged - 1] = (last & 0xFFFFFFFF00000000L) | Math.max((int) last, to);
+            } else {
+                ranges[merged++] = ranges[i];
+            }
+        }
+        return merged;
+    }
+
+    // Ребро между вершинами a и b, обрезанное ближней плоскостью. points — результат
+    // GraphicConveyor.projectVertices (x, y, w на вершину); если один конец за ближней плоскостью, его
+    // экранные координаты пересчитываются из вершин модели. В result пишутся x0, y0, x1, y1 на экране
+    // и глубины концов w0, w1; false, если ребро целиком за ближней плоскостью
+    boolean clipEdge(
+            final float[] vertices,
+            final float[] points,
+            final int a,
+            final int b,
+            final int width,
+            final int height,
+            final float[] result) {
+        final float wa = points[3 * a + 2];
+        final float wb = points[3 * b + 2];
+        final boolean aVisible = wa >= nearPlane;
+        final boolean bVisible = wb >= nearPlane;
+        if (aVisible && bVisible) {
+            result[0] = points[3 * a];
+            result[1] = points[3 * a + 1];
+            result[2] = points[3 * b];
+            result[3] = points[3 * b + 1];
+            result[4] = wa;
+            result[5] = wb;
+            return true;
+        }
+        if (!aVisible && !bVisible) {
+            return false;
+        }
+
+        // Точка пересечения с плоскостью w = near в пространстве отсечения
+        final float xa = clipX(vertices, a);
+        final float ya = clipY(vertices, a);
+        final float xb = clipX(vertices, b);
+        final float yb = clipY(vertices, b);
+        final float t = (nearPlane - wa) / (wb - wa);
+        final float x = (xa + t * (xb - xa)) / nearPlane * width + width / 2.0F;
+        final float y = -(ya + t * (yb - ya)) / nearPlane * height + height / 2.0F;
+        if (aVisible) {
+            result[0] = points[3 * a];
+            result[1] = points[3 * a + 1];
+            result[2] = x;
+            result[3] = y;
+            result[4] = wa;
+            result[5] = nearPlane;
+        } else {
+            result[0] = x;
+            result[1] = y;
+            result[2] = points[3 * b];
+            result[3] = points[3 * b + 1];
+            result[4] = nearPlane;
+            result[5] = wb;
+        }
+        return true;
+    }
+
+    // Треугольник a, b, c, обрезанный ближней плоскостью, как clipEdge: в result пишутся тройки
+    // (x, y, w) вершин получившегося многоугольника с тем же обходом. Возвращает число вершин:
+    // 3, 4 (один конец треугольника за плоскостью) или 0 (треугольник целиком за ней)
+    int clipTriangle(
+            final float[] vertices,
+            final float[] points,
+            final int a,
+            final int b,
+            final int c,
+            final int width,
+            final int height,
+            final float[] result) {
+        final int[] corners = triangleCorners;
+        corners[0] = a;
+        corners[1] = b;
+        corners[2] = c;
+        int visibleCount = 0;
+        for (int i = 0; i < 3; ++i) {
+            if (points[3 * corners[i] + 2] >= nearPlane) {
+                ++visibleCount;
+            }
+        }
+        if (visibleCount == 0) {
+            return 0;
+        }
+        if (visibleCount == 3) {
+            for (int i = 0; i < 3; ++i) {
+                System.arraycopy(points, 3 * corners[i], result, 3 * i, 3);
+            }
+            return 3;
+        }
+
+        // Алгоритм Сазерленда — Ходжмана для одной плоскости w = near
+        int count = 0;
+        for (int i = 0; i < 3; ++i) {
+            final int current = corners[i];
+            final int next = corners[(i + 1) % 3];
+            final float wCurrent = points[3 * current + 2];
+            final float wNext = points[3 * next + 2];
+            final boolean currentVisible = wCurrent >= nearPlane;
+            if (currentVisible) {
+                System.arraycopy(points, 3 * current, result, 3 * count++, 3);
+            }
+            if (currentVisible != (wNext >= nearPlane)) {
+                final float t = (nearPlane - wCurrent) / (wNext - wCurrent);
+                final float xCurrent = clipX(vertices, current);
+                final float yCurrent = clipY(vertices, current);
+                final float x = xCurrent + t * (clipX(vertices, next) - xCurrent);
+                final float y = yCurrent + t * (clipY(vertices, next) - yCurrent);
+                result[3 * count] = x / nearPlane * width + width / 2.0F;
+                result[3 * count + 1] = -y / nearPlane * height + height / 2.0F;
+                result[3 * count + 2] = nearPlane;
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private float clipX(final float[] vertices, final int vertexInd) {
+        final float vx = vertices[3 * vertexInd];
+        final float vy = vertices[3 * vertexInd + 1];
+        final float vz = vertices[3 * vertexInd + 2];
+        return (vx * matrix.m00) + (vy * matrix.m10) + (vz * matrix.m20) + matrix.m30;
+    }
+
+    private float clipY(final float[] vertices, final int vertexInd) {
+        final float vx = vertices[3 * vertexInd];
+        final float vy = vertices[3 * vertexInd + 1];
+        final float vz = vertices[3 * vertexInd + 2];
+        return (vx * matrix.m01) + (vy * matrix.m11) + (vz * matrix.m21) + matrix.m31;
+    }
+}
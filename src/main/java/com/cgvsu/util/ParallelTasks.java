@@ -0,0 +1,45 @@
+package com.cgvsu.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// Параллельное выполнение пронумерованных задач в пуле потоков. Пакет не экспортируется из модуля:
+// класс общий только для построения модели и отрисовки
+public final class ParallelTasks {
+
+    private ParallelTasks() {
+    }
+
+    // Выполнение task для каждого номера из [0, taskCount) в pool; возвращается после окончания всех задач
+    public static void run(ForkJoinPool pool, int taskCount, IntConsumer task) {
+        if (taskCount > 0) {
+            pool.invoke(new RangeAction(0, taskCount, task));
+        }
+    }
+
+    // Выполнение task для каждого номера из [from, to); диапазон делится пополам до отдельных номеров
+    private static final class RangeAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer task;
+
+        RangeAction(int from, int to, IntConsumer task) {
+            this.from = from;
+            this.to = to;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                task.accept(from);
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new RangeAction(from, middle, task), new RangeAction(middle, to, task));
+        }
+    }
+}
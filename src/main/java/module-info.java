@@ -1,7 +1,6 @@
 module com.cgvsu {
     requires javafx.controls;
     requires javafx.fxml;
-    requires vecmath;
     requires java.desktop;
 
 
@@ -11,4 +10,5 @@ module com.cgvsu {
     opens com.cgvsu.objwriter to javafx.fxml;
     exports com.cgvsu.model;
     opens com.cgvsu.model to javafx.fxml;
-}
\ No newline at end of file
+    exports com.cgvsu.math;
+}
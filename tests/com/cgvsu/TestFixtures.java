@@ -0,0 +1,76 @@
+package com.cgvsu;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.MeshBuilder;
+import com.cgvsu.render_engine.Camera;
+import com.cgvsu.render_engine.FrameBuffer;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Общие для тестов модели, камера и подсчёт пикселей
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    // Плоская сетка size x size четырёхугольников в плоскости z = 0
+    public static Mesh quadGrid(int size) {
+        return grid(size, false, null);
+    }
+
+    // Сетка size x size квадратов в плоскости z = 0, каждый из двух треугольников
+    public static Mesh triangleGrid(int size) {
+        return grid(size, true, null);
+    }
+
+    // То же со случайным сдвигом вершин: до 0.5 по x и y и до 1 по z
+    public static Mesh triangleGrid(int size, Random random) {
+        return grid(size, true, random);
+    }
+
+    private static Mesh grid(int size, boolean triangles, Random random) {
+        MeshBuilder builder = new MeshBuilder();
+        for (int y = 0; y <= size; ++y) {
+            for (int x = 0; x <= size; ++x) {
+                if (random != null) {
+                    builder.addVertex(x + random.nextFloat() * 0.5F, y + random.nextFloat() * 0.5F, random.nextFloat());
+                } else {
+                    builder.addVertex(x, y, 0);
+                }
+            }
+        }
+        for (int y = 0; y < size; ++y) {
+            for (int x = 0; x < size; ++x) {
+                int v = y * (size + 1) + x;
+                if (triangles) {
+                    addPolygon(builder, v, v + 1, v + size + 2);
+                    addPolygon(builder, v, v + size + 2, v + size + 1);
+                } else {
+                    addPolygon(builder, v, v + 1, v + size + 2, v + size + 1);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private static void addPolygon(MeshBuilder builder, int... vertexIndices) {
+        for (int vertexInd : vertexIndices) {
+            builder.addPolygonVertex(vertexInd, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        }
+        builder.endPolygon();
+    }
+
+    // Камера с кадром width x height
+    public static Camera camera(Vector3f position, Vector3f target, int width, int height) {
+        Camera camera = new Camera(position, target, 1.0F, 1, 0.01F, 100);
+        camera.setAspectRatio((float) width / height);
+        return camera;
+    }
+
+    // Число закрашенных (ненулевых) пикселей кадра
+    public static long countPixels(FrameBuffer frameBuffer) {
+        return Arrays.stream(frameBuffer.getPixels()).filter(pixel -> pixel != 0).count();
+    }
+}
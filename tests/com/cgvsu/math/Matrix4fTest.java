@@ -0,0 +1,111 @@
+package com.cgvsu.math;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class Matrix4fTest {
+
+    private static Matrix4f random(Random random) {
+        float[] values = new float[16];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = random.nextFloat() * 4 - 2;
+        }
+        return new Matrix4f(values);
+    }
+
+    // Произведение по определению: элемент (i, j) — строка i левой на столбец j правой
+    private static float[] product(Matrix4f left, Matrix4f right) {
+        float[] a = new float[16];
+        float[] b = new float[16];
+        left.get(a);
+        right.get(b);
+        float[] result = new float[16];
+        for (int i = 0; i < 4; ++i) {
+            for (int j = 0; j < 4; ++j) {
+                for (int k = 0; k < 4; ++k) {
+                    result[4 * i + j] += a[4 * i + k] * b[4 * k + j];
+                }
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testMul() {
+        Random random = new Random(3);
+        Matrix4f left = random(random);
+        Matrix4f right = random(random);
+        float[] expected = product(left, right);
+
+        Matrix4f result = new Matrix4f(left);
+        result.mul(right);
+        float[] values = new float[16];
+        result.get(values);
+        Assertions.assertArrayEquals(expected, values, 1e-5F);
+
+        // Результат на месте одного из множителей
+        Matrix4f square = new Matrix4f(left);
+        float[] expectedSquare = product(left, left);
+        square.mul(square, square);
+        square.get(values);
+        Assertions.assertArrayEquals(expectedSquare, values, 1e-5F);
+    }
+
+    @Test
+    public void testInvert() {
+        Random random = new Random(5);
+        Matrix4f identity = new Matrix4f();
+        identity.setIdentity();
+        for (int i = 0; i < 20; ++i) {
+            Matrix4f matrix = random(random);
+            Matrix4f inverse = new Matrix4f(matrix);
+            inverse.invert();
+            Matrix4f result = new Matrix4f();
+            result.mul(matrix, inverse);
+            Assertions.assertTrue(result.epsilonEquals(identity, 1e-3F));
+        }
+
+        Matrix4f scale = new Matrix4f(new float[]{2, 0, 0, 0, 0, -3, 0, 0, 0, 0, 0.5F, 0, 7, 8, 9, 1});
+        Assertions.assertEquals(-3, scale.determinant(), 1e-6F);
+        Assertions.assertThrows(IllegalStateException.class, () -> new Matrix4f().invert());
+    }
+
+    @Test
+    public void testBatchKernels() {
+        Random random = new Random(11);
+        Matrix4f matrix = random(random);
+        matrix.m03 = matrix.m13 = matrix.m23 = 0;
+        matrix.m33 = 1;
+        float[] points = new float[3 * 10];
+        for (int i = 0; i < points.length; ++i) {
+            points[i] = random.nextFloat() * 10 - 5;
+        }
+        float[] transformed = new float[points.length];
+        float[] directions = new float[points.length];
+        matrix.transformPoints(points, 2, 8, transformed);
+        matrix.transformDirections(points, 2, 8, directions);
+
+        Vector3f expected = new Vector3f();
+        Vector3f origin = matrix.transformPoint(new Vector3f(), new Vector3f());
+        for (int pointInd = 0; pointInd < 10; ++pointInd) {
+            Vector3f point = new Vector3f(points[3 * pointInd], points[3 * pointInd + 1], points[3 * pointInd + 2]);
+            matrix.transformPoint(point, expected);
+            for (int axis = 0; axis < 3; ++axis) {
+                // Вне диапазона результат не трогается
+                boolean inRange = pointInd >= 2 && pointInd < 8;
+                float value = axis == 0 ? expected.x : axis == 1 ? expected.y : expected.z;
+                float shift = axis == 0 ? origin.x : axis == 1 ? origin.y : origin.z;
+                Assertions.assertEquals(inRange ? value : 0, transformed[3 * pointInd + axis], 1e-5F);
+                Assertions.assertEquals(inRange ? value - shift : 0, directions[3 * pointInd + axis], 1e-5F);
+            }
+        }
+
+        // На месте
+        float[] inPlace = points.clone();
+        matrix.transformPoints(inPlace, 0, 10, inPlace);
+        matrix.transformPoints(points, 0, 10, transformed);
+        Assertions.assertArrayEquals(transformed, inPlace);
+    }
+}
@@ -0,0 +1,40 @@
+package com.cgvsu.math;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class Vector3fTest {
+
+    @Test
+    public void testDestinationOperationsMatchAllocating() {
+        Vector3f a = new Vector3f(1, -2, 3);
+        Vector3f b = new Vector3f(0.5F, 4, -1);
+        Vector3f result = new Vector3f();
+
+        Assertions.assertSame(result, a.add(b, result));
+        Assertions.assertTrue(a.add(b).equals(result));
+        Assertions.assertTrue(a.subtract(b).equals(a.subtract(b, result)));
+        Assertions.assertTrue(a.multiply(3).equals(a.multiply(3, result)));
+        Assertions.assertTrue(a.divide(4).equals(a.divide(4, result)));
+        Assertions.assertTrue(a.normalize().equals(a.normalize(result)));
+        Assertions.assertTrue(a.cross(b).equals(a.cross(b, result)));
+    }
+
+    @Test
+    public void testInPlace() {
+        // Результат в одном из аргументов: векторное произведение не портит ещё нужные координаты
+        Vector3f a = new Vector3f(1, -2, 3);
+        Vector3f b = new Vector3f(0.5F, 4, -1);
+        Vector3f expected = a.cross(b);
+        Assertions.assertTrue(expected.equals(a.cross(b, a)));
+        Assertions.assertTrue(expected.equals(a));
+
+        Vector3f c = new Vector3f(0, 3, 4);
+        c.normalize(c);
+        Assertions.assertTrue(new Vector3f(0, 0.6F, 0.8F).equals(c));
+
+        float[] vectors = {3, 0, 4, 0, 0, 0, 1, 1, 1};
+        Vector3f.normalize(vectors, 0, 2);
+        Assertions.assertArrayEquals(new float[]{0.6F, 0, 0.8F, 0, 0, 0, 1, 1, 1}, vectors, 1e-6F);
+    }
+}
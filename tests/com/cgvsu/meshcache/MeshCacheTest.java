@@ -0,0 +1,155 @@
+package com.cgvsu.meshcache;
+
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.MeshWelder;
+import com.cgvsu.model.Model;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objwriter.ObjWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+class MeshCacheTest {
+
+    private static void assertMeshEquals(Mesh expected, Mesh result) {
+        Assertions.assertArrayEquals(expected.vertices, result.vertices);
+        Assertions.assertArrayEquals(expected.textureVertices, result.textureVertices);
+        Assertions.assertArrayEquals(expected.normals, result.normals);
+        Assertions.assertArrayEquals(expected.polygonOffsets, result.polygonOffsets);
+        Assertions.assertArrayEquals(expected.vertexIndices, result.vertexIndices);
+        Assertions.assertArrayEquals(expected.textureVertexIndices, result.textureVertexIndices);
+        Assertions.assertArrayEquals(expected.normalIndices, result.normalIndices);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path directory = Files.createTempDirectory("cache");
+        Path file = directory.resolve("model.obj");
+        Model source = ObjReader.read("v 0.1 0 0\nv 1 0 0\nv 0 1 0.3\nv 1 1 1e-7\nvt 0 0\nvt 1 0\nvt 0 1\n"
+                + "vn 0 0 1\nf 1/1/1 2/2/1 3/3/1\nf 2/2 4/1 3/3\n");
+        ObjWriter.write(source, file.toFile());
+
+        MeshCache cache = new MeshCache(directory.resolve("cache"));
+        Model parsed = cache.load(file);
+        Mesh cached = cache.read(file);
+
+        Assertions.assertNotNull(cached);
+        assertMeshEquals(source.mesh, parsed.mesh);
+        assertMeshEquals(parsed.mesh, cached);
+    }
+
+    @Test
+    public void testInvalidation() throws IOException {
+        Path directory = Files.createTempDirectory("cache");
+        Path file = directory.resolve("model.obj");
+        Files.writeString(file, "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3\n");
+
+        MeshCache cache = new MeshCache(directory.resolve("cache"));
+        cache.load(file);
+        Assertions.assertNotNull(cache.read(file));
+
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.writeString(file, "v 0 0 0\nv 2 0 0\nv 0 1 0\nf 1 2 3\n");
+        Files.setLastModifiedTime(file, modified);
+        Assertions.assertNull(cache.read(file));
+
+        Assertions.assertEquals(2.0f, cache.load(file).mesh.vertices[3]);
+        Assertions.assertEquals(2.0f, cache.read(file).vertices[3]);
+    }
+
+    @Test
+    public void testSameFileSharesMesh() throws IOException {
+        Path directory = Files.createTempDirectory("cache");
+        Path file = directory.resolve("model.obj");
+        Files.writeString(file, "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3\n");
+
+        // Повторное открытие того же файла (в том числе по другому пути к нему) даёт новую модель с той же Mesh
+        MeshCache cache = new MeshCache(directory.resolve("cache"));
+        Model first = cache.load(file);
+        Model second = cache.load(directory.resolve(".").resolve("model.obj"));
+        Assertions.assertNotSame(first, second);
+        Assertions.assertSame(first.mesh, second.mesh);
+
+        // Изменённый файл читается заново
+        Files.writeString(file, "v 0 0 0\nv 3 0 0\nv 0 1 0\nf 1 2 3\n");
+        Model changed = cache.load(file);
+        Assertions.assertNotSame(first.mesh, changed.mesh);
+        Assertions.assertEquals(3.0f, changed.mesh.vertices[3]);
+        Assertions.assertSame(changed.mesh, cache.load(file).mesh);
+    }
+
+    @Test
+    public void testWeldedLoadsShareMesh() throws IOException {
+        Path directory = Files.createTempDirectory("cache");
+        Path file = directory.resolve("model.obj");
+        // Два треугольника со своими копиями общих вершин
+        Files.writeString(file, "v 0 0 0\nv 1 0 0\nv 0 1 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nf 1 2 3\nf 4 5 6\n");
+
+        MeshCache cache = new MeshCache(directory.resolve("cache"));
+        List<MeshWelder.Result> results = new ArrayList<>();
+        Model first = cache.load(file, null, results::add);
+        Model second = cache.load(file, null, results::add);
+        Assertions.assertNotSame(first, second);
+        Assertions.assertSame(first.mesh, second.mesh);
+        Assertions.assertEquals(4, first.mesh.getVertexCount());
+        // Слияние выполнялось один раз
+        Assertions.assertEquals(1, results.size());
+        Assertions.assertSame(first.mesh, results.get(0).mesh);
+        Assertions.assertEquals(2, results.get(0).removedVertexCount);
+
+        // Без слияния — общая исходная Mesh
+        Model raw = cache.load(file);
+        Assertions.assertEquals(6, raw.mesh.getVertexCount());
+        Assertions.assertSame(raw.mesh, cache.load(file).mesh);
+    }
+
+    // Файл кэша с числами values, записанными по смещениям offsets, считается отсутствующим
+    private static void assertCorruptedIsMiss(MeshCache cache, Path file, byte[] valid, long[] offsets, int... values)
+            throws IOException {
+        Path cacheFile = cache.cachePath(file.toAbsolutePath().normalize());
+        Files.write(cacheFile, valid);
+        Assertions.assertNotNull(cache.read(file));
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < offsets.length; ++i) {
+                ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(values[i]);
+                buffer.flip();
+                channel.write(buffer, offsets[i]);
+            }
+        }
+        Assertions.assertNull(cache.read(file));
+    }
+
+    @Test
+    public void testCorruptedCacheIsMiss() throws IOException {
+        Path directory = Files.createTempDirectory("cache");
+        Path file = directory.resolve("model.obj");
+        Files.writeString(file, "v 0 0 0\nv 1 0 0\nv 0 1 0\nv 1 1 0\nf 1 2 3\nf 2 4 3\n");
+        MeshCache cache = new MeshCache(directory.resolve("cache"));
+        cache.load(file);
+        byte[] valid = Files.readAllBytes(cache.cachePath(file.toAbsolutePath().normalize()));
+
+        // Массивы после заголовка и пути: 12 координат вершин, 3 смещения полигонов, 6 индексов вершин
+        long dataOffset = BinaryMeshFormat.HEADER_SIZE + ((file.toAbsolutePath().normalize().toString().length() + 3) & ~3);
+        long offsets = dataOffset + 4L * 12;
+        long indices = offsets + 4L * 3;
+
+        // Отрицательное число координат текстур при той же сумме размеров
+        assertCorruptedIsMiss(cache, file, valid, new long[]{36, 40}, 15, -3);
+        // Смещения полигонов убывают
+        assertCorruptedIsMiss(cache, file, valid, new long[]{offsets + 4}, 7);
+        // Последнее смещение не равно числу индексов
+        assertCorruptedIsMiss(cache, file, valid, new long[]{offsets + 8}, 5);
+        // Индекс вершины вне модели
+        assertCorruptedIsMiss(cache, file, valid, new long[]{indices + 4}, 4);
+    }
+}
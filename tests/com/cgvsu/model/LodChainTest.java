@@ -0,0 +1,125 @@
+package com.cgvsu.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LodChainTest {
+
+    // UV-сфера радиуса 1 из четырёхугольников, у полюсов — треугольники
+    private static Mesh sphere(int slices, int stacks) {
+        MeshBuilder builder = new MeshBuilder();
+        for (int stack = 0; stack <= stacks; ++stack) {
+            double theta = Math.PI * stack / stacks;
+            for (int slice = 0; slice < slices; ++slice) {
+                double phi = 2 * Math.PI * slice / slices;
+                builder.addVertex(
+                        (float) (Math.sin(theta) * Math.cos(phi)),
+                        (float) Math.cos(theta),
+                        (float) (Math.sin(theta) * Math.sin(phi)));
+            }
+        }
+        for (int stack = 0; stack < stacks; ++stack) {
+            for (int slice = 0; slice < slices; ++slice) {
+                int a = stack * slices + slice;
+                int b = stack * slices + (slice + 1) % slices;
+                builder.addPolygonVertex(a, Mesh.NO_INDEX, Mesh.NO_INDEX);
+                builder.addPolygonVertex(a + slices, Mesh.NO_INDEX, Mesh.NO_INDEX);
+                builder.addPolygonVertex(b + slices, Mesh.NO_INDEX, Mesh.NO_INDEX);
+                builder.addPolygonVertex(b, Mesh.NO_INDEX, Mesh.NO_INDEX);
+                builder.endPolygon();
+            }
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testSimplifySphere() {
+        Mesh mesh = sphere(200, 100);
+        Mesh simplified = MeshSimplifier.simplify(mesh, mesh.getBounds().bounds, 16);
+
+        Assertions.assertTrue(simplified.getPolygonCount() > 100);
+        Assertions.assertTrue(simplified.getPolygonCount() < mesh.getPolygonCount() / 10);
+        Assertions.assertFalse(simplified.hasTextureVertices());
+        // Вершины остаются у поверхности сферы: не дальше ячейки (2 / 16)
+        float[] vertices = simplified.vertices;
+        for (int i = 0; i < vertices.length; i += 3) {
+            double radius = Math.sqrt(vertices[i] * vertices[i] + vertices[i + 1] * vertices[i + 1] + vertices[i + 2] * vertices[i + 2]);
+            Assertions.assertEquals(1, radius, 2.0 / 16);
+        }
+        // Все индексы корректны, повторов соседних вершин нет
+        for (int polygonInd = 0; polygonInd < simplified.getPolygonCount(); ++polygonInd) {
+            int start = simplified.polygonOffsets[polygonInd];
+            int end = simplified.polygonOffsets[polygonInd + 1];
+            Assertions.assertTrue(end - start >= 3);
+            for (int i = start; i < end; ++i) {
+                int next = i + 1 < end ? i + 1 : start;
+                Assertions.assertTrue(simplified.vertexIndices[i] >= 0 && simplified.vertexIndices[i] < simplified.getVertexCount());
+                Assertions.assertNotEquals(simplified.vertexIndices[i], simplified.vertexIndices[next]);
+            }
+        }
+    }
+
+    @Test
+    public void testSimplifyKeepsPlaneFlat() {
+        MeshBuilder builder = new MeshBuilder();
+        int size = 50;
+        for (int y = 0; y <= size; ++y) {
+            for (int x = 0; x <= size; ++x) {
+                builder.addVertex(x, 3, y);
+            }
+        }
+        for (int y = 0; y < size; ++y) {
+            for (int x = 0; x < size; ++x) {
+                int v = y * (size + 1) + x;
+                builder.addPolygonVertex(v, Mesh.NO_INDEX, Mesh.NO_INDEX);
+                builder.addPolygonVertex(v + 1, Mesh.NO_INDEX, Mesh.NO_INDEX);
+                builder.addPolygonVertex(v + size + 2, Mesh.NO_INDEX, Mesh.NO_INDEX);
+                builder.addPolygonVertex(v + size + 1, Mesh.NO_INDEX, Mesh.NO_INDEX);
+                builder.endPolygon();
+            }
+        }
+        Mesh mesh = builder.build();
+        Mesh simplified = MeshSimplifier.simplify(mesh, mesh.getBounds().bounds, 10);
+        Assertions.assertTrue(simplified.getPolygonCount() > 0);
+        Assertions.assertTrue(simplified.getPolygonCount() <= 121);
+        for (int i = 0; i < simplified.vertices.length; i += 3) {
+            Assertions.assertEquals(3, simplified.vertices[i + 1], 1e-4);
+        }
+    }
+
+    @Test
+    public void testChainSelection() {
+        Mesh mesh = sphere(400, 200);
+        Assertions.assertTrue(mesh.getPolygonCount() >= LodChain.MIN_POLYGON_COUNT);
+        LodChain chain = LodChain.build(mesh, mesh.getBounds());
+        Assertions.assertTrue(chain.getLevelCount() >= 2);
+        for (int level = 1; level < chain.getLevelCount(); ++level) {
+            Assertions.assertTrue(chain.getLevel(level).getPolygonCount() * 2 <= chain.getLevel(level - 1).getPolygonCount());
+        }
+
+        Model model = new Model(mesh);
+        Assertions.assertSame(mesh, model.getLevelOfDetail(10));
+        mesh.setLodChain(chain);
+        // Маленькая модель на экране — самый грубый уровень, большая — исходная модель
+        Assertions.assertSame(chain.getLevel(chain.getLevelCount() - 1), model.getLevelOfDetail(5));
+        Assertions.assertSame(mesh, model.getLevelOfDetail(100000));
+        Mesh middle = model.getLevelOfDetail(100);
+        Assertions.assertNotSame(mesh, middle);
+        Assertions.assertTrue(middle.getPolygonCount() > model.getLevelOfDetail(5).getPolygonCount());
+
+        // После изменения вершин уровни устаревают, исходная модель остаётся неизменной
+        int polygonCount = mesh.getPolygonCount();
+        mesh.vertices[0] += 1;
+        mesh.verticesChanged();
+        Assertions.assertSame(mesh, model.getLevelOfDetail(5));
+        mesh.getBounds();
+        Assertions.assertSame(mesh, model.getLevelOfDetail(5));
+        Assertions.assertEquals(polygonCount, model.mesh.getPolygonCount());
+    }
+
+    @Test
+    public void testSmallModelHasNoLevels() {
+        Mesh mesh = sphere(20, 10);
+        Assertions.assertEquals(0, LodChain.build(mesh, mesh.getBounds()).getLevelCount());
+    }
+}
@@ -0,0 +1,63 @@
+package com.cgvsu.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.cgvsu.TestFixtures.triangleGrid;
+
+class MeshEdgesTest {
+
+    private static Set<Long> edgeSet(MeshEdges edges) {
+        Set<Long> result = new HashSet<>();
+        for (int i = 0; i < edges.edgeVertexIndices.length; i += 2) {
+            int a = edges.edgeVertexIndices[i];
+            int b = edges.edgeVertexIndices[i + 1];
+            Assertions.assertTrue(a < b);
+            Assertions.assertTrue(result.add(((long) a << 32) | b));
+        }
+        return result;
+    }
+
+    @Test
+    public void testSharedEdgeOnce() {
+        Mesh mesh = triangleGrid(1);
+        Set<Long> edges = edgeSet(mesh.getEdges());
+
+        Assertions.assertEquals(5, edges.size());
+        Assertions.assertTrue(edges.contains((0L << 32) | 3));
+    }
+
+    @Test
+    public void testSkipsInvalidPolygons() {
+        MeshBuilder builder = new MeshBuilder();
+        builder.addVertex(0, 0, 0);
+        builder.addVertex(1, 0, 0);
+        builder.addVertex(0, 1, 0);
+        builder.addPolygonVertex(0, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.addPolygonVertex(1, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.addPolygonVertex(1, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.endPolygon();
+        builder.addPolygonVertex(0, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.addPolygonVertex(2, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.addPolygonVertex(5, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.endPolygon();
+
+        Assertions.assertEquals(Set.of(1L), edgeSet(builder.build().getEdges()));
+    }
+
+    @Test
+    public void testLargeMesh() {
+        int size = 300;
+        Mesh mesh = triangleGrid(size);
+        MeshEdges edges = mesh.getEdges();
+
+        // Рёбра сетки: горизонтальные, вертикальные и диагонали
+        Assertions.assertEquals(2 * size * (size + 1) + size * size, edgeSet(edges).size());
+        // Порядок рёбер не зависит от расписания потоков
+        Assertions.assertArrayEquals(edges.edgeVertexIndices, MeshEdges.build(mesh).edgeVertexIndices);
+        Assertions.assertSame(edges, mesh.getEdges());
+    }
+}
@@ -0,0 +1,136 @@
+package com.cgvsu.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MeshTriangulationTest {
+
+    // Многоугольник в плоскости z = 0 из точек (x, y), затем повёрнутый так, что плоскость становится x = 0
+    private static Mesh polygon(boolean rotated, float... points) {
+        MeshBuilder builder = new MeshBuilder();
+        for (int i = 0; i < points.length; i += 2) {
+            if (rotated) {
+                builder.addVertex(0, points[i], points[i + 1]);
+            } else {
+                builder.addVertex(points[i], points[i + 1], 0);
+            }
+            builder.addPolygonVertex(i / 2, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        }
+        builder.endPolygon();
+        return builder.build();
+    }
+
+    // Звезда из 2 * rays вершин: лучи длины 2 и впадины на расстоянии 1, обход против часовой стрелки
+    private static float[] star(int rays) {
+        float[] points = new float[4 * rays];
+        for (int i = 0; i < 2 * rays; ++i) {
+            double angle = Math.PI * i / rays;
+            double radius = i % 2 == 0 ? 2 : 1;
+            points[2 * i] = (float) (radius * Math.cos(angle));
+            points[2 * i + 1] = (float) (radius * Math.sin(angle));
+        }
+        return points;
+    }
+
+    // Вектор удвоенной площади треугольника углов a, b, c
+    private static double[] doubleArea(Mesh mesh, int a, int b, int c) {
+        float[] v = mesh.vertices;
+        int ia = 3 * mesh.vertexIndices[a], ib = 3 * mesh.vertexIndices[b], ic = 3 * mesh.vertexIndices[c];
+        double abX = v[ib] - v[ia], abY = v[ib + 1] - v[ia + 1], abZ = v[ib + 2] - v[ia + 2];
+        double acX = v[ic] - v[ia], acY = v[ic + 1] - v[ia + 1], acZ = v[ic + 2] - v[ia + 2];
+        return new double[]{abY * acZ - abZ * acY, abZ * acX - abX * acZ, abX * acY - abY * acX};
+    }
+
+    // Треугольники покрывают многоугольник без наложений: их площади в сумме дают его площадь,
+    // и все они обходятся в ту же сторону, что и он
+    private static void assertCovers(Mesh mesh, double expectedArea, double[] normal) {
+        MeshTriangulation triangulation = mesh.getTriangulation();
+        Assertions.assertEquals(mesh.getPolygonVertexCount(0) - 2, triangulation.getTriangleCount());
+        double area = 0;
+        for (int i = 0; i < triangulation.getTriangleCount(); ++i) {
+            Assertions.assertEquals(0, triangulation.trianglePolygons[i]);
+            double[] cross = doubleArea(mesh, triangulation.triangleCorners[3 * i],
+                    triangulation.triangleCorners[3 * i + 1], triangulation.triangleCorners[3 * i + 2]);
+            double dot = cross[0] * normal[0] + cross[1] * normal[1] + cross[2] * normal[2];
+            Assertions.assertTrue(dot >= 0);
+            area += dot / 2;
+        }
+        Assertions.assertEquals(expectedArea, area, 1e-4);
+    }
+
+    @Test
+    public void testConvexPolygonIsFan() {
+        Mesh mesh = polygon(false, 0, 0, 1, 0, 1, 1, 0, 1);
+        MeshTriangulation triangulation = mesh.getTriangulation();
+        Assertions.assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3}, triangulation.triangleCorners);
+        Assertions.assertArrayEquals(new int[]{0, 0}, triangulation.trianglePolygons);
+        Assertions.assertSame(triangulation, mesh.getTriangulation());
+    }
+
+    @Test
+    public void testConcavePolygons() {
+        // Буква L из шести вершин: площадь 3
+        float[] letterL = {0, 0, 2, 0, 2, 1, 1, 1, 1, 2, 0, 2};
+        assertCovers(polygon(false, letterL), 3, new double[]{0, 0, 1});
+        assertCovers(polygon(true, letterL), 3, new double[]{1, 0, 0});
+
+        // Звезда: 2 * rays треугольников с основанием 1 (впадина) и вершиной на луче
+        int rays = 7;
+        double starArea = 2 * rays * 0.5 * 2 * 1 * Math.sin(Math.PI / rays);
+        assertCovers(polygon(false, star(rays)), starArea, new double[]{0, 0, 1});
+        assertCovers(polygon(true, star(rays)), starArea, new double[]{1, 0, 0});
+
+        // Тот же многоугольник с обходом по часовой стрелке: нормаль в другую сторону
+        float[] reversed = new float[letterL.length];
+        for (int i = 0; i < letterL.length; i += 2) {
+            reversed[i] = letterL[letterL.length - 2 - i];
+            reversed[i + 1] = letterL[letterL.length - 1 - i];
+        }
+        assertCovers(polygon(false, reversed), 3, new double[]{0, 0, -1});
+    }
+
+    @Test
+    public void testInvalidPolygonsAreSkipped() {
+        MeshBuilder builder = new MeshBuilder();
+        for (int i = 0; i < 4; ++i) {
+            builder.addVertex(i % 2, i / 2, 0);
+        }
+        int[][] polygons = {{0, 1, 3}, {0, 1}, {0, 1, 7}, {0, 1, 3, 2}};
+        for (int[] polygon : polygons) {
+            for (int vertexInd : polygon) {
+                builder.addPolygonVertex(vertexInd, Mesh.NO_INDEX, Mesh.NO_INDEX);
+            }
+            builder.endPolygon();
+        }
+        MeshTriangulation triangulation = builder.build().getTriangulation();
+        Assertions.assertArrayEquals(new int[]{0, 3, 3}, triangulation.trianglePolygons);
+        Assertions.assertArrayEquals(new int[]{0, 1, 2, 8, 9, 10, 8, 10, 11}, triangulation.triangleCorners);
+    }
+
+    @Test
+    public void testLargeMesh() {
+        // Много звёзд: разбиение идёт участками, но каждая звезда разбита так же, как отдельная
+        MeshBuilder builder = new MeshBuilder();
+        float[] points = star(5);
+        int starCount = 10000;
+        for (int starInd = 0; starInd < starCount; ++starInd) {
+            for (int i = 0; i < points.length; i += 2) {
+                builder.addVertex(points[i] + 5 * starInd, points[i + 1], 0);
+                builder.addPolygonVertex(starInd * 10 + i / 2, Mesh.NO_INDEX, Mesh.NO_INDEX);
+            }
+            builder.endPolygon();
+        }
+        Mesh mesh = builder.build();
+        MeshTriangulation single = polygon(false, points).getTriangulation();
+        MeshTriangulation triangulation = mesh.getTriangulation();
+        Assertions.assertEquals(8 * starCount, triangulation.getTriangleCount());
+        for (int i = 0; i < triangulation.getTriangleCount(); ++i) {
+            int starInd = i / 8;
+            Assertions.assertEquals(starInd, triangulation.trianglePolygons[i]);
+            for (int j = 0; j < 3; ++j) {
+                Assertions.assertEquals(single.triangleCorners[3 * (i % 8) + j] + 10 * starInd,
+                        triangulation.triangleCorners[3 * i + j]);
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.cgvsu.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+class MeshWelderTest {
+
+    // Сетка size x size квадратов в плоскости z = 0, у каждого квадрата свои четыре вершины и текстурные
+    // вершины, как в OBJ, где вершины повторяются для каждого полигона; jitter — сдвиг копий вершин
+    private static Mesh separateQuads(int size, float jitter, Random random) {
+        MeshBuilder builder = new MeshBuilder();
+        int[][] corners = {{0, 0}, {1, 0}, {1, 1}, {0, 1}};
+        for (int row = 0; row < size; ++row) {
+            for (int column = 0; column < size; ++column) {
+                for (int[] corner : corners) {
+                    builder.addVertex(
+                            column + corner[0] + (random.nextFloat() - 0.5F) * jitter,
+                            row + corner[1] + (random.nextFloat() - 0.5F) * jitter,
+                            (random.nextFloat() - 0.5F) * jitter);
+                    builder.addTextureVertex(corner[0], corner[1]);
+                }
+                int first = builder.getVertexCount() - 4;
+                for (int i = 0; i < 4; ++i) {
+                    builder.addPolygonVertex(first + i, first + i, Mesh.NO_INDEX);
+                }
+                builder.endPolygon();
+            }
+        }
+        return builder.build();
+    }
+
+    // Каждый угол каждого полигона после слияния остаётся на месте с точностью до distance
+    private static void assertCornersKept(Mesh source, Mesh welded, float distance) {
+        Assertions.assertEquals(source.vertexIndices.length, welded.vertexIndices.length);
+        for (int i = 0; i < source.vertexIndices.length; ++i) {
+            int before = source.vertexIndices[i];
+            int after = welded.vertexIndices[i];
+            for (int axis = 0; axis < 3; ++axis) {
+                Assertions.assertEquals(source.vertices[3 * before + axis], welded.vertices[3 * after + axis], distance);
+            }
+            Assertions.assertEquals(source.textureVertexIndices[i], welded.textureVertexIndices[i]);
+        }
+    }
+
+    @Test
+    public void testExactDuplicates() {
+        Mesh mesh = separateQuads(3, 0, new Random(1));
+        MeshWelder.Result result = MeshWelder.weld(mesh, 0);
+
+        Assertions.assertEquals(16, result.mesh.getVertexCount());
+        Assertions.assertEquals(36 - 16, result.removedVertexCount);
+        Assertions.assertEquals(0, result.removedPolygonCount);
+        Assertions.assertEquals(9, result.mesh.getPolygonCount());
+        assertCornersKept(mesh, result.mesh, 0);
+        // Текстурные координаты не сливаются и остаются общими с исходной моделью
+        Assertions.assertSame(mesh.textureVertices, result.mesh.textureVertices);
+
+        // Сливать больше нечего: та же модель
+        MeshWelder.Result again = MeshWelder.weld(result.mesh, 0);
+        Assertions.assertSame(result.mesh, again.mesh);
+        Assertions.assertEquals(0, again.removedVertexCount);
+    }
+
+    @Test
+    public void testDegeneratePolygons() {
+        MeshBuilder builder = new MeshBuilder();
+        builder.addVertex(0, 0, 0);
+        builder.addVertex(1, 0, 0);
+        builder.addVertex(0, 1, 0);
+        builder.addVertex(1, 1e-4F, 0);
+        builder.addVertex(-1e-4F, 1, 0);
+        // Треугольник, который остаётся
+        builder.addPolygonVertex(0, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.addPolygonVertex(1, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.addPolygonVertex(2, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.endPolygon();
+        // Две вершины треугольника сливаются: остаётся отрезок, полигон пропадает
+        builder.addPolygonVertex(0, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.addPolygonVertex(1, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.addPolygonVertex(3, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.endPolygon();
+        // Четырёхугольник становится треугольником
+        builder.addPolygonVertex(0, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.addPolygonVertex(3, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.addPolygonVertex(2, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.addPolygonVertex(4, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.endPolygon();
+
+        MeshWelder.Result result = MeshWelder.weld(builder.build(), 1e-3F);
+        Assertions.assertEquals(2, result.removedVertexCount);
+        Assertions.assertEquals(1, result.removedPolygonCount);
+        Assertions.assertArrayEquals(new int[]{0, 3, 6}, result.mesh.polygonOffsets);
+        Assertions.assertArrayEquals(new int[]{0, 1, 2, 0, 1, 2}, result.mesh.vertexIndices);
+    }
+
+    @Test
+    public void testRepeatedVertexNotAdjacent() {
+        MeshBuilder builder = new MeshBuilder();
+        builder.addVertex(0, 0, 0);
+        builder.addVertex(1, 0, 0);
+        builder.addVertex(1e-4F, 0, 0);
+        builder.addVertex(0, 1, 0);
+        builder.addVertex(1, 1e-4F, 0);
+        // Слились противоположные углы: A B A C
+        for (int vertexInd : new int[]{0, 1, 2, 3}) {
+            builder.addPolygonVertex(vertexInd, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        }
+        builder.endPolygon();
+        // Обе пары противоположных углов: A B A B
+        for (int vertexInd : new int[]{0, 1, 2, 4}) {
+            builder.addPolygonVertex(vertexInd, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        }
+        builder.endPolygon();
+        // Длинный полигон (проверка сортировкой) с повтором после слияния
+        for (int i = 0; i < 20; ++i) {
+            builder.addVertex((float) Math.cos(i * Math.PI / 10) + 5, (float) Math.sin(i * Math.PI / 10), 0);
+            builder.addPolygonVertex(5 + i, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        }
+        builder.addVertex(6 + 1e-4F, 0, 0);
+        builder.addPolygonVertex(25, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.addPolygonVertex(6, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.endPolygon();
+        // Треугольник, который остаётся
+        for (int vertexInd : new int[]{0, 1, 3}) {
+            builder.addPolygonVertex(vertexInd, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        }
+        builder.endPolygon();
+
+        MeshWelder.Result result = MeshWelder.weld(builder.build(), 1e-3F);
+        Assertions.assertEquals(3, result.removedVertexCount);
+        Assertions.assertEquals(3, result.removedPolygonCount);
+        Assertions.assertArrayEquals(new int[]{0, 3}, result.mesh.polygonOffsets);
+        Assertions.assertArrayEquals(new int[]{0, 1, 2}, result.mesh.vertexIndices);
+    }
+
+    @Test
+    public void testParallelMatchesSeparateQuads() {
+        // Больше порога параллельной обработки: 4 * 150 * 150 вершин
+        Random random = new Random(7);
+        Mesh mesh = separateQuads(150, 1e-4F, random);
+        MeshWelder.Result result = MeshWelder.weld(mesh, 1e-3F);
+
+        Assertions.assertEquals(151 * 151, result.mesh.getVertexCount());
+        Assertions.assertEquals(4 * 150 * 150 - 151 * 151, result.removedVertexCount);
+        Assertions.assertEquals(0, result.removedPolygonCount);
+        assertCornersKept(mesh, result.mesh, 2e-4F);
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        // Точки кучками на случайных расстояниях около epsilon, в случайном порядке
+        Random random = new Random(13);
+        List<float[]> points = new ArrayList<>();
+        for (int i = 0; i < 300; ++i) {
+            float x = random.nextFloat() * 2, y = random.nextFloat() * 2, z = random.nextFloat() * 2;
+            for (int copy = 0; copy < 3; ++copy) {
+                points.add(new float[]{
+                        x + random.nextFloat() * 0.02F, y + random.nextFloat() * 0.02F, z + random.nextFloat() * 0.02F});
+            }
+        }
+        Collections.shuffle(points, random);
+        MeshBuilder builder = new MeshBuilder();
+        for (float[] point : points) {
+            builder.addVertex(point[0], point[1], point[2]);
+        }
+        for (int i = 0; i + 2 < points.size(); i += 3) {
+            for (int j = 0; j < 3; ++j) {
+                builder.addPolygonVertex(i + j, Mesh.NO_INDEX, Mesh.NO_INDEX);
+            }
+            builder.endPolygon();
+        }
+        Mesh mesh = builder.build();
+        float epsilon = 0.015F;
+        MeshWelder.Result result = MeshWelder.weld(mesh, epsilon);
+
+        // По определению: вершина переходит в вершину наименьшего номера не дальше epsilon, та — дальше
+        int[] target = new int[points.size()];
+        int expectedCount = 0;
+        for (int i = 0; i < points.size(); ++i) {
+            target[i] = i;
+            for (int j = 0; j < i; ++j) {
+                float dx = points.get(j)[0] - points.get(i)[0];
+                float dy = points.get(j)[1] - points.get(i)[1];
+                float dz = points.get(j)[2] - points.get(i)[2];
+                if (dx * dx + dy * dy + dz * dz <= epsilon * epsilon) {
+                    target[i] = target[j];
+                    break;
+                }
+            }
+            if (target[i] == i) {
+                ++expectedCount;
+            }
+        }
+        Assertions.assertEquals(expectedCount, result.mesh.getVertexCount());
+        Assertions.assertEquals(points.size() - expectedCount, result.removedVertexCount);
+        int weldedInd = 0;
+        for (int polygonInd = 0; polygonInd < mesh.getPolygonCount(); ++polygonInd) {
+            int start = mesh.polygonOffsets[polygonInd];
+            int a = target[start], b = target[start + 1], c = target[start + 2];
+            if (a == b || b == c || c == a) {
+                continue;
+            }
+            int weldedStart = result.mesh.polygonOffsets[weldedInd++];
+            Assertions.assertArrayEquals(points.get(a), vertex(result.mesh, result.mesh.vertexIndices[weldedStart]));
+            Assertions.assertArrayEquals(points.get(b), vertex(result.mesh, result.mesh.vertexIndices[weldedStart + 1]));
+            Assertions.assertArrayEquals(points.get(c), vertex(result.mesh, result.mesh.vertexIndices[weldedStart + 2]));
+        }
+        Assertions.assertEquals(weldedInd, result.mesh.getPolygonCount());
+        Assertions.assertEquals(mesh.getPolygonCount() - weldedInd, result.removedPolygonCount);
+    }
+
+    private static float[] vertex(Mesh mesh, int vertexInd) {
+        return new float[]{mesh.vertices[3 * vertexInd], mesh.vertices[3 * vertexInd + 1], mesh.vertices[3 * vertexInd + 2]};
+    }
+}
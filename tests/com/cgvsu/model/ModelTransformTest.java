@@ -0,0 +1,153 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Vector3f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class ModelTransformTest {
+
+    private static float[] transform(ModelTransform transform, float... points) {
+        float[] result = new float[points.length];
+        transform.transformPoints(points, points.length / 3, result);
+        return result;
+    }
+
+    @Test
+    public void testRotationsMatchVertexRotation() {
+        // Повороты в ту же сторону, что и прежние кнопки, переписывавшие вершины
+        ModelTransform transform = new ModelTransform();
+        transform.rotate(90, 0, 0);
+        Assertions.assertArrayEquals(new float[]{0, 0, 1}, transform(transform, 0, 1, 0), 1e-6F);
+        transform.reset();
+        transform.rotate(0, 90, 0);
+        Assertions.assertArrayEquals(new float[]{0, 0, -1}, transform(transform, 1, 0, 0), 1e-6F);
+        transform.reset();
+        transform.rotate(0, 0, 90);
+        Assertions.assertArrayEquals(new float[]{0, 1, 0}, transform(transform, 1, 0, 0), 1e-6F);
+
+        // Сначала масштаб, затем поворот, затем перенос
+        transform.reset();
+        transform.translate(10, 0, 0);
+        transform.scale(2);
+        transform.rotate(0, 0, 90);
+        Assertions.assertArrayEquals(new float[]{10, 2, 0}, transform(transform, 1, 0, 0), 1e-5F);
+
+        // Матрица по строкам даёт то же, что transformPoints
+        float[] m = new float[16];
+        transform.getMatrix().get(m);
+        float[] point = {0.3F, -2, 5};
+        float[] expected = transform(transform, point);
+        for (int axis = 0; axis < 3; ++axis) {
+            Assertions.assertEquals(expected[axis],
+                    point[0] * m[axis] + point[1] * m[4 + axis] + point[2] * m[8 + axis] + m[12 + axis], 1e-5F);
+        }
+    }
+
+    @Test
+    public void testFullTurnHasNoDrift() {
+        ModelTransform transform = new ModelTransform();
+        for (int i = 0; i < 72 * 10; ++i) {
+            transform.rotate(5, -5, 5);
+        }
+        Assertions.assertArrayEquals(new float[]{1, 2, 3}, transform(transform, 1, 2, 3), 1e-4F);
+    }
+
+    @Test
+    public void testTransformBounds() {
+        Random random = new Random(7);
+        ModelTransform transform = new ModelTransform();
+        transform.rotate(30, 45, -60);
+        transform.scale(2, 0.5F, 1);
+        transform.translate(5, -3, 1);
+        float[] bounds = {-1, -2, -3, 4, 5, 6};
+        float[] worldBounds = new float[6];
+        transform.transformBounds(bounds, worldBounds);
+
+        // Все точки параллелепипеда после преобразования внутри нового, углы касаются его граней
+        float[] touched = new float[6];
+        for (int corner = 0; corner < 8; ++corner) {
+            float[] point = transform(transform,
+                    bounds[(corner & 1) * 3], bounds[1 + ((corner >> 1) & 1) * 3], bounds[2 + ((corner >> 2) & 1) * 3]);
+            for (int axis = 0; axis < 3; ++axis) {
+                touched[axis] = corner == 0 ? point[axis] : Math.min(touched[axis], point[axis]);
+                touched[axis + 3] = corner == 0 ? point[axis] : Math.max(touched[axis + 3], point[axis]);
+            }
+        }
+        Assertions.assertArrayEquals(touched, worldBounds, 1e-4F);
+        for (int i = 0; i < 100; ++i) {
+            float[] point = transform(transform,
+                    bounds[0] + random.nextFloat() * 5, bounds[1] + random.nextFloat() * 7, bounds[2] + random.nextFloat() * 9);
+            for (int axis = 0; axis < 3; ++axis) {
+                Assertions.assertTrue(point[axis] >= worldBounds[axis] - 1e-4F && point[axis] <= worldBounds[axis + 3] + 1e-4F);
+            }
+        }
+    }
+
+    @Test
+    public void testNormalsStayPerpendicular() {
+        // Плоскость x + y = 0 после растяжения вдоль x: нормаль перпендикулярна образу (1, -1, 0)
+        ModelTransform transform = new ModelTransform();
+        transform.scale(2, 1, 1);
+        float[] normal = new float[3];
+        transform.transformNormals(new float[]{1, 1, 0}, 1, normal);
+        float[] tangent = transform(transform, 1, -1, 0);
+        Assertions.assertEquals(0, normal[0] * tangent[0] + normal[1] * tangent[1] + normal[2] * tangent[2], 1e-6F);
+        Assertions.assertEquals(1, Math.sqrt(normal[0] * normal[0] + normal[1] * normal[1] + normal[2] * normal[2]), 1e-6);
+    }
+
+    @Test
+    public void testBakeTransform() {
+        MeshBuilder builder = new MeshBuilder();
+        builder.addVertex(0, 0, 0);
+        builder.addVertex(1, 0, 0);
+        builder.addVertex(0, 1, 0);
+        for (int i = 0; i < 3; ++i) {
+            builder.addPolygonVertex(i, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        }
+        builder.endPolygon();
+        Model model = new Model(builder.build());
+        MeshBounds bounds = model.mesh.getBounds();
+        model.transform.rotate(0, 0, 90);
+        model.transform.translate(0, 0, 5);
+        float[] worldBounds = model.getWorldBounds().clone();
+
+        // До переноса вершины не меняются, после — положение единичное, а модель на том же месте
+        Assertions.assertArrayEquals(new float[]{0, 0, 0, 1, 0, 0, 0, 1, 0}, model.mesh.vertices);
+        float[] expected = transform(model.transform, model.mesh.vertices);
+        Mesh source = model.mesh;
+        MeshTriangulation triangulation = source.getTriangulation();
+        model.bakeTransform();
+        Assertions.assertTrue(model.transform.isIdentity());
+        Assertions.assertArrayEquals(expected, model.mesh.vertices);
+        // Исходная Mesh (возможно, общая с другими моделями) не меняется, полигоны и треугольники общие
+        Assertions.assertArrayEquals(new float[]{0, 0, 0, 1, 0, 0, 0, 1, 0}, source.vertices);
+        Assertions.assertSame(triangulation, model.mesh.getTriangulation());
+        Assertions.assertTrue(source.isCurrentBounds(bounds));
+        Assertions.assertFalse(model.mesh.isCurrentBounds(bounds));
+        Assertions.assertArrayEquals(worldBounds, model.getWorldBounds(), 1e-6F);
+    }
+
+    @Test
+    public void testInverseTransformPoint() {
+        ModelTransform transform = new ModelTransform();
+        transform.rotate(30, 45, -60);
+        transform.scale(2, -0.5F, 1);
+        transform.translate(5, -3, 1);
+        Assertions.assertTrue(transform.isMirrored());
+        Vector3f local = new Vector3f();
+        transform.inverseTransformPoint(new Vector3f(0.3F, -2, 5), local);
+        float[] point = transform(transform, local.x, local.y, local.z);
+        Assertions.assertArrayEquals(new float[]{0.3F, -2, 5}, point, 1e-5F);
+
+        // Масштаб, при котором определитель матрицы обращается в ноль: точка всё равно конечна
+        transform.reset();
+        transform.scale(1e-20F);
+        Assertions.assertEquals(0, transform.getMatrix().determinant());
+        Assertions.assertFalse(transform.isMirrored());
+        transform.inverseTransformPoint(new Vector3f(1, 0, 0), local);
+        Assertions.assertEquals(1e20F, local.x, 1e14F);
+        Assertions.assertEquals(0, local.y);
+    }
+}
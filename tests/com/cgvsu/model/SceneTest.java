@@ -0,0 +1,181 @@
+package com.cgvsu.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+class SceneTest {
+
+    // Треугольник со стороной 1 в точке (x, y, z)
+    private static Model triangle(float x, float y, float z) {
+        MeshBuilder builder = new MeshBuilder();
+        builder.addVertex(x, y, z);
+        builder.addVertex(x + 1, y, z);
+        builder.addVertex(x, y + 1, z + 1);
+        for (int i = 0; i < 3; ++i) {
+            builder.addPolygonVertex(i, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        }
+        builder.endPolygon();
+        return new Model(builder.build());
+    }
+
+    // Проверка пересечения с параллелепипедом [min, max]
+    private static BoundsPredicate box(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        return (bounds, offset) -> bounds[offset] <= bounds[offset + 3]
+                && bounds[offset] <= maxX && bounds[offset + 3] >= minX
+                && bounds[offset + 1] <= maxY && bounds[offset + 4] >= minY
+                && bounds[offset + 2] <= maxZ && bounds[offset + 5] >= minZ;
+    }
+
+    private static Set<Model> bruteForce(Scene scene, BoundsPredicate test) {
+        Set<Model> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Model model : scene.getModels()) {
+            if (test.intersects(model.getWorldBounds(), 0)) {
+                result.add(model);
+            }
+        }
+        return result;
+    }
+
+    private static void assertSameVisible(Scene scene, BoundsPredicate test) {
+        List<Model> visible = new ArrayList<>();
+        scene.collectVisibleModels(test, visible);
+        Set<Model> actual = Collections.newSetFromMap(new IdentityHashMap<>());
+        actual.addAll(visible);
+        Assertions.assertEquals(visible.size(), actual.size());
+        Assertions.assertEquals(bruteForce(scene, test), actual);
+    }
+
+    @Test
+    public void testCollectVisibleModels() {
+        Random random = new Random(3);
+        Scene scene = new Scene();
+        for (int i = 0; i < 500; ++i) {
+            scene.addModel(triangle(random.nextFloat() * 100, random.nextFloat() * 100, random.nextFloat() * 100));
+        }
+        assertSameVisible(scene, box(0, 0, 0, 30, 30, 30));
+        assertSameVisible(scene, box(40, -10, 60, 70, 200, 65));
+        assertSameVisible(scene, box(200, 200, 200, 300, 300, 300));
+        assertSameVisible(scene, (bounds, offset) -> true);
+    }
+
+    @Test
+    public void testSceneChanges() {
+        Random random = new Random(5);
+        Scene scene = new Scene();
+        List<Model> models = new ArrayList<>();
+        for (int i = 0; i < 200; ++i) {
+            Model model = triangle(random.nextFloat() * 100, random.nextFloat() * 100, random.nextFloat() * 100);
+            models.add(model);
+            scene.addModel(model);
+        }
+        BoundsPredicate test = box(0, 0, 0, 50, 50, 50);
+        assertSameVisible(scene, test);
+
+        // Перемещённые модели
+        for (int i = 0; i < 200; i += 7) {
+            float[] vertices = models.get(i).mesh.vertices;
+            for (int j = 0; j < vertices.length; ++j) {
+                vertices[j] = 100 - vertices[j];
+            }
+            scene.modelChanged(models.get(i));
+        }
+        assertSameVisible(scene, test);
+
+        // Удалённые и добавленные модели
+        for (int i = 0; i < 200; i += 3) {
+            scene.removeModel(models.get(i));
+        }
+        scene.addModel(triangle(10, 10, 10));
+        assertSameVisible(scene, test);
+
+        // Изменение после перестроения
+        Model moved = scene.getModels().get(0);
+        float[] vertices = moved.mesh.vertices;
+        for (int j = 0; j < vertices.length; ++j) {
+            vertices[j] += 1000;
+        }
+        scene.modelChanged(moved);
+        assertSameVisible(scene, test);
+        assertSameVisible(scene, box(1000, 1000, 1000, 1200, 1200, 1200));
+
+        // Перемещение положением модели, без изменения вершин
+        for (int i = 1; i < scene.getModels().size(); i += 5) {
+            Model model = scene.getModels().get(i);
+            model.transform.translate(500, 0, 0);
+            model.transform.rotate(0, 30, 0);
+            scene.transformChanged(model);
+        }
+        assertSameVisible(scene, test);
+        assertSameVisible(scene, box(450, -100, -100, 700, 200, 200));
+    }
+
+    @Test
+    public void testRemoveActiveModel() {
+        Scene scene = new Scene();
+        Model first = triangle(0, 0, 0);
+        Model second = triangle(5, 0, 0);
+        scene.addModel(first);
+        scene.addModel(second);
+        Assertions.assertSame(first, scene.getActiveModel());
+        scene.removeModel(first);
+        Assertions.assertSame(second, scene.getActiveModel());
+        scene.removeModel(second);
+        Assertions.assertNull(scene.getActiveModel());
+
+        List<Model> visible = new ArrayList<>();
+        scene.collectVisibleModels((bounds, offset) -> true, visible);
+        Assertions.assertTrue(visible.isEmpty());
+    }
+
+    @Test
+    public void testInstances() {
+        Scene scene = new Scene();
+        Model source = triangle(0, 0, 0);
+        scene.addModel(source);
+        List<Model> instances = new ArrayList<>();
+        for (int i = 1; i <= 100; ++i) {
+            Model instance = scene.addInstance(source);
+            instance.transform.translate(10 * i, 0, 0);
+            instances.add(instance);
+        }
+        scene.addModel(triangle(0, 50, 0));
+
+        // Сотня размещений одной геометрии: Mesh две, вершины не копируются
+        Assertions.assertEquals(102, scene.getModels().size());
+        Assertions.assertEquals(2, scene.getMeshCount());
+        for (Model instance : instances) {
+            Assertions.assertSame(source.mesh, instance.mesh);
+        }
+        assertSameVisible(scene, box(495, -1, -1, 505, 2, 2));
+        List<Model> visible = new ArrayList<>();
+        scene.collectVisibleModels(box(495, -1, -1, 505, 2, 2), visible);
+        Assertions.assertEquals(List.of(instances.get(49)), visible);
+
+        // Изменение вершин общей Mesh сдвигает все экземпляры
+        for (int i = 1; i < source.mesh.vertices.length; i += 3) {
+            source.mesh.vertices[i] += 20;
+        }
+        scene.modelChanged(instances.get(0));
+        assertSameVisible(scene, box(-1, 19, -1, 2000, 22, 2));
+        scene.collectVisibleModels(box(-1, 19, -1, 2000, 22, 2), visible);
+        Assertions.assertEquals(101, visible.size());
+
+        // Перенос положения в вершины не затрагивает другие экземпляры
+        Model baked = instances.get(0);
+        baked.bakeTransform();
+        scene.modelChanged(baked);
+        Assertions.assertNotSame(source.mesh, baked.mesh);
+        Assertions.assertSame(source.mesh.vertexIndices, baked.mesh.vertexIndices);
+        Assertions.assertEquals(0, source.mesh.vertices[0]);
+        Assertions.assertEquals(10, baked.mesh.vertices[0]);
+        Assertions.assertEquals(3, scene.getMeshCount());
+        assertSameVisible(scene, box(-1, 19, -1, 2000, 22, 2));
+    }
+}
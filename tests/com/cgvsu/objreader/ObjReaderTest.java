@@ -1,35 +1,46 @@
 package com.cgvsu.objreader;
 
 import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.MeshBuilder;
+import com.cgvsu.model.MeshPreview;
+import com.cgvsu.model.Model;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 class ObjReaderTest {
 
     @Test
     public void testParseVertex01() {
-        ArrayList<String> wordsInLineWithoutToken = new ArrayList<>(Arrays.asList("1.01", "1.02", "1.03"));
-        Vector3f result = ObjReader.parseVertex(wordsInLineWithoutToken, 5);
+        ObjTokenizer wordsInLineWithoutToken = new ObjTokenizer("1.01 1.02 1.03");
+        MeshBuilder builder = new MeshBuilder();
+        ObjReader.parseVertex(wordsInLineWithoutToken, builder, 5);
+        Vector3f result = builder.build().getVertex(0);
         Vector3f expectedResult = new Vector3f(1.01f, 1.02f, 1.03f);
         Assertions.assertTrue(result.equals(expectedResult));
     }
 
     @Test
     public void testParseVertex02() {
-        ArrayList<String> wordsInLineWithoutToken = new ArrayList<>(Arrays.asList("1.01", "1.02", "1.03"));
-        Vector3f result = ObjReader.parseVertex(wordsInLineWithoutToken, 5);
+        ObjTokenizer wordsInLineWithoutToken = new ObjTokenizer("1.01 1.02 1.03");
+        MeshBuilder builder = new MeshBuilder();
+        ObjReader.parseVertex(wordsInLineWithoutToken, builder, 5);
+        Vector3f result = builder.build().getVertex(0);
         Vector3f expectedResult = new Vector3f(1.01f, 1.02f, 1.10f);
         Assertions.assertFalse(result.equals(expectedResult));
     }
 
     @Test
     public void testParseVertex03() {
-        ArrayList<String> wordsInLineWithoutToken = new ArrayList<>(Arrays.asList("ab", "o", "ba"));
+        ObjTokenizer wordsInLineWithoutToken = new ObjTokenizer("ab o ba");
         try {
-            ObjReader.parseVertex(wordsInLineWithoutToken, 10);
+            ObjReader.parseVertex(wordsInLineWithoutToken, new MeshBuilder(), 10);
         } catch (ObjReaderException exception) {
             String expectedError = "Error parsing OBJ file on line: 10. Failed to parse float value.";
             Assertions.assertEquals(expectedError, exception.getMessage());
@@ -38,9 +49,9 @@ class ObjReaderTest {
 
     @Test
     public void testParseVertex04() {
-        ArrayList<String> wordsInLineWithoutToken = new ArrayList<>(Arrays.asList("1.0", "2.0"));
+        ObjTokenizer wordsInLineWithoutToken = new ObjTokenizer("1.0 2.0");
         try {
-            ObjReader.parseVertex(wordsInLineWithoutToken, 10);
+            ObjReader.parseVertex(wordsInLineWithoutToken, new MeshBuilder(), 10);
         } catch (ObjReaderException exception) {
             String expectedError = "Error parsing OBJ file on line: 10. Too few vertex arguments.";
             Assertions.assertEquals(expectedError, exception.getMessage());
@@ -55,12 +66,198 @@ class ObjReaderTest {
         Assertions.assertTrue(false);
 
 
-        ArrayList<String> wordsInLineWithoutToken = new ArrayList<>(Arrays.asList("1.0", "2.0", "3.0", "4.0"));
+        ObjTokenizer wordsInLineWithoutToken = new ObjTokenizer("1.0 2.0 3.0 4.0");
         try {
-            ObjReader.parseVertex(wordsInLineWithoutToken, 10);
+            ObjReader.parseVertex(wordsInLineWithoutToken, new MeshBuilder(), 10);
         } catch (ObjReaderException exception) {
             String expectedError = "";
             Assertions.assertEquals(expectedError, exception.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testReadPath01() throws IOException {
+        String fileContent = "v 0 0 0\r\nv 1 0 0\nv 0 1 0\nvt 0 0\nvt 1 0\nvt 0 1\nf 1/1 2/2 3/3";
+        Path file = Files.createTempFile("model", ".obj");
+        try {
+            Files.writeString(file, fileContent);
+            Model expected = ObjReader.read(fileContent);
+            Model result = ObjReader.read(file);
+
+            Assertions.assertArrayEquals(expected.mesh.vertices, result.mesh.vertices);
+            Assertions.assertArrayEquals(expected.mesh.textureVertices, result.mesh.textureVertices);
+            Assertions.assertArrayEquals(expected.mesh.polygonOffsets, result.mesh.polygonOffsets);
+            Assertions.assertArrayEquals(expected.mesh.textureVertexIndices, result.mesh.textureVertexIndices);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadPath02() throws IOException {
+        Path file = Files.createTempFile("model", ".obj");
+        try {
+            Files.writeString(file, "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 4\n");
+            try {
+                ObjReader.read(file);
+                Assertions.fail();
+            } catch (ObjReaderException exception) {
+                String expectedError = "Error parsing OBJ file on line: 4. The polygon is specified incorrectly: v index out of bounds.";
+                Assertions.assertEquals(expectedError, exception.getMessage());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadRelativeIndices() {
+        Model result = ObjReader.read("v 0 0 0\nv 1 0 0\nv 0 1 0\nf -3 -2 -1\nv 1 1 0\nf 2 -1 3");
+        Assertions.assertEquals(Arrays.asList(0, 1, 2), result.mesh.getPolygon(0).getVertexIndices());
+        Assertions.assertEquals(Arrays.asList(1, 3, 2), result.mesh.getPolygon(1).getVertexIndices());
+    }
+
+    @Test
+    public void testReadParallel01() throws IOException {
+        StringBuilder fileContent = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            fileContent.append("v ").append(i).append(" 0 0\nv ").append(i).append(" 1 0\nv ").append(i).append(" 0 1\n");
+            fileContent.append("vt 0 0\nf -3/-1 -2/-1 -1/-1\n");
+        }
+        Path file = Files.createTempFile("model", ".obj");
+        try {
+            Files.writeString(file, fileContent);
+            Model expected = ObjReader.read(file, false);
+            Model result = ParallelObjReader.read(file, 64, ObjValidationMode.STRICT, null);
+
+            Assertions.assertArrayEquals(expected.mesh.vertices, result.mesh.vertices);
+            Assertions.assertArrayEquals(expected.mesh.polygonOffsets, result.mesh.polygonOffsets);
+            Assertions.assertArrayEquals(expected.mesh.vertexIndices, result.mesh.vertexIndices);
+            Assertions.assertArrayEquals(expected.mesh.textureVertexIndices, result.mesh.textureVertexIndices);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadParallel02() throws IOException {
+        Path file = Files.createTempFile("model", ".obj");
+        try {
+            Files.writeString(file, "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1/1 2/1 3/1\nvt 0 0\n# comment\nf 1 2 3\nf 1 2 x\n");
+            try {
+                ParallelObjReader.read(file, 16, ObjValidationMode.STRICT, null);
+                Assertions.fail();
+            } catch (ObjReaderException exception) {
+                String expectedError = "Error parsing OBJ file on line: 7. Polygon has no texture vertices.";
+                Assertions.assertEquals(expectedError, exception.getMessage());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadDuplicatesInLargePolygon() {
+        StringBuilder fileContent = new StringBuilder();
+        StringBuilder face = new StringBuilder("f");
+        for (int i = 1; i <= 100; i++) {
+            fileContent.append("v ").append(i).append(" 0 0\n");
+            face.append(' ').append(i);
+        }
+        face.append(" 57");
+        try {
+            ObjReader.read(fileContent + face.toString());
+            Assertions.fail();
+        } catch (ObjReaderException exception) {
+            String expectedError = "Error parsing OBJ file on line: 101. The polygon contains duplicate vertex indices.";
+            Assertions.assertEquals(expectedError, exception.getMessage());
+        }
+    }
+
+    @Test
+    public void testReadLenient() {
+        String fileContent = "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3\nf 1 2\nf 1 2 5\nf 1 1 2\nf 0 1 2\nf -4 1 2\nf 3 2 1";
+        Model result = ObjReader.read(fileContent, ObjValidationMode.LENIENT);
+        Assertions.assertEquals(2, result.mesh.getPolygonCount());
+        Assertions.assertEquals(Arrays.asList(0, 1, 2), result.mesh.getPolygon(0).getVertexIndices());
+        Assertions.assertEquals(Arrays.asList(2, 1, 0), result.mesh.getPolygon(1).getVertexIndices());
+    }
+
+    @Test
+    public void testReadTrusted() {
+        String fileContent = "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 1 2\nf 3 2 1";
+        Model result = ObjReader.read(fileContent, ObjValidationMode.TRUSTED);
+        Assertions.assertEquals(2, result.mesh.getPolygonCount());
+        Assertions.assertEquals(Arrays.asList(0, 0, 1), result.mesh.getPolygon(0).getVertexIndices());
+    }
+
+    @Test
+    public void testReadProgress() throws IOException {
+        Path file = Files.createTempFile("model", ".obj");
+        try {
+            Files.writeString(file, "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3\n");
+            long size = Files.size(file);
+            List<Long> progress = new ArrayList<>();
+            ObjReader.read(file, false, ObjValidationMode.STRICT, (read, total) -> {
+                Assertions.assertEquals(size, total);
+                progress.add(read);
+            });
+            Assertions.assertEquals(List.of(size), progress);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadCancelled() throws IOException {
+        Path file = Files.createTempFile("model", ".obj");
+        try {
+            Files.writeString(file, "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3\n");
+            Thread.currentThread().interrupt();
+            try {
+                ObjReader.read(file, false, ObjValidationMode.STRICT, null);
+                Assertions.fail();
+            } catch (IOException exception) {
+                Assertions.assertTrue(Thread.interrupted());
+            }
+        } finally {
+            Thread.interrupted();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadPreview() throws IOException {
+        StringBuilder fileContent = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            fileContent.append("v ").append(i).append(" 0 0\nv ").append(i).append(" 1 0\nv ").append(i).append(" 0 1\n");
+            fileContent.append("f -3 -2 -1\n");
+        }
+        Path file = Files.createTempFile("model", ".obj");
+        try {
+            Files.writeString(file, fileContent);
+            List<MeshPreview> previews = new ArrayList<>();
+            Model result = ParallelObjReader.read(file, 64, ObjValidationMode.STRICT, new ObjReader.ProgressListener() {
+                @Override
+                public void onProgress(long read, long total) {
+                }
+
+                @Override
+                public void onPreview(MeshPreview preview) {
+                    previews.add(preview);
+                }
+            });
+
+            Assertions.assertTrue(previews.size() > 1);
+            for (int i = 1; i < previews.size(); i++) {
+                Assertions.assertTrue(previews.get(i).polygonCount >= previews.get(i - 1).polygonCount);
+            }
+            MeshPreview last = previews.get(previews.size() - 1);
+            Assertions.assertEquals(result.mesh.getPolygonCount(), last.polygonCount);
+            Assertions.assertArrayEquals(result.mesh.vertices, Arrays.copyOf(last.vertices, 3 * last.vertexCount));
+            Assertions.assertArrayEquals(result.mesh.polygonOffsets, Arrays.copyOf(last.polygonOffsets, last.polygonCount + 1));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.cgvsu.render_engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FrameBufferTest {
+
+    private static final int COLOR = 0xFF123456;
+
+    private static int countPixels(FrameBuffer frameBuffer) {
+        int count = 0;
+        for (int pixel : frameBuffer.getPixels()) {
+            if (pixel == COLOR) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testDrawHorizontalLine() {
+        FrameBuffer frameBuffer = new FrameBuffer(10, 5);
+        frameBuffer.setColor(COLOR);
+        frameBuffer.drawLine(2, 3, 7, 3);
+
+        for (int x = 2; x <= 7; ++x) {
+            Assertions.assertEquals(COLOR, frameBuffer.getPixel(x, 3));
+        }
+        Assertions.assertEquals(6, countPixels(frameBuffer));
+    }
+
+    @Test
+    public void testDrawDiagonalLine() {
+        FrameBuffer frameBuffer = new FrameBuffer(8, 8);
+        frameBuffer.setColor(COLOR);
+        frameBuffer.drawLine(7, 7, 0, 0);
+
+        for (int i = 0; i < 8; ++i) {
+            Assertions.assertEquals(COLOR, frameBuffer.getPixel(i, i));
+        }
+        Assertions.assertEquals(8, countPixels(frameBuffer));
+    }
+
+    @Test
+    public void testDrawLineClipped() {
+        FrameBuffer frameBuffer = new FrameBuffer(10, 10);
+        frameBuffer.setColor(COLOR);
+        frameBuffer.drawLine(-100, 5, 1e9F, 5);
+
+        for (int x = 0; x < 10; ++x) {
+            Assertions.assertEquals(COLOR, frameBuffer.getPixel(x, 5));
+        }
+        Assertions.assertEquals(10, countPixels(frameBuffer));
+    }
+
+    @Test
+    public void testDrawLineOutside() {
+        FrameBuffer frameBuffer = new FrameBuffer(10, 10);
+        frameBuffer.setColor(COLOR);
+        frameBuffer.drawLine(-5, -1, 20, -3);
+        frameBuffer.drawLine(-5, 3, 3, -5);
+        frameBuffer.drawLine(0, 0, Float.NaN, 5);
+
+        Assertions.assertEquals(0, countPixels(frameBuffer));
+    }
+
+    @Test
+    public void testResizeAndClear() {
+        FrameBuffer frameBuffer = new FrameBuffer(4, 4);
+        frameBuffer.resize(6, 3);
+        frameBuffer.clear(COLOR);
+
+        Assertions.assertEquals(6, frameBuffer.getWidth());
+        Assertions.assertEquals(3, frameBuffer.getHeight());
+        Assertions.assertEquals(18, countPixels(frameBuffer));
+    }
+}
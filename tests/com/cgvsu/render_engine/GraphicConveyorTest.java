@@ -0,0 +1,79 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class GraphicConveyorTest {
+
+    @Test
+    public void testLookAtIntoMatrix() {
+        Vector3f eye = new Vector3f(3, -2, 10);
+        Vector3f target = new Vector3f(0.5F, 1, -1);
+        Matrix4f result = new Matrix4f();
+        GraphicConveyor.lookAt(eye, target, result);
+
+        Vector3f resultZ = target.subtract(eye);
+        Vector3f resultX = new Vector3f(0, 1, 0).cross(resultZ);
+        Vector3f resultY = resultZ.cross(resultX);
+        resultX = resultX.normalize();
+        resultY = resultY.normalize();
+        resultZ = resultZ.normalize();
+        Matrix4f expected = new Matrix4f(new float[]{
+                resultX.x, resultY.x, resultZ.x, 0,
+                resultX.y, resultY.y, resultZ.y, 0,
+                resultX.z, resultY.z, resultZ.z, 0,
+                -resultX.dot(eye), -resultY.dot(eye), -resultZ.dot(eye), 1});
+
+        Assertions.assertTrue(expected.epsilonEquals(result, 1e-5F));
+    }
+
+    @Test
+    public void testProjectVertices() {
+        Matrix4f matrix = GraphicConveyor.lookAt(new Vector3f(1, 2, 50), new Vector3f(0, 0, 0));
+        matrix.mul(GraphicConveyor.perspective(1.0F, 1.5F, 0.01F, 100));
+        float[] vertices = {0, 0, 0, 1.5F, -2, 3, -7, 4.25F, -0.5F};
+        float[] result = new float[3 * 3];
+        GraphicConveyor.projectVertices(matrix, vertices, 3, 1600, 870, result);
+
+        for (int vertexInd = 0; vertexInd < 3; ++vertexInd) {
+            Vector3f vertex = new Vector3f(vertices[3 * vertexInd], vertices[3 * vertexInd + 1], vertices[3 * vertexInd + 2]);
+            Vector2f expected = GraphicConveyor.vertexToPoint(
+                    GraphicConveyor.multiplyMatrix4ByVector3(matrix, vertex), 1600, 870);
+            Assertions.assertEquals(expected.x, result[3 * vertexInd]);
+            Assertions.assertEquals(expected.y, result[3 * vertexInd + 1]);
+        }
+    }
+
+    @Test
+    public void testProjectionKernelsAgree() {
+        // Векторное ядро, если оно собрано (mvn -Pvector) и модуль подключён (тесты можно запустить
+        // с --add-modules jdk.incubator.vector и без него), должно совпадать со скалярным до бита,
+        // в том числе на остатке и за камерой
+        ProjectionKernel kernel = ProjectionKernel.select();
+        boolean vectorKernelBuilt = ProjectionKernel.class.getResource("VectorProjectionKernel.class") != null;
+        Assertions.assertEquals(vectorKernelBuilt && ModuleLayer.boot().findModule(ProjectionKernel.VECTOR_MODULE).isPresent(),
+                kernel != ProjectionKernel.SCALAR);
+
+        Matrix4f matrix = GraphicConveyor.lookAt(new Vector3f(1, 2, 5), new Vector3f(0, 0, 0));
+        matrix.mul(GraphicConveyor.perspective(1.0F, 1.5F, 0.01F, 100));
+        Random random = new Random(13);
+        for (int vertexCount : new int[]{0, 1, 7, 16, 37, 100, 1000}) {
+            float[] vertices = new float[3 * vertexCount];
+            for (int i = 0; i < vertices.length; ++i) {
+                vertices[i] = random.nextFloat() * 20 - 10;
+            }
+            for (int fromVertex : new int[]{0, Math.min(3, vertexCount)}) {
+                float[] expected = new float[vertices.length];
+                float[] result = new float[vertices.length];
+                ProjectionKernel.SCALAR.project(matrix, vertices, fromVertex, vertexCount, 1600, 870, expected);
+                kernel.project(matrix, vertices, fromVertex, vertexCount, 1600, 870, result);
+                Assertions.assertArrayEquals(expected, result);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static com.cgvsu.TestFixtures.countPixels;
+import static com.cgvsu.TestFixtures.triangleGrid;
+
+class ParallelRendererTest {
+
+    @Test
+    public void testSameAsSequential() {
+        Model model = new Model(triangleGrid(120, new Random(7)));
+        // Камера видит только часть сетки, чтобы часть рёбер обрезалась по краям кадра
+        Camera camera = new Camera(new Vector3f(40, 30, 60), new Vector3f(45, 40, 0), 1.0F, 1, 0.01F, 100);
+        camera.setAspectRatio(300.0F / 200);
+
+        FrameBuffer expected = new FrameBuffer(300, 200);
+        RenderEngine.render(expected, camera, model);
+        Assertions.assertTrue(countPixels(expected) > 10000);
+
+        ParallelRenderer renderer = new ParallelRenderer(4);
+        try {
+            FrameBuffer result = new FrameBuffer(300, 200);
+            renderer.render(result, camera, model);
+            Assertions.assertArrayEquals(expected.getPixels(), result.getPixels());
+
+            // Повторный кадр с переиспользованными массивами даёт то же изображение
+            result.clear(0);
+            renderer.render(result, camera, model);
+            Assertions.assertArrayEquals(expected.getPixels(), result.getPixels());
+        } finally {
+            renderer.shutdown();
+        }
+    }
+
+    @Test
+    public void testSameAsSequentialTransformed() {
+        Model model = new Model(triangleGrid(120, new Random(7)));
+        model.transform.rotate(20, -10, 35);
+        model.transform.scale(0.5F);
+        model.transform.translate(-10, 5, -20);
+        Camera camera = new Camera(new Vector3f(20, 20, 60), new Vector3f(25, 30, 0), 1.0F, 1, 0.01F, 100);
+        camera.setAspectRatio(300.0F / 200);
+
+        FrameBuffer expected = new FrameBuffer(300, 200);
+        RenderEngine.render(expected, camera, model);
+        Assertions.assertTrue(countPixels(expected) > 10000);
+
+        ParallelRenderer renderer = new ParallelRenderer(4);
+        try {
+            FrameBuffer result = new FrameBuffer(300, 200);
+            renderer.render(result, camera, model);
+            Assertions.assertArrayEquals(expected.getPixels(), result.getPixels());
+        } finally {
+            renderer.shutdown();
+        }
+    }
+
+    @Test
+    public void testSameAsSequentialInsideModel() {
+        Model model = new Model(triangleGrid(120, new Random(7)));
+        // Камера над сеткой, смотрит вдоль неё: часть рёбер уходит за ближнюю плоскость, часть
+        // групп рёбер целиком вне кадра
+        Camera camera = new Camera(new Vector3f(60, 20, 3), new Vector3f(60, 80, 0), 1.0F, 1, 0.01F, 100);
+        camera.setAspectRatio(300.0F / 200);
+
+        FrameBuffer expected = new FrameBuffer(300, 200);
+        RenderEngine.render(expected, camera, model);
+        Assertions.assertTrue(countPixels(expected) > 10000);
+
+        ParallelRenderer renderer = new ParallelRenderer(4);
+        try {
+            FrameBuffer result = new FrameBuffer(300, 200);
+            renderer.render(result, camera, model);
+            Assertions.assertArrayEquals(expected.getPixels(), result.getPixels());
+        } finally {
+            renderer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.MeshBuilder;
+import com.cgvsu.model.Model;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static com.cgvsu.TestFixtures.camera;
+import static com.cgvsu.TestFixtures.countPixels;
+
+class SolidRenderTest {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 100;
+
+    @AfterEach
+    public void resetRenderMode() {
+        RenderEngine.setRenderMode(RenderMode.WIREFRAME);
+        RenderEngine.setFillColor(javafx.scene.paint.Color.LIGHTGRAY);
+    }
+
+    private static Model polygons(float[] vertices, int[]... polygons) {
+        MeshBuilder builder = new MeshBuilder();
+        for (int i = 0; i < vertices.length; i += 3) {
+            builder.addVertex(vertices[i], vertices[i + 1], vertices[i + 2]);
+        }
+        for (int[] polygon : polygons) {
+            for (int vertexInd : polygon) {
+                builder.addPolygonVertex(vertexInd, Mesh.NO_INDEX, Mesh.NO_INDEX);
+            }
+            builder.endPolygon();
+        }
+        return new Model(builder.build());
+    }
+
+    // Куб [-1, 1]^3, обход граней против часовой стрелки при взгляде снаружи
+    private static Model cube() {
+        return polygons(
+                new float[]{-1, -1, -1, 1, -1, -1, 1, 1, -1, -1, 1, -1, -1, -1, 1, 1, -1, 1, 1, 1, 1, -1, 1, 1},
+                new int[]{4, 5, 6, 7}, new int[]{0, 3, 2, 1}, new int[]{1, 2, 6, 5},
+                new int[]{0, 4, 7, 3}, new int[]{3, 7, 6, 2}, new int[]{0, 1, 5, 4});
+    }
+
+    // Квадрат со стороной 2 в плоскости z, лицевой стороной к +z
+    private static Model square(float z) {
+        return polygons(new float[]{-1, -1, z, 1, -1, z, 1, 1, z, -1, 1, z}, new int[]{0, 1, 2, 3});
+    }
+
+    private static FrameBuffer render(RenderMode mode, Camera camera, Model... models) {
+        RenderEngine.setRenderMode(mode);
+        FrameBuffer frameBuffer = new FrameBuffer(WIDTH, HEIGHT);
+        for (Model model : models) {
+            RenderEngine.render(frameBuffer, camera, model);
+        }
+        return frameBuffer;
+    }
+
+    @Test
+    public void testBackFacesAreCulled() {
+        Camera camera = camera(new Vector3f(0, 0, 5), new Vector3f(0, 0, 0), WIDTH, HEIGHT);
+        Model front = polygons(new float[]{-1, -1, 0, 1, -1, 0, 0, 1, 0}, new int[]{0, 1, 2});
+        Model back = polygons(new float[]{-1, -1, 0, 1, -1, 0, 0, 1, 0}, new int[]{0, 2, 1});
+
+        Assertions.assertTrue(countPixels(render(RenderMode.SOLID, camera, front)) > 100);
+        Assertions.assertEquals(0, countPixels(render(RenderMode.SOLID, camera, back)));
+
+        // С обратной стороны — наоборот
+        Camera behind = camera(new Vector3f(0, 0, -5), new Vector3f(0, 0, 0), WIDTH, HEIGHT);
+        Assertions.assertEquals(0, countPixels(render(RenderMode.SOLID, behind, front)));
+        Assertions.assertTrue(countPixels(render(RenderMode.SOLID, behind, back)) > 100);
+    }
+
+    @Test
+    public void testNearerFaceWins() {
+        Camera camera = camera(new Vector3f(0.5F, 0.5F, 5), new Vector3f(0.5F, 0.5F, 0), WIDTH, HEIGHT);
+        Model near = square(1);
+        Model far = polygons(new float[]{0, 0, -1, 3, 0, -1, 3, 3, -1, 0, 3, -1}, new int[]{0, 1, 2, 3});
+
+        RenderEngine.setFillColor(javafx.scene.paint.Color.RED);
+        FrameBuffer nearOnly = render(RenderMode.SOLID, camera, near);
+        RenderEngine.setFillColor(javafx.scene.paint.Color.BLUE);
+        FrameBuffer farOnly = render(RenderMode.SOLID, camera, far);
+
+        // Порядок отрисовки не важен: где грани перекрываются, видна ближняя
+        for (Model[] order : new Model[][]{{near, far}, {far, near}}) {
+            RenderEngine.setRenderMode(RenderMode.SOLID);
+            FrameBuffer frameBuffer = new FrameBuffer(WIDTH, HEIGHT);
+            RenderEngine.setFillColor(order[0] == near ? javafx.scene.paint.Color.RED : javafx.scene.paint.Color.BLUE);
+            RenderEngine.render(frameBuffer, camera, order[0]);
+            RenderEngine.setFillColor(order[1] == near ? javafx.scene.paint.Color.RED : javafx.scene.paint.Color.BLUE);
+            RenderEngine.render(frameBuffer, camera, order[1]);
+            for (int i = 0; i < frameBuffer.getPixels().length; ++i) {
+                int expected = nearOnly.getPixels()[i] != 0 ? nearOnly.getPixels()[i] : farOnly.getPixels()[i];
+                Assertions.assertEquals(expected, frameBuffer.getPixels()[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testHiddenLinesAreRemoved() {
+        Model cube = cube();
+        Camera camera = camera(new Vector3f(0, 0, 5), new Vector3f(0, 0, 0), WIDTH, HEIGHT);
+        FrameBuffer wireframe = render(RenderMode.WIREFRAME, camera, cube);
+        FrameBuffer hiddenLine = render(RenderMode.HIDDEN_LINE, camera, cube);
+
+        // Видна только передняя грань: её контур, без задней грани и рёбер вглубь
+        FrameBuffer frontFace = render(RenderMode.WIREFRAME, camera, square(1));
+        Assertions.assertEquals(countPixels(frontFace), countPixels(hiddenLine));
+        Assertions.assertTrue(countPixels(hiddenLine) < countPixels(wireframe));
+        for (int i = 0; i < hiddenLine.getPixels().length; ++i) {
+            Assertions.assertEquals(frontFace.getPixels()[i], hiddenLine.getPixels()[i]);
+        }
+    }
+
+    @Test
+    public void testFaceCrossingNearPlaneIsClipped() {
+        // Пол под камерой уходит за её спину; видимая часть закрывает низ кадра
+        Model floor = polygons(new float[]{-100, -1, 100, 100, -1, 100, 100, -1, -100, -100, -1, -100}, new int[]{0, 1, 2, 3});
+        Camera camera = camera(new Vector3f(0, 0, 0), new Vector3f(0, 0, -1), WIDTH, HEIGHT);
+        FrameBuffer frameBuffer = render(RenderMode.SOLID, camera, floor);
+
+        Assertions.assertNotEquals(0, frameBuffer.getPixels()[(HEIGHT - 1) * WIDTH + WIDTH / 2]);
+        Assertions.assertEquals(0, frameBuffer.getPixels()[WIDTH / 2]);
+    }
+}
@@ -0,0 +1,140 @@
+package com.cgvsu.render_engine;
+
+import com.cgvsu.math.Matrix4f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Mesh;
+import com.cgvsu.model.MeshBuilder;
+import com.cgvsu.model.Model;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static com.cgvsu.TestFixtures.camera;
+import static com.cgvsu.TestFixtures.countPixels;
+import static com.cgvsu.TestFixtures.quadGrid;
+
+class ViewFrustumTest {
+
+    private static Model segment(float x0, float y0, float z0, float x1, float y1, float z1) {
+        MeshBuilder builder = new MeshBuilder();
+        builder.addVertex(x0, y0, z0);
+        builder.addVertex(x1, y1, z1);
+        builder.addPolygonVertex(0, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.addPolygonVertex(1, Mesh.NO_INDEX, Mesh.NO_INDEX);
+        builder.endPolygon();
+        return new Model(builder.build());
+    }
+
+    @Test
+    public void testModelBehindCameraIsNotDrawn() {
+        Model model = new Model(quadGrid(10));
+        Camera camera = camera(new Vector3f(5, 5, 100), new Vector3f(5, 5, 200), 200, 100);
+        FrameBuffer frameBuffer = new FrameBuffer(200, 100);
+        RenderEngine.render(frameBuffer, camera, model);
+        Assertions.assertEquals(0, countPixels(frameBuffer));
+    }
+
+    @Test
+    public void testModelOutsideFrustumIsCulled() {
+        Model model = new Model(quadGrid(10));
+        ViewFrustum frustum = new ViewFrustum();
+        Matrix4f matrix = new Matrix4f();
+        RenderEngine.modelViewProjectionMatrix(
+                camera(new Vector3f(5, 5, 30), new Vector3f(5, 5, 0), 200, 100), new Matrix4f(), new Matrix4f(), matrix);
+        frustum.set(matrix, 0.01F);
+        Assertions.assertTrue(frustum.intersects(model.mesh.getBounds().bounds, 0));
+
+        // Сетка слева от камеры, за краем кадра
+        RenderEngine.modelViewProjectionMatrix(
+                camera(new Vector3f(500, 5, 30), new Vector3f(500, 5, 0), 200, 100), new Matrix4f(), new Matrix4f(), matrix);
+        frustum.set(matrix, 0.01F);
+        Assertions.assertFalse(frustum.intersects(model.mesh.getBounds().bounds, 0));
+    }
+
+    @Test
+    public void testEdgeCrossingNearPlane() {
+        // Отрезок под камерой уходит за её спину: видимая часть идёт к нижнему краю кадра, а не
+        // переворачивается в верхнюю половину
+        Model model = segment(0, -1, 90, 0, -1, 110);
+        Camera camera = camera(new Vector3f(0, 0, 100), new Vector3f(0, 0, 0), 200, 100);
+        FrameBuffer frameBuffer = new FrameBuffer(200, 100);
+        RenderEngine.render(frameBuffer, camera, model);
+
+        Assertions.assertTrue(countPixels(frameBuffer) > 0);
+        for (int y = 0; y < 50; ++y) {
+            for (int x = 0; x < 200; ++x) {
+                Assertions.assertEquals(0, frameBuffer.getPixel(x, y));
+            }
+        }
+        Assertions.assertNotEquals(0, frameBuffer.getPixel(100, 99));
+    }
+
+    @Test
+    public void testCullingKeepsVisibleEdges() {
+        // Несколько групп рёбер, из которых в кадр попадает только часть
+        Model model = new Model(quadGrid(80));
+        Assertions.assertTrue(model.mesh.getBounds().getClusterCount() > 1);
+        Camera camera = camera(new Vector3f(10, 10, 8), new Vector3f(10, 10, 0), 300, 200);
+
+        FrameBuffer result = new FrameBuffer(300, 200);
+        RenderEngine.render(result, camera, model);
+
+        // Все рёбра без отсечения групп: вся сетка перед камерой
+        Matrix4f matrix = new Matrix4f();
+        RenderEngine.modelViewProjectionMatrix(camera, new Matrix4f(), new Matrix4f(), matrix);
+        float[] points = new float[3 * model.mesh.getVertexCount()];
+        GraphicConveyor.projectVertices(matrix, model.mesh.vertices, model.mesh.getVertexCount(), 300, 200, points);
+        FrameBuffer expected = new FrameBuffer(300, 200);
+        expected.setColor(RenderEngine.getStrokeColor());
+        int[] edgeVertexIndices = model.mesh.getEdges().edgeVertexIndices;
+        for (int i = 0; i < edgeVertexIndices.length; i += 2) {
+            int a = 3 * edgeVertexIndices[i];
+            int b = 3 * edgeVertexIndices[i + 1];
+            expected.drawLine(points[a], points[a + 1], points[b], points[b + 1]);
+        }
+
+        Assertions.assertTrue(countPixels(expected) > 1000);
+        Assertions.assertArrayEquals(expected.getPixels(), result.getPixels());
+    }
+
+    @Test
+    public void testVerticesChangedResetsBounds() {
+        Model model = new Model(quadGrid(4));
+        Assertions.assertEquals(4, model.mesh.getBounds().bounds[3]);
+        for (int i = 0; i < model.mesh.vertices.length; i += 3) {
+            model.mesh.vertices[i] += 10;
+        }
+        model.mesh.verticesChanged();
+        Assertions.assertEquals(14, model.mesh.getBounds().bounds[3]);
+    }
+
+    @Test
+    public void testTransformedModelMatchesBakedVertices() {
+        Camera camera = camera(new Vector3f(5, 5, 40), new Vector3f(5, 5, 0), 200, 100);
+        Model transformed = new Model(quadGrid(10));
+        transformed.transform.rotate(10, 20, 30);
+        transformed.transform.translate(3, -2, 5);
+        Model baked = new Model(quadGrid(10));
+        baked.transform.set(transformed.transform);
+        baked.bakeTransform();
+
+        FrameBuffer expected = new FrameBuffer(200, 100);
+        RenderEngine.render(expected, camera, baked);
+        FrameBuffer result = new FrameBuffer(200, 100);
+        RenderEngine.render(result, camera, transformed);
+        // Вершины округляются по-разному, поэтому допускаются единичные несовпадающие пиксели
+        long different = 0;
+        for (int i = 0; i < expected.getPixels().length; ++i) {
+            if (expected.getPixels()[i] != result.getPixels()[i]) {
+                ++different;
+            }
+        }
+        Assertions.assertTrue(countPixels(expected) > 500);
+        Assertions.assertTrue(different < countPixels(expected) / 50);
+
+        // Модель, вынесенная положением из кадра, не рисуется
+        transformed.transform.translate(1000, 0, 0);
+        result.clear(0);
+        RenderEngine.render(result, camera, transformed);
+        Assertions.assertEquals(0, countPixels(result));
+    }
+}